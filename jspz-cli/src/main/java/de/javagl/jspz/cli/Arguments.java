@@ -0,0 +1,201 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.javagl.jspz.CoordinateSystem;
+
+/**
+ * Simple parsed command line arguments.
+ *
+ * Options have the form <code>--name value</code>. Flags have the form
+ * <code>--name</code>, and do not have a value. All other arguments are
+ * positional arguments.
+ */
+class Arguments
+{
+    /**
+     * The option values, mapped to the option names
+     */
+    private final Map<String, String> options;
+
+    /**
+     * The flags that have been given
+     */
+    private final List<String> flags;
+
+    /**
+     * The positional arguments
+     */
+    private final List<String> positional;
+
+    /**
+     * Parse the given arguments
+     *
+     * @param args The arguments
+     * @param optionNames The names of the valid options, without the leading
+     *        <code>--</code>
+     * @param flagNames The names of the valid flags, without the leading
+     *        <code>--</code>
+     * @throws IllegalArgumentException If the arguments contain an unknown
+     *         option or flag, or an option without a value
+     */
+    Arguments(List<String> args, Set<String> optionNames,
+        Set<String> flagNames)
+    {
+        this.options = new LinkedHashMap<String, String>();
+        this.flags = new ArrayList<String>();
+        this.positional = new ArrayList<String>();
+        for (int i = 0; i < args.size(); i++)
+        {
+            String arg = args.get(i);
+            if (!arg.startsWith("--"))
+            {
+                positional.add(arg);
+                continue;
+            }
+            String name = arg.substring(2);
+            if (flagNames.contains(name))
+            {
+                flags.add(name);
+            }
+            else if (optionNames.contains(name))
+            {
+                if (i + 1 >= args.size())
+                {
+                    throw new IllegalArgumentException(
+                        "No value given for option " + arg);
+                }
+                options.put(name, args.get(++i));
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    /**
+     * Returns the positional arguments
+     *
+     * @return The positional arguments
+     */
+    List<String> getPositional()
+    {
+        return Collections.unmodifiableList(positional);
+    }
+
+    /**
+     * Returns whether the given flag was given
+     *
+     * @param name The flag name
+     * @return Whether the flag was given
+     */
+    boolean hasFlag(String name)
+    {
+        return flags.contains(name);
+    }
+
+    /**
+     * Returns whether the given option was given
+     *
+     * @param name The option name
+     * @return Whether the option was given
+     */
+    boolean hasOption(String name)
+    {
+        return options.containsKey(name);
+    }
+
+    /**
+     * Returns the value of the given option as an integer
+     *
+     * @param name The option name
+     * @param defaultValue The default value
+     * @return The value, or the default value if the option was not given
+     * @throws IllegalArgumentException If the value is not an integer
+     */
+    int getInt(String name, int defaultValue)
+    {
+        String value = options.get(name);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(
+                "Expected an integer for option --" + name + ", but found "
+                    + value);
+        }
+    }
+
+    /**
+     * Returns the value of the given option as a boolean
+     *
+     * @param name The option name
+     * @param defaultValue The default value
+     * @return The value, or the default value if the option was not given
+     * @throws IllegalArgumentException If the value is neither
+     *         <code>true</code> nor <code>false</code>
+     */
+    Boolean getBoolean(String name, Boolean defaultValue)
+    {
+        String value = options.get(name);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+        if (value.equalsIgnoreCase("true"))
+        {
+            return Boolean.TRUE;
+        }
+        if (value.equalsIgnoreCase("false"))
+        {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException(
+            "Expected true or false for option --" + name + ", but found "
+                + value);
+    }
+
+    /**
+     * Returns the value of the given option as a {@link CoordinateSystem}
+     *
+     * @param name The option name
+     * @return The value, or {@link CoordinateSystem#UNSPECIFIED} if the
+     *         option was not given
+     * @throws IllegalArgumentException If the value is not the name of a
+     *         {@link CoordinateSystem}
+     */
+    CoordinateSystem getCoordinateSystem(String name)
+    {
+        String value = options.get(name);
+        if (value == null)
+        {
+            return CoordinateSystem.UNSPECIFIED;
+        }
+        for (CoordinateSystem c : CoordinateSystem.values())
+        {
+            if (c.name().equalsIgnoreCase(value))
+            {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Expected a coordinate system "
+            + "for option --" + name + ", but found " + value);
+    }
+}
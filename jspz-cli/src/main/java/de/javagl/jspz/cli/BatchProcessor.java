@@ -0,0 +1,273 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A class for processing many SPZ files concurrently.
+ *
+ * The files are processed by a fixed number of worker threads. The memory
+ * that is used by the files that are processed at the same time is bounded:
+ * Before a file is processed, the amount of memory that is required for
+ * the file is estimated and reserved from a fixed budget, and the next
+ * file is only started when enough memory is available. A single file that
+ * exceeds the budget is processed alone.
+ */
+class BatchProcessor
+{
+    /**
+     * Interface for the task that is applied to each file
+     */
+    interface FileTask
+    {
+        /**
+         * Returns the estimated number of bytes of memory that are required
+         * for processing a file with the given size
+         *
+         * @param fileSize The file size, in bytes
+         * @return The estimated memory, in bytes
+         */
+        long estimateMemory(long fileSize);
+
+        /**
+         * Process the given file
+         *
+         * @param file The file
+         * @throws Exception If the file cannot be processed
+         */
+        void process(Path file) throws Exception;
+    }
+
+    /**
+     * The granularity of the memory budget, in bytes
+     */
+    private static final long MEMORY_UNIT = 1 << 20;
+
+    /**
+     * The number of worker threads
+     */
+    private final int numWorkers;
+
+    /**
+     * The memory budget, in units of {@link #MEMORY_UNIT}
+     */
+    private final int memoryUnits;
+
+    /**
+     * Creates a new instance
+     *
+     * @param numWorkers The number of worker threads
+     * @param maxMemoryBytes The memory budget, in bytes
+     * @throws IllegalArgumentException If the number of workers or the
+     *         memory budget is not positive
+     */
+    BatchProcessor(int numWorkers, long maxMemoryBytes)
+    {
+        if (numWorkers <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of workers must be positive, but is "
+                    + numWorkers);
+        }
+        if (maxMemoryBytes <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The memory budget must be positive, but is "
+                    + maxMemoryBytes);
+        }
+        this.numWorkers = numWorkers;
+        long units = Math.max(1, maxMemoryBytes / MEMORY_UNIT);
+        this.memoryUnits = (int) Math.min(Integer.MAX_VALUE, units);
+    }
+
+    /**
+     * Collect all SPZ files from the given paths.
+     *
+     * Each path may be an SPZ file, or a directory that is searched
+     * recursively for files with the extension <code>.spz</code>. The
+     * files of each directory are sorted by their path.
+     *
+     * @param paths The paths
+     * @return The files
+     * @throws IOException If a path does not exist, or a directory cannot be
+     *         read
+     */
+    static List<Path> collectSpzFiles(List<Path> paths) throws IOException
+    {
+        List<Path> result = new ArrayList<Path>();
+        for (Path path : paths)
+        {
+            if (Files.isDirectory(path))
+            {
+                try (Stream<Path> stream = Files.walk(path))
+                {
+                    List<Path> files = stream
+                        .filter(p -> Files.isRegularFile(p) && isSpzFile(p))
+                        .sorted().collect(Collectors.toList());
+                    result.addAll(files);
+                }
+            }
+            else if (Files.isRegularFile(path))
+            {
+                result.add(path);
+            }
+            else
+            {
+                throw new IOException("Input not found: " + path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the given path has the extension <code>.spz</code>
+     *
+     * @param path The path
+     * @return Whether the path is an SPZ file
+     */
+    private static boolean isSpzFile(Path path)
+    {
+        String name = path.getFileName().toString();
+        return name.toLowerCase(Locale.ENGLISH).endsWith(".spz");
+    }
+
+    /**
+     * Process the given files with the given task.
+     *
+     * Exceptions for single files are reported to <code>System.err</code>,
+     * and do not stop the processing of the remaining files. When an
+     * <code>Error</code> (like an <code>OutOfMemoryError</code>) is thrown
+     * while processing a file, then no further files are started, the
+     * threads that are currently processing files are interrupted, and the
+     * error is thrown by this method.
+     *
+     * @param files The files
+     * @param task The task
+     * @return The number of files that could not be processed
+     * @throws InterruptedException If the calling thread is interrupted
+     */
+    int process(List<Path> files, FileTask task) throws InterruptedException
+    {
+        Semaphore memory = new Semaphore(memoryUnits);
+        AtomicReference<Error> fatalError = new AtomicReference<Error>();
+        AtomicInteger completed = new AtomicInteger();
+        List<Path> failedFiles =
+            Collections.synchronizedList(new ArrayList<Path>());
+        int total = files.size();
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+        try
+        {
+            for (Path file : files)
+            {
+                int units = reservedUnits(task, file);
+                memory.acquire(units);
+                if (fatalError.get() != null)
+                {
+                    break;
+                }
+                Runnable runnable = () ->
+                {
+                    try
+                    {
+                        task.process(file);
+                    }
+                    catch (Exception e)
+                    {
+                        failedFiles.add(file);
+                        System.err.println("Error processing " + file + ": "
+                            + e);
+                    }
+                    catch (Error e)
+                    {
+                        if (fatalError.compareAndSet(null, e))
+                        {
+                            System.err.println("Error processing " + file
+                                + ": " + e + ", stopping");
+                        }
+                        executor.shutdownNow();
+                        throw e;
+                    }
+                    finally
+                    {
+                        memory.release(units);
+                        int done = completed.incrementAndGet();
+                        if (total > 1)
+                        {
+                            System.err.println(
+                                "Processed " + done + " of " + total);
+                        }
+                    }
+                };
+                try
+                {
+                    executor.submit(runnable);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // The executor was shut down due to an error
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        Error error = fatalError.get();
+        if (error != null)
+        {
+            throw error;
+        }
+        if (!failedFiles.isEmpty())
+        {
+            System.err.println("Failed to process " + failedFiles.size()
+                + " of " + total + " files");
+        }
+        return failedFiles.size();
+    }
+
+    /**
+     * Returns the number of memory units that are reserved for processing
+     * the given file
+     *
+     * @param task The task
+     * @param file The file
+     * @return The number of units
+     */
+    private int reservedUnits(FileTask task, Path file)
+    {
+        long fileSize;
+        try
+        {
+            fileSize = Files.size(file);
+        }
+        catch (IOException e)
+        {
+            // The error will be reported when the file is processed
+            fileSize = 0;
+        }
+        long bytes = task.estimateMemory(fileSize);
+        long units = (bytes + MEMORY_UNIT - 1) / MEMORY_UNIT;
+        return (int) Math.max(1, Math.min(memoryUnits, units));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import de.javagl.jspz.GaussianCloud;
+import de.javagl.jspz.SpzReader;
+import de.javagl.jspz.SpzReaders;
+import de.javagl.jspz.SpzWriter;
+import de.javagl.jspz.SpzWriters;
+
+/**
+ * Implementation of the <code>bench</code> command, which measures the
+ * time for reading and writing SPZ files
+ */
+class BenchCommand implements Command
+{
+    /**
+     * The factor for estimating the memory that is required for reading and
+     * writing a Gaussian cloud from the size of the SPZ file
+     */
+    private static final long BENCH_SIZE_FACTOR = 32;
+
+    @Override
+    public String getName()
+    {
+        return "bench";
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Measure the time for reading and writing SPZ files";
+    }
+
+    @Override
+    public String getUsage()
+    {
+        return "Usage: bench [options] <input>...\n"
+            + "\n"
+            + "Reads and writes each SPZ file in memory, and prints the\n"
+            + "fastest times of all iterations. Each input may be a file or a\n"
+            + "directory that is searched recursively for SPZ files. The\n"
+            + "files are processed one after another by default, so that the\n"
+            + "measurements do not affect each other.\n"
+            + "\n"
+            + "Options:\n"
+            + "  --iterations <n>   The number of iterations. Default: 5\n"
+            + Commands.batchOptionsUsage("1");
+    }
+
+    @Override
+    public Set<String> getOptionNames()
+    {
+        return Commands.batchOptionNames("iterations");
+    }
+
+    @Override
+    public Set<String> getFlagNames()
+    {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public int run(Arguments arguments) throws Exception
+    {
+        List<String> positional = arguments.getPositional();
+        if (positional.isEmpty())
+        {
+            throw new IllegalArgumentException("No input given");
+        }
+        List<Path> inputs = new ArrayList<Path>();
+        for (String p : positional)
+        {
+            inputs.add(Paths.get(p));
+        }
+        int iterations = arguments.getInt("iterations", 5);
+        if (iterations <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of iterations must be positive, but is "
+                    + iterations);
+        }
+        BatchProcessor batchProcessor =
+            Commands.createBatchProcessor(arguments, 1);
+        List<Path> files = BatchProcessor.collectSpzFiles(inputs);
+        int failures =
+            batchProcessor.process(files, new BatchProcessor.FileTask()
+            {
+                @Override
+                public long estimateMemory(long fileSize)
+                {
+                    return fileSize * BENCH_SIZE_FACTOR;
+                }
+
+                @Override
+                public void process(Path file) throws Exception
+                {
+                    System.out.print(benchmark(file, iterations));
+                }
+            });
+        return failures == 0 ? Commands.EXIT_SUCCESS : Commands.EXIT_FAILURE;
+    }
+
+    /**
+     * Run the benchmark for the given file
+     *
+     * @param file The file
+     * @param iterations The number of iterations
+     * @return The result string
+     * @throws Exception If the file cannot be read
+     */
+    private static String benchmark(Path file, int iterations)
+        throws Exception
+    {
+        byte data[] = Files.readAllBytes(file);
+        SpzReader spzReader = SpzReaders.createDefault();
+        SpzWriter spzWriter = SpzWriters.createDefault();
+        long minReadNanos = Long.MAX_VALUE;
+        long minWriteNanos = Long.MAX_VALUE;
+        int numPoints = 0;
+        int writtenBytes = 0;
+        for (int i = 0; i < iterations; i++)
+        {
+            long t0 = System.nanoTime();
+            GaussianCloud g = spzReader.read(new ByteArrayInputStream(data));
+            long t1 = System.nanoTime();
+            ByteArrayOutputStream baos =
+                new ByteArrayOutputStream(data.length);
+            spzWriter.write(g, baos);
+            long t2 = System.nanoTime();
+            minReadNanos = Math.min(minReadNanos, t1 - t0);
+            minWriteNanos = Math.min(minWriteNanos, t2 - t1);
+            numPoints = g.getNumPoints();
+            writtenBytes = baos.size();
+        }
+        double readMs = minReadNanos * 1e-6;
+        double writeMs = minWriteNanos * 1e-6;
+        StringBuilder sb = new StringBuilder();
+        sb.append(file).append("\n");
+        sb.append(String.format(Locale.ENGLISH,
+            "  read:  %10.3f ms, %8.2f MB/s, %8.2f Mpoints/s%n", readMs,
+            data.length / 1e3 / readMs, numPoints / 1e3 / readMs));
+        sb.append(String.format(Locale.ENGLISH,
+            "  write: %10.3f ms, %8.2f MB/s, %8.2f Mpoints/s"
+                + " (%d bytes)%n",
+            writeMs, writtenBytes / 1e3 / writeMs,
+            numPoints / 1e3 / writeMs, writtenBytes));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.util.Set;
+
+/**
+ * Interface for a subcommand of the command line interface
+ */
+interface Command
+{
+    /**
+     * Returns the name of this command
+     *
+     * @return The name
+     */
+    String getName();
+
+    /**
+     * Returns a short, single-line description of this command
+     *
+     * @return The description
+     */
+    String getDescription();
+
+    /**
+     * Returns the usage information for this command
+     *
+     * @return The usage information
+     */
+    String getUsage();
+
+    /**
+     * Returns the names of the options that this command accepts, without
+     * the leading <code>--</code>
+     *
+     * @return The option names
+     */
+    Set<String> getOptionNames();
+
+    /**
+     * Returns the names of the flags that this command accepts, without
+     * the leading <code>--</code>
+     *
+     * @return The flag names
+     */
+    Set<String> getFlagNames();
+
+    /**
+     * Run this command with the given arguments
+     *
+     * @param arguments The {@link Arguments}
+     * @return The exit code
+     * @throws IllegalArgumentException If the arguments are not valid
+     * @throws Exception If the command fails
+     */
+    int run(Arguments arguments) throws Exception;
+}
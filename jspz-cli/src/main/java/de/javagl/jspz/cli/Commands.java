@@ -0,0 +1,145 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Utility methods for the {@link Command} implementations
+ */
+class Commands
+{
+    /**
+     * Returns the usage information for the options that are common to all
+     * commands that process multiple files
+     *
+     * @param defaultWorkers The description of the default number of
+     *        workers
+     * @return The usage information
+     */
+    static String batchOptionsUsage(String defaultWorkers)
+    {
+        return ""
+            + "  --workers <n>      The number of files that are processed\n"
+            + "                     concurrently. Default: " + defaultWorkers
+            + "\n"
+            + "  --max-memory <mb>  The memory budget for the files that are\n"
+            + "                     processed concurrently, in MB. Default:\n"
+            + "                     half of the maximum heap size\n";
+    }
+
+    /**
+     * The exit code for success
+     */
+    static final int EXIT_SUCCESS = 0;
+
+    /**
+     * The exit code for when processing some files failed
+     */
+    static final int EXIT_FAILURE = 1;
+
+    /**
+     * The exit code for invalid arguments
+     */
+    static final int EXIT_USAGE = 2;
+
+    /**
+     * Returns a set with the given names, and the names of the options that
+     * are common to all commands that process multiple files
+     *
+     * @param names The names
+     * @return The set
+     */
+    static Set<String> batchOptionNames(String... names)
+    {
+        Set<String> result = new LinkedHashSet<String>(Arrays.asList(names));
+        result.add("workers");
+        result.add("max-memory");
+        return result;
+    }
+
+    /**
+     * Returns a set with the given names
+     *
+     * @param names The names
+     * @return The set
+     */
+    static Set<String> names(String... names)
+    {
+        return new LinkedHashSet<String>(Arrays.asList(names));
+    }
+
+    /**
+     * Create a {@link BatchProcessor} from the common options in the given
+     * arguments
+     *
+     * @param arguments The {@link Arguments}
+     * @param defaultWorkers The default number of workers
+     * @return The {@link BatchProcessor}
+     * @throws IllegalArgumentException If the options are not valid
+     */
+    static BatchProcessor createBatchProcessor(Arguments arguments,
+        int defaultWorkers)
+    {
+        int workers = arguments.getInt("workers", defaultWorkers);
+        long defaultMemoryMb = Runtime.getRuntime().maxMemory() / 2 / 1024
+            / 1024;
+        int maxMemoryMb = arguments.getInt("max-memory",
+            (int) Math.min(Integer.MAX_VALUE, defaultMemoryMb));
+        return new BatchProcessor(workers, (long) maxMemoryMb * 1024 * 1024);
+    }
+
+    /**
+     * Returns the output path for the given input file.
+     *
+     * When the input is a directory, then the output is resolved against
+     * the given output, with the relative path of the file in the input
+     * directory. Otherwise, the output is returned.
+     *
+     * @param input The input that was given by the user
+     * @param file The input file
+     * @param output The output that was given by the user
+     * @return The output path
+     */
+    static Path resolveOutput(Path input, Path file, Path output)
+    {
+        if (Files.isDirectory(input))
+        {
+            return output.resolve(input.relativize(file).toString());
+        }
+        return output;
+    }
+
+    /**
+     * Returns the given path without the file extension
+     *
+     * @param path The path
+     * @return The path without the extension
+     */
+    static Path removeExtension(Path path)
+    {
+        String name = path.getFileName().toString();
+        int index = name.lastIndexOf('.');
+        if (index <= 0)
+        {
+            return path;
+        }
+        return path.resolveSibling(name.substring(0, index));
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Commands()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
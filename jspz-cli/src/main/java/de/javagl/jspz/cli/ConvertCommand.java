@@ -0,0 +1,215 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import de.javagl.jspz.CoordinateSystem;
+import de.javagl.jspz.SpzTranscoder;
+
+/**
+ * Implementation of the <code>convert</code> command, which converts SPZ
+ * files between versions, coordinate systems, and compression settings
+ */
+class ConvertCommand implements Command
+{
+    /**
+     * The memory that is required for transcoding an SPZ file
+     */
+    private static final long TRANSCODE_MEMORY = 8 << 20;
+
+    @Override
+    public String getName()
+    {
+        return "convert";
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Convert SPZ files between versions and settings";
+    }
+
+    @Override
+    public String getUsage()
+    {
+        return "Usage: convert [options] <input> <output>\n"
+            + "\n"
+            + "Converts an SPZ file, or all SPZ files in a directory tree,\n"
+            + "without decoding the Gaussian clouds. When the input is a\n"
+            + "directory, then the output is a directory that receives the\n"
+            + "converted files with the same relative paths. When the input\n"
+            + "is a file and the output is an existing directory, then the\n"
+            + "converted file is written into this directory, with the\n"
+            + "name of the input file.\n"
+            + "\n"
+            + "Options:\n"
+            + "  --version <v>      The SPZ version to write, 2 or 3.\n"
+            + "                     Default: 3\n"
+            + "  --from <cs>        The source coordinate system, like RUB\n"
+            + "  --to <cs>          The target coordinate system, like LUF\n"
+            + "  --level <l>        The compression level, in [0,9], or -1\n"
+            + "                     for the default level\n"
+            + "  --antialiased <b>  Set the antialiasing flag to true or\n"
+            + "                     false. Default: keep the flag\n"
+            + Commands.batchOptionsUsage("number of processors");
+    }
+
+    @Override
+    public Set<String> getOptionNames()
+    {
+        return Commands.batchOptionNames("version", "from", "to", "level",
+            "antialiased");
+    }
+
+    @Override
+    public Set<String> getFlagNames()
+    {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public int run(Arguments arguments) throws Exception
+    {
+        List<String> positional = arguments.getPositional();
+        if (positional.size() != 2)
+        {
+            throw new IllegalArgumentException(
+                "Expected an input and an output");
+        }
+        Path input = Paths.get(positional.get(0));
+        Path output = resolveOutput(input, Paths.get(positional.get(1)));
+        if (arguments.hasOption("from") != arguments.hasOption("to"))
+        {
+            throw new IllegalArgumentException(
+                "The --from and --to options must be given together");
+        }
+        CoordinateSystem from = arguments.getCoordinateSystem("from");
+        CoordinateSystem to = arguments.getCoordinateSystem("to");
+        int version = arguments.getInt("version", 3);
+        int level =
+            arguments.getInt("level", Deflater.DEFAULT_COMPRESSION);
+        Boolean antialiased = arguments.getBoolean("antialiased", null);
+
+        // Validate the settings once, before processing any file
+        createTranscoder(version, from, to, level, antialiased);
+
+        BatchProcessor batchProcessor = Commands.createBatchProcessor(
+            arguments, Runtime.getRuntime().availableProcessors());
+        List<Path> files =
+            BatchProcessor.collectSpzFiles(Collections.singletonList(input));
+        int failures =
+            batchProcessor.process(files, new BatchProcessor.FileTask()
+            {
+                @Override
+                public long estimateMemory(long fileSize)
+                {
+                    return TRANSCODE_MEMORY;
+                }
+
+                @Override
+                public void process(Path file) throws Exception
+                {
+                    Path target = Commands.resolveOutput(input, file, output);
+                    SpzTranscoder spzTranscoder = createTranscoder(version,
+                        from, to, level, antialiased);
+                    transcode(spzTranscoder, file, target);
+                }
+            });
+        return failures == 0 ? Commands.EXIT_SUCCESS : Commands.EXIT_FAILURE;
+    }
+
+    /**
+     * Returns the output for the given input and the output that was given
+     * by the user. When the input is a file and the given output is an
+     * existing directory, then this is the file in this directory that has
+     * the name of the input file. Otherwise, it is the given output.
+     *
+     * @param input The input
+     * @param output The output that was given by the user
+     * @return The output
+     */
+    private static Path resolveOutput(Path input, Path output)
+    {
+        if (!Files.isDirectory(input) && Files.isDirectory(output))
+        {
+            return output.resolve(input.getFileName().toString());
+        }
+        return output;
+    }
+
+    /**
+     * Create the {@link SpzTranscoder} for the given settings
+     *
+     * @param version The version
+     * @param from The source coordinate system
+     * @param to The target coordinate system
+     * @param level The compression level
+     * @param antialiased The antialiasing flag, or <code>null</code>
+     * @return The {@link SpzTranscoder}
+     * @throws IllegalArgumentException If the settings are not valid
+     */
+    private static SpzTranscoder createTranscoder(int version,
+        CoordinateSystem from, CoordinateSystem to, int level,
+        Boolean antialiased)
+    {
+        SpzTranscoder spzTranscoder = new SpzTranscoder();
+        spzTranscoder.setVersion(version);
+        spzTranscoder.setCoordinateConversion(from, to);
+        spzTranscoder.setCompressionLevel(level);
+        spzTranscoder.setAntialiased(antialiased);
+        return spzTranscoder;
+    }
+
+    /**
+     * Transcode the given file into the given target file
+     *
+     * @param spzTranscoder The {@link SpzTranscoder}
+     * @param file The input file
+     * @param target The target file
+     * @throws IOException If an IO error occurs, or the input and the target
+     *         are the same file. In this case, an incomplete target file
+     *         will be deleted.
+     */
+    private static void transcode(SpzTranscoder spzTranscoder, Path file,
+        Path target) throws IOException
+    {
+        if (Files.exists(target) && Files.isSameFile(file, target))
+        {
+            throw new IOException(
+                "The output may not be the same as the input: " + target);
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null)
+        {
+            Files.createDirectories(parent);
+        }
+        try (InputStream inputStream =
+            new BufferedInputStream(Files.newInputStream(file));
+            OutputStream outputStream =
+                new BufferedOutputStream(Files.newOutputStream(target)))
+        {
+            spzTranscoder.transcode(inputStream, outputStream);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // Do not leave incomplete files in the output
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+}
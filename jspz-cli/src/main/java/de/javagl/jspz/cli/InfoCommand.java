@@ -0,0 +1,190 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import de.javagl.jspz.GaussianCloudStatistics;
+import de.javagl.jspz.SpzBoundsScan;
+import de.javagl.jspz.SpzBoundsScanner;
+import de.javagl.jspz.SpzReader;
+import de.javagl.jspz.SpzReaderOptions;
+import de.javagl.jspz.SpzReaders;
+import de.javagl.jspz.SpzStatistics;
+
+/**
+ * Implementation of the <code>info</code> command, which prints information
+ * about SPZ files
+ */
+class InfoCommand implements Command
+{
+    /**
+     * The factor for estimating the memory that is required for reading a
+     * Gaussian cloud from the size of the SPZ file
+     */
+    private static final long DECODED_SIZE_FACTOR = 16;
+
+    /**
+     * The memory that is required for scanning an SPZ file
+     */
+    private static final long SCAN_MEMORY = 1 << 20;
+
+    @Override
+    public String getName()
+    {
+        return "info";
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Print the header and statistics of SPZ files";
+    }
+
+    @Override
+    public String getUsage()
+    {
+        return "Usage: info [options] <input>...\n"
+            + "\n"
+            + "Prints the header information and bounding box of each SPZ\n"
+            + "file. Each input may be a file or a directory that is searched\n"
+            + "recursively for SPZ files.\n"
+            + "\n"
+            + "Options:\n"
+            + "  --statistics       Read the whole files, and print the\n"
+            + "                     statistics of all attributes\n"
+            + Commands.batchOptionsUsage("number of processors");
+    }
+
+    @Override
+    public Set<String> getOptionNames()
+    {
+        return Commands.batchOptionNames();
+    }
+
+    @Override
+    public Set<String> getFlagNames()
+    {
+        return Commands.names("statistics");
+    }
+
+    @Override
+    public int run(Arguments arguments) throws Exception
+    {
+        List<String> positional = arguments.getPositional();
+        if (positional.isEmpty())
+        {
+            throw new IllegalArgumentException("No input given");
+        }
+        List<Path> inputs = new ArrayList<Path>();
+        for (String p : positional)
+        {
+            inputs.add(Paths.get(p));
+        }
+        boolean statistics = arguments.hasFlag("statistics");
+        BatchProcessor batchProcessor = Commands.createBatchProcessor(
+            arguments, Runtime.getRuntime().availableProcessors());
+        List<Path> files = BatchProcessor.collectSpzFiles(inputs);
+        int failures =
+            batchProcessor.process(files, new BatchProcessor.FileTask()
+            {
+                @Override
+                public long estimateMemory(long fileSize)
+                {
+                    if (statistics)
+                    {
+                        return fileSize * DECODED_SIZE_FACTOR;
+                    }
+                    return SCAN_MEMORY;
+                }
+
+                @Override
+                public void process(Path file) throws Exception
+                {
+                    System.out.print(
+                        statistics ? createStatisticsInfo(file)
+                            : createScanInfo(file));
+                }
+            });
+        return failures == 0 ? Commands.EXIT_SUCCESS : Commands.EXIT_FAILURE;
+    }
+
+    /**
+     * Create the information string for the given file, by scanning its
+     * positions
+     *
+     * @param file The file
+     * @return The information string
+     * @throws Exception If the file cannot be read
+     */
+    private static String createScanInfo(Path file) throws Exception
+    {
+        SpzBoundsScan scan;
+        try (InputStream inputStream =
+            new BufferedInputStream(Files.newInputStream(file)))
+        {
+            scan = new SpzBoundsScanner().scan(inputStream);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(file).append("\n");
+        sb.append("  fileSize: ").append(Files.size(file)).append("\n");
+        sb.append("  version: ").append(scan.getVersion()).append("\n");
+        sb.append("  numPoints: ").append(scan.getNumPoints()).append("\n");
+        sb.append("  shDegree: ").append(scan.getShDegree()).append("\n");
+        sb.append("  antialiased: ").append(scan.isAntialiased())
+            .append("\n");
+        sb.append("  bounds: ").append(Arrays.toString(scan.getBounds()))
+            .append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * Create the information string for the given file, by reading the
+     * whole file
+     *
+     * @param file The file
+     * @return The information string
+     * @throws Exception If the file cannot be read
+     */
+    private static String createStatisticsInfo(Path file) throws Exception
+    {
+        SpzStatistics result[] = new SpzStatistics[1];
+        SpzReaderOptions options = new SpzReaderOptions();
+        options.setCollectingCloudStatistics(true);
+        options.setReadListener(s -> result[0] = s);
+        SpzReader spzReader = SpzReaders.create(options);
+        try (InputStream inputStream =
+            new BufferedInputStream(Files.newInputStream(file)))
+        {
+            spzReader.read(inputStream);
+        }
+        SpzStatistics statistics = result[0];
+        GaussianCloudStatistics cloudStatistics =
+            statistics.getCloudStatistics();
+        StringBuilder sb = new StringBuilder();
+        sb.append(file).append("\n");
+        sb.append("  fileSize: ").append(Files.size(file)).append("\n");
+        sb.append("  version: ").append(statistics.getVersion()).append("\n");
+        sb.append("  numPoints: ").append(statistics.getNumPoints())
+            .append("\n");
+        sb.append("  shDegree: ").append(statistics.getShDegree())
+            .append("\n");
+        sb.append("  bounds: ")
+            .append(Arrays.toString(cloudStatistics.getBounds()))
+            .append("\n");
+        sb.append("  statistics: ").append(cloudStatistics).append("\n");
+        sb.append("  read: ").append(statistics).append("\n");
+        return sb.toString();
+    }
+}
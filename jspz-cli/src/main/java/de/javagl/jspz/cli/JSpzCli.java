@@ -0,0 +1,118 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entry point of the JSpz command line interface
+ */
+public class JSpzCli
+{
+    /**
+     * The available commands, mapped to their names
+     */
+    private static final Map<String, Command> COMMANDS = createCommands();
+
+    /**
+     * Create the map of all available commands
+     *
+     * @return The commands
+     */
+    private static Map<String, Command> createCommands()
+    {
+        Map<String, Command> commands = new LinkedHashMap<String, Command>();
+        List<Command> list = Arrays.asList(new InfoCommand(),
+            new ConvertCommand(), new TileCommand(), new BenchCommand());
+        for (Command command : list)
+        {
+            commands.put(command.getName(), command);
+        }
+        return commands;
+    }
+
+    /**
+     * The entry point
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args)
+    {
+        int exitCode = run(args);
+        System.exit(exitCode);
+    }
+
+    /**
+     * Run the command that is given by the given arguments
+     *
+     * @param args The command line arguments
+     * @return The exit code
+     */
+    static int run(String[] args)
+    {
+        if (args.length == 0 || args[0].equals("--help"))
+        {
+            System.out.print(createUsage());
+            return args.length == 0 ? Commands.EXIT_USAGE
+                : Commands.EXIT_SUCCESS;
+        }
+        Command command = COMMANDS.get(args[0]);
+        if (command == null)
+        {
+            System.err.println("Unknown command: " + args[0]);
+            System.err.print(createUsage());
+            return Commands.EXIT_USAGE;
+        }
+        List<String> commandArgs =
+            Arrays.asList(args).subList(1, args.length);
+        if (commandArgs.contains("--help"))
+        {
+            System.out.print(command.getUsage());
+            return Commands.EXIT_SUCCESS;
+        }
+        try
+        {
+            Arguments arguments = new Arguments(commandArgs,
+                command.getOptionNames(), command.getFlagNames());
+            return command.run(arguments);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            System.err.print(command.getUsage());
+            return Commands.EXIT_USAGE;
+        }
+        catch (Exception e)
+        {
+            System.err.println("Error: " + e);
+            return Commands.EXIT_FAILURE;
+        }
+    }
+
+    /**
+     * Create the general usage information
+     *
+     * @return The usage information
+     */
+    private static String createUsage()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Usage: jspz <command> [options] <arguments>\n");
+        sb.append("\n");
+        sb.append("Commands:\n");
+        for (Command command : COMMANDS.values())
+        {
+            sb.append(String.format("  %-8s %s%n", command.getName(),
+                command.getDescription()));
+        }
+        sb.append("\n");
+        sb.append("Use 'jspz <command> --help' for the options of a command\n");
+        return sb.toString();
+    }
+}
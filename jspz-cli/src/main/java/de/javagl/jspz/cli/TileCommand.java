@@ -0,0 +1,155 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.cli;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import de.javagl.jspz.GaussianCloud;
+import de.javagl.jspz.SpzReaders;
+import de.javagl.jspz.gltf.SpzTiler;
+
+/**
+ * Implementation of the <code>tile</code> command, which creates 3D Tiles
+ * tilesets from SPZ files
+ */
+class TileCommand implements Command
+{
+    /**
+     * The factor for estimating the memory that is required for tiling a
+     * Gaussian cloud from the size of the SPZ file. This covers the cloud,
+     * the copies of the points in the tiles, and the level of detail data.
+     */
+    private static final long TILING_SIZE_FACTOR = 64;
+
+    @Override
+    public String getName()
+    {
+        return "tile";
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Create 3D Tiles tilesets from SPZ files";
+    }
+
+    @Override
+    public String getUsage()
+    {
+        return "Usage: tile [options] <input> <output>\n"
+            + "\n"
+            + "Creates a tileset from an SPZ file, where the splats are\n"
+            + "distributed to the tiles of an octree. When the input is a\n"
+            + "directory, then one tileset is created for each SPZ file in\n"
+            + "the directory tree, in a directory with the relative path of\n"
+            + "the file, without the extension.\n"
+            + "\n"
+            + "Options:\n"
+            + "  --max-points <n>   The maximum number of splats per tile.\n"
+            + "                     Default: 100000\n"
+            + "  --max-level <n>    The maximum octree level. Default: 16\n"
+            + "  --version <v>      The SPZ version of the tile content, 2\n"
+            + "                     or 3. Default: 3\n"
+            + "  --level <l>        The compression level, in [0,9], or -1\n"
+            + "                     for the default level\n"
+            + "  --implicit         Create a tileset with implicit tiling\n"
+            + "  --lod              Create level of detail content for the\n"
+            + "                     interior tiles\n"
+            + "  --base-extension   Use the KHR_gaussian_splatting base\n"
+            + "                     extension in the tile content\n"
+            + Commands.batchOptionsUsage("number of processors");
+    }
+
+    @Override
+    public Set<String> getOptionNames()
+    {
+        return Commands.batchOptionNames("max-points", "max-level",
+            "version", "level");
+    }
+
+    @Override
+    public Set<String> getFlagNames()
+    {
+        return Commands.names("implicit", "lod", "base-extension");
+    }
+
+    @Override
+    public int run(Arguments arguments) throws Exception
+    {
+        List<String> positional = arguments.getPositional();
+        if (positional.size() != 2)
+        {
+            throw new IllegalArgumentException(
+                "Expected an input and an output");
+        }
+        Path input = Paths.get(positional.get(0));
+        Path output = Paths.get(positional.get(1));
+        int maxPoints = arguments.getInt("max-points", 100000);
+        int maxLevel = arguments.getInt("max-level", 16);
+        int version = arguments.getInt("version", 3);
+        int level =
+            arguments.getInt("level", Deflater.DEFAULT_COMPRESSION);
+        boolean implicit = arguments.hasFlag("implicit");
+        boolean lod = arguments.hasFlag("lod");
+        boolean baseExtension = arguments.hasFlag("base-extension");
+
+        // Validate the settings once, before processing any file
+        SpzTiler validationTiler = new SpzTiler();
+        validationTiler.setMaxPointsPerTile(maxPoints);
+        validationTiler.setMaxLevel(maxLevel);
+        validationTiler.setVersion(version);
+        validationTiler.setCompressionLevel(level);
+
+        BatchProcessor batchProcessor = Commands.createBatchProcessor(
+            arguments, Runtime.getRuntime().availableProcessors());
+        List<Path> files =
+            BatchProcessor.collectSpzFiles(Collections.singletonList(input));
+        int failures =
+            batchProcessor.process(files, new BatchProcessor.FileTask()
+            {
+                @Override
+                public long estimateMemory(long fileSize)
+                {
+                    return fileSize * TILING_SIZE_FACTOR;
+                }
+
+                @Override
+                public void process(Path file) throws Exception
+                {
+                    Path target = output;
+                    if (Files.isDirectory(input))
+                    {
+                        target = Commands.removeExtension(
+                            Commands.resolveOutput(input, file, output));
+                    }
+                    GaussianCloud g;
+                    try (InputStream inputStream =
+                        new BufferedInputStream(Files.newInputStream(file)))
+                    {
+                        g = SpzReaders.createDefault().read(inputStream);
+                    }
+                    SpzTiler spzTiler = new SpzTiler();
+                    spzTiler.setMaxPointsPerTile(maxPoints);
+                    spzTiler.setMaxLevel(maxLevel);
+                    spzTiler.setVersion(version);
+                    spzTiler.setCompressionLevel(level);
+                    spzTiler.setImplicitTiling(implicit);
+                    spzTiler.setLevelOfDetail(lod);
+                    spzTiler.setUseBaseExtension(baseExtension);
+                    spzTiler.createTileset(g, target);
+                }
+            });
+        return failures == 0 ? Commands.EXIT_SUCCESS : Commands.EXIT_FAILURE;
+    }
+}
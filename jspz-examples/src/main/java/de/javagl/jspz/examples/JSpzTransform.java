@@ -13,12 +13,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 import de.javagl.jspz.CoordinateSystem;
-import de.javagl.jspz.CoordinateSystems;
-import de.javagl.jspz.GaussianCloud;
-import de.javagl.jspz.SpzReader;
-import de.javagl.jspz.SpzReaders;
-import de.javagl.jspz.SpzWriter;
-import de.javagl.jspz.SpzWriters;
+import de.javagl.jspz.SpzTranscoder;
 
 /**
  * A basic example for how to use JSpz
@@ -37,27 +32,22 @@ public class JSpzTransform
         String fileName = "./data/unitCube.spz";
         InputStream spzInputStream = new FileInputStream(new File(fileName));
 
-        // Create a default SPZ reader
-        SpzReader spzReader = SpzReaders.createDefault();
-
-        // Read a GaussianCloud object from the input stream
-        System.out.println("Reading...");
-        GaussianCloud g = spzReader.read(spzInputStream);
-
-        // Do some coordinate system conversions
-        CoordinateSystems.convertCoordinates(g, CoordinateSystem.RUB,
-            CoordinateSystem.LUF);
-
         // Create an output stream for the SPZ data
         OutputStream spzOutputStream =
             new FileOutputStream(new File("./data/unitCube_OUT.spz"));
 
-        // Create a default SPZ writer
-        SpzWriter spzWriter = SpzWriters.createDefaultV2();
+        // Create a transcoder that does some coordinate system conversions
+        // directly on the quantized data, without creating a GaussianCloud
+        SpzTranscoder spzTranscoder = new SpzTranscoder();
+        spzTranscoder.setVersion(2);
+        spzTranscoder.setCoordinateConversion(CoordinateSystem.RUB,
+            CoordinateSystem.LUF);
 
-        // Write the GaussianCloud to the output stream
-        System.out.println("Writing...");
-        spzWriter.write(g, spzOutputStream);
+        // Transcode the data from the input stream to the output stream
+        System.out.println("Transcoding...");
+        spzTranscoder.transcode(spzInputStream, spzOutputStream);
+        spzInputStream.close();
+        spzOutputStream.close();
 
         System.out.println("Done");
     }
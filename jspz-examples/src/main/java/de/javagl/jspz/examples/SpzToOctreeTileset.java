@@ -0,0 +1,57 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.examples;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+
+import de.javagl.jspz.GaussianCloud;
+import de.javagl.jspz.SpzReader;
+import de.javagl.jspz.SpzReaders;
+import de.javagl.jspz.gltf.SpzTiler;
+
+/**
+ * An example that converts an SPZ file into a tileset, where the Gaussian
+ * splats are distributed to the tiles of an octree.
+ */
+public class SpzToOctreeTileset
+{
+    /**
+     * The entry point
+     * 
+     * @param args Not used
+     * @throws IOException If an IO error occurs
+     */
+    public static void main(String[] args) throws IOException
+    {
+        // Adjust this as necessary:
+        String spzFileName = "./data/unitCube.spz";
+        String outputDirectory = "./data/octree";
+
+        // Read the SPZ data into a GaussianCloud
+        InputStream spzInputStream =
+            new FileInputStream(new File(spzFileName));
+        SpzReader spzReader = SpzReaders.createDefault();
+        GaussianCloud g = spzReader.read(spzInputStream);
+        spzInputStream.close();
+
+        // Create a tiler that creates an implicit tileset, where each
+        // tile contains at most 50000 splats, and where the interior
+        // tiles contain simplified versions of the splats of their
+        // child tiles
+        SpzTiler spzTiler = new SpzTiler();
+        spzTiler.setMaxPointsPerTile(50000);
+        spzTiler.setImplicitTiling(true);
+        spzTiler.setLevelOfDetail(true);
+
+        System.out.println("Creating tileset...");
+        spzTiler.createTileset(g, Paths.get(outputDirectory));
+        System.out.println("Done");
+    }
+}
@@ -8,9 +8,7 @@ package de.javagl.jspz.examples;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -33,12 +31,9 @@ import de.javagl.jgltf.model.io.GltfAssetWriter;
 import de.javagl.jgltf.model.io.GltfWriter;
 import de.javagl.jgltf.model.io.v2.GltfAssetV2;
 import de.javagl.jspz.CoordinateSystem;
-import de.javagl.jspz.CoordinateSystems;
-import de.javagl.jspz.GaussianCloud;
-import de.javagl.jspz.SpzReader;
-import de.javagl.jspz.SpzReaders;
-import de.javagl.jspz.SpzWriter;
-import de.javagl.jspz.SpzWriters;
+import de.javagl.jspz.SpzBoundsScan;
+import de.javagl.jspz.SpzBoundsScanner;
+import de.javagl.jspz.SpzTranscoder;
 
 /**
  * A example that converts an SPZ file into a tileset.
@@ -143,11 +138,8 @@ public class SpzToTileset
     private static void createTileset(String spzFileName,
         String outputDirectory) throws IOException
     {
-        // Read the SPZ data and a GaussianCloud
+        // Read the SPZ data
         byte[] spzBytes = Files.readAllBytes(Paths.get(spzFileName));
-        InputStream spzInputStream = new ByteArrayInputStream(spzBytes);
-        SpzReader spzReader = SpzReaders.createDefault();
-        GaussianCloud g = spzReader.read(spzInputStream);
 
         byte[] gltfSpzBytes = spzBytes;
         // Convert the coordinate system for glTF
@@ -160,19 +152,24 @@ public class SpzToTileset
             // of the KHR_spz_gaussian_splats_compression README at
             // 068b74f3bc8f0a1bb13e2265409caddb76d31d12, but this is likely
             // not correct.
-            CoordinateSystems.convertCoordinates(g, CoordinateSystem.RUB,
+            SpzTranscoder spzTranscoder = new SpzTranscoder();
+            spzTranscoder.setVersion(2);
+            spzTranscoder.setCoordinateConversion(CoordinateSystem.RUB,
                 CoordinateSystem.LUF);
-            SpzWriter spzWriter = SpzWriters.createDefaultV2();
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            spzWriter.write(g, baos);
+            spzTranscoder.transcode(new ByteArrayInputStream(spzBytes), baos);
             gltfSpzBytes = baos.toByteArray();
         }
 
-        float box[] = computeBoundingBox(g);
+        // Compute the bounding box by only scanning the positions
+        SpzBoundsScanner spzBoundsScanner = new SpzBoundsScanner();
+        SpzBoundsScan scan =
+            spzBoundsScanner.scan(new ByteArrayInputStream(gltfSpzBytes));
+        float box[] = scan.getBounds();
 
         // Create a binary glTF asset from the SPZ data
-        int numPoints = g.getNumPoints();
-        int shDegree = g.getShDegree();
+        int numPoints = scan.getNumPoints();
+        int shDegree = scan.getShDegree();
         GltfAssetV2 gltfAsset =
             createGltfAsset(numPoints, shDegree, box, gltfSpzBytes);
         // print(gltfAsset);
@@ -233,7 +230,7 @@ public class SpzToTileset
         position.setMin(new Number[]
         { box[0], box[1], box[2] });
         position.setMax(new Number[]
-        { box[3], box[3], box[5] });
+        { box[3], box[4], box[5] });
         gltf.addAccessors(position);
 
         // Add the COLOR_0 accessor
@@ -383,40 +380,6 @@ public class SpzToTileset
         return gltfAsset;
     }
 
-    /**
-     * Compute the bounding box of the given {@link GaussianCloud}
-     * 
-     * @param g The {@link GaussianCloud}
-     * @return The bounding box
-     */
-    private static float[] computeBoundingBox(GaussianCloud g)
-    {
-        float minX = Float.POSITIVE_INFINITY;
-        float minY = Float.POSITIVE_INFINITY;
-        float minZ = Float.POSITIVE_INFINITY;
-        float maxX = Float.NEGATIVE_INFINITY;
-        float maxY = Float.NEGATIVE_INFINITY;
-        float maxZ = Float.NEGATIVE_INFINITY;
-
-        int n = g.getNumPoints();
-        FloatBuffer positions = g.getPositions();
-        for (int i = 0; i < n; i++)
-        {
-            float x = positions.get(i * 3 + 0);
-            float y = positions.get(i * 3 + 1);
-            float z = positions.get(i * 3 + 2);
-            minX = Math.min(minX, x);
-            minY = Math.min(minY, y);
-            minZ = Math.min(minZ, z);
-            maxX = Math.max(maxX, x);
-            maxY = Math.max(maxY, y);
-            maxZ = Math.max(maxZ, z);
-        }
-        float box[] = new float[]
-        { minX, minY, minZ, maxX, maxY, maxZ };
-        return box;
-    }
-
     /**
      * Creates a dummy tileset JSON string that refers to a content with the
      * given URL, and that uses the given bounding box.
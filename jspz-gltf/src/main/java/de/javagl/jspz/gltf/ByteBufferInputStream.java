@@ -0,0 +1,73 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream that reads the remaining bytes of a byte buffer, without
+ * copying the contents of the buffer.
+ */
+class ByteBufferInputStream extends InputStream
+{
+    /**
+     * The buffer
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a new instance that reads the remaining bytes of the given
+     * buffer. The position of the given buffer is not modified.
+     *
+     * @param buffer The buffer
+     */
+    ByteBufferInputStream(ByteBuffer buffer)
+    {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read()
+    {
+        if (!buffer.hasRemaining())
+        {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len)
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int remaining = buffer.remaining();
+        if (remaining == 0)
+        {
+            return -1;
+        }
+        int n = Math.min(len, remaining);
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n)
+    {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.LinkedHashMap;
+
+import de.javagl.jgltf.impl.v2.Accessor;
+import de.javagl.jgltf.impl.v2.Asset;
+import de.javagl.jgltf.impl.v2.Buffer;
+import de.javagl.jgltf.impl.v2.BufferView;
+import de.javagl.jgltf.impl.v2.GlTF;
+import de.javagl.jgltf.impl.v2.Mesh;
+import de.javagl.jgltf.impl.v2.MeshPrimitive;
+import de.javagl.jgltf.impl.v2.Node;
+import de.javagl.jgltf.impl.v2.Scene;
+import de.javagl.jgltf.model.GltfConstants;
+import de.javagl.jgltf.model.io.GltfWriter;
+import de.javagl.jspz.GaussianCloud;
+
+/**
+ * A class for writing a {@link GaussianCloud} as a binary glTF (GLB) with
+ * uncompressed accessors, using the <code>KHR_gaussian_splatting</code>
+ * extension.
+ *
+ * The primitive contains the following attributes:
+ * <ul>
+ *   <li><code>POSITION</code>: The positions, as float VEC3</li>
+ *   <li>
+ *     <code>COLOR_0</code>: The colors, computed from the zeroth order
+ *     spherical harmonics coefficients, and the opacity, computed from the
+ *     alpha with the sigmoid function, as float VEC4
+ *   </li>
+ *   <li>
+ *     <code>KHR_gaussian_splatting:ROTATION</code>: The rotations, as
+ *     normalized (x, y, z, w) quaternions, as float VEC4
+ *   </li>
+ *   <li>
+ *     <code>KHR_gaussian_splatting:SCALE</code>: The (linear) scales, as
+ *     float VEC3
+ *   </li>
+ *   <li>
+ *     <code>KHR_gaussian_splatting:SH_DEGREE_n_COEF_m</code>: The
+ *     spherical harmonics coefficients, as float VEC3
+ *   </li>
+ * </ul>
+ *
+ * The data is written directly from the buffers of the
+ * {@link GaussianCloud} into the output stream, in chunks of a fixed size.
+ * All spherical harmonics coefficients are stored in a single buffer view
+ * that has the same layout as the buffer of the cloud, and the accessors
+ * for the coefficients are strided slices of this buffer view.
+ *
+ * Since the byte lengths and offsets in the glTF JSON are stored as
+ * <code>int</code> values, the total size of the GLB is limited to
+ * <code>Integer.MAX_VALUE</code> bytes.
+ */
+public final class GaussianCloudGlbWriter
+{
+    /**
+     * The magic number of a GLB, which is "glTF" in ASCII
+     */
+    private static final int GLB_MAGIC = 0x46546C67;
+
+    /**
+     * The type of the JSON chunk of a GLB, which is "JSON" in ASCII
+     */
+    private static final int CHUNK_TYPE_JSON = 0x4E4F534A;
+
+    /**
+     * The type of the binary chunk of a GLB, which is "BIN" in ASCII
+     */
+    private static final int CHUNK_TYPE_BIN = 0x004E4942;
+
+    /**
+     * The normalization factor of the zeroth order spherical harmonics
+     */
+    private static final float SH_C0 = 0.28209479177387814f;
+
+    /**
+     * The number of points that are written in one chunk
+     */
+    private static final int POINTS_PER_CHUNK = 1 << 12;
+
+    /**
+     * The matrix that converts Z-up to Y-up, in column-major order.
+     */
+    // @formatter:off
+    private static final float Z_UP_TO_Y_UP[] = new float[]
+    {
+        1.0f, 0.0f,  0.0f, 0.0f,
+        0.0f, 0.0f, -1.0f, 0.0f,
+        0.0f, 1.0f,  0.0f, 0.0f,
+        0.0f, 0.0f,  0.0f, 1.0f
+    };
+    // @formatter:on
+
+    /**
+     * Whether the node should receive a matrix that converts Z-up to Y-up
+     */
+    private boolean upAxisTransform;
+
+    /**
+     * Creates a new instance.
+     *
+     * By default, the node of the glTF will receive a matrix that converts
+     * Z-up to Y-up, as for the content of the {@link SpzTiler}.
+     */
+    public GaussianCloudGlbWriter()
+    {
+        this.upAxisTransform = true;
+    }
+
+    /**
+     * Set whether the node of the glTF should receive a matrix that
+     * converts Z-up to Y-up.
+     *
+     * @param upAxisTransform Whether the transform should be applied
+     */
+    public void setUpAxisTransform(boolean upAxisTransform)
+    {
+        this.upAxisTransform = upAxisTransform;
+    }
+
+    /**
+     * Returns whether the node of the glTF will receive a matrix that
+     * converts Z-up to Y-up.
+     *
+     * @return Whether the transform is applied
+     */
+    public boolean isUpAxisTransform()
+    {
+        return upAxisTransform;
+    }
+
+    /**
+     * Write the given {@link GaussianCloud} as a GLB into the given output
+     * stream.
+     *
+     * The caller is responsible for closing the given stream.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     * @throws IllegalArgumentException If the cloud is empty, or too large
+     *         to be stored in a GLB
+     */
+    public void write(GaussianCloud g, OutputStream outputStream)
+        throws IOException
+    {
+        int numPoints = g.getNumPoints();
+        if (numPoints == 0)
+        {
+            throw new IllegalArgumentException(
+                "The cloud does not contain any points");
+        }
+        int shDegree = g.getShDegree();
+        int shDim = (shDegree + 1) * (shDegree + 1) - 1;
+
+        // All byte lengths and offsets are computed as int values. This
+        // is valid as long as the total length fits into an int.
+        long binaryLength = (long) numPoints * (12 + 16 + 16 + 12 + shDim * 12);
+        if (binaryLength > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("The cloud with " + numPoints
+                + " points is too large to be stored in a GLB");
+        }
+        byte json[] = createJson(g, (int) binaryLength);
+        int jsonPadding = padding(json.length);
+        long totalLength =
+            12 + 8 + json.length + jsonPadding + 8 + binaryLength;
+        if (totalLength > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("The cloud with " + numPoints
+                + " points is too large to be stored in a GLB");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(20);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(GLB_MAGIC);
+        header.putInt(2);
+        header.putInt((int) totalLength);
+        header.putInt(json.length + jsonPadding);
+        header.putInt(CHUNK_TYPE_JSON);
+        outputStream.write(header.array());
+        outputStream.write(json);
+        for (int i = 0; i < jsonPadding; i++)
+        {
+            outputStream.write(' ');
+        }
+
+        ByteBuffer binHeader = ByteBuffer.allocate(8);
+        binHeader.order(ByteOrder.LITTLE_ENDIAN);
+        binHeader.putInt((int) binaryLength);
+        binHeader.putInt(CHUNK_TYPE_BIN);
+        outputStream.write(binHeader.array());
+
+        // Each buffer view has a length that is a multiple of 4, so that
+        // no padding is required between them
+        ByteBuffer chunk = ByteBuffer.allocate(
+            POINTS_PER_CHUNK * Math.max(16, shDim * 12));
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        writePositions(g, chunk, outputStream);
+        writeColors(g, chunk, outputStream);
+        writeRotations(g, chunk, outputStream);
+        writeScales(g, chunk, outputStream);
+        if (shDim > 0)
+        {
+            writeSh(g, shDim, chunk, outputStream);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Returns the number of padding bytes that are required to align the
+     * given length to 4 bytes
+     *
+     * @param length The length
+     * @return The padding
+     */
+    private static int padding(int length)
+    {
+        return (4 - (length & 3)) & 3;
+    }
+
+    /**
+     * Write the positions of the given cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writePositions(GaussianCloud g, ByteBuffer chunk,
+        OutputStream outputStream) throws IOException
+    {
+        writeFloats(g.getPositions(), g.getNumPoints() * 3, 3, chunk,
+            outputStream);
+    }
+
+    /**
+     * Write the colors of the given cloud, as RGBA, where the RGB components
+     * are computed from the colors, and the A component is computed from
+     * the alpha.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeColors(GaussianCloud g, ByteBuffer chunk,
+        OutputStream outputStream) throws IOException
+    {
+        int n = g.getNumPoints();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer alphas = g.getAlphas();
+        for (int start = 0; start < n; start += POINTS_PER_CHUNK)
+        {
+            int end = Math.min(n, start + POINTS_PER_CHUNK);
+            chunk.clear();
+            for (int i = start; i < end; i++)
+            {
+                for (int c = 0; c < 3; c++)
+                {
+                    float v = 0.5f + SH_C0 * colors.get(i * 3 + c);
+                    chunk.putFloat(Math.max(0.0f, Math.min(1.0f, v)));
+                }
+                float a = alphas.get(i);
+                chunk.putFloat((float) (1.0 / (1.0 + Math.exp(-a))));
+            }
+            outputStream.write(chunk.array(), 0, chunk.position());
+        }
+    }
+
+    /**
+     * Write the normalized rotations of the given cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeRotations(GaussianCloud g, ByteBuffer chunk,
+        OutputStream outputStream) throws IOException
+    {
+        int n = g.getNumPoints();
+        FloatBuffer rotations = g.getRotations();
+        for (int start = 0; start < n; start += POINTS_PER_CHUNK)
+        {
+            int end = Math.min(n, start + POINTS_PER_CHUNK);
+            chunk.clear();
+            for (int i = start; i < end; i++)
+            {
+                float x = rotations.get(i * 4 + 0);
+                float y = rotations.get(i * 4 + 1);
+                float z = rotations.get(i * 4 + 2);
+                float w = rotations.get(i * 4 + 3);
+                float length =
+                    (float) Math.sqrt(x * x + y * y + z * z + w * w);
+                if (length > 0.0f)
+                {
+                    float invLength = 1.0f / length;
+                    chunk.putFloat(x * invLength);
+                    chunk.putFloat(y * invLength);
+                    chunk.putFloat(z * invLength);
+                    chunk.putFloat(w * invLength);
+                }
+                else
+                {
+                    chunk.putFloat(0.0f);
+                    chunk.putFloat(0.0f);
+                    chunk.putFloat(0.0f);
+                    chunk.putFloat(1.0f);
+                }
+            }
+            outputStream.write(chunk.array(), 0, chunk.position());
+        }
+    }
+
+    /**
+     * Write the linear scales of the given cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeScales(GaussianCloud g, ByteBuffer chunk,
+        OutputStream outputStream) throws IOException
+    {
+        int n = g.getNumPoints();
+        FloatBuffer scales = g.getScales();
+        for (int start = 0; start < n; start += POINTS_PER_CHUNK)
+        {
+            int end = Math.min(n, start + POINTS_PER_CHUNK);
+            chunk.clear();
+            for (int i = start * 3; i < end * 3; i++)
+            {
+                chunk.putFloat((float) Math.exp(scales.get(i)));
+            }
+            outputStream.write(chunk.array(), 0, chunk.position());
+        }
+    }
+
+    /**
+     * Write the spherical harmonics coefficients of the given cloud, in the
+     * same layout as in the cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @param shDim The number of coefficients per point
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeSh(GaussianCloud g, int shDim, ByteBuffer chunk,
+        OutputStream outputStream) throws IOException
+    {
+        writeFloats(g.getSh(), g.getNumPoints() * shDim * 3, shDim * 3, chunk,
+            outputStream);
+    }
+
+    /**
+     * Write the given number of floats from the given buffer, in little
+     * endian order.
+     *
+     * @param source The source buffer
+     * @param numFloats The number of floats
+     * @param floatsPerPoint The number of floats per point
+     * @param chunk The chunk buffer
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeFloats(FloatBuffer source, int numFloats,
+        int floatsPerPoint, ByteBuffer chunk, OutputStream outputStream)
+        throws IOException
+    {
+        int floatsPerChunk = POINTS_PER_CHUNK * floatsPerPoint;
+        chunk.clear();
+        FloatBuffer chunkFloats = chunk.asFloatBuffer();
+        FloatBuffer s = source.duplicate();
+        for (int start = 0; start < numFloats; start += floatsPerChunk)
+        {
+            int end = Math.min(numFloats, start + floatsPerChunk);
+            s.limit(end);
+            s.position(start);
+            chunkFloats.clear();
+            chunkFloats.put(s);
+            outputStream.write(chunk.array(), 0, (end - start) * 4);
+        }
+    }
+
+    /**
+     * Create the JSON part of the GLB for the given cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @param binaryLength The length of the binary data
+     * @return The JSON bytes
+     * @throws IOException If the JSON cannot be written
+     */
+    private byte[] createJson(GaussianCloud g, int binaryLength)
+        throws IOException
+    {
+        int numPoints = g.getNumPoints();
+        int shDegree = g.getShDegree();
+        int shDim = (shDegree + 1) * (shDegree + 1) - 1;
+        String prefix = SpzGltfAssets.BASE_EXTENSION_NAME + ":";
+
+        GlTF gltf = new GlTF();
+        Asset asset = new Asset();
+        asset.setVersion("2.0");
+        asset.setGenerator("JSpz");
+        gltf.setAsset(asset);
+
+        Buffer buffer = new Buffer();
+        buffer.setByteLength(binaryLength);
+        gltf.addBuffers(buffer);
+
+        MeshPrimitive primitive = new MeshPrimitive();
+        primitive.setMode(GltfConstants.GL_POINTS);
+
+        // Add the buffer views and accessors for the main attributes
+        int offset = 0;
+        float bounds[] = OctreeBuilder.computeBounds(g.getPositions());
+        Accessor position = addAccessor(gltf, offset, numPoints * 12,
+            numPoints, "VEC3");
+        position.setMin(new Number[]
+        { bounds[0], bounds[1], bounds[2] });
+        position.setMax(new Number[]
+        { bounds[3], bounds[4], bounds[5] });
+        offset += numPoints * 12;
+        primitive.addAttributes("POSITION", 0);
+
+        addAccessor(gltf, offset, numPoints * 16, numPoints, "VEC4");
+        offset += numPoints * 16;
+        primitive.addAttributes("COLOR_0", 1);
+
+        addAccessor(gltf, offset, numPoints * 16, numPoints, "VEC4");
+        offset += numPoints * 16;
+        primitive.addAttributes(prefix + "ROTATION", 2);
+
+        addAccessor(gltf, offset, numPoints * 12, numPoints, "VEC3");
+        offset += numPoints * 12;
+        primitive.addAttributes(prefix + "SCALE", 3);
+
+        // Add one strided buffer view for all spherical harmonics, and
+        // one accessor for each coefficient
+        if (shDim > 0)
+        {
+            BufferView shView = new BufferView();
+            shView.setBuffer(0);
+            shView.setByteOffset(offset);
+            shView.setByteLength(numPoints * shDim * 12);
+            shView.setByteStride(shDim * 12);
+            shView.setTarget(GltfConstants.GL_ARRAY_BUFFER);
+            gltf.addBufferViews(shView);
+            int shViewIndex = gltf.getBufferViews().size() - 1;
+            int coefficient = 0;
+            for (int d = 1; d <= shDegree; d++)
+            {
+                int numCoeffs = 2 * d + 1;
+                for (int m = 0; m < numCoeffs; m++)
+                {
+                    Accessor accessor = new Accessor();
+                    accessor.setBufferView(shViewIndex);
+                    accessor.setByteOffset(coefficient * 12);
+                    accessor.setComponentType(GltfConstants.GL_FLOAT);
+                    accessor.setType("VEC3");
+                    accessor.setCount(numPoints);
+                    gltf.addAccessors(accessor);
+                    int accessorIndex = gltf.getAccessors().size() - 1;
+                    String name = "SH_DEGREE_" + d + "_COEF_" + m;
+                    primitive.addAttributes(prefix + name, accessorIndex);
+                    coefficient++;
+                }
+            }
+        }
+
+        primitive.addExtensions(SpzGltfAssets.BASE_EXTENSION_NAME,
+            new LinkedHashMap<Object, Object>());
+        Mesh mesh = new Mesh();
+        mesh.addPrimitives(primitive);
+        gltf.addMeshes(mesh);
+
+        Node node = new Node();
+        node.setMesh(0);
+        if (upAxisTransform)
+        {
+            node.setMatrix(Z_UP_TO_Y_UP.clone());
+        }
+        gltf.addNodes(node);
+
+        Scene scene = new Scene();
+        scene.addNodes(0);
+        gltf.addScenes(scene);
+        gltf.setScene(0);
+
+        gltf.addExtensionsUsed(SpzGltfAssets.BASE_EXTENSION_NAME);
+        gltf.addExtensionsRequired(SpzGltfAssets.BASE_EXTENSION_NAME);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        GltfWriter gltfWriter = new GltfWriter();
+        gltfWriter.setIndenting(false);
+        gltfWriter.write(gltf, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Add a tightly packed buffer view and a float accessor for it to the
+     * given glTF
+     *
+     * @param gltf The glTF
+     * @param byteOffset The byte offset of the buffer view
+     * @param byteLength The byte length of the buffer view
+     * @param count The number of elements
+     * @param type The accessor type
+     * @return The accessor
+     */
+    private static Accessor addAccessor(GlTF gltf, int byteOffset,
+        int byteLength, int count, String type)
+    {
+        BufferView bufferView = new BufferView();
+        bufferView.setBuffer(0);
+        bufferView.setByteOffset(byteOffset);
+        bufferView.setByteLength(byteLength);
+        bufferView.setTarget(GltfConstants.GL_ARRAY_BUFFER);
+        gltf.addBufferViews(bufferView);
+
+        Accessor accessor = new Accessor();
+        accessor.setBufferView(gltf.getBufferViews().size() - 1);
+        accessor.setComponentType(GltfConstants.GL_FLOAT);
+        accessor.setType(type);
+        accessor.setCount(count);
+        gltf.addAccessors(accessor);
+        return accessor;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for building an octree of {@link OctreeNode} objects for the
+ * positions of a Gaussian cloud
+ */
+class OctreeBuilder
+{
+    /**
+     * The minimum number of points in a node for which the children of the
+     * node are built in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Build an octree for the given positions.
+     *
+     * The cell of the root node is the union of the bounding box of all
+     * positions and the given bounding box. A node is subdivided into its
+     * octants when it contains more than the given maximum number of points,
+     * and its level is smaller than the given maximum level. The subtrees
+     * of large nodes are built in parallel.
+     *
+     * @param positions The positions, as (x,y,z) triples
+     * @param numPoints The number of points
+     * @param rootBounds The bounding box that should be contained in the
+     *        cell of the root node, as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param maxPointsPerNode The maximum number of points per node
+     * @param maxLevel The maximum level
+     * @return The root node
+     */
+    static OctreeNode build(FloatBuffer positions, int numPoints,
+        float rootBounds[], int maxPointsPerNode, int maxLevel)
+    {
+        int indices[] = IntStream.range(0, numPoints).toArray();
+        float cell[] = computeBounds(positions, indices);
+        unite(cell, rootBounds);
+        OctreeNode root = new OctreeNode(0, 0, 0, 0, cell);
+        build(root, positions, indices, maxPointsPerNode, maxLevel);
+        return root;
+    }
+
+    /**
+     * Recursively build the octree for the given node
+     *
+     * @param node The node
+     * @param positions The positions
+     * @param indices The indices of the points in the node
+     * @param maxPointsPerNode The maximum number of points per node
+     * @param maxLevel The maximum level
+     */
+    private static void build(OctreeNode node, FloatBuffer positions,
+        int indices[], int maxPointsPerNode, int maxLevel)
+    {
+        int n = indices.length;
+        node.numPoints = n;
+        if (n <= maxPointsPerNode || node.level >= maxLevel)
+        {
+            node.indices = indices;
+            node.bounds = computeBounds(positions, indices);
+            return;
+        }
+
+        // Compute the octant of each point, and count the points per octant
+        float cell[] = node.cell;
+        float cx = (cell[0] + cell[3]) * 0.5f;
+        float cy = (cell[1] + cell[4]) * 0.5f;
+        float cz = (cell[2] + cell[5]) * 0.5f;
+        byte octants[] = new byte[n];
+        int counts[] = new int[8];
+        for (int i = 0; i < n; i++)
+        {
+            int index = indices[i];
+            int octant = 0;
+            if (positions.get(index * 3 + 0) >= cx)
+            {
+                octant |= 1;
+            }
+            if (positions.get(index * 3 + 1) >= cy)
+            {
+                octant |= 2;
+            }
+            if (positions.get(index * 3 + 2) >= cz)
+            {
+                octant |= 4;
+            }
+            octants[i] = (byte) octant;
+            counts[octant]++;
+        }
+
+        // Distribute the indices to the octants
+        int childIndices[][] = new int[8][];
+        for (int c = 0; c < 8; c++)
+        {
+            childIndices[c] = new int[counts[c]];
+        }
+        int fill[] = new int[8];
+        for (int i = 0; i < n; i++)
+        {
+            int octant = octants[i];
+            childIndices[octant][fill[octant]++] = indices[i];
+        }
+
+        // Create the children, and build their subtrees
+        OctreeNode children[] = new OctreeNode[8];
+        for (int c = 0; c < 8; c++)
+        {
+            if (counts[c] == 0)
+            {
+                continue;
+            }
+            int bx = c & 1;
+            int by = (c >> 1) & 1;
+            int bz = (c >> 2) & 1;
+            float childCell[] = new float[]
+            {
+                bx == 0 ? cell[0] : cx,
+                by == 0 ? cell[1] : cy,
+                bz == 0 ? cell[2] : cz,
+                bx == 0 ? cx : cell[3],
+                by == 0 ? cy : cell[4],
+                bz == 0 ? cz : cell[5],
+            };
+            children[c] = new OctreeNode(node.level + 1, node.x * 2 + bx,
+                node.y * 2 + by, node.z * 2 + bz, childCell);
+        }
+        IntStream childStream = IntStream.range(0, 8);
+        if (n >= PARALLEL_THRESHOLD)
+        {
+            childStream = childStream.parallel();
+        }
+        childStream.filter(c -> children[c] != null).forEach(c ->
+        {
+            build(children[c], positions, childIndices[c], maxPointsPerNode,
+                maxLevel);
+            childIndices[c] = null;
+        });
+        node.children = children;
+
+        // Compute the bounds as the union of the bounds of the children
+        float bounds[] = emptyBounds();
+        for (OctreeNode child : children)
+        {
+            if (child != null)
+            {
+                unite(bounds, child.bounds);
+            }
+        }
+        node.bounds = bounds;
+    }
+
+    /**
+     * Pass all nodes of the given octree to the given consumer, in
+     * depth-first order, starting with the given node
+     *
+     * @param node The node
+     * @param consumer The consumer
+     */
+    static void forEach(OctreeNode node, Consumer<? super OctreeNode> consumer)
+    {
+        consumer.accept(node);
+        if (node.children != null)
+        {
+            for (OctreeNode child : node.children)
+            {
+                if (child != null)
+                {
+                    forEach(child, consumer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add all nodes of the given octree that have content to the given list
+     *
+     * @param node The root node
+     * @param result The list that will receive the nodes
+     */
+    static void collectContentNodes(OctreeNode node, List<OctreeNode> result)
+    {
+        forEach(node, n ->
+        {
+            if (n.hasContent())
+            {
+                result.add(n);
+            }
+        });
+    }
+
+    /**
+     * Returns the maximum level of all nodes in the given octree
+     *
+     * @param node The root node
+     * @return The maximum level
+     */
+    static int computeMaxLevel(OctreeNode node)
+    {
+        int maxLevel = node.level;
+        if (node.children != null)
+        {
+            for (OctreeNode child : node.children)
+            {
+                if (child != null)
+                {
+                    maxLevel = Math.max(maxLevel, computeMaxLevel(child));
+                }
+            }
+        }
+        return maxLevel;
+    }
+
+    /**
+     * Compute the {@link OctreeNode#extents} of the given node and all its
+     * descendants, from their {@link OctreeNode#contentExtents}
+     *
+     * @param node The node
+     * @return The extents of the node
+     */
+    static float[] computeExtents(OctreeNode node)
+    {
+        float extents[] = emptyBounds();
+        if (node.contentExtents != null)
+        {
+            unite(extents, node.contentExtents);
+        }
+        if (node.children != null)
+        {
+            for (OctreeNode child : node.children)
+            {
+                if (child != null)
+                {
+                    unite(extents, computeExtents(child));
+                }
+            }
+        }
+        node.extents = extents;
+        return extents;
+    }
+
+    /**
+     * Compute the bounding box of the positions with the given indices
+     *
+     * @param positions The positions
+     * @param indices The indices
+     * @return The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    static float[] computeBounds(FloatBuffer positions, int indices[])
+    {
+        float bounds[] = emptyBounds();
+        for (int index : indices)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                float v = positions.get(index * 3 + j);
+                bounds[j] = Math.min(bounds[j], v);
+                bounds[j + 3] = Math.max(bounds[j + 3], v);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Compute the bounding box of all remaining positions in the given
+     * buffer
+     *
+     * @param positions The positions
+     * @return The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    static float[] computeBounds(FloatBuffer positions)
+    {
+        float bounds[] = emptyBounds();
+        int n = positions.remaining() / 3;
+        int offset = positions.position();
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                float v = positions.get(offset + i * 3 + j);
+                bounds[j] = Math.min(bounds[j], v);
+                bounds[j + 3] = Math.max(bounds[j + 3], v);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns an empty bounding box, with the minimum being positive
+     * infinity and the maximum being negative infinity
+     *
+     * @return The bounding box
+     */
+    private static float[] emptyBounds()
+    {
+        float inf = Float.POSITIVE_INFINITY;
+        return new float[]
+        { inf, inf, inf, -inf, -inf, -inf };
+    }
+
+    /**
+     * Extend the given bounding box to include the other bounding box
+     *
+     * @param bounds The bounding box to extend
+     * @param other The other bounding box
+     */
+    private static void unite(float bounds[], float other[])
+    {
+        for (int j = 0; j < 3; j++)
+        {
+            bounds[j] = Math.min(bounds[j], other[j]);
+            bounds[j + 3] = Math.max(bounds[j + 3], other[j + 3]);
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private OctreeBuilder()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+/**
+ * A node of an octree that is created by the {@link OctreeBuilder}.
+ *
+ * The cell of a node is one octant of the cell of its parent, so that the
+ * nodes correspond to the tiles of an implicit tileset with the
+ * <code>OCTREE</code> subdivision scheme, identified by their level and
+ * their (x, y, z) coordinates within that level.
+ */
+final class OctreeNode
+{
+    /**
+     * The level of this node, where the root has level 0
+     */
+    final int level;
+
+    /**
+     * The x-coordinate of this node within its level
+     */
+    final int x;
+
+    /**
+     * The y-coordinate of this node within its level
+     */
+    final int y;
+
+    /**
+     * The z-coordinate of this node within its level
+     */
+    final int z;
+
+    /**
+     * The cell of this node, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    final float cell[];
+
+    /**
+     * The tight bounding box of the positions of all points in this node and
+     * its descendants, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    float bounds[];
+
+    /**
+     * The bounding box of the extents of the splats of the content of this
+     * node, as (minX, minY, minZ, maxX, maxY, maxZ), or <code>null</code>
+     * if this node has no content
+     */
+    float contentExtents[];
+
+    /**
+     * The bounding box of the extents of the splats of the content of this
+     * node and its descendants, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    float extents[];
+
+    /**
+     * The number of points in this node and its descendants
+     */
+    int numPoints;
+
+    /**
+     * The indices of the points that are stored in this node. This is
+     * <code>null</code> for nodes that have been subdivided.
+     */
+    int indices[];
+
+    /**
+     * The child nodes, in the order of their octant index, where bit 0, 1
+     * and 2 of the index indicate the upper half along the x, y and z axis,
+     * respectively. Children that do not contain any points are
+     * <code>null</code>. This is <code>null</code> for leaf nodes.
+     */
+    OctreeNode children[];
+
+    /**
+     * Whether this node has level of detail content, which is a simplified
+     * representation of the points of its descendants
+     */
+    boolean lodContent;
+
+    /**
+     * The geometric error of the level of detail content, in the units of
+     * the positions. This is larger than the geometric errors of the level
+     * of detail contents of the children.
+     */
+    double lodGeometricError;
+
+    /**
+     * The geometric error of the tile for this node, in the units of the
+     * positions
+     */
+    double geometricError;
+
+    /**
+     * Creates a new instance
+     *
+     * @param level The level
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param z The z-coordinate
+     * @param cell The cell
+     */
+    OctreeNode(int level, int x, int y, int z, float cell[])
+    {
+        this.level = level;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.cell = cell;
+    }
+
+    /**
+     * Returns whether this node has content, meaning that points are stored
+     * in this node, or that it has level of detail content
+     *
+     * @return Whether this node has content
+     */
+    boolean hasContent()
+    {
+        return (indices != null && indices.length > 0) || lodContent;
+    }
+
+    /**
+     * Returns whether this node is a leaf node
+     *
+     * @return Whether this node is a leaf node
+     */
+    boolean isLeaf()
+    {
+        return children == null;
+    }
+
+    /**
+     * Returns the relative path for files that are associated with this
+     * node, in the form <code>"level/x/y/z"</code>, matching the template
+     * URIs of implicit tiling
+     *
+     * @return The path
+     */
+    String getPath()
+    {
+        return level + "/" + x + "/" + y + "/" + z;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OctreeNode[" + getPath() + ", numPoints=" + numPoints + "]";
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.javagl.jspz.GaussianCloud;
+import de.javagl.jspz.SpzReader;
+import de.javagl.jspz.SpzReaders;
+
+/**
+ * A class for reading a {@link GaussianCloud} from a binary glTF (GLB) that
+ * contains SPZ compressed Gaussian splats.
+ *
+ * The SPZ data is located via the <code>bufferView</code> of the
+ * <code>KHR_gaussian_splatting_compression_spz</code> extension (inside
+ * the <code>KHR_gaussian_splatting</code> extension of a mesh primitive),
+ * or via the <code>bufferView</code> of the legacy
+ * <code>KHR_spz_gaussian_splats_compression</code> extension of a mesh
+ * primitive. When the GLB contains multiple such primitives, then the first
+ * one is used.
+ *
+ * The SPZ data is decoded directly from a slice of the binary chunk of the
+ * GLB. Files are memory-mapped, so that reading a GLB file only requires
+ * inflating the SPZ data, without copying it.
+ */
+public final class SpzGlbReader
+{
+    /**
+     * The magic number of a GLB, which is "glTF" in ASCII
+     */
+    private static final int GLB_MAGIC = 0x46546C67;
+
+    /**
+     * The type of the JSON chunk of a GLB, which is "JSON" in ASCII
+     */
+    private static final int CHUNK_TYPE_JSON = 0x4E4F534A;
+
+    /**
+     * The type of the binary chunk of a GLB, which is "BIN" in ASCII
+     */
+    private static final int CHUNK_TYPE_BIN = 0x004E4942;
+
+    /**
+     * The length of the GLB header
+     */
+    private static final int HEADER_LENGTH = 12;
+
+    /**
+     * The length of the header of a GLB chunk
+     */
+    private static final int CHUNK_HEADER_LENGTH = 8;
+
+    /**
+     * The {@link SpzReader} for the SPZ data
+     */
+    private final SpzReader spzReader;
+
+    /**
+     * Creates a new instance that uses a default {@link SpzReader}
+     */
+    public SpzGlbReader()
+    {
+        this(SpzReaders.createDefault());
+    }
+
+    /**
+     * Creates a new instance that uses the given {@link SpzReader} for
+     * reading the SPZ data
+     *
+     * @param spzReader The {@link SpzReader}
+     * @throws NullPointerException If the given reader is <code>null</code>
+     */
+    public SpzGlbReader(SpzReader spzReader)
+    {
+        this.spzReader =
+            Objects.requireNonNull(spzReader, "The spzReader may not be null");
+    }
+
+    /**
+     * Read the {@link GaussianCloud} from the given GLB file.
+     *
+     * The file is memory-mapped, and the SPZ data is decoded directly from
+     * the mapped buffer.
+     *
+     * @param glbFile The GLB file
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, the file is not a valid
+     *         GLB, or it does not contain valid SPZ data
+     */
+    public GaussianCloud read(Path glbFile) throws IOException
+    {
+        try (FileChannel channel =
+            FileChannel.open(glbFile, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException(
+                    "The file is too large to be a GLB: " + size + " bytes");
+            }
+            ByteBuffer glb =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return read(glb);
+        }
+    }
+
+    /**
+     * Read the {@link GaussianCloud} from the remaining bytes of the given
+     * buffer, which contains the GLB data.
+     *
+     * The position of the given buffer is not modified.
+     *
+     * @param glb The GLB data
+     * @return The {@link GaussianCloud}
+     * @throws IOException If the data is not a valid GLB, or it does not
+     *         contain valid SPZ data
+     */
+    public GaussianCloud read(ByteBuffer glb) throws IOException
+    {
+        ByteBuffer spzData = locateSpzData(glb);
+        return spzReader.read(new ByteBufferInputStream(spzData));
+    }
+
+    /**
+     * Locate the SPZ data in the remaining bytes of the given buffer, which
+     * contains the GLB data.
+     *
+     * The result will be a slice of the given buffer that contains the SPZ
+     * data. The position of the given buffer is not modified.
+     *
+     * @param glb The GLB data
+     * @return The SPZ data
+     * @throws IOException If the data is not a valid GLB, or it does not
+     *         contain SPZ compressed Gaussian splats
+     */
+    public static ByteBuffer locateSpzData(ByteBuffer glb) throws IOException
+    {
+        ByteBuffer data = glb.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.capacity() < HEADER_LENGTH + CHUNK_HEADER_LENGTH)
+        {
+            throw new IOException("Expected at least "
+                + (HEADER_LENGTH + CHUNK_HEADER_LENGTH)
+                + " bytes for a GLB, but found " + data.capacity());
+        }
+        int magic = data.getInt(0);
+        if (magic != GLB_MAGIC)
+        {
+            throw new IOException(String.format(
+                "Expected the GLB magic 0x%08X, but found 0x%08X", GLB_MAGIC,
+                magic));
+        }
+        int version = data.getInt(4);
+        if (version != 2)
+        {
+            throw new IOException(
+                "Expected GLB version 2, but found " + version);
+        }
+        long length = Integer.toUnsignedLong(data.getInt(8));
+        if (length > data.capacity())
+        {
+            throw new IOException("The GLB header declares a length of "
+                + length + " bytes, but only " + data.capacity()
+                + " bytes are available");
+        }
+
+        // Read the JSON chunk
+        ByteBuffer json = chunk(data, HEADER_LENGTH, (int) length);
+        if (data.getInt(HEADER_LENGTH + 4) != CHUNK_TYPE_JSON)
+        {
+            throw new IOException("The first chunk of the GLB is not JSON");
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode gltf =
+            objectMapper.readTree(new ByteBufferInputStream(json));
+
+        // Read the binary chunk
+        int binaryStart = HEADER_LENGTH + CHUNK_HEADER_LENGTH + json.capacity();
+        if (binaryStart + CHUNK_HEADER_LENGTH > length
+            || data.getInt(binaryStart + 4) != CHUNK_TYPE_BIN)
+        {
+            throw new IOException("The GLB does not contain a binary chunk");
+        }
+        ByteBuffer binary = chunk(data, binaryStart, (int) length);
+
+        // Locate the buffer view of the SPZ data
+        int bufferViewIndex = findSpzBufferView(gltf);
+        JsonNode bufferView = gltf.path("bufferViews").path(bufferViewIndex);
+        if (!bufferView.isObject())
+        {
+            throw new IOException(
+                "The buffer view " + bufferViewIndex + " does not exist");
+        }
+        int bufferIndex = bufferView.path("buffer").asInt(-1);
+        JsonNode buffer = gltf.path("buffers").path(bufferIndex);
+        if (!buffer.isObject() || buffer.has("uri"))
+        {
+            throw new IOException("The buffer view " + bufferViewIndex
+                + " does not refer to the binary chunk of the GLB");
+        }
+        long byteOffset = bufferView.path("byteOffset").asLong(0);
+        long byteLength = bufferView.path("byteLength").asLong(-1);
+        if (byteOffset < 0 || byteLength < 0
+            || byteOffset + byteLength > binary.capacity())
+        {
+            throw new IOException("The buffer view " + bufferViewIndex
+                + " with offset " + byteOffset + " and length " + byteLength
+                + " exceeds the binary chunk with length "
+                + binary.capacity());
+        }
+        binary.position((int) byteOffset);
+        binary.limit((int) (byteOffset + byteLength));
+        return binary.slice();
+    }
+
+    /**
+     * Returns a slice of the given data that contains the data of the chunk
+     * that starts at the given position
+     *
+     * @param data The GLB data
+     * @param start The start of the chunk header
+     * @param length The length of the GLB
+     * @return The chunk data
+     * @throws IOException If the chunk exceeds the GLB
+     */
+    private static ByteBuffer chunk(ByteBuffer data, int start, int length)
+        throws IOException
+    {
+        long chunkLength = Integer.toUnsignedLong(data.getInt(start));
+        long end = start + CHUNK_HEADER_LENGTH + chunkLength;
+        if (end > length)
+        {
+            throw new IOException("The chunk at " + start + " with length "
+                + chunkLength + " exceeds the GLB with length " + length);
+        }
+        ByteBuffer d = data.duplicate();
+        d.position(start + CHUNK_HEADER_LENGTH);
+        d.limit((int) end);
+        return d.slice();
+    }
+
+    /**
+     * Returns the index of the buffer view that contains the SPZ data of
+     * the first mesh primitive that contains SPZ compressed Gaussian splats
+     *
+     * @param gltf The glTF JSON
+     * @return The buffer view index
+     * @throws IOException If no such primitive is found
+     */
+    private static int findSpzBufferView(JsonNode gltf) throws IOException
+    {
+        for (JsonNode mesh : gltf.path("meshes"))
+        {
+            for (JsonNode primitive : mesh.path("primitives"))
+            {
+                JsonNode extensions = primitive.path("extensions");
+                JsonNode spz = extensions
+                    .path(SpzGltfAssets.BASE_EXTENSION_NAME)
+                    .path("extensions")
+                    .path(SpzGltfAssets.SPZ_EXTENSION_NAME);
+                if (spz.isMissingNode())
+                {
+                    spz = extensions
+                        .path(SpzGltfAssets.LEGACY_SPZ_EXTENSION_NAME);
+                }
+                if (spz.isMissingNode())
+                {
+                    continue;
+                }
+                JsonNode bufferView = spz.path("bufferView");
+                if (!bufferView.isInt())
+                {
+                    throw new IOException("The SPZ extension object does "
+                        + "not contain a valid bufferView: " + spz);
+                }
+                return bufferView.asInt();
+            }
+        }
+        throw new IOException(
+            "The GLB does not contain SPZ compressed Gaussian splats");
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.javagl.jgltf.impl.v2.Accessor;
+import de.javagl.jgltf.impl.v2.Asset;
+import de.javagl.jgltf.impl.v2.Buffer;
+import de.javagl.jgltf.impl.v2.BufferView;
+import de.javagl.jgltf.impl.v2.GlTF;
+import de.javagl.jgltf.impl.v2.Mesh;
+import de.javagl.jgltf.impl.v2.MeshPrimitive;
+import de.javagl.jgltf.impl.v2.Node;
+import de.javagl.jgltf.impl.v2.Scene;
+import de.javagl.jgltf.model.GltfConstants;
+import de.javagl.jgltf.model.io.v2.GltfAssetV2;
+
+/**
+ * Methods for creating glTF assets that contain SPZ data
+ */
+class SpzGltfAssets
+{
+    /**
+     * The name of the <code>KHR_gaussian_splatting</code> base extension
+     */
+    static final String BASE_EXTENSION_NAME = "KHR_gaussian_splatting";
+
+    /**
+     * The name of the SPZ extension when it is nested in the
+     * {@link #BASE_EXTENSION_NAME base extension}
+     */
+    static final String SPZ_EXTENSION_NAME =
+        "KHR_gaussian_splatting_compression_spz";
+
+    /**
+     * The name of the SPZ extension as it was originally defined, without
+     * the base extension
+     */
+    static final String LEGACY_SPZ_EXTENSION_NAME =
+        "KHR_spz_gaussian_splats_compression";
+
+    /**
+     * The matrix that converts Z-up to Y-up, in column-major order.
+     *
+     * This is inserted as the matrix of the node, as expected by CesiumJS
+     * as of version 1.131.
+     */
+    // @formatter:off
+    private static final float Z_UP_TO_Y_UP[] = new float[]
+    {
+        1.0f, 0.0f,  0.0f, 0.0f,
+        0.0f, 0.0f, -1.0f, 0.0f,
+        0.0f, 1.0f,  0.0f, 0.0f,
+        0.0f, 0.0f,  0.0f, 1.0f
+    };
+    // @formatter:on
+
+    /**
+     * Returns the name of the SPZ extension
+     *
+     * @param useBaseExtension Whether the base extension is used
+     * @return The name
+     */
+    static String getSpzExtensionName(boolean useBaseExtension)
+    {
+        if (useBaseExtension)
+        {
+            return SPZ_EXTENSION_NAME;
+        }
+        return LEGACY_SPZ_EXTENSION_NAME;
+    }
+
+    /**
+     * Create a binary glTF asset that uses the SPZ extension to define
+     * Gaussian splats.
+     *
+     * When the base extension is used, then the SPZ extension will be nested
+     * in the <code>KHR_gaussian_splatting</code> extension, and the attribute
+     * names will have the prefix <code>"KHR_gaussian_splatting:"</code>.
+     * Otherwise, the <code>KHR_spz_gaussian_splats_compression</code>
+     * extension will be used as it was originally defined, with the prefix
+     * <code>"_"</code> for the attribute names.
+     *
+     * @param numPoints The number of points
+     * @param shDegree The spherical harmonics degree
+     * @param box The bounding box of the positions, as (minX, minY, minZ,
+     *        maxX, maxY, maxZ)
+     * @param spzBytes The SPZ data
+     * @param useBaseExtension Whether the base extension should be used
+     * @return The asset
+     */
+    static GltfAssetV2 create(int numPoints, int shDegree, float box[],
+        byte spzBytes[], boolean useBaseExtension)
+    {
+        String spzExtensionName = getSpzExtensionName(useBaseExtension);
+        String attributePrefix = "_";
+        if (useBaseExtension)
+        {
+            attributePrefix = BASE_EXTENSION_NAME + ":";
+        }
+
+        // Create the glTF
+        GlTF gltf = new GlTF();
+
+        // Add the asset
+        Asset asset = new Asset();
+        asset.setVersion("2.0");
+        gltf.setAsset(asset);
+
+        // Add the POSITION accessor
+        Accessor position = new Accessor();
+        position.setComponentType(GltfConstants.GL_FLOAT);
+        position.setType("VEC3");
+        position.setCount(numPoints);
+        position.setMin(new Number[]
+        { box[0], box[1], box[2] });
+        position.setMax(new Number[]
+        { box[3], box[4], box[5] });
+        gltf.addAccessors(position);
+
+        // Add the COLOR_0 accessor
+        Accessor color = new Accessor();
+        color.setComponentType(GltfConstants.GL_UNSIGNED_BYTE);
+        color.setNormalized(true);
+        color.setType("VEC4");
+        color.setCount(numPoints);
+        gltf.addAccessors(color);
+
+        // Add the _ROTATION accessor
+        Accessor rotation = new Accessor();
+        rotation.setComponentType(GltfConstants.GL_FLOAT);
+        rotation.setType("VEC4");
+        rotation.setCount(numPoints);
+        gltf.addAccessors(rotation);
+
+        // Add the _SCALE accessor
+        Accessor scale = new Accessor();
+        scale.setComponentType(GltfConstants.GL_FLOAT);
+        scale.setType("VEC3");
+        scale.setCount(numPoints);
+        gltf.addAccessors(scale);
+
+        // Add the spherical harmonics accessors
+        for (int d = 0; d < shDegree; d++)
+        {
+            int numCoeffs = 2 * (d + 1) + 1;
+            for (int n = 0; n < numCoeffs; n++)
+            {
+                Accessor sh = new Accessor();
+                sh.setComponentType(GltfConstants.GL_FLOAT);
+                sh.setType("VEC3");
+                sh.setCount(numPoints);
+                gltf.addAccessors(sh);
+            }
+        }
+
+        // Add the buffer
+        Buffer buffer = new Buffer();
+        buffer.setByteLength(spzBytes.length);
+        gltf.addBuffers(buffer);
+
+        // Add the buffer view
+        BufferView bufferView = new BufferView();
+        bufferView.setBuffer(0);
+        bufferView.setByteLength(spzBytes.length);
+        gltf.addBufferViews(bufferView);
+
+        // Create the mesh primitive
+        MeshPrimitive primitive = new MeshPrimitive();
+        primitive.setMode(GltfConstants.GL_POINTS);
+
+        // Add all accessors to the mesh primitive
+        int a = 0;
+        primitive.addAttributes("POSITION", a++);
+        primitive.addAttributes("COLOR_0", a++);
+        primitive.addAttributes(attributePrefix + "ROTATION", a++);
+        primitive.addAttributes(attributePrefix + "SCALE", a++);
+        for (int d = 0; d < shDegree; d++)
+        {
+            int numCoeffs = 2 * (d + 1) + 1;
+            for (int n = 0; n < numCoeffs; n++)
+            {
+                String s = "SH_DEGREE_" + (d + 1) + "_COEF_" + n;
+                primitive.addAttributes(attributePrefix + s, a++);
+            }
+        }
+
+        // Add the extension object to the primitive
+        Map<Object, Object> spzExtension = new LinkedHashMap<Object, Object>();
+        spzExtension.put("bufferView", 0);
+        if (useBaseExtension)
+        {
+            Map<Object, Object> baseExtension =
+                new LinkedHashMap<Object, Object>();
+            Map<Object, Object> innerExtensions =
+                new LinkedHashMap<Object, Object>();
+            innerExtensions.put(spzExtensionName, spzExtension);
+            baseExtension.put("extensions", innerExtensions);
+            primitive.addExtensions(BASE_EXTENSION_NAME, baseExtension);
+        }
+        else
+        {
+            primitive.addExtensions(spzExtensionName, spzExtension);
+        }
+
+        // Add the mesh
+        Mesh mesh = new Mesh();
+        mesh.addPrimitives(primitive);
+        gltf.addMeshes(mesh);
+
+        // Add the node
+        Node node = new Node();
+        node.setMesh(0);
+        node.setMatrix(Z_UP_TO_Y_UP.clone());
+        gltf.addNodes(node);
+
+        // Add the scene
+        Scene scene = new Scene();
+        scene.addNodes(0);
+        gltf.addScenes(scene);
+        gltf.setScene(0);
+
+        // Add information about the used/required extension
+        if (useBaseExtension)
+        {
+            gltf.addExtensionsUsed(BASE_EXTENSION_NAME);
+            gltf.addExtensionsRequired(BASE_EXTENSION_NAME);
+        }
+        gltf.addExtensionsUsed(spzExtensionName);
+        gltf.addExtensionsRequired(spzExtensionName);
+
+        // Build the actual asset
+        ByteBuffer binaryData = ByteBuffer.wrap(spzBytes);
+        GltfAssetV2 gltfAsset = new GltfAssetV2(gltf, binaryData);
+        return gltfAsset;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SpzGltfAssets()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
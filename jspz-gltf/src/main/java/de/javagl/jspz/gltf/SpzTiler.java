@@ -0,0 +1,849 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.javagl.jgltf.model.io.GltfAssetWriter;
+import de.javagl.jgltf.model.io.v2.GltfAssetV2;
+import de.javagl.jspz.GaussianCloud;
+import de.javagl.jspz.GaussianCloudLods;
+import de.javagl.jspz.GaussianClouds;
+import de.javagl.jspz.SpzWriter;
+import de.javagl.jspz.SpzWriterOptions;
+import de.javagl.jspz.SpzWriters;
+
+/**
+ * A class for creating 3D Tiles tilesets from a {@link GaussianCloud}.
+ *
+ * The tiler partitions the cloud spatially into an octree, where each tile
+ * contains at most a certain number of points. (Only when the maximum level
+ * of the octree is reached, a tile may contain more points). The points of
+ * each leaf tile are written as a binary glTF file, with the data being
+ * stored as SPZ, using the glTF SPZ extension. The tiles are written in
+ * parallel.
+ *
+ * Optionally, the interior tiles can receive level of detail content. This
+ * content is created bottom-up, by {@link GaussianCloudLods#simplify
+ * simplifying} the content of the child tiles, so that clients can display
+ * a coarse representation of the cloud without loading the leaf tiles.
+ *
+ * The tileset is either written with an explicit hierarchy of tiles, or
+ * with implicit tiling, using the <code>OCTREE</code> subdivision scheme.
+ * The bounding box of each tile contains the extents of the splats that it
+ * contains at three standard deviations. For implicit tilesets, the
+ * bounding volume of the root tile contains the extents of all splats, and
+ * the bounding boxes of the tiles and their contents are stored as tile-
+ * and content metadata in the subtrees, using the
+ * <code>TILE_BOUNDING_BOX</code> and <code>CONTENT_BOUNDING_BOX</code>
+ * semantics. Clients that do not support these semantics will use the
+ * octants of the root bounding volume, which may not contain all splats.
+ *
+ * Leaf tiles have a geometric error of 0. Interior tiles with level of
+ * detail content have a geometric error that is the diagonal of the voxels
+ * that were used for simplifying the content. Interior tiles without
+ * content have a geometric error that is the diagonal of their octree
+ * cell. The geometric error of each interior tile is at least twice the
+ * geometric error of its children. For implicit tilesets, the geometric
+ * errors are stored as tile metadata in the subtrees, using the
+ * <code>TILE_GEOMETRIC_ERROR</code> semantic.
+ *
+ * As in the <code>SpzToTileset</code> example, the node of each glTF
+ * has a matrix that converts Z-up to Y-up, and the root tile has a
+ * transform that converts Y-up to Z-up, so that the bounding volumes of the
+ * tiles can be given directly in the coordinate system of the cloud.
+ */
+public final class SpzTiler
+{
+    /**
+     * The name of the tileset JSON file
+     */
+    private static final String TILESET_JSON_NAME = "tileset.json";
+
+    /**
+     * The template for the content URIs
+     */
+    private static final String CONTENT_URI_TEMPLATE =
+        "content/{level}/{x}/{y}/{z}.glb";
+
+    /**
+     * The template for the subtree URIs of implicit tilesets
+     */
+    private static final String SUBTREE_URI_TEMPLATE =
+        "subtrees/{level}/{x}/{y}/{z}.subtree";
+
+    /**
+     * The maximum number of levels in each subtree of implicit tilesets
+     */
+    private static final int MAX_SUBTREE_LEVELS = 4;
+
+    /**
+     * The number of voxels along the largest axis of the cell of a tile,
+     * that is used for the first attempt of simplifying the content of
+     * the child tiles. When the simplified content contains too many
+     * points, the voxel size is doubled until it does not.
+     */
+    private static final int LOD_GRID_RESOLUTION = 128;
+
+    /**
+     * The transform of the root tile, which converts Y-up to Z-up, in
+     * column-major order
+     */
+    // @formatter:off
+    private static final double Y_UP_TO_Z_UP[] = new double[]
+    {
+        1.0,  0.0, 0.0, 0.0,
+        0.0,  0.0, 1.0, 0.0,
+        0.0, -1.0, 0.0, 0.0,
+        0.0,  0.0, 0.0, 1.0
+    };
+    // @formatter:on
+
+    /**
+     * The maximum number of points per tile
+     */
+    private int maxPointsPerTile = 100000;
+
+    /**
+     * The maximum level of the octree
+     */
+    private int maxLevel = 16;
+
+    /**
+     * Whether implicit tiling should be used
+     */
+    private boolean implicitTiling;
+
+    /**
+     * Whether level of detail content should be created for interior tiles
+     */
+    private boolean levelOfDetail;
+
+    /**
+     * Whether the <code>KHR_gaussian_splatting</code> base extension should
+     * be used
+     */
+    private boolean useBaseExtension;
+
+    /**
+     * The SPZ version that is written
+     */
+    private int version;
+
+    /**
+     * The compression level
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Creates a new instance.
+     *
+     * By default, the latest supported SPZ version will be written.
+     */
+    public SpzTiler()
+    {
+        this.version = 3;
+    }
+
+    /**
+     * Set the maximum number of points that each tile should contain.
+     *
+     * Tiles that contain more points will be subdivided, unless the maximum
+     * level has been reached. The default value is 100000.
+     *
+     * @param maxPointsPerTile The maximum number of points per tile
+     * @throws IllegalArgumentException If the value is not positive
+     */
+    public void setMaxPointsPerTile(int maxPointsPerTile)
+    {
+        if (maxPointsPerTile <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum number of points per tile must be positive, "
+                    + "but is " + maxPointsPerTile);
+        }
+        this.maxPointsPerTile = maxPointsPerTile;
+    }
+
+    /**
+     * Returns the maximum number of points that each tile should contain
+     *
+     * @return The maximum number of points per tile
+     */
+    public int getMaxPointsPerTile()
+    {
+        return maxPointsPerTile;
+    }
+
+    /**
+     * Set the maximum level of the octree, where the root has level 0.
+     *
+     * Tiles at this level will not be subdivided, regardless of the number
+     * of points that they contain. The default value is 16.
+     *
+     * @param maxLevel The maximum level
+     * @throws IllegalArgumentException If the value is not in [0,30]
+     */
+    public void setMaxLevel(int maxLevel)
+    {
+        if (maxLevel < 0 || maxLevel > 30)
+        {
+            throw new IllegalArgumentException(
+                "The maximum level must be in [0,30], but is " + maxLevel);
+        }
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Returns the maximum level of the octree
+     *
+     * @return The maximum level
+     */
+    public int getMaxLevel()
+    {
+        return maxLevel;
+    }
+
+    /**
+     * Set whether the tileset should use implicit tiling.
+     *
+     * When this is <code>true</code>, then the tileset JSON will only
+     * contain the root tile, with an <code>implicitTiling</code> object
+     * that refers to the subtree files that describe the availability of
+     * the tiles. The default value is <code>false</code>.
+     *
+     * @param implicitTiling Whether implicit tiling should be used
+     */
+    public void setImplicitTiling(boolean implicitTiling)
+    {
+        this.implicitTiling = implicitTiling;
+    }
+
+    /**
+     * Returns whether the tileset should use implicit tiling
+     *
+     * @return Whether implicit tiling is used
+     */
+    public boolean isImplicitTiling()
+    {
+        return implicitTiling;
+    }
+
+    /**
+     * Set whether level of detail content should be created for the
+     * interior tiles.
+     *
+     * When this is <code>true</code>, then each interior tile will receive
+     * content that is created by merging the Gaussians of its child tiles,
+     * with at most the maximum number of points per tile. The default value
+     * is <code>false</code>.
+     *
+     * @param levelOfDetail Whether level of detail content should be created
+     */
+    public void setLevelOfDetail(boolean levelOfDetail)
+    {
+        this.levelOfDetail = levelOfDetail;
+    }
+
+    /**
+     * Returns whether level of detail content should be created for the
+     * interior tiles
+     *
+     * @return Whether level of detail content is created
+     */
+    public boolean isLevelOfDetail()
+    {
+        return levelOfDetail;
+    }
+
+    /**
+     * Set whether the glTF files should use the
+     * <code>KHR_gaussian_splatting</code> base extension.
+     *
+     * When this is <code>true</code>, then the SPZ extension will be called
+     * <code>KHR_gaussian_splatting_compression_spz</code>, and will be nested
+     * within the base extension. Otherwise, the
+     * <code>KHR_spz_gaussian_splats_compression</code> extension will be used
+     * as it was originally defined. The default value is <code>false</code>.
+     *
+     * @param useBaseExtension Whether the base extension should be used
+     */
+    public void setUseBaseExtension(boolean useBaseExtension)
+    {
+        this.useBaseExtension = useBaseExtension;
+    }
+
+    /**
+     * Returns whether the glTF files should use the
+     * <code>KHR_gaussian_splatting</code> base extension.
+     *
+     * @return Whether the base extension is used
+     */
+    public boolean isUseBaseExtension()
+    {
+        return useBaseExtension;
+    }
+
+    /**
+     * Set the SPZ version that should be written.
+     *
+     * @param version The version
+     * @throws IllegalArgumentException If the version is not 2 or 3
+     */
+    public void setVersion(int version)
+    {
+        if (version != 2 && version != 3)
+        {
+            throw new IllegalArgumentException(
+                "The version must be 2 or 3, but is " + version);
+        }
+        this.version = version;
+    }
+
+    /**
+     * Returns the SPZ version that will be written
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Set the compression level that is used for the GZIP compression.
+     *
+     * The compression level is a value between 0 (no compression) and 9
+     * (best compression), or -1 for the default compression level of the
+     * <code>java.util.zip.Deflater</code>, which is also the default value.
+     *
+     * @param compressionLevel The compression level
+     * @throws IllegalArgumentException If the compression level is not in
+     *         [0,9] and not -1
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION
+            && (compressionLevel < 0 || compressionLevel > 9))
+        {
+            throw new IllegalArgumentException(
+                "The compression level must be in [0,9] or -1, but is "
+                    + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the compression level that is used for the GZIP compression
+     *
+     * @return The compression level
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Create a tileset for the given {@link GaussianCloud}, and write it
+     * into the given directory.
+     *
+     * The directory will receive the <code>tileset.json</code>, the glTF
+     * files of the tiles in a <code>content</code> subdirectory, and, for
+     * implicit tilesets, the subtree files in a <code>subtrees</code>
+     * subdirectory. The directory will be created if it does not exist.
+     * Existing files will be overwritten.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param directory The output directory
+     * @throws IOException If an IO error occurs
+     * @throws IllegalArgumentException If the given cloud does not contain
+     *         any points
+     */
+    public void createTileset(GaussianCloud g, Path directory)
+        throws IOException
+    {
+        if (g.getNumPoints() == 0)
+        {
+            throw new IllegalArgumentException(
+                "The Gaussian cloud does not contain any points");
+        }
+        // The root cell contains the extents of all splats, so that the
+        // root tile of an implicit tileset contains all splats
+        float extentBounds[] = GaussianClouds.statistics(g).getExtentBounds();
+        OctreeNode root = OctreeBuilder.build(g.getPositions(),
+            g.getNumPoints(), extentBounds, maxPointsPerTile, maxLevel);
+        Files.createDirectories(directory);
+
+        if (levelOfDetail)
+        {
+            writeContentsWithLod(g, root, directory);
+        }
+        else
+        {
+            List<OctreeNode> contentNodes = new ArrayList<OctreeNode>();
+            OctreeBuilder.collectContentNodes(root, contentNodes);
+            writeContents(g, contentNodes, directory);
+        }
+
+        OctreeBuilder.computeExtents(root);
+        computeGeometricErrors(root);
+        double tilesetGeometricError = Math.max(root.geometricError,
+            computeGeometricError(root.bounds));
+        Map<String, Object> rootTile;
+        if (implicitTiling)
+        {
+            int availableLevels = OctreeBuilder.computeMaxLevel(root) + 1;
+            int subtreeLevels = Math.min(availableLevels, MAX_SUBTREE_LEVELS);
+            writeSubtrees(root, subtreeLevels, directory);
+            rootTile = createImplicitRootTile(root, availableLevels,
+                subtreeLevels);
+        }
+        else
+        {
+            rootTile = createExplicitTile(root);
+        }
+        rootTile.put("transform", Y_UP_TO_Z_UP.clone());
+        rootTile.put("refine", "REPLACE");
+        Map<String, Object> tileset =
+            createTileset(rootTile, tilesetGeometricError);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path tilesetJsonPath = directory.resolve(TILESET_JSON_NAME);
+        objectMapper.writerWithDefaultPrettyPrinter()
+            .writeValue(tilesetJsonPath.toFile(), tileset);
+    }
+
+    /**
+     * Write the glTF files for all given nodes into the given directory, in
+     * parallel
+     *
+     * @param g The {@link GaussianCloud}
+     * @param nodes The nodes
+     * @param directory The output directory
+     * @throws IOException If an IO error occurs
+     */
+    private void writeContents(GaussianCloud g, List<OctreeNode> nodes,
+        Path directory) throws IOException
+    {
+        try
+        {
+            nodes.parallelStream().forEach(node ->
+            {
+                try
+                {
+                    GaussianCloud tileCloud =
+                        GaussianClouds.subset(g, node.indices);
+                    writeContent(tileCloud, node.bounds, node, directory);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the glTF files for the given node and all its descendants into
+     * the given directory, creating level of detail content for all
+     * interior nodes.
+     *
+     * The content is created bottom-up. The content of a leaf node consists
+     * of its points. The content of an interior node is created by
+     * simplifying the content of its children. The children of each node are
+     * processed in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param root The root node
+     * @param directory The output directory
+     * @throws IOException If an IO error occurs
+     */
+    private void writeContentsWithLod(GaussianCloud g, OctreeNode root,
+        Path directory) throws IOException
+    {
+        try
+        {
+            writeContentWithLod(g, root, directory);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the glTF file for the given node and all its descendants into
+     * the given directory, and return the content of the given node.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param node The node
+     * @param directory The output directory
+     * @return The content of the node
+     * @throws UncheckedIOException If an IO error occurs
+     */
+    private GaussianCloud writeContentWithLod(GaussianCloud g,
+        OctreeNode node, Path directory)
+    {
+        GaussianCloud tileCloud;
+        float bounds[];
+        if (node.isLeaf())
+        {
+            tileCloud = GaussianClouds.subset(g, node.indices);
+            bounds = node.bounds;
+        }
+        else
+        {
+            OctreeNode children[] = node.children;
+            GaussianCloud childClouds[] = new GaussianCloud[children.length];
+            IntStream.range(0, children.length).parallel()
+                .filter(c -> children[c] != null)
+                .forEach(c -> childClouds[c] =
+                    writeContentWithLod(g, children[c], directory));
+            List<GaussianCloud> nonNullChildClouds =
+                new ArrayList<GaussianCloud>();
+            double maxChildError = 0.0;
+            for (int c = 0; c < children.length; c++)
+            {
+                if (childClouds[c] != null)
+                {
+                    nonNullChildClouds.add(childClouds[c]);
+                    maxChildError = Math.max(maxChildError,
+                        children[c].lodGeometricError);
+                }
+            }
+            GaussianCloud combined =
+                GaussianClouds.concatenate(nonNullChildClouds);
+
+            float cell[] = node.cell;
+            float extent = Math.max(cell[3] - cell[0],
+                Math.max(cell[4] - cell[1], cell[5] - cell[2]));
+            float voxelSize = extent / LOD_GRID_RESOLUTION;
+            if (!(voxelSize > 0.0f))
+            {
+                voxelSize = 1.0f;
+            }
+            tileCloud = GaussianCloudLods.simplify(combined, voxelSize);
+            while (tileCloud.getNumPoints() > maxPointsPerTile)
+            {
+                voxelSize *= 2.0f;
+                tileCloud = GaussianCloudLods.simplify(combined, voxelSize);
+            }
+            // Merging the Gaussians of a voxel may move each of them by up
+            // to the diagonal of the voxel. The error is strictly larger
+            // than the error of the children, so that the content is always
+            // refined into the content of the children.
+            node.lodContent = true;
+            node.lodGeometricError =
+                Math.max(Math.sqrt(3.0) * voxelSize, maxChildError * 2.0);
+            bounds = OctreeBuilder.computeBounds(tileCloud.getPositions());
+        }
+        try
+        {
+            writeContent(tileCloud, bounds, node, directory);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return tileCloud;
+    }
+
+    /**
+     * Write the glTF file with the given content for the given node into
+     * the given directory
+     *
+     * @param tileCloud The content
+     * @param bounds The bounding box of the positions of the content
+     * @param node The node
+     * @param directory The output directory
+     * @throws IOException If an IO error occurs
+     */
+    private void writeContent(GaussianCloud tileCloud, float bounds[],
+        OctreeNode node, Path directory) throws IOException
+    {
+        node.contentExtents =
+            GaussianClouds.statistics(tileCloud).getExtentBounds();
+
+        SpzWriterOptions options = new SpzWriterOptions();
+        options.setVersion(version);
+        options.setCompressionLevel(compressionLevel);
+        SpzWriter spzWriter = SpzWriters.create(options);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        spzWriter.write(tileCloud, baos);
+
+        GltfAssetV2 gltfAsset = SpzGltfAssets.create(
+            tileCloud.getNumPoints(), tileCloud.getShDegree(), bounds,
+            baos.toByteArray(), useBaseExtension);
+        Path glbFilePath = directory.resolve(createUri(CONTENT_URI_TEMPLATE,
+            node));
+        Files.createDirectories(glbFilePath.getParent());
+        GltfAssetWriter w = new GltfAssetWriter();
+        w.writeBinary(gltfAsset, glbFilePath.toFile());
+    }
+
+    /**
+     * Write the subtree files for the given octree into the given directory
+     *
+     * @param root The root node
+     * @param subtreeLevels The number of levels in each subtree
+     * @param directory The output directory
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeSubtrees(OctreeNode root, int subtreeLevels,
+        Path directory) throws IOException
+    {
+        List<OctreeNode> subtreeRoots = new ArrayList<OctreeNode>();
+        OctreeBuilder.forEach(root, node ->
+        {
+            if (node.level % subtreeLevels == 0)
+            {
+                subtreeRoots.add(node);
+            }
+        });
+        for (OctreeNode subtreeRoot : subtreeRoots)
+        {
+            byte subtreeBytes[] = Subtrees.create(subtreeRoot, subtreeLevels);
+            Path subtreePath = directory.resolve(createUri(
+                SUBTREE_URI_TEMPLATE, subtreeRoot));
+            Files.createDirectories(subtreePath.getParent());
+            Files.write(subtreePath, subtreeBytes);
+        }
+    }
+
+    /**
+     * Compute the {@link OctreeNode#geometricError} of the given node and
+     * all its descendants.
+     *
+     * Leaf nodes have a geometric error of 0. Interior nodes have the
+     * geometric error of their level of detail content, or the length of
+     * the diagonal of their cell if they do not have level of detail
+     * content, but at least twice the maximum geometric error of their
+     * children.
+     *
+     * @param node The node
+     */
+    private static void computeGeometricErrors(OctreeNode node)
+    {
+        if (node.isLeaf())
+        {
+            node.geometricError = 0.0;
+            return;
+        }
+        double maxChildError = 0.0;
+        for (OctreeNode child : node.children)
+        {
+            if (child != null)
+            {
+                computeGeometricErrors(child);
+                maxChildError =
+                    Math.max(maxChildError, child.geometricError);
+            }
+        }
+        double geometricError = computeGeometricError(node.cell);
+        if (node.lodContent)
+        {
+            geometricError = node.lodGeometricError;
+        }
+        node.geometricError = Math.max(geometricError, maxChildError * 2.0);
+    }
+
+    /**
+     * Create the tile for the given node of an explicit tileset, including
+     * its descendants
+     *
+     * @param node The node
+     * @return The tile
+     */
+    private static Map<String, Object> createExplicitTile(OctreeNode node)
+    {
+        Map<String, Object> tile = new LinkedHashMap<String, Object>();
+        tile.put("boundingVolume", createBoundingVolume(node.extents));
+        tile.put("geometricError", node.geometricError);
+        if (node.hasContent())
+        {
+            Map<String, Object> content = new LinkedHashMap<String, Object>();
+            content.put("uri", createUri(CONTENT_URI_TEMPLATE, node));
+            tile.put("content", content);
+        }
+        if (!node.isLeaf())
+        {
+            List<Object> children = new ArrayList<Object>();
+            for (OctreeNode child : node.children)
+            {
+                if (child != null)
+                {
+                    children.add(createExplicitTile(child));
+                }
+            }
+            tile.put("children", children);
+        }
+        return tile;
+    }
+
+    /**
+     * Create the root tile of an implicit tileset
+     *
+     * @param root The root node
+     * @param availableLevels The number of available levels
+     * @param subtreeLevels The number of levels in each subtree
+     * @return The tile
+     */
+    private static Map<String, Object> createImplicitRootTile(
+        OctreeNode root, int availableLevels, int subtreeLevels)
+    {
+        Map<String, Object> tile = new LinkedHashMap<String, Object>();
+        tile.put("boundingVolume", createBoundingVolume(root.cell));
+        tile.put("geometricError", root.geometricError);
+
+        Map<String, Object> content = new LinkedHashMap<String, Object>();
+        content.put("uri", CONTENT_URI_TEMPLATE);
+        tile.put("content", content);
+
+        Map<String, Object> subtrees = new LinkedHashMap<String, Object>();
+        subtrees.put("uri", SUBTREE_URI_TEMPLATE);
+        Map<String, Object> implicitTiling =
+            new LinkedHashMap<String, Object>();
+        implicitTiling.put("subdivisionScheme", "OCTREE");
+        implicitTiling.put("subtreeLevels", subtreeLevels);
+        implicitTiling.put("availableLevels", availableLevels);
+        implicitTiling.put("subtrees", subtrees);
+        tile.put("implicitTiling", implicitTiling);
+        return tile;
+    }
+
+    /**
+     * Create the tileset with the given root tile
+     *
+     * @param rootTile The root tile
+     * @param geometricError The geometric error of the tileset
+     * @return The tileset
+     */
+    private Map<String, Object> createTileset(Map<String, Object> rootTile,
+        double geometricError)
+    {
+        List<String> gltfExtensionNames = new ArrayList<String>();
+        if (useBaseExtension)
+        {
+            gltfExtensionNames.add(SpzGltfAssets.BASE_EXTENSION_NAME);
+        }
+        gltfExtensionNames
+            .add(SpzGltfAssets.getSpzExtensionName(useBaseExtension));
+
+        Map<String, Object> asset = new LinkedHashMap<String, Object>();
+        asset.put("version", "1.1");
+
+        Map<String, Object> contentGltf = new LinkedHashMap<String, Object>();
+        contentGltf.put("extensionsRequired", gltfExtensionNames);
+        contentGltf.put("extensionsUsed", gltfExtensionNames);
+        Map<String, Object> extensions = new LinkedHashMap<String, Object>();
+        extensions.put("3DTILES_content_gltf", contentGltf);
+
+        Map<String, Object> tileset = new LinkedHashMap<String, Object>();
+        tileset.put("asset", asset);
+        tileset.put("extensions", extensions);
+        tileset.put("extensionsUsed", Arrays.asList("3DTILES_content_gltf"));
+        if (implicitTiling)
+        {
+            tileset.put("schema", Subtrees.createSchema());
+        }
+        tileset.put("geometricError", geometricError);
+        tileset.put("root", rootTile);
+        return tileset;
+    }
+
+    /**
+     * Create a bounding volume object from the given bounding box.
+     *
+     * This is the center- and half-axis representation of the
+     * `boundingVolume.box` that is described at
+     * https://github.com/CesiumGS/3d-tiles/tree/main/specification#box,
+     * computed from the minimum- and maximum point of a box.
+     *
+     * @param bounds The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @return The bounding volume
+     */
+    private static Map<String, Object> createBoundingVolume(float bounds[])
+    {
+        Map<String, Object> boundingVolume =
+            new LinkedHashMap<String, Object>();
+        boundingVolume.put("box", createBox(bounds));
+        return boundingVolume;
+    }
+
+    /**
+     * Create the center- and half-axis representation of the given
+     * bounding box, as it is used for the <code>boundingVolume.box</code>
+     * of tiles
+     *
+     * @param bounds The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @return The box
+     */
+    static double[] createBox(float bounds[])
+    {
+        double box[] = new double[12];
+        for (int j = 0; j < 3; j++)
+        {
+            double min = bounds[j];
+            double max = bounds[j + 3];
+            box[j] = (min + max) * 0.5;
+            box[3 + j * 3 + j] = (max - min) * 0.5;
+        }
+        return box;
+    }
+
+    /**
+     * Compute the geometric error for a tile with the given bounding box,
+     * which is the length of the diagonal of the box. For an empty box, the
+     * geometric error will be 1.0, so that the tile is still refined.
+     *
+     * @param bounds The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @return The geometric error
+     */
+    private static double computeGeometricError(float bounds[])
+    {
+        double dx = (double) bounds[3] - bounds[0];
+        double dy = (double) bounds[4] - bounds[1];
+        double dz = (double) bounds[5] - bounds[2];
+        double diagonal = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (diagonal > 0.0)
+        {
+            return diagonal;
+        }
+        return 1.0;
+    }
+
+    /**
+     * Create the URI for the given node, by filling the given template
+     *
+     * @param template The template
+     * @param node The node
+     * @return The URI
+     */
+    private static String createUri(String template, OctreeNode node)
+    {
+        return template.replace("{level}", String.valueOf(node.level))
+            .replace("{x}", String.valueOf(node.x))
+            .replace("{y}", String.valueOf(node.y))
+            .replace("{z}", String.valueOf(node.z));
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz.gltf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Methods for creating the binary subtree files of implicit tilesets, for
+ * an octree of {@link OctreeNode} objects.
+ *
+ * The subtrees contain property tables with the bounding boxes and
+ * geometric errors of the available tiles, and the bounding boxes of the
+ * available contents, using the <code>TILE_BOUNDING_BOX</code>,
+ * <code>TILE_GEOMETRIC_ERROR</code> and <code>CONTENT_BOUNDING_BOX</code>
+ * semantics, as defined in the {@link #createSchema() schema}.
+ *
+ * See https://github.com/CesiumGS/3d-tiles/tree/main/specification/
+ * ImplicitTiling#subtrees
+ */
+class Subtrees
+{
+    /**
+     * The magic bytes of a subtree file, <code>"subt"</code>
+     */
+    private static final int MAGIC = 0x74627573;
+
+    /**
+     * The version of the subtree format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The length of the header of a subtree file, in bytes
+     */
+    private static final int HEADER_BYTE_LENGTH = 24;
+
+    /**
+     * The name of the metadata class for tiles
+     */
+    private static final String TILE_CLASS_NAME = "tile";
+
+    /**
+     * The name of the metadata class for contents
+     */
+    private static final String CONTENT_CLASS_NAME = "content";
+
+    /**
+     * The name of the bounding box property of the metadata classes
+     */
+    private static final String BOUNDING_BOX_PROPERTY_NAME = "boundingBox";
+
+    /**
+     * The name of the geometric error property of the tile class
+     */
+    private static final String GEOMETRIC_ERROR_PROPERTY_NAME =
+        "geometricError";
+
+    /**
+     * The number of elements of a bounding box
+     */
+    private static final int BOX_SIZE = 12;
+
+    /**
+     * Create the metadata schema for the tileset, containing the classes
+     * for the metadata that is stored in the subtrees
+     *
+     * @return The schema
+     */
+    static Map<String, Object> createSchema()
+    {
+        Map<String, Object> tileProperties =
+            new LinkedHashMap<String, Object>();
+        tileProperties.put(BOUNDING_BOX_PROPERTY_NAME,
+            createProperty("TILE_BOUNDING_BOX", BOX_SIZE));
+        tileProperties.put(GEOMETRIC_ERROR_PROPERTY_NAME,
+            createProperty("TILE_GEOMETRIC_ERROR", 1));
+        Map<String, Object> contentProperties =
+            new LinkedHashMap<String, Object>();
+        contentProperties.put(BOUNDING_BOX_PROPERTY_NAME,
+            createProperty("CONTENT_BOUNDING_BOX", BOX_SIZE));
+
+        Map<String, Object> tileClass = new LinkedHashMap<String, Object>();
+        tileClass.put("properties", tileProperties);
+        Map<String, Object> contentClass =
+            new LinkedHashMap<String, Object>();
+        contentClass.put("properties", contentProperties);
+        Map<String, Object> classes = new LinkedHashMap<String, Object>();
+        classes.put(TILE_CLASS_NAME, tileClass);
+        classes.put(CONTENT_CLASS_NAME, contentClass);
+        Map<String, Object> schema = new LinkedHashMap<String, Object>();
+        schema.put("id", "SpzTiler");
+        schema.put("classes", classes);
+        return schema;
+    }
+
+    /**
+     * Create a metadata class property with <code>FLOAT32</code> values
+     * and the given semantic. When the given count is larger than 1, then
+     * the property is an array with the given number of elements.
+     *
+     * @param semantic The semantic
+     * @param count The number of elements
+     * @return The property
+     */
+    private static Map<String, Object> createProperty(String semantic,
+        int count)
+    {
+        Map<String, Object> property = new LinkedHashMap<String, Object>();
+        property.put("type", "SCALAR");
+        property.put("componentType", "FLOAT32");
+        if (count > 1)
+        {
+            property.put("array", true);
+            property.put("count", count);
+        }
+        property.put("semantic", semantic);
+        return property;
+    }
+
+    /**
+     * Create the binary subtree data for the subtree that starts at the
+     * given node.
+     *
+     * The subtree covers the given number of levels, starting at the level
+     * of the given node. The child subtree availability refers to the nodes
+     * in the level directly below the subtree. The bounding boxes of the
+     * tiles are the {@link OctreeNode#extents}, the geometric errors of
+     * the tiles are the {@link OctreeNode#geometricError}, and the bounding
+     * boxes of the contents are the {@link OctreeNode#contentExtents}.
+     *
+     * @param subtreeRoot The root node of the subtree
+     * @param subtreeLevels The number of levels in each subtree
+     * @return The subtree data
+     * @throws IOException If the JSON part cannot be created
+     */
+    static byte[] create(OctreeNode subtreeRoot, int subtreeLevels)
+        throws IOException
+    {
+        int numTiles = (int) ((pow8(subtreeLevels) - 1) / 7);
+        int numChildSubtrees = (int) pow8(subtreeLevels);
+        byte tileBits[] = new byte[(numTiles + 7) / 8];
+        byte contentBits[] = new byte[(numTiles + 7) / 8];
+        byte childSubtreeBits[] = new byte[(numChildSubtrees + 7) / 8];
+        int counts[] = new int[3];
+        OctreeNode tiles[] = new OctreeNode[numTiles];
+        setBits(subtreeRoot, subtreeRoot, subtreeLevels, tileBits, contentBits,
+            childSubtreeBits, counts, tiles);
+
+        // The metadata is stored for the available tiles and contents, in
+        // the order of their index
+        List<float[]> tileBoxes = new ArrayList<float[]>();
+        List<Double> tileErrors = new ArrayList<Double>();
+        List<float[]> contentBoxes = new ArrayList<float[]>();
+        for (OctreeNode tile : tiles)
+        {
+            if (tile != null)
+            {
+                tileBoxes.add(tile.extents);
+                tileErrors.add(tile.geometricError);
+                if (tile.hasContent())
+                {
+                    contentBoxes.add(tile.contentExtents);
+                }
+            }
+        }
+
+        // Assemble the binary data and the buffer views
+        List<Object> bufferViews = new ArrayList<Object>();
+        int metadataByteLength =
+            (tileBoxes.size() + contentBoxes.size()) * BOX_SIZE * 4
+                + pad8(tileErrors.size() * 4);
+        ByteBuffer binary = ByteBuffer
+            .allocate(pad8(tileBits.length) + pad8(contentBits.length)
+                + pad8(childSubtreeBits.length) + metadataByteLength)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        Map<String, Object> tileAvailability =
+            createAvailability(tileBits, counts[0], binary, bufferViews);
+        Map<String, Object> contentAvailability =
+            createAvailability(contentBits, counts[1], binary, bufferViews);
+        Map<String, Object> childSubtreeAvailability = createAvailability(
+            childSubtreeBits, counts[2], binary, bufferViews);
+        List<Object> propertyTables = new ArrayList<Object>();
+        Map<String, Object> tileProperties =
+            new LinkedHashMap<String, Object>();
+        tileProperties.put(BOUNDING_BOX_PROPERTY_NAME,
+            createBoxValues(tileBoxes, binary, bufferViews));
+        tileProperties.put(GEOMETRIC_ERROR_PROPERTY_NAME,
+            createScalarValues(tileErrors, binary, bufferViews));
+        propertyTables.add(createPropertyTable(TILE_CLASS_NAME,
+            tileBoxes.size(), tileProperties));
+        if (!contentBoxes.isEmpty())
+        {
+            Map<String, Object> contentProperties =
+                new LinkedHashMap<String, Object>();
+            contentProperties.put(BOUNDING_BOX_PROPERTY_NAME,
+                createBoxValues(contentBoxes, binary, bufferViews));
+            propertyTables.add(createPropertyTable(CONTENT_CLASS_NAME,
+                contentBoxes.size(), contentProperties));
+        }
+        byte binaryBytes[] = Arrays.copyOf(binary.array(), binary.position());
+
+        // Create the JSON part
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+        if (binaryBytes.length > 0)
+        {
+            Map<String, Object> buffer = new LinkedHashMap<String, Object>();
+            buffer.put("byteLength", binaryBytes.length);
+            json.put("buffers", Arrays.asList(buffer));
+            json.put("bufferViews", bufferViews);
+        }
+        json.put("tileAvailability", tileAvailability);
+        json.put("contentAvailability", Arrays.asList(contentAvailability));
+        json.put("childSubtreeAvailability", childSubtreeAvailability);
+        json.put("propertyTables", propertyTables);
+        json.put("tileMetadata", 0);
+        if (!contentBoxes.isEmpty())
+        {
+            json.put("contentMetadata", Arrays.asList(1));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        byte jsonBytes[] = objectMapper.writeValueAsString(json)
+            .getBytes(StandardCharsets.UTF_8);
+        int jsonByteLength = pad8(jsonBytes.length);
+
+        // Assemble the subtree data
+        ByteBuffer result = ByteBuffer
+            .allocate(HEADER_BYTE_LENGTH + jsonByteLength + binaryBytes.length)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        result.putInt(MAGIC);
+        result.putInt(VERSION);
+        result.putLong(jsonByteLength);
+        result.putLong(binaryBytes.length);
+        result.put(jsonBytes);
+        for (int i = jsonBytes.length; i < jsonByteLength; i++)
+        {
+            result.put((byte) ' ');
+        }
+        result.put(binaryBytes);
+        return result.array();
+    }
+
+    /**
+     * Recursively set the bits for the given node and its descendants in
+     * the availability bitstreams of the subtree with the given root.
+     *
+     * The counts will receive the number of available tiles, contents and
+     * child subtrees. The tiles array will receive each available tile at
+     * its index.
+     *
+     * @param node The node
+     * @param subtreeRoot The root node of the subtree
+     * @param subtreeLevels The number of levels in each subtree
+     * @param tileBits The tile availability bitstream
+     * @param contentBits The content availability bitstream
+     * @param childSubtreeBits The child subtree availability bitstream
+     * @param counts The counts
+     * @param tiles The tiles
+     */
+    private static void setBits(OctreeNode node, OctreeNode subtreeRoot,
+        int subtreeLevels, byte tileBits[], byte contentBits[],
+        byte childSubtreeBits[], int counts[], OctreeNode tiles[])
+    {
+        int r = node.level - subtreeRoot.level;
+        int lx = node.x - (subtreeRoot.x << r);
+        int ly = node.y - (subtreeRoot.y << r);
+        int lz = node.z - (subtreeRoot.z << r);
+        int morton = mortonIndex(lx, ly, lz);
+        if (r == subtreeLevels)
+        {
+            setBit(childSubtreeBits, morton);
+            counts[2]++;
+            return;
+        }
+        int bitIndex = (int) ((pow8(r) - 1) / 7) + morton;
+        setBit(tileBits, bitIndex);
+        counts[0]++;
+        tiles[bitIndex] = node;
+        if (node.hasContent())
+        {
+            setBit(contentBits, bitIndex);
+            counts[1]++;
+        }
+        if (node.children != null)
+        {
+            for (OctreeNode child : node.children)
+            {
+                if (child != null)
+                {
+                    setBits(child, subtreeRoot, subtreeLevels, tileBits,
+                        contentBits, childSubtreeBits, counts, tiles);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the availability object for the given bitstream.
+     *
+     * If no element is available, then the availability is a constant 0.
+     * Otherwise, the bitstream is appended to the given binary data, padded
+     * to a multiple of 8 bytes, and a buffer view for the bitstream is added
+     * to the given list.
+     *
+     * @param bits The bitstream
+     * @param availableCount The number of available elements
+     * @param binary The binary data
+     * @param bufferViews The buffer views
+     * @return The availability object
+     */
+    private static Map<String, Object> createAvailability(byte bits[],
+        int availableCount, ByteBuffer binary, List<Object> bufferViews)
+    {
+        Map<String, Object> availability = new LinkedHashMap<String, Object>();
+        if (availableCount == 0)
+        {
+            availability.put("constant", 0);
+            return availability;
+        }
+        Map<String, Object> bufferView = new LinkedHashMap<String, Object>();
+        bufferView.put("buffer", 0);
+        bufferView.put("byteOffset", binary.position());
+        bufferView.put("byteLength", bits.length);
+        binary.put(bits);
+        binary.position(pad8(binary.position()));
+        availability.put("bitstream", bufferViews.size());
+        availability.put("availableCount", availableCount);
+        bufferViews.add(bufferView);
+        return availability;
+    }
+
+    /**
+     * Create a property table of the given class
+     *
+     * @param className The name of the class
+     * @param count The number of elements in the table
+     * @param properties The properties, mapping property names to the
+     *        objects that refer to the buffer views of their values
+     * @return The property table
+     */
+    private static Map<String, Object> createPropertyTable(String className,
+        int count, Map<String, Object> properties)
+    {
+        Map<String, Object> propertyTable =
+            new LinkedHashMap<String, Object>();
+        propertyTable.put("class", className);
+        propertyTable.put("count", count);
+        propertyTable.put("properties", properties);
+        return propertyTable;
+    }
+
+    /**
+     * Append the given bounding boxes, in the representation of the
+     * <code>boundingVolume.box</code> of tiles, to the given binary data,
+     * and return the property table property that refers to them.
+     *
+     * @param boxes The bounding boxes, each given as (minX, minY, minZ,
+     *        maxX, maxY, maxZ)
+     * @param binary The binary data
+     * @param bufferViews The buffer views
+     * @return The property table property
+     */
+    private static Map<String, Object> createBoxValues(List<float[]> boxes,
+        ByteBuffer binary, List<Object> bufferViews)
+    {
+        int byteOffset = binary.position();
+        for (float bounds[] : boxes)
+        {
+            for (double value : SpzTiler.createBox(bounds))
+            {
+                binary.putFloat((float) value);
+            }
+        }
+        return createValues(byteOffset, binary, bufferViews);
+    }
+
+    /**
+     * Append the given values to the given binary data, and return the
+     * property table property that refers to them.
+     *
+     * @param values The values
+     * @param binary The binary data
+     * @param bufferViews The buffer views
+     * @return The property table property
+     */
+    private static Map<String, Object> createScalarValues(
+        List<Double> values, ByteBuffer binary, List<Object> bufferViews)
+    {
+        int byteOffset = binary.position();
+        for (double value : values)
+        {
+            binary.putFloat((float) value);
+        }
+        return createValues(byteOffset, binary, bufferViews);
+    }
+
+    /**
+     * Add a buffer view for the values that have been appended to the given
+     * binary data, starting at the given offset, pad the binary data to a
+     * multiple of 8 bytes, and return the property table property that
+     * refers to the buffer view.
+     *
+     * @param byteOffset The offset of the values in the binary data
+     * @param binary The binary data
+     * @param bufferViews The buffer views
+     * @return The property table property
+     */
+    private static Map<String, Object> createValues(int byteOffset,
+        ByteBuffer binary, List<Object> bufferViews)
+    {
+        Map<String, Object> bufferView = new LinkedHashMap<String, Object>();
+        bufferView.put("buffer", 0);
+        bufferView.put("byteOffset", byteOffset);
+        bufferView.put("byteLength", binary.position() - byteOffset);
+        binary.position(pad8(binary.position()));
+        Map<String, Object> property = new LinkedHashMap<String, Object>();
+        property.put("values", bufferViews.size());
+        bufferViews.add(bufferView);
+        return property;
+    }
+
+    /**
+     * Returns the Morton index of the given coordinates, where the bits of
+     * the x-coordinate are the least significant ones
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param z The z-coordinate
+     * @return The Morton index
+     */
+    static int mortonIndex(int x, int y, int z)
+    {
+        int result = 0;
+        for (int b = 0; b < 10; b++)
+        {
+            result |= ((x >> b) & 1) << (3 * b + 0);
+            result |= ((y >> b) & 1) << (3 * b + 1);
+            result |= ((z >> b) & 1) << (3 * b + 2);
+        }
+        return result;
+    }
+
+    /**
+     * Set the specified bit in the given bitstream, where the bits within
+     * each byte are stored starting at the least significant bit
+     *
+     * @param bits The bitstream
+     * @param index The index of the bit
+     */
+    private static void setBit(byte bits[], int index)
+    {
+        bits[index >> 3] |= (1 << (index & 7));
+    }
+
+    /**
+     * Returns 8 to the power of the given value
+     *
+     * @param n The exponent
+     * @return The result
+     */
+    private static long pow8(int n)
+    {
+        return 1L << (3 * n);
+    }
+
+    /**
+     * Returns the smallest multiple of 8 that is not smaller than the given
+     * value
+     *
+     * @param n The value
+     * @return The padded value
+     */
+    private static int pad8(int n)
+    {
+        return (n + 7) & ~7;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Subtrees()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -29,6 +29,7 @@ package de.javagl.jspz;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 
 /**
  * Utility methods related to buffers
@@ -61,6 +62,19 @@ class Buffers
         return buffer.asFloatBuffer();
     }
 
+    /**
+     * Allocate a <i>little-endian</i> short buffer with the given size
+     * 
+     * @param size The size
+     * @return The buffer
+     */
+    static ShortBuffer allocateShort(int size)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(size * Short.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        return buffer.asShortBuffer();
+    }
+
     /**
      * Private constructor to prevent instantiation
      */
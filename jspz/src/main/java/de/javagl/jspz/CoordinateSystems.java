@@ -69,19 +69,17 @@ public class CoordinateSystems
         FloatBuffer rotations = g.getRotations();
         for (int i = 0; i < n; i++)
         {
-
-            float v0 = rotations.get(i * 3 + 0);
-            float v1 = rotations.get(i * 3 + 1);
-            float v2 = rotations.get(i * 3 + 2);
-            rotations.put(i * 3 + 0, v0 * c.flipQ[0]);
-            rotations.put(i * 3 + 1, v1 * c.flipQ[1]);
-            rotations.put(i * 3 + 2, v2 * c.flipQ[2]);
+            float v0 = rotations.get(i * 4 + 0);
+            float v1 = rotations.get(i * 4 + 1);
+            float v2 = rotations.get(i * 4 + 2);
+            rotations.put(i * 4 + 0, v0 * c.flipQ[0]);
+            rotations.put(i * 4 + 1, v1 * c.flipQ[1]);
+            rotations.put(i * 4 + 2, v2 * c.flipQ[2]);
         }
         FloatBuffer sh = g.getSh();
-        int numCoeffs = sh.capacity() / 3;
-        int numCoeffsPerPoint = numCoeffs / n;
+        int numCoeffsPerPoint = SpzUtils.dimensionsForDegree(g.getShDegree());
         int idx = 0;
-        for (int i = 0; i < numCoeffs; i += numCoeffsPerPoint)
+        for (int i = 0; i < n; i++)
         {
             for (int j = 0; j < numCoeffsPerPoint; ++j, idx += 3)
             {
@@ -99,11 +97,11 @@ public class CoordinateSystems
     // Ported from the original implementation, which is oh so clever...
 
     @SuppressWarnings("javadoc")
-    private static class CoordinateConverter
+    static class CoordinateConverter
     {
-        float flipP[];
-        float flipQ[];
-        float flipSh[];
+        final float flipP[];
+        final float flipQ[];
+        final float flipSh[];
 
         CoordinateConverter(float flipP[], float flipQ[], float flipSh[])
         {
@@ -116,8 +114,10 @@ public class CoordinateSystems
     @SuppressWarnings("javadoc")
     private static boolean[] axesMatch(CoordinateSystem a, CoordinateSystem b)
     {
-        int aNum = a.getN();
-        int bNum = b.getN();
+        // The numeric values of the coordinate systems are offset by 1,
+        // so that UNSPECIFIED becomes -1 and matches all axes
+        int aNum = a.getN() - 1;
+        int bNum = b.getN() - 1;
         if (aNum < 0 || bNum < 0)
         {
             return new boolean[]
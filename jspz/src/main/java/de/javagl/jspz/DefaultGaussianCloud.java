@@ -100,6 +100,20 @@ class DefaultGaussianCloud implements GaussianCloud
         this.sh = Buffers.allocateFloat(numPoints * shDim * 3);
     }
 
+    /**
+     * Returns the total number of bytes that are occupied by the buffers of
+     * this cloud
+     * 
+     * @return The number of bytes
+     */
+    long getByteLength()
+    {
+        long numFloats = (long) positions.capacity() + scales.capacity()
+            + rotations.capacity() + alphas.capacity() + colors.capacity()
+            + sh.capacity();
+        return numFloats * Float.BYTES;
+    }
+
     @Override
     public int getNumPoints()
     {
@@ -0,0 +1,137 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Default implementation of a {@link HalfGaussianCloud}
+ */
+class DefaultHalfGaussianCloud implements HalfGaussianCloud
+{
+    /**
+     * The number of points
+     */
+    private final int numPoints;
+
+    /**
+     * The spherical harmonics degree
+     */
+    private final int shDegree;
+
+    /**
+     * Whether the cloud is antialiased
+     */
+    private final boolean antialiased;
+
+    /**
+     * The positions
+     */
+    private final FloatBuffer positions;
+
+    /**
+     * The scales
+     */
+    private final ShortBuffer scales;
+
+    /**
+     * The rotations
+     */
+    private final ShortBuffer rotations;
+
+    /**
+     * The alphas
+     */
+    private final ShortBuffer alphas;
+
+    /**
+     * The colors
+     */
+    private final ShortBuffer colors;
+
+    /**
+     * The spherical harmonics
+     */
+    private final ShortBuffer sh;
+
+    /**
+     * Default constructor
+     *
+     * @param numPoints The number of points
+     * @param shDegree The spherical harmonics degree
+     * @param antialiased Whether the cloud is antialiased
+     */
+    DefaultHalfGaussianCloud(int numPoints, int shDegree, boolean antialiased)
+    {
+        this.numPoints = numPoints;
+        this.shDegree = shDegree;
+        this.antialiased = antialiased;
+
+        int shDim = SpzUtils.dimensionsForDegree(shDegree);
+        this.positions = Buffers.allocateFloat(numPoints * 3);
+        this.scales = Buffers.allocateShort(numPoints * 3);
+        this.rotations = Buffers.allocateShort(numPoints * 4);
+        this.alphas = Buffers.allocateShort(numPoints);
+        this.colors = Buffers.allocateShort(numPoints * 3);
+        this.sh = Buffers.allocateShort(numPoints * shDim * 3);
+    }
+
+    @Override
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+
+    @Override
+    public int getShDegree()
+    {
+        return shDegree;
+    }
+
+    @Override
+    public boolean isAntialiased()
+    {
+        return antialiased;
+    }
+
+    @Override
+    public FloatBuffer getPositions()
+    {
+        return positions.slice();
+    }
+
+    @Override
+    public ShortBuffer getScales()
+    {
+        return scales.slice();
+    }
+
+    @Override
+    public ShortBuffer getRotations()
+    {
+        return rotations.slice();
+    }
+
+    @Override
+    public ShortBuffer getAlphas()
+    {
+        return alphas.slice();
+    }
+
+    @Override
+    public ShortBuffer getColors()
+    {
+        return colors.slice();
+    }
+
+    @Override
+    public ShortBuffer getSh()
+    {
+        return sh.slice();
+    }
+
+}
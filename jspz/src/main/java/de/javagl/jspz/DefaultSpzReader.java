@@ -31,136 +31,309 @@
  */
 package de.javagl.jspz;
 
-import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-import java.util.zip.GZIPInputStream;
+import java.io.InterruptedIOException;
 
 /**
  * Default implementation of an {@link SpzReader}
  */
 class DefaultSpzReader implements SpzReader
 {
+    /**
+     * The number of bytes that are read in one chunk
+     */
+    private static final int BYTES_PER_CHUNK = 1 << 20;
+
+    /**
+     * The number of points that are converted in one chunk
+     */
+    private static final int POINTS_PER_CHUNK = 1 << 16;
+
+    /**
+     * The {@link SpzReaderOptions}
+     */
+    private final SpzReaderOptions options;
+
+    /**
+     * Creates a new instance with default options
+     */
+    DefaultSpzReader()
+    {
+        this(new SpzReaderOptions());
+    }
+
+    /**
+     * Creates a new instance
+     * 
+     * @param options The {@link SpzReaderOptions}
+     */
+    DefaultSpzReader(SpzReaderOptions options)
+    {
+        this.options = new SpzReaderOptions(options);
+    }
+
     @Override
     public GaussianCloud read(InputStream spzInputStream) throws IOException
     {
-        InputStream spInputStream = new GZIPInputStream(spzInputStream);
-        DataInput dataInput = new DataInputStream(spInputStream);
+        long startNanos = System.nanoTime();
+        Object readEvent = SpzEvents.begin(SpzEvents.READ);
+        SpzGZIPInputStream gzipInputStream =
+            new SpzGZIPInputStream(spzInputStream);
+        try
+        {
+            GaussianCloud g =
+                read(gzipInputStream, startNanos, readEvent);
+            return g;
+        }
+        catch (InterruptedIOException e)
+        {
+            gzipInputStream.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the {@link GaussianCloud} from the given stream
+     * 
+     * @param gzipInputStream The stream
+     * @param startNanos The time when reading started
+     * @param readEvent The event for the read operation
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs
+     * @throws InterruptedIOException If the operation was cancelled
+     */
+    private GaussianCloud read(SpzGZIPInputStream gzipInputStream,
+        long startNanos, Object readEvent) throws IOException
+    {
+        DataInputStream dataInput = new DataInputStream(gzipInputStream);
 
-        byte headerBytes[] = new byte[16];
+        byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
         dataInput.readFully(headerBytes);
+        SpzHeader header = SpzHeader.fromBytes(headerBytes);
+
+        SpzStatistics statistics = new SpzStatistics(header);
+        SpzProgress progress = new SpzProgress(options.getProgressListener(),
+            options.getCancellation(), "Reading SPZ data was cancelled",
+            header);
+        progress.checkCancelled();
 
-        ByteBuffer headerBuffer = Buffers.wrap(headerBytes);
-        int magic = headerBuffer.getInt(0);
-        if (magic != SpzUtils.MAGIC)
+        int numPoints = header.numPoints;
+        int shDegree = Math.min(header.shDegree, options.getMaxShDegree());
+        boolean antialiased = header.isAntialiased();
+        DefaultGaussianCloud g =
+            new DefaultGaussianCloud(numPoints, shDegree, antialiased);
+        statistics.addAllocatedBytes(g.getByteLength());
+        CoordinateSystems.CoordinateConverter converter =
+            CoordinateSystems.coordinateConverter(
+                options.getSourceCoordinateSystem(),
+                options.getTargetCoordinateSystem());
+        GaussianCloudStatistics cloudStatistics = null;
+        if (options.isCollectingCloudStatistics())
         {
-            throw new IOException(
-                "Expected magic to be " + Integer.toHexString(SpzUtils.MAGIC)
-                    + ", but it is " + Integer.toHexString(magic));
+            cloudStatistics = new GaussianCloudStatistics(shDegree);
         }
-        int version = headerBuffer.getInt(4);
-        if (version != 2 && version != 3)
+
+        // Yeah. The order is mentioned in the README, but
+        // does not match the order of the sections.
+        // When the spherical harmonics degree is reduced, then only the
+        // raw data of the coefficients that are actually used is stored
+        SpzHeader reducedHeader = header;
+        if (shDegree < header.shDegree)
         {
-            throw new IOException(
-                "Expected version to be 2 or 3, but it is " + version);
+            reducedHeader = new SpzHeader(header.version, numPoints,
+                shDegree, header.fractionalBits, header.flags);
         }
-        int numPoints = headerBuffer.getInt(8);
-        byte shDegree = headerBuffer.get(12);
-        byte fractionalBits = headerBuffer.get(13);
-        byte flags = headerBuffer.get(14);
-        boolean antialiased = (flags & 1) != 0;
+        for (SpzSection section : SpzSection.values())
+        {
+            int byteLength = byteLength(section, header);
+            SpzHeader sectionHeader = header;
+            if (section == SpzSection.SH)
+            {
+                sectionHeader = reducedHeader;
+            }
+            byte raw[] = new byte[byteLength(section, sectionHeader)];
+            statistics.addAllocatedBytes(raw.length);
 
-        int positionBytes = 3;
-        int rotationBytes = (version == 3) ? 4 : 3; // Yes!
-        RawGaussianCloud r = new RawGaussianCloud(numPoints, positionBytes,
-            rotationBytes, shDegree, fractionalBits, antialiased);
+            long compressedBefore = gzipInputStream.getCompressedBytesRead();
+            Object inflateEvent = SpzEvents.begin(SpzEvents.INFLATE);
+            long t0 = System.nanoTime();
+            if (sectionHeader == header)
+            {
+                for (int offset = 0; offset < raw.length;)
+                {
+                    int length =
+                        Math.min(BYTES_PER_CHUNK, raw.length - offset);
+                    dataInput.readFully(raw, offset, length);
+                    offset += length;
+                    progress.update(section, byteLength,
+                        0.5 * offset / byteLength);
+                }
+            }
+            else
+            {
+                readReduced(dataInput, section, header, sectionHeader, raw,
+                    statistics, progress);
+            }
+            long t1 = System.nanoTime();
+            long compressed =
+                gzipInputStream.getCompressedBytesRead() - compressedBefore;
+            SpzEvents.commit(inflateEvent, header, section, compressed,
+                byteLength);
 
-        // Yeah. The order is mentioned in the README, but
-        // does not match the order of the sections.
-        dataInput.readFully(r.positions);
-        dataInput.readFully(r.alphas);
-        dataInput.readFully(r.colors);
-        dataInput.readFully(r.scales);
-        dataInput.readFully(r.rotations);
-        dataInput.readFully(r.sh);
-
-        if (version == 2)
+            Object dequantizeEvent = SpzEvents.begin(SpzEvents.DEQUANTIZE);
+            for (int start = 0; start < numPoints; start += POINTS_PER_CHUNK)
+            {
+                int end = Math.min(numPoints, start + POINTS_PER_CHUNK);
+                convert(section, sectionHeader, raw, g, converter, start,
+                    end);
+                if (cloudStatistics != null)
+                {
+                    cloudStatistics.add(section, g, start, end);
+                }
+                progress.update(section, byteLength,
+                    0.5 + 0.5 * end / numPoints);
+            }
+            long t2 = System.nanoTime();
+            SpzEvents.commit(dequantizeEvent, header, section, 0, byteLength);
+
+            statistics.add(section, compressed, byteLength, t1 - t0, t2 - t1);
+            progress.completed(byteLength);
+        }
+        statistics.setCloudStatistics(cloudStatistics);
+        statistics.setTotalNanos(System.nanoTime() - startNanos);
+        SpzEvents.commit(readEvent, header, null,
+            statistics.getTotalCompressedBytes(),
+            statistics.getTotalUncompressedBytes());
+
+        SpzReadListener readListener = options.getReadListener();
+        if (readListener != null)
         {
-            GaussianCloud g = convertV2(r);
-            return g;
+            readListener.readCompleted(statistics);
         }
-        GaussianCloud g = convertV3(r);
         return g;
     }
 
     /**
-     * Converts the given {@link RawGaussianCloud} storing data in SPZ version 2
-     * into a {@link GaussianCloud}.
+     * Read the data of the given section, and store only the first bytes of
+     * the data of each point in the given target array. This is used for
+     * reading the spherical harmonics coefficients of a lower degree than
+     * the one that is stored in the data, without storing the coefficients
+     * of the higher degrees.
      * 
-     * @param raw The {@link RawGaussianCloud}
-     * @return The {@link GaussianCloud}
+     * @param dataInput The input
+     * @param section The {@link SpzSection}
+     * @param header The {@link SpzHeader} of the data
+     * @param targetHeader The {@link SpzHeader} that describes the target
+     * @param target The target array
+     * @param statistics The {@link SpzStatistics}
+     * @param progress The {@link SpzProgress}
+     * @throws IOException If an IO error occurs
      */
-    private static GaussianCloud convertV2(RawGaussianCloud raw)
+    private static void readReduced(DataInputStream dataInput,
+        SpzSection section, SpzHeader header, SpzHeader targetHeader,
+        byte target[], SpzStatistics statistics, SpzProgress progress)
+        throws IOException
     {
-        int numPoints = raw.numPoints;
-        int shDegree = raw.shDegree;
-        boolean antialiased = raw.antialiased;
-
-        GaussianCloud result =
-            new DefaultGaussianCloud(numPoints, shDegree, antialiased);
-
-        FloatBuffer positions = result.getPositions();
-        FloatBuffer scales = result.getScales();
-        FloatBuffer rotations = result.getRotations();
-        FloatBuffer alphas = result.getAlphas();
-        FloatBuffer colors = result.getColors();
-        FloatBuffer sh = result.getSh();
-
-        RawGaussianClouds.convertPositions(raw.positions, positions,
-            raw.fractionalBits);
-        RawGaussianClouds.convertScales(raw.scales, scales);
-        RawGaussianClouds.convertRotationsV2(raw.rotations, rotations);
-        RawGaussianClouds.convertAlphas(raw.alphas, alphas);
-        RawGaussianClouds.convertColors(raw.colors, colors);
-        RawGaussianClouds.convertShs(raw.sh, sh);
-
-        return result;
+        int numPoints = header.numPoints;
+        int sourceBytesPerPoint =
+            section.bytesPerPoint(header.version, header.shDegree);
+        int targetBytesPerPoint = section.bytesPerPoint(
+            targetHeader.version, targetHeader.shDegree);
+        int pointsPerChunk =
+            Math.max(1, BYTES_PER_CHUNK / sourceBytesPerPoint);
+        byte buffer[] =
+            new byte[Math.min(numPoints, pointsPerChunk) * sourceBytesPerPoint];
+        statistics.addAllocatedBytes(buffer.length);
+        for (int start = 0; start < numPoints; start += pointsPerChunk)
+        {
+            int count = Math.min(pointsPerChunk, numPoints - start);
+            dataInput.readFully(buffer, 0, count * sourceBytesPerPoint);
+            for (int i = 0; i < count; i++)
+            {
+                System.arraycopy(buffer, i * sourceBytesPerPoint, target,
+                    (start + i) * targetBytesPerPoint, targetBytesPerPoint);
+            }
+            progress.update(section, (long) numPoints * sourceBytesPerPoint,
+                0.5 * (start + count) / numPoints);
+        }
     }
 
     /**
-     * Converts the given {@link RawGaussianCloud} storing data in SPZ version 3
-     * into a {@link GaussianCloud}.
+     * Returns the length of the given section for the given header, as an
+     * array length
      * 
-     * @param raw The {@link RawGaussianCloud}
-     * @return The {@link GaussianCloud}
+     * @param section The {@link SpzSection}
+     * @param header The {@link SpzHeader}
+     * @return The length
+     * @throws IOException If the section is too large to be stored in an
+     *         array
      */
-    private static GaussianCloud convertV3(RawGaussianCloud raw)
+    static int byteLength(SpzSection section, SpzHeader header)
+        throws IOException
     {
-        int numPoints = raw.numPoints;
-        int shDegree = raw.shDegree;
-        boolean antialiased = raw.antialiased;
-
-        GaussianCloud result =
-            new DefaultGaussianCloud(numPoints, shDegree, antialiased);
+        long byteLength = section.byteLength(header);
+        if (byteLength > Integer.MAX_VALUE)
+        {
+            throw new IOException("The " + section + " section with "
+                + byteLength + " bytes is too large to be read");
+        }
+        return (int) byteLength;
+    }
 
-        FloatBuffer positions = result.getPositions();
-        FloatBuffer scales = result.getScales();
-        FloatBuffer rotations = result.getRotations();
-        FloatBuffer alphas = result.getAlphas();
-        FloatBuffer colors = result.getColors();
-        FloatBuffer sh = result.getSh();
-
-        RawGaussianClouds.convertPositions(raw.positions, positions,
-            raw.fractionalBits);
-        RawGaussianClouds.convertScales(raw.scales, scales);
-        RawGaussianClouds.convertRotationsV3(raw.rotations, rotations);
-        RawGaussianClouds.convertAlphas(raw.alphas, alphas);
-        RawGaussianClouds.convertColors(raw.colors, colors);
-        RawGaussianClouds.convertShs(raw.sh, sh);
-
-        return result;
+    /**
+     * Converts the given raw data of the given section into the data that is
+     * stored in the given {@link GaussianCloud}
+     * 
+     * @param section The {@link SpzSection}
+     * @param header The {@link SpzHeader}
+     * @param raw The raw data
+     * @param g The {@link GaussianCloud}
+     * @param c The {@link CoordinateSystems.CoordinateConverter}
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    static void convert(SpzSection section, SpzHeader header,
+        byte raw[], GaussianCloud g, CoordinateSystems.CoordinateConverter c,
+        int start, int end)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                RawGaussianClouds.convertPositions(raw, g.getPositions(),
+                    header.fractionalBits, c.flipP, start, end);
+                break;
+            case ALPHAS:
+                RawGaussianClouds.convertAlphas(raw, g.getAlphas(), start,
+                    end);
+                break;
+            case COLORS:
+                RawGaussianClouds.convertColors(raw, g.getColors(), start,
+                    end);
+                break;
+            case SCALES:
+                RawGaussianClouds.convertScales(raw, g.getScales(), start,
+                    end);
+                break;
+            case ROTATIONS:
+                if (header.version == 2)
+                {
+                    RawGaussianClouds.convertRotationsV2(raw,
+                        g.getRotations(), c.flipQ, start, end);
+                }
+                else
+                {
+                    RawGaussianClouds.convertRotationsV3(raw,
+                        g.getRotations(), c.flipQ, start, end);
+                }
+                break;
+            case SH:
+                RawGaussianClouds.convertShs(raw, g.getSh(),
+                    header.shDegree, g.getShDegree(), c.flipSh, start, end);
+                break;
+            default:
+                throw new IllegalStateException("Invalid section: " + section);
+        }
     }
-}
\ No newline at end of file
+}
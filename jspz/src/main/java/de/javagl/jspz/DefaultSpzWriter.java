@@ -33,200 +33,333 @@ package de.javagl.jspz;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.CRC32;
 
 /**
- * A class with methods that implement the {@link SpzWriter} interface
+ * Default implementation of an {@link SpzWriter}
  */
-class DefaultSpzWriter
+class DefaultSpzWriter implements SpzWriter
 {
     /**
-     * Write the given {@link GaussianCloud} into the given output stream, using
-     * SPZ version 2.
+     * The number of fractional bits that are used for the positions
+     */
+    private static final int FRACTIONAL_BITS = 12;
+
+    /**
+     * The number of bytes that are written in one chunk
+     */
+    private static final int BYTES_PER_CHUNK = 1 << 20;
+
+    /**
+     * The number of points that are converted in one chunk
+     */
+    private static final int POINTS_PER_CHUNK = 1 << 16;
+
+    /**
+     * The {@link SpzWriterOptions}
+     */
+    private final SpzWriterOptions options;
+
+    /**
+     * Creates a new instance
      * 
-     * A reference to this method can be used as an {@link SpzWriter}.
+     * @param options The {@link SpzWriterOptions}
+     */
+    DefaultSpzWriter(SpzWriterOptions options)
+    {
+        this.options = new SpzWriterOptions(options);
+    }
+
+    @Override
+    public void write(GaussianCloud gaussianCloud,
+        OutputStream spzOutputStream) throws IOException
+    {
+        long startNanos = System.nanoTime();
+        Object writeEvent = SpzEvents.begin(SpzEvents.WRITE);
+        SpzGZIPOutputStream gzipOutputStream =
+            new SpzGZIPOutputStream(spzOutputStream,
+                options.getCompressionLevel());
+        try
+        {
+            write(gaussianCloud, spzOutputStream, gzipOutputStream,
+                startNanos, writeEvent);
+        }
+        catch (InterruptedIOException e)
+        {
+            gzipOutputStream.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Write the given {@link GaussianCloud} into the given stream
      * 
      * @param gaussianCloud The {@link GaussianCloud}
-     * @param spzOutputStream The output stream
+     * @param spzOutputStream The underlying stream, for writing the index
+     * @param gzipOutputStream The stream
+     * @param startNanos The time when writing started
+     * @param writeEvent The event for the write operation
      * @throws IOException If an IO error occurs
+     * @throws InterruptedIOException If the operation was cancelled
      */
-    static void writeV2(GaussianCloud gaussianCloud,
-        OutputStream spzOutputStream) throws IOException
+    private void write(GaussianCloud gaussianCloud,
+        OutputStream spzOutputStream, SpzGZIPOutputStream gzipOutputStream,
+        long startNanos,
+        Object writeEvent) throws IOException
     {
-        GZIPOutputStream spOutputStream = new GZIPOutputStream(spzOutputStream);
-        DataOutputStream dataOutput = new DataOutputStream(spOutputStream);
-        int fractionalBits = 12;
+        DataOutputStream dataOutput = new DataOutputStream(gzipOutputStream);
+
+        int shDegree =
+            Math.min(gaussianCloud.getShDegree(), options.getMaxShDegree());
+        SpzHeader header = createHeader(gaussianCloud, options.getVersion(),
+            shDegree, FRACTIONAL_BITS);
+        SpzStatistics statistics = new SpzStatistics(header);
+        SpzProgress progress = new SpzProgress(options.getProgressListener(),
+            options.getCancellation(), "Writing SPZ data was cancelled",
+            header);
+        progress.checkCancelled();
+
+        // When an index is written, then the header and each block of
+        // each section are compressed independently
+        SpzIndex index = null;
+        if (options.getIndexBlockSize() > 0)
+        {
+            int blockSize = SpzIndex.computeBlockSize(header,
+                options.getIndexBlockSize());
+            int numBlocks = (int) SpzIndex.computeNumBlocks(header, blockSize);
+            index = new SpzIndex(blockSize, numBlocks);
+        }
+
+        byte headerBytes[] = header.toBytes();
+        if (index == null)
+        {
+            dataOutput.write(headerBytes);
+        }
+        else
+        {
+            writeBlock(gzipOutputStream, index, 0, headerBytes, 0,
+                headerBytes.length);
+        }
 
-        int version = 2;
-        byte[] headerBytes =
-            createHeader(gaussianCloud, version, fractionalBits);
-        dataOutput.write(headerBytes);
+        CoordinateSystems.CoordinateConverter converter =
+            CoordinateSystems.coordinateConverter(
+                options.getSourceCoordinateSystem(),
+                options.getTargetCoordinateSystem());
+        int numPoints = header.numPoints;
+        for (SpzSection section : SpzSection.values())
+        {
+            byte raw[] = new byte[DefaultSpzReader.byteLength(section, header)];
+            statistics.addAllocatedBytes(raw.length);
 
-        RawGaussianCloud r = convertV2(gaussianCloud, fractionalBits);
+            Object quantizeEvent = SpzEvents.begin(SpzEvents.QUANTIZE);
+            long t0 = System.nanoTime();
+            for (int start = 0; start < numPoints; start += POINTS_PER_CHUNK)
+            {
+                int end = Math.min(numPoints, start + POINTS_PER_CHUNK);
+                convert(section, header, gaussianCloud, raw, converter,
+                    start, end);
+                progress.update(section, raw.length, 0.5 * end / numPoints);
+            }
+            SpzEvents.commit(quantizeEvent, header, section, 0, raw.length);
 
-        dataOutput.write(r.positions);
-        dataOutput.write(r.alphas);
-        dataOutput.write(r.colors);
-        dataOutput.write(r.scales);
-        dataOutput.write(r.rotations);
-        dataOutput.write(r.sh);
+            Object deflateEvent = SpzEvents.begin(SpzEvents.DEFLATE);
+            long compressedBefore =
+                gzipOutputStream.getCompressedBytesWritten();
+            long t1 = System.nanoTime();
+            if (index == null)
+            {
+                for (int offset = 0; offset < raw.length;)
+                {
+                    int length =
+                        Math.min(BYTES_PER_CHUNK, raw.length - offset);
+                    dataOutput.write(raw, offset, length);
+                    offset += length;
+                    progress.update(section, raw.length,
+                        0.5 + 0.5 * offset / raw.length);
+                }
+            }
+            else
+            {
+                writeBlocks(section, header, raw, gzipOutputStream, index,
+                    progress);
+            }
+            long t2 = System.nanoTime();
+            long compressed = gzipOutputStream.getCompressedBytesWritten()
+                - compressedBefore;
+            SpzEvents.commit(deflateEvent, header, section, compressed,
+                raw.length);
 
+            statistics.add(section, compressed, raw.length, t2 - t1, t1 - t0);
+            progress.completed(raw.length);
+        }
+
+        // Finishing the stream will write the data that was kept
+        // by the deflater. This is attributed to the last section.
+        long compressedBefore = gzipOutputStream.getCompressedBytesWritten();
+        long t0 = System.nanoTime();
         dataOutput.flush();
-        spOutputStream.finish();
-        spOutputStream.flush();
+        gzipOutputStream.finish();
+        gzipOutputStream.flush();
+        if (index != null)
+        {
+            long indexOffset = gzipOutputStream.getMemberBytesWritten()
+                + SpzGZIPOutputStream.GZIP_TRAILER_LENGTH;
+            index.write(spzOutputStream, indexOffset);
+            spzOutputStream.flush();
+        }
+        long t1 = System.nanoTime();
+        long compressed =
+            gzipOutputStream.getCompressedBytesWritten() - compressedBefore;
+        statistics.add(SpzSection.SH, compressed, 0, t1 - t0, 0);
+        statistics.setTotalNanos(System.nanoTime() - startNanos);
+        SpzEvents.commit(writeEvent, header, null,
+            statistics.getTotalCompressedBytes(),
+            statistics.getTotalUncompressedBytes());
+
+        SpzWriteListener writeListener = options.getWriteListener();
+        if (writeListener != null)
+        {
+            writeListener.writeCompleted(statistics);
+        }
     }
 
     /**
-     * Converts the given {@link GaussianCloud} into a {@link RawGaussianCloud}
-     * for SPZ version 2.
+     * Write the raw data of the given section as independently compressed
+     * blocks, and store the information about the blocks in the given index
      * 
-     * @param g The {@link GaussianCloud}
-     * @param fractionalBits The fractional bits
-     * @return The {@link RawGaussianCloud}
+     * @param section The {@link SpzSection}
+     * @param header The {@link SpzHeader}
+     * @param raw The raw data
+     * @param gzipOutputStream The stream
+     * @param index The {@link SpzIndex}
+     * @param progress The {@link SpzProgress}
+     * @throws IOException If an IO error occurs
      */
-    private static RawGaussianCloud convertV2(GaussianCloud g,
-        int fractionalBits)
+    private static void writeBlocks(SpzSection section, SpzHeader header,
+        byte raw[], SpzGZIPOutputStream gzipOutputStream, SpzIndex index,
+        SpzProgress progress) throws IOException
     {
-        int numPoints = g.getNumPoints();
-        int shDegree = g.getShDegree();
-        boolean antialiased = g.isAntialiased();
-
-        int positionBytes = 3;
-        int rotationBytes = 3; // For version 2
-        RawGaussianCloud r = new RawGaussianCloud(numPoints, positionBytes,
-            rotationBytes, shDegree, fractionalBits, antialiased);
-
-        FloatBuffer positions = g.getPositions();
-        FloatBuffer scales = g.getScales();
-        FloatBuffer rotations = g.getRotations();
-        FloatBuffer alphas = g.getAlphas();
-        FloatBuffer colors = g.getColors();
-        FloatBuffer sh = g.getSh();
-
-        RawGaussianClouds.convertPositions(positions, r.positions,
-            fractionalBits);
-        RawGaussianClouds.convertScales(scales, r.scales);
-        RawGaussianClouds.convertRotationsV2(rotations, r.rotations);
-        RawGaussianClouds.convertAlphas(alphas, r.alphas);
-        RawGaussianClouds.convertColors(colors, r.colors);
-        RawGaussianClouds.convertShs(sh, r.sh, numPoints, shDegree);
-
-        return r;
+        int numPoints = header.numPoints;
+        int bytesPerPoint =
+            section.bytesPerPoint(header.version, header.shDegree);
+        if (bytesPerPoint == 0)
+        {
+            return;
+        }
+        int blockSize = index.getBlockSize();
+        int block = index.firstBlock(header, section);
+        for (int start = 0; start < numPoints; start += blockSize)
+        {
+            int end = Math.min(numPoints, start + blockSize);
+            writeBlock(gzipOutputStream, index, block, raw,
+                start * bytesPerPoint, (end - start) * bytesPerPoint);
+            block++;
+            progress.update(section, raw.length, 0.5 + 0.5 * end / numPoints);
+        }
     }
 
-    
     /**
-     * Write the given {@link GaussianCloud} into the given output stream, using
-     * SPZ version 3.
-     * 
-     * A reference to this method can be used as an {@link SpzWriter}.
+     * Write the specified data as one independently compressed block, and
+     * store the information about the block in the given index
      * 
-     * @param gaussianCloud The {@link GaussianCloud}
-     * @param spzOutputStream The output stream
+     * @param gzipOutputStream The stream
+     * @param index The {@link SpzIndex}
+     * @param block The index of the block
+     * @param data The data
+     * @param offset The offset of the block data
+     * @param length The length of the block data
      * @throws IOException If an IO error occurs
      */
-    static void writeV3(GaussianCloud gaussianCloud,
-        OutputStream spzOutputStream) throws IOException
+    private static void writeBlock(SpzGZIPOutputStream gzipOutputStream,
+        SpzIndex index, int block, byte data[], int offset, int length)
+        throws IOException
     {
-        GZIPOutputStream spOutputStream = new GZIPOutputStream(spzOutputStream);
-        DataOutputStream dataOutput = new DataOutputStream(spOutputStream);
-        int fractionalBits = 12;
-
-        int version = 3;
-        byte[] headerBytes =
-            createHeader(gaussianCloud, version, fractionalBits);
-        dataOutput.write(headerBytes);
-
-        RawGaussianCloud r = convertV3(gaussianCloud, fractionalBits);
-
-        dataOutput.write(r.positions);
-        dataOutput.write(r.alphas);
-        dataOutput.write(r.colors);
-        dataOutput.write(r.scales);
-        dataOutput.write(r.rotations);
-        dataOutput.write(r.sh);
-
-        dataOutput.flush();
-        spOutputStream.finish();
-        spOutputStream.flush();
+        long start = gzipOutputStream.getMemberBytesWritten();
+        gzipOutputStream.write(data, offset, length);
+        gzipOutputStream.fullFlush();
+        long end = gzipOutputStream.getMemberBytesWritten();
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        index.setBlock(block, start, (int) (end - start),
+            (int) crc.getValue());
     }
 
     /**
-     * Converts the given {@link GaussianCloud} into a {@link RawGaussianCloud}
-     * for SPZ version 3.
+     * Converts the data of the given section from the given
+     * {@link GaussianCloud} into the raw data that is stored in the file
      * 
+     * @param section The {@link SpzSection}
+     * @param header The {@link SpzHeader}
      * @param g The {@link GaussianCloud}
-     * @param fractionalBits The fractional bits
-     * @return The {@link RawGaussianCloud}
+     * @param raw The raw data
+     * @param c The {@link CoordinateSystems.CoordinateConverter}
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    private static RawGaussianCloud convertV3(GaussianCloud g,
-        int fractionalBits)
+    private static void convert(SpzSection section, SpzHeader header,
+        GaussianCloud g, byte raw[], CoordinateSystems.CoordinateConverter c,
+        int start, int end)
     {
-        int numPoints = g.getNumPoints();
-        int shDegree = g.getShDegree();
-        boolean antialiased = g.isAntialiased();
-
-        int positionBytes = 3;
-        int rotationBytes = 4; // For version 3
-        RawGaussianCloud r = new RawGaussianCloud(numPoints, positionBytes,
-            rotationBytes, shDegree, fractionalBits, antialiased);
-
-        FloatBuffer positions = g.getPositions();
-        FloatBuffer scales = g.getScales();
-        FloatBuffer rotations = g.getRotations();
-        FloatBuffer alphas = g.getAlphas();
-        FloatBuffer colors = g.getColors();
-        FloatBuffer sh = g.getSh();
-
-        RawGaussianClouds.convertPositions(positions, r.positions,
-            fractionalBits);
-        RawGaussianClouds.convertScales(scales, r.scales);
-        RawGaussianClouds.convertRotationsV3(rotations, r.rotations);
-        RawGaussianClouds.convertAlphas(alphas, r.alphas);
-        RawGaussianClouds.convertColors(colors, r.colors);
-        RawGaussianClouds.convertShs(sh, r.sh, numPoints, shDegree);
-
-        return r;
+        switch (section)
+        {
+            case POSITIONS:
+                RawGaussianClouds.convertPositions(g.getPositions(), raw,
+                    header.fractionalBits, c.flipP, start, end);
+                break;
+            case ALPHAS:
+                RawGaussianClouds.convertAlphas(g.getAlphas(), raw, start,
+                    end);
+                break;
+            case COLORS:
+                RawGaussianClouds.convertColors(g.getColors(), raw, start,
+                    end);
+                break;
+            case SCALES:
+                RawGaussianClouds.convertScales(g.getScales(), raw, start,
+                    end);
+                break;
+            case ROTATIONS:
+                if (header.version == 2)
+                {
+                    RawGaussianClouds.convertRotationsV2(g.getRotations(),
+                        raw, c.flipQ, start, end);
+                }
+                else
+                {
+                    RawGaussianClouds.convertRotationsV3(g.getRotations(),
+                        raw, c.flipQ, start, end);
+                }
+                break;
+            case SH:
+                RawGaussianClouds.convertShs(g.getSh(), raw,
+                    g.getShDegree(), header.shDegree, c.flipSh, start, end);
+                break;
+            default:
+                throw new IllegalStateException("Invalid section: " + section);
+        }
     }
-    
+
     /**
-     * Create a byte array containing the SPZ header for the specified input
+     * Create the SPZ header for the specified input
      * 
      * @param gaussianCloud The {@link GaussianCloud}
      * @param version The version
+     * @param shDegree The spherical harmonics degree
      * @param fractionalBits The fractional bits
      * @return The header
      */
-    private static byte[] createHeader(GaussianCloud gaussianCloud, int version,
-        int fractionalBits)
+    private static SpzHeader createHeader(GaussianCloud gaussianCloud,
+        int version, int shDegree, int fractionalBits)
     {
-        byte flags = 0;
+        int flags = 0;
         if (gaussianCloud.isAntialiased())
         {
-            flags |= 1;
+            flags |= SpzHeader.FLAG_ANTIALIASED;
         }
-
-        byte headerBytes[] = new byte[16];
-        ByteBuffer headerBuffer = Buffers.wrap(headerBytes);
-        headerBuffer.putInt(0, SpzUtils.MAGIC);
-        headerBuffer.putInt(4, version);
-        headerBuffer.putInt(8, gaussianCloud.getNumPoints());
-        headerBuffer.put(12, (byte) gaussianCloud.getShDegree());
-        headerBuffer.put(13, (byte) fractionalBits);
-        headerBuffer.put(14, flags);
-        return headerBytes;
-    }
-
-    
-    /**
-     * Private constructor to prevent instantiation
-     */
-    private DefaultSpzWriter()
-    {
-        // Private constructor to prevent instantiation
+        return new SpzHeader(version, gaussianCloud.getNumPoints(),
+            shDegree, fractionalBits, flags);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,843 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * Internal, minimal decoder for raw deflate data, as described in RFC 1951.
+ *
+ * Unlike a <code>java.util.zip.Inflater</code>, this decoder can start
+ * decoding at an arbitrary bit position in the compressed data. The
+ * decoded data is stored as <code>char</code> values: Values in [0,256)
+ * are literal bytes. When markers are allowed, back-references that point
+ * before the start of the decoded data are stored as markers, which are
+ * values of the form <code>MARKER | w</code>, where <code>w</code> is the
+ * index of the referenced byte in the (unknown) window of the
+ * {@link #WINDOW_SIZE} bytes that precede the decoded data. These markers
+ * can later be replaced with {@link #resolve}, once the window is known.
+ *
+ * Instances of this class are not thread-safe.
+ */
+class DeflateDecoder
+{
+    /**
+     * The size of the deflate window
+     */
+    static final int WINDOW_SIZE = 1 << 15;
+
+    /**
+     * The bit that marks an output value as a reference into the window
+     */
+    static final int MARKER = 0x8000;
+
+    /**
+     * The maximum number of bits in a code
+     */
+    private static final int MAX_BITS = 15;
+
+    /**
+     * The number of bits that are looked up in the table of a code
+     */
+    private static final int FAST_BITS = 10;
+
+    /**
+     * The maximum number of literal/length codes
+     */
+    private static final int MAX_LITERAL_CODES = 288;
+
+    /**
+     * The maximum number of distance codes
+     */
+    private static final int MAX_DISTANCE_CODES = 32;
+
+    /**
+     * The base lengths for the length symbols 257...285
+     */
+    private static final int LENGTH_BASE[] =
+    {
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51,
+        59, 67, 83, 99, 115, 131, 163, 195, 227, 258
+    };
+
+    /**
+     * The number of extra bits for the length symbols 257...285
+     */
+    private static final int LENGTH_EXTRA[] =
+    {
+        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4,
+        4, 5, 5, 5, 5, 0
+    };
+
+    /**
+     * The base distances for the distance symbols 0...29
+     */
+    private static final int DISTANCE_BASE[] =
+    {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385,
+        513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385,
+        24577
+    };
+
+    /**
+     * The number of extra bits for the distance symbols 0...29
+     */
+    private static final int DISTANCE_EXTRA[] =
+    {
+        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10,
+        10, 11, 11, 12, 12, 13, 13
+    };
+
+    /**
+     * The order in which the code length code lengths are stored
+     */
+    private static final int CODE_LENGTH_ORDER[] =
+    {
+        16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15
+    };
+
+    /**
+     * The literal/length code of fixed Huffman blocks
+     */
+    private static final Huffman FIXED_LITERAL_CODE;
+
+    /**
+     * The distance code of fixed Huffman blocks
+     */
+    private static final Huffman FIXED_DISTANCE_CODE;
+
+    static
+    {
+        int lengths[] = new int[MAX_LITERAL_CODES];
+        Arrays.fill(lengths, 0, 144, 8);
+        Arrays.fill(lengths, 144, 256, 9);
+        Arrays.fill(lengths, 256, 280, 7);
+        Arrays.fill(lengths, 280, 288, 8);
+        FIXED_LITERAL_CODE = new Huffman(MAX_LITERAL_CODES);
+        FIXED_LITERAL_CODE.build(lengths, 0, MAX_LITERAL_CODES);
+        Arrays.fill(lengths, 0, MAX_DISTANCE_CODES, 5);
+        FIXED_DISTANCE_CODE = new Huffman(MAX_DISTANCE_CODES);
+        FIXED_DISTANCE_CODE.build(lengths, 0, MAX_DISTANCE_CODES);
+    }
+
+    /**
+     * A canonical Huffman code
+     */
+    private static final class Huffman
+    {
+        /**
+         * The number of symbols for each code length
+         */
+        final int count[] = new int[MAX_BITS + 1];
+
+        /**
+         * The symbols, ordered by their code
+         */
+        final int symbol[];
+
+        /**
+         * The lookup table for codes with at most {@link #FAST_BITS} bits,
+         * indexed with the next (bit-reversed) input bits. The entries are
+         * <code>(symbol &lt;&lt; 4) | length</code>, or 0 for longer codes.
+         */
+        final int table[] = new int[1 << FAST_BITS];
+
+        /**
+         * Creates a new instance
+         *
+         * @param maxSymbols The maximum number of symbols
+         */
+        Huffman(int maxSymbols)
+        {
+            this.symbol = new int[maxSymbols];
+        }
+
+        /**
+         * Build this code from the given code lengths
+         *
+         * @param lengths The code lengths
+         * @param offset The offset of the first code length
+         * @param n The number of symbols
+         * @return 0 if the code is complete, a negative value if it is
+         *         over-subscribed, and a positive value if it is incomplete
+         */
+        int build(int lengths[], int offset, int n)
+        {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++)
+            {
+                count[lengths[offset + i]]++;
+            }
+            Arrays.fill(table, 0);
+            if (count[0] == n)
+            {
+                return 0;
+            }
+            int left = 1;
+            for (int length = 1; length <= MAX_BITS; length++)
+            {
+                left <<= 1;
+                left -= count[length];
+                if (left < 0)
+                {
+                    return left;
+                }
+            }
+            int offsets[] = new int[MAX_BITS + 2];
+            int nextCode[] = new int[MAX_BITS + 2];
+            for (int length = 1; length <= MAX_BITS; length++)
+            {
+                offsets[length + 1] = offsets[length] + count[length];
+                nextCode[length + 1] = (nextCode[length] + count[length]) << 1;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                int length = lengths[offset + i];
+                if (length == 0)
+                {
+                    continue;
+                }
+                symbol[offsets[length]++] = i;
+                int code = nextCode[length]++;
+                if (length <= FAST_BITS)
+                {
+                    int reversed = Integer.reverse(code) >>> (32 - length);
+                    for (int j = reversed; j < table.length; j += 1 << length)
+                    {
+                        table[j] = (i << 4) | length;
+                    }
+                }
+            }
+            return left;
+        }
+    }
+
+    /**
+     * The compressed data
+     */
+    private final byte data[];
+
+    /**
+     * The end of the compressed data, exclusive
+     */
+    private final int end;
+
+    /**
+     * The maximum number of values that may be decoded
+     */
+    private final int maxOutput;
+
+    /**
+     * The position of the next byte that is read into the bit buffer
+     */
+    private int bytePos;
+
+    /**
+     * The bit buffer
+     */
+    private long bitBuffer;
+
+    /**
+     * The number of valid bits in the bit buffer
+     */
+    private int bitCount;
+
+    /**
+     * The code length code of dynamic blocks
+     */
+    private final Huffman codeLengthCode = new Huffman(19);
+
+    /**
+     * The literal/length code of dynamic blocks
+     */
+    private final Huffman literalCode = new Huffman(MAX_LITERAL_CODES);
+
+    /**
+     * The distance code of dynamic blocks
+     */
+    private final Huffman distanceCode = new Huffman(MAX_DISTANCE_CODES);
+
+    /**
+     * The code lengths of dynamic blocks
+     */
+    private final int lengths[] =
+        new int[MAX_LITERAL_CODES + MAX_DISTANCE_CODES];
+
+    /**
+     * The decoded output
+     */
+    private char output[];
+
+    /**
+     * The number of decoded values
+     */
+    private int outputLength;
+
+    /**
+     * Creates a new instance
+     *
+     * @param data The compressed data
+     * @param end The end of the compressed data, exclusive
+     * @param maxOutput The maximum number of values that may be decoded
+     */
+    DeflateDecoder(byte data[], int end, int maxOutput)
+    {
+        this.data = data;
+        this.end = end;
+        this.maxOutput = maxOutput;
+        this.output = new char[Math.min(maxOutput, 1 << 16)];
+    }
+
+    /**
+     * Set the bit position at which decoding will continue
+     *
+     * @param bitPosition The bit position
+     * @throws DataFormatException If the position is after the end of the
+     *         data
+     */
+    void setPosition(long bitPosition) throws DataFormatException
+    {
+        bytePos = (int) (bitPosition >>> 3);
+        bitBuffer = 0;
+        bitCount = 0;
+        bits((int) (bitPosition & 7));
+    }
+
+    /**
+     * Returns the bit position of the next bit that will be decoded
+     *
+     * @return The bit position
+     */
+    long getPosition()
+    {
+        return (long) bytePos * 8 - bitCount;
+    }
+
+    /**
+     * Returns the array that contains the decoded values. The number of
+     * valid values is given by {@link #getOutputLength()}.
+     *
+     * @return The output
+     */
+    char[] getOutput()
+    {
+        return output;
+    }
+
+    /**
+     * Returns the number of decoded values
+     *
+     * @return The output length
+     */
+    int getOutputLength()
+    {
+        return outputLength;
+    }
+
+    /**
+     * Discard all decoded values
+     */
+    void resetOutput()
+    {
+        outputLength = 0;
+    }
+
+    /**
+     * Decode the deflate block that starts at the current position
+     *
+     * @param allowMarkers Whether back-references to data before the start
+     *        of the decoded data are allowed, and stored as markers
+     * @return Whether the block was the final block
+     * @throws DataFormatException If the data is not valid
+     */
+    boolean decodeBlock(boolean allowMarkers) throws DataFormatException
+    {
+        int last = bits(1);
+        int type = bits(2);
+        if (type == 0)
+        {
+            decodeStored();
+        }
+        else if (type == 1)
+        {
+            decodeCodes(FIXED_LITERAL_CODE, FIXED_DISTANCE_CODE, allowMarkers);
+        }
+        else if (type == 2)
+        {
+            readDynamicCodes();
+            decodeCodes(literalCode, distanceCode, allowMarkers);
+        }
+        else
+        {
+            throw new DataFormatException("Invalid block type");
+        }
+        if (getPosition() > (long) end * 8)
+        {
+            throw new DataFormatException("Unexpected end of data");
+        }
+        return last != 0;
+    }
+
+    /**
+     * Find the first bit position in the given range at which a non-final
+     * deflate block with dynamic Huffman codes starts.
+     *
+     * A position is only considered to be a block start when the complete
+     * block can be decoded from this position (assuming that unknown data
+     * precedes it), and the block is followed by a valid block header.
+     * This is a heuristic, and may return positions that are not actual
+     * block starts.
+     *
+     * @param data The compressed data
+     * @param end The end of the compressed data, exclusive
+     * @param fromBit The first bit position, inclusive
+     * @param toBit The last bit position, exclusive
+     * @param maxOutput The maximum number of values that may be decoded
+     *        while checking a candidate position
+     * @return The bit position, or -1 if no block start was found
+     */
+    static long findBlockStart(byte data[], int end, long fromBit,
+        long toBit, int maxOutput)
+    {
+        DeflateDecoder decoder = new DeflateDecoder(data, end, maxOutput);
+        for (long p = fromBit; p < toBit; p++)
+        {
+            int header = peekBits(data, end, p);
+
+            // BFINAL=0, BTYPE=2, HLIT <= 29, HDIST <= 29
+            if ((header & 7) != 4 || ((header >>> 3) & 31) > 29
+                || ((header >>> 8) & 31) > 29)
+            {
+                continue;
+            }
+            if (!isCompleteCodeLengthCode(data, end, p))
+            {
+                continue;
+            }
+            try
+            {
+                decoder.setPosition(p);
+                decoder.resetOutput();
+                if (decoder.decodeBlock(true))
+                {
+                    continue;
+                }
+                long next = decoder.getPosition();
+                if (next < (long) end * 8
+                    && ((peekBits(data, end, next) >>> 1) & 3) != 3)
+                {
+                    return p;
+                }
+            }
+            catch (DataFormatException e)
+            {
+                // Not a valid block start
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the decoded values from the specified range of the given source
+     * into the given target, replacing all markers with the values from the
+     * given window.
+     *
+     * @param source The decoded values
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @param window The {@link #WINDOW_SIZE} bytes that precede the decoded
+     *        values
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     */
+    static void resolve(char source[], int from, int to, byte window[],
+        byte target[], int targetOffset)
+    {
+        int t = targetOffset;
+        for (int i = from; i < to; i++)
+        {
+            char c = source[i];
+            if ((c & MARKER) != 0)
+            {
+                target[t++] = window[c & (WINDOW_SIZE - 1)];
+            }
+            else
+            {
+                target[t++] = (byte) c;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the code length code lengths of the dynamic block
+     * header that starts at the given bit position describe a complete
+     * code. This is a quick check that rejects most of the positions that
+     * are not block starts.
+     *
+     * @param data The data
+     * @param end The end of the data, exclusive
+     * @param bitPosition The bit position of the block header
+     * @return Whether the code is complete
+     */
+    private static boolean isCompleteCodeLengthCode(byte data[], int end,
+        long bitPosition)
+    {
+        int numCodeLengthCodes =
+            ((peekBits(data, end, bitPosition) >>> 13) & 15) + 4;
+        long p = bitPosition + 17;
+        int lengths = peekBits(data, end, p);
+        int available = 24;
+        int kraft = 0;
+        for (int i = 0; i < numCodeLengthCodes; i++)
+        {
+            if (available < 3)
+            {
+                p += 24 - available;
+                lengths = peekBits(data, end, p);
+                available = 24;
+            }
+            int length = lengths & 7;
+            lengths >>>= 3;
+            available -= 3;
+            if (length != 0)
+            {
+                kraft += 1 << (7 - length);
+            }
+        }
+        return kraft == 1 << 7;
+    }
+
+    /**
+     * Returns the 24 bits of the given data that start at the given bit
+     * position, assuming zeros after the end of the data
+     *
+     * @param data The data
+     * @param end The end of the data, exclusive
+     * @param bitPosition The bit position
+     * @return The bits
+     */
+    private static int peekBits(byte data[], int end, long bitPosition)
+    {
+        int b = (int) (bitPosition >>> 3);
+        int v = 0;
+        for (int i = 0; i < 4 && b + i < end; i++)
+        {
+            v |= (data[b + i] & 0xFF) << (i * 8);
+        }
+        return (v >>> (bitPosition & 7)) & 0xFFFFFF;
+    }
+
+    /**
+     * Decode a stored block, after the block header
+     *
+     * @throws DataFormatException If the data is not valid
+     */
+    private void decodeStored() throws DataFormatException
+    {
+        bits(bitCount & 7);
+        int length = bits(16);
+        int complement = bits(16);
+        if (length != (~complement & 0xFFFF))
+        {
+            throw new DataFormatException("Invalid stored block length");
+        }
+        ensureCapacity(length);
+        while (length > 0 && bitCount > 0)
+        {
+            output[outputLength++] = (char) bits(8);
+            length--;
+        }
+        if (bytePos + length > end)
+        {
+            throw new DataFormatException("Unexpected end of data");
+        }
+        for (int i = 0; i < length; i++)
+        {
+            output[outputLength++] = (char) (data[bytePos++] & 0xFF);
+        }
+    }
+
+    /**
+     * Read the codes of a dynamic block, after the block header
+     *
+     * @throws DataFormatException If the data is not valid
+     */
+    private void readDynamicCodes() throws DataFormatException
+    {
+        int numLiteralCodes = bits(5) + 257;
+        int numDistanceCodes = bits(5) + 1;
+        int numCodeLengthCodes = bits(4) + 4;
+        if (numLiteralCodes > 286 || numDistanceCodes > 30)
+        {
+            throw new DataFormatException("Invalid number of codes");
+        }
+        Arrays.fill(lengths, 0, 19, 0);
+        for (int i = 0; i < numCodeLengthCodes; i++)
+        {
+            lengths[CODE_LENGTH_ORDER[i]] = bits(3);
+        }
+        if (codeLengthCode.build(lengths, 0, 19) != 0)
+        {
+            throw new DataFormatException("Invalid code length code");
+        }
+        int n = numLiteralCodes + numDistanceCodes;
+        int index = 0;
+        while (index < n)
+        {
+            int symbol = decodeSymbol(codeLengthCode);
+            if (symbol < 16)
+            {
+                lengths[index++] = symbol;
+                continue;
+            }
+            int length = 0;
+            int repeat;
+            if (symbol == 16)
+            {
+                if (index == 0)
+                {
+                    throw new DataFormatException("Invalid repeat");
+                }
+                length = lengths[index - 1];
+                repeat = 3 + bits(2);
+            }
+            else if (symbol == 17)
+            {
+                repeat = 3 + bits(3);
+            }
+            else
+            {
+                repeat = 11 + bits(7);
+            }
+            if (index + repeat > n)
+            {
+                throw new DataFormatException("Invalid repeat");
+            }
+            Arrays.fill(lengths, index, index + repeat, length);
+            index += repeat;
+        }
+        if (lengths[256] == 0)
+        {
+            throw new DataFormatException("Missing end-of-block code");
+        }
+        int left = literalCode.build(lengths, 0, numLiteralCodes);
+        if (left < 0 || (left > 0
+            && numLiteralCodes - literalCode.count[0] != 1))
+        {
+            throw new DataFormatException("Invalid literal/length code");
+        }
+        left = distanceCode.build(lengths, numLiteralCodes, numDistanceCodes);
+        if (left < 0 || (left > 0
+            && numDistanceCodes - distanceCode.count[0] != 1))
+        {
+            throw new DataFormatException("Invalid distance code");
+        }
+    }
+
+    /**
+     * Decode the symbols of a block with the given codes, up to and
+     * including the end-of-block symbol
+     *
+     * @param literal The literal/length code
+     * @param distance The distance code
+     * @param allowMarkers Whether markers are allowed
+     * @throws DataFormatException If the data is not valid
+     */
+    private void decodeCodes(Huffman literal, Huffman distance,
+        boolean allowMarkers) throws DataFormatException
+    {
+        while (true)
+        {
+            int symbol = decodeSymbol(literal);
+            if (symbol < 256)
+            {
+                ensureCapacity(1);
+                output[outputLength++] = (char) symbol;
+                continue;
+            }
+            if (symbol == 256)
+            {
+                return;
+            }
+            symbol -= 257;
+            if (symbol >= LENGTH_BASE.length)
+            {
+                throw new DataFormatException("Invalid length symbol");
+            }
+            int length = LENGTH_BASE[symbol] + bits(LENGTH_EXTRA[symbol]);
+            symbol = decodeSymbol(distance);
+            if (symbol >= DISTANCE_BASE.length)
+            {
+                throw new DataFormatException("Invalid distance symbol");
+            }
+            int d = DISTANCE_BASE[symbol] + bits(DISTANCE_EXTRA[symbol]);
+            copy(d, length, allowMarkers);
+        }
+    }
+
+    /**
+     * Copy the specified number of values from the given distance
+     *
+     * @param distance The distance
+     * @param length The length
+     * @param allowMarkers Whether markers are allowed
+     * @throws DataFormatException If the distance points before the start
+     *         of the output and markers are not allowed, or the maximum
+     *         output length is exceeded
+     */
+    private void copy(int distance, int length, boolean allowMarkers)
+        throws DataFormatException
+    {
+        ensureCapacity(length);
+        int source = outputLength - distance;
+        if (source >= 0)
+        {
+            if (distance >= length)
+            {
+                System.arraycopy(output, source, output, outputLength,
+                    length);
+            }
+            else
+            {
+                for (int i = 0; i < length; i++)
+                {
+                    output[outputLength + i] = output[source + i];
+                }
+            }
+        }
+        else
+        {
+            if (!allowMarkers)
+            {
+                throw new DataFormatException("Invalid distance");
+            }
+            for (int i = 0; i < length; i++)
+            {
+                int s = source + i;
+                if (s < 0)
+                {
+                    output[outputLength + i] =
+                        (char) (MARKER | (s + WINDOW_SIZE));
+                }
+                else
+                {
+                    output[outputLength + i] = output[s];
+                }
+            }
+        }
+        outputLength += length;
+    }
+
+    /**
+     * Make sure that the output can store the given number of additional
+     * values
+     *
+     * @param n The number of values
+     * @throws DataFormatException If the maximum output length is exceeded
+     */
+    private void ensureCapacity(int n) throws DataFormatException
+    {
+        if (outputLength + n <= output.length)
+        {
+            return;
+        }
+        if (outputLength + n > maxOutput)
+        {
+            throw new DataFormatException("Output too large");
+        }
+        long newLength = Math.max((long) output.length * 2, outputLength + n);
+        output = Arrays.copyOf(output, (int) Math.min(newLength, maxOutput));
+    }
+
+    /**
+     * Decode a symbol with the given code
+     *
+     * @param h The code
+     * @return The symbol
+     * @throws DataFormatException If the data is not valid
+     */
+    private int decodeSymbol(Huffman h) throws DataFormatException
+    {
+        if (bitCount < MAX_BITS)
+        {
+            refill();
+        }
+        int entry = h.table[(int) bitBuffer & ((1 << FAST_BITS) - 1)];
+        if (entry != 0)
+        {
+            int length = entry & 15;
+            bitBuffer >>>= length;
+            bitCount -= length;
+            return entry >>> 4;
+        }
+        int code = 0;
+        int first = 0;
+        int index = 0;
+        long b = bitBuffer;
+        for (int length = 1; length <= MAX_BITS; length++)
+        {
+            code |= (int) (b & 1);
+            b >>>= 1;
+            int count = h.count[length];
+            if (code - count < first)
+            {
+                bitBuffer >>>= length;
+                bitCount -= length;
+                return h.symbol[index + (code - first)];
+            }
+            index += count;
+            first += count;
+            first <<= 1;
+            code <<= 1;
+        }
+        throw new DataFormatException("Invalid code");
+    }
+
+    /**
+     * Read the given number of bits
+     *
+     * @param n The number of bits, at most 32
+     * @return The bits
+     * @throws DataFormatException If the end of the data was reached
+     */
+    private int bits(int n) throws DataFormatException
+    {
+        if (bitCount < n)
+        {
+            refill();
+        }
+        int result = (int) (bitBuffer & ((1L << n) - 1));
+        bitBuffer >>>= n;
+        bitCount -= n;
+        return result;
+    }
+
+    /**
+     * Fill the bit buffer. After the end of the data, zeros are added,
+     * until the data that was consumed is after the end of the data.
+     *
+     * @throws DataFormatException If the end of the data was reached
+     */
+    private void refill() throws DataFormatException
+    {
+        while (bitCount <= 56)
+        {
+            int b = 0;
+            if (bytePos < end)
+            {
+                b = data[bytePos] & 0xFF;
+            }
+            else if (bytePos >= end + 8)
+            {
+                throw new DataFormatException("Unexpected end of data");
+            }
+            bytePos++;
+            bitBuffer |= (long) b << bitCount;
+            bitCount += 8;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A class for sorting the points of a {@link GaussianCloud} by their depth
+ * for a certain view, as it is required for rendering the splats back to
+ * front.
+ *
+ * The sorter contains a copy of the positions of the cloud, so
+ * modifications of the cloud are not reflected in the sorter. The depth of
+ * each point is quantized to a 32 bit key, and the keys are sorted with a
+ * parallel radix sort. When the view only changes slightly between two
+ * frames, the {@link #update(float[])} method can reuse the order of the
+ * previous frame, which is then only refined with an insertion sort.
+ *
+ * Instances of this class are not thread-safe.
+ */
+public final class DepthSorter
+{
+    /**
+     * The number of bits that are sorted in one pass of the radix sort
+     */
+    private static final int RADIX_BITS = 11;
+
+    /**
+     * The number of buckets in one pass of the radix sort
+     */
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    /**
+     * The mask for the digits of one pass of the radix sort
+     */
+    private static final int RADIX_MASK = RADIX - 1;
+
+    /**
+     * The maximum average number of positions that each point may be moved
+     * during the insertion sort of an {@link #update(float[])}, before
+     * falling back to a radix sort
+     */
+    private static final int MAX_SHIFTS_PER_POINT = 2;
+
+    /**
+     * The number of points
+     */
+    private final int numPoints;
+
+    /**
+     * The positions, as (x, y, z) triples
+     */
+    private final float positions[];
+
+    /**
+     * The indices of the points, in the current order
+     */
+    private int order[];
+
+    /**
+     * The keys of the points, in the current order
+     */
+    private int keys[];
+
+    /**
+     * The temporary indices for the radix sort
+     */
+    private int tempOrder[];
+
+    /**
+     * The temporary keys for the radix sort
+     */
+    private int tempKeys[];
+
+    /**
+     * The counts for the buckets of each chunk in the radix sort
+     */
+    private final int counts[];
+
+    /**
+     * Whether the points have already been sorted for a view
+     */
+    private boolean sorted;
+
+    /**
+     * Creates a new instance for the given {@link GaussianCloud}
+     *
+     * @param g The {@link GaussianCloud}
+     */
+    public DepthSorter(GaussianCloud g)
+    {
+        this.numPoints = g.getNumPoints();
+        int n = numPoints;
+        this.positions = new float[n * 3];
+        g.getPositions().get(positions, 0, n * 3);
+        this.order = new int[n];
+        Arrays.parallelSetAll(order, i -> i);
+        this.keys = new int[n];
+        this.tempOrder = new int[n];
+        this.tempKeys = new int[n];
+        int numChunks = Parallel.numChunks(n, Parallel.DEFAULT_CHUNK_SIZE);
+        this.counts = new int[numChunks * RADIX];
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+
+    /**
+     * Sort the points back to front, for the given view matrix.
+     *
+     * The view matrix is a 4x4 matrix in column-major order, that transforms
+     * points into a view space where the camera is looking along the
+     * negative z-axis, as it is common in OpenGL.
+     *
+     * @param viewMatrix The view matrix
+     * @throws IllegalArgumentException If the view matrix has less than 16
+     *         elements
+     */
+    public void sort(float viewMatrix[])
+    {
+        validateViewMatrix(viewMatrix);
+        computeKeys(viewMatrix);
+        radixSort();
+        sorted = true;
+    }
+
+    /**
+     * Sort the points back to front, for the given view matrix, reusing the
+     * order of the previous call to {@link #sort(float[])} or this method.
+     *
+     * When the view only changed slightly, then the previous order will
+     * already be nearly sorted. In this case, it is only refined with an
+     * insertion sort. Otherwise, or when the points have not been sorted
+     * before, they are sorted with a radix sort, as in {@link #sort(float[])}.
+     *
+     * @param viewMatrix The view matrix
+     * @return Whether the previous order could be reused
+     * @throws IllegalArgumentException If the view matrix has less than 16
+     *         elements
+     */
+    public boolean update(float viewMatrix[])
+    {
+        validateViewMatrix(viewMatrix);
+        if (!sorted)
+        {
+            sort(viewMatrix);
+            return false;
+        }
+        computeKeys(viewMatrix);
+        long maxShifts = (long) numPoints * MAX_SHIFTS_PER_POINT;
+        if (insertionSort(maxShifts))
+        {
+            return true;
+        }
+        radixSort();
+        return false;
+    }
+
+    /**
+     * Write the indices of the points, in the current order, into the given
+     * array.
+     *
+     * Before any sorting took place, the order is the order of the points in
+     * the cloud.
+     *
+     * @param target The target array
+     * @throws IllegalArgumentException If the array has less than
+     *         {@link #getNumPoints()} elements
+     */
+    public void getIndices(int target[])
+    {
+        if (target.length < numPoints)
+        {
+            throw new IllegalArgumentException("The array has a length of "
+                + target.length + ", but must have at least " + numPoints);
+        }
+        System.arraycopy(order, 0, target, 0, numPoints);
+    }
+
+    /**
+     * Put the indices of the points, in the current order, into the given
+     * buffer, starting at its current position.
+     *
+     * Before any sorting took place, the order is the order of the points in
+     * the cloud.
+     *
+     * @param target The target buffer
+     * @throws java.nio.BufferOverflowException If the buffer has less than
+     *         {@link #getNumPoints()} elements remaining
+     */
+    public void getIndices(IntBuffer target)
+    {
+        target.put(order, 0, numPoints);
+    }
+
+    /**
+     * Validate the given view matrix
+     *
+     * @param viewMatrix The view matrix
+     * @throws IllegalArgumentException If the view matrix has less than 16
+     *         elements
+     */
+    private static void validateViewMatrix(float viewMatrix[])
+    {
+        if (viewMatrix.length < 16)
+        {
+            throw new IllegalArgumentException(
+                "The view matrix must have 16 elements, but has "
+                    + viewMatrix.length);
+        }
+    }
+
+    /**
+     * Compute the keys for the points, in the current order, for the given
+     * view matrix.
+     *
+     * The keys are the depths, quantized to the full range of unsigned 32
+     * bit integers, so that the farthest point receives the smallest key.
+     *
+     * @param viewMatrix The view matrix
+     */
+    private void computeKeys(float viewMatrix[])
+    {
+        int n = numPoints;
+        float dx = -viewMatrix[2];
+        float dy = -viewMatrix[6];
+        float dz = -viewMatrix[10];
+
+        // Compute the depth range
+        int numChunks = Parallel.numChunks(n, Parallel.DEFAULT_CHUNK_SIZE);
+        float minDepths[] = new float[numChunks];
+        float maxDepths[] = new float[numChunks];
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++)
+            {
+                float d = dx * positions[i * 3 + 0]
+                    + dy * positions[i * 3 + 1] + dz * positions[i * 3 + 2];
+                min = Math.min(min, d);
+                max = Math.max(max, d);
+            }
+            minDepths[chunkIndex] = min;
+            maxDepths[chunkIndex] = max;
+        });
+        float minDepth = Float.POSITIVE_INFINITY;
+        float maxDepth = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < numChunks; c++)
+        {
+            minDepth = Math.min(minDepth, minDepths[c]);
+            maxDepth = Math.max(maxDepth, maxDepths[c]);
+        }
+        double range = (double) maxDepth - minDepth;
+        double scale = range > 0.0 ? 4294967295.0 / range : 0.0;
+        double farthest = maxDepth;
+
+        // Quantize the depths
+        int currentOrder[] = order;
+        int currentKeys[] = keys;
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                int index = currentOrder[i];
+                float d = dx * positions[index * 3 + 0]
+                    + dy * positions[index * 3 + 1]
+                    + dz * positions[index * 3 + 2];
+                long key = (long) ((farthest - d) * scale);
+                currentKeys[i] = (int) Math.min(Math.max(key, 0L), 0xFFFFFFFFL);
+            }
+        });
+    }
+
+    /**
+     * Sort the current order by the keys, with an insertion sort that is
+     * aborted when more than the given number of shifts is required.
+     *
+     * When the sort is aborted, the current order is still a permutation of
+     * the points, and the keys still match the current order.
+     *
+     * @param maxShifts The maximum number of shifts
+     * @return Whether the sort was completed
+     */
+    private boolean insertionSort(long maxShifts)
+    {
+        long shifts = 0;
+        for (int i = 1; i < numPoints; i++)
+        {
+            int key = keys[i];
+            if (Integer.compareUnsigned(keys[i - 1], key) <= 0)
+            {
+                continue;
+            }
+            int index = order[i];
+            int j = i - 1;
+            while (j >= 0 && Integer.compareUnsigned(keys[j], key) > 0)
+            {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+            shifts += i - 1 - j;
+            if (shifts > maxShifts)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sort the current order by the keys, with a parallel, stable LSD radix
+     * sort
+     */
+    private void radixSort()
+    {
+        int n = numPoints;
+        int chunkSize = Parallel.DEFAULT_CHUNK_SIZE;
+        int numChunks = Parallel.numChunks(n, chunkSize);
+        for (int shift = 0; shift < 32; shift += RADIX_BITS)
+        {
+            int s = shift;
+            int sourceKeys[] = keys;
+            int sourceOrder[] = order;
+            int targetKeys[] = tempKeys;
+            int targetOrder[] = tempOrder;
+
+            // Count the keys for each bucket in each chunk
+            Arrays.fill(counts, 0);
+            Parallel.forEachChunk(n, chunkSize, (chunkIndex, start, end) ->
+            {
+                int base = chunkIndex * RADIX;
+                for (int i = start; i < end; i++)
+                {
+                    counts[base + ((sourceKeys[i] >>> s) & RADIX_MASK)]++;
+                }
+            });
+
+            // Compute the offsets for each bucket in each chunk. When all
+            // keys are in the same bucket, then this pass can be skipped.
+            boolean trivial = false;
+            int offset = 0;
+            for (int d = 0; d < RADIX; d++)
+            {
+                int bucketStart = offset;
+                for (int c = 0; c < numChunks; c++)
+                {
+                    int index = c * RADIX + d;
+                    int count = counts[index];
+                    counts[index] = offset;
+                    offset += count;
+                }
+                if (offset - bucketStart == n)
+                {
+                    trivial = true;
+                    break;
+                }
+            }
+            if (trivial)
+            {
+                continue;
+            }
+
+            // Scatter the keys and indices into their buckets
+            Parallel.forEachChunk(n, chunkSize, (chunkIndex, start, end) ->
+            {
+                int base = chunkIndex * RADIX;
+                for (int i = start; i < end; i++)
+                {
+                    int key = sourceKeys[i];
+                    int target = counts[base + ((key >>> s) & RADIX_MASK)]++;
+                    targetKeys[target] = key;
+                    targetOrder[target] = sourceOrder[i];
+                }
+            });
+            keys = targetKeys;
+            order = targetOrder;
+            tempKeys = sourceKeys;
+            tempOrder = sourceOrder;
+        }
+    }
+}
@@ -0,0 +1,667 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Methods for creating levels of detail of {@link GaussianCloud} objects.
+ *
+ * A simplified cloud is created by clustering the Gaussians on a regular
+ * grid of voxels, and merging the Gaussians of each voxel into a single
+ * Gaussian. Each Gaussian is weighted with its opacity, multiplied with a
+ * measure for its area (namely, the sum of the products of each pair of
+ * its scales). The merged Gaussian has the weighted mean and covariance of
+ * the Gaussians of the cluster (moment matching), and the weighted average
+ * of the colors and spherical harmonics. Its opacity is chosen so that the
+ * weight of the cluster is preserved, but not larger than the opacity of
+ * all Gaussians of the cluster that are stacked on top of each other.
+ */
+public class GaussianCloudLods
+{
+    /**
+     * The maximum number of voxels along each axis
+     */
+    private static final long MAX_VOXELS_PER_AXIS = 1L << 21;
+
+    /**
+     * The minimum opacity of a merged Gaussian
+     */
+    private static final double MIN_ALPHA = 1e-6;
+
+    /**
+     * The maximum opacity of a merged Gaussian
+     */
+    private static final double MAX_ALPHA = 1.0 - 1e-6;
+
+    /**
+     * The minimum variance of a merged Gaussian along each axis
+     */
+    private static final double MIN_VARIANCE = 1e-18;
+
+    /**
+     * The maximum number of sweeps of the Jacobi eigenvalue algorithm
+     */
+    private static final int MAX_JACOBI_SWEEPS = 32;
+
+    /**
+     * Creates a simplified version of the given {@link GaussianCloud}, by
+     * merging all Gaussians whose positions are in the same voxel of a
+     * regular grid with the given voxel size.
+     *
+     * The grid starts at the minimum of the positions. The clustering and
+     * merging is done in parallel. The order of the resulting points only
+     * depends on the voxels, and not on the order of the input points.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param voxelSize The voxel size
+     * @return The simplified {@link GaussianCloud}
+     * @throws IllegalArgumentException If the voxel size is not positive, or
+     *         so small that the number of voxels along one axis would be
+     *         larger than 2097152
+     */
+    public static GaussianCloud simplify(GaussianCloud g, float voxelSize)
+    {
+        if (!(voxelSize > 0.0f) || Float.isInfinite(voxelSize))
+        {
+            throw new IllegalArgumentException(
+                "The voxel size must be positive, but is " + voxelSize);
+        }
+        int n = g.getNumPoints();
+        long keys[] = computeVoxelKeys(g.getPositions(), n, voxelSize);
+
+        // Compute the sorted, unique keys, each representing one cluster
+        long uniqueKeys[] = keys.clone();
+        Arrays.parallelSort(uniqueKeys);
+        int numClusters = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (i == 0 || uniqueKeys[i] != uniqueKeys[i - 1])
+            {
+                uniqueKeys[numClusters++] = uniqueKeys[i];
+            }
+        }
+        long clusterKeys[] = Arrays.copyOf(uniqueKeys, numClusters);
+
+        // Compute the cluster of each point
+        int clusters[] = new int[n];
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                clusters[i] = Arrays.binarySearch(clusterKeys, keys[i]);
+            }
+        });
+
+        // Compute the indices of the points of each cluster
+        int clusterOffsets[] = new int[numClusters + 1];
+        for (int i = 0; i < n; i++)
+        {
+            clusterOffsets[clusters[i] + 1]++;
+        }
+        for (int c = 0; c < numClusters; c++)
+        {
+            clusterOffsets[c + 1] += clusterOffsets[c];
+        }
+        int fill[] = Arrays.copyOf(clusterOffsets, numClusters);
+        int clusterIndices[] = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            clusterIndices[fill[clusters[i]]++] = i;
+        }
+        return merge(g, numClusters, clusterOffsets, clusterIndices);
+    }
+
+    /**
+     * Creates levels of detail for the given {@link GaussianCloud}.
+     *
+     * The first element of the returned list is the result of
+     * {@link #simplify(GaussianCloud, float) simplifying} the given cloud
+     * with the given voxel size. Each following element is the result of
+     * simplifying the previous element with twice the voxel size. The levels
+     * are therefore built bottom-up, and each level is built in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param voxelSize The voxel size for the first level
+     * @param numLevels The number of levels
+     * @return The levels of detail, from the finest to the coarsest level
+     * @throws IllegalArgumentException If the voxel size is not positive, or
+     *         too small for the extent of the cloud, or the number of levels
+     *         is negative
+     */
+    public static List<GaussianCloud> createLevels(GaussianCloud g,
+        float voxelSize, int numLevels)
+    {
+        if (numLevels < 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of levels may not be negative, but is "
+                    + numLevels);
+        }
+        List<GaussianCloud> levels = new ArrayList<GaussianCloud>();
+        GaussianCloud current = g;
+        float currentVoxelSize = voxelSize;
+        for (int i = 0; i < numLevels; i++)
+        {
+            current = simplify(current, currentVoxelSize);
+            levels.add(current);
+            currentVoxelSize *= 2.0f;
+        }
+        return levels;
+    }
+
+    /**
+     * Compute the key of the voxel that contains each position.
+     *
+     * The key contains the voxel coordinates along the x, y and z axis,
+     * with 21 bits each.
+     *
+     * @param positions The positions
+     * @param n The number of points
+     * @param voxelSize The voxel size
+     * @return The keys
+     * @throws IllegalArgumentException If the voxel size is too small
+     */
+    private static long[] computeVoxelKeys(FloatBuffer positions, int n,
+        float voxelSize)
+    {
+        double min[] = new double[3];
+        double max[] = new double[3];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                double v = positions.get(i * 3 + j);
+                min[j] = Math.min(min[j], v);
+                max[j] = Math.max(max[j], v);
+            }
+        }
+        for (int j = 0; j < 3; j++)
+        {
+            double numVoxels = Math.floor((max[j] - min[j]) / voxelSize) + 1;
+            if (numVoxels > MAX_VOXELS_PER_AXIS)
+            {
+                throw new IllegalArgumentException("The voxel size "
+                    + voxelSize + " is too small for an extent of "
+                    + (max[j] - min[j]));
+            }
+        }
+        long keys[] = new long[n];
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                long key = 0;
+                for (int j = 0; j < 3; j++)
+                {
+                    double v = positions.get(i * 3 + j);
+                    long c = (long) ((v - min[j]) / voxelSize);
+                    c = Math.min(c, MAX_VOXELS_PER_AXIS - 1);
+                    key |= c << (21 * j);
+                }
+                keys[i] = key;
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Merge the Gaussians of each cluster into a single Gaussian. The
+     * clusters are processed in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param numClusters The number of clusters
+     * @param clusterOffsets The offsets of the clusters in the indices
+     * @param clusterIndices The indices of the points of all clusters
+     * @return The {@link GaussianCloud} with the merged Gaussians
+     */
+    private static GaussianCloud merge(GaussianCloud g, int numClusters,
+        int clusterOffsets[], int clusterIndices[])
+    {
+        int shDim = SpzUtils.dimensionsForDegree(g.getShDegree());
+        DefaultGaussianCloud result = new DefaultGaussianCloud(numClusters,
+            g.getShDegree(), g.isAntialiased());
+        Parallel.forEachChunk(numClusters, (chunkIndex, start, end) ->
+        {
+            ClusterMerger merger = new ClusterMerger(g, result, shDim);
+            for (int c = start; c < end; c++)
+            {
+                merger.merge(c, clusterIndices, clusterOffsets[c],
+                    clusterOffsets[c + 1]);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * A class for merging the Gaussians of one cluster. Instances of this
+     * class are not thread-safe, but can be re-used for multiple clusters.
+     */
+    private static class ClusterMerger
+    {
+        /**
+         * The positions of the input
+         */
+        private final FloatBuffer positions;
+
+        /**
+         * The scales of the input
+         */
+        private final FloatBuffer scales;
+
+        /**
+         * The rotations of the input
+         */
+        private final FloatBuffer rotations;
+
+        /**
+         * The alphas of the input
+         */
+        private final FloatBuffer alphas;
+
+        /**
+         * The colors of the input
+         */
+        private final FloatBuffer colors;
+
+        /**
+         * The spherical harmonics of the input
+         */
+        private final FloatBuffer sh;
+
+        /**
+         * The result
+         */
+        private final GaussianCloud result;
+
+        /**
+         * The number of spherical harmonics values per point
+         */
+        private final int shSize;
+
+        /**
+         * The weights of the Gaussians of the current cluster
+         */
+        private double weights[] = new double[16];
+
+        /**
+         * The covariance of the merged Gaussian, as rows
+         */
+        private final double covariance[][] = new double[3][3];
+
+        /**
+         * The eigenvectors of the covariance, as columns
+         */
+        private final double eigenvectors[][] = new double[3][3];
+
+        /**
+         * The weighted sum of the colors and spherical harmonics
+         */
+        private final double colorSums[];
+
+        /**
+         * Creates a new instance
+         *
+         * @param g The input
+         * @param result The result
+         * @param shDim The number of spherical harmonics coefficients
+         */
+        ClusterMerger(GaussianCloud g, GaussianCloud result, int shDim)
+        {
+            this.positions = g.getPositions();
+            this.scales = g.getScales();
+            this.rotations = g.getRotations();
+            this.alphas = g.getAlphas();
+            this.colors = g.getColors();
+            this.sh = g.getSh();
+            this.result = result;
+            this.shSize = shDim * 3;
+            this.colorSums = new double[3 + shSize];
+        }
+
+        /**
+         * Merge the Gaussians of the specified cluster, and write the result
+         * into the point of the result that corresponds to the cluster
+         *
+         * @param c The cluster index
+         * @param indices The indices
+         * @param start The start of the cluster in the indices, inclusive
+         * @param end The end of the cluster in the indices, exclusive
+         */
+        void merge(int c, int indices[], int start, int end)
+        {
+            if (end - start == 1)
+            {
+                copy(indices[start], c);
+                return;
+            }
+            int size = end - start;
+            if (weights.length < size)
+            {
+                weights = new double[size];
+            }
+
+            // Compute the weights, the mean, the weighted colors, and the
+            // opacity of all Gaussians stacked on top of each other
+            double totalWeight = 0.0;
+            double transparency = 1.0;
+            for (int k = 0; k < size; k++)
+            {
+                int i = indices[start + k];
+                double alpha = sigmoid(alphas.get(i));
+                double sx = Math.exp(scales.get(i * 3 + 0));
+                double sy = Math.exp(scales.get(i * 3 + 1));
+                double sz = Math.exp(scales.get(i * 3 + 2));
+                double weight = alpha * (sx * sy + sy * sz + sz * sx);
+                weights[k] = weight;
+                totalWeight += weight;
+                transparency *= (1.0 - alpha);
+            }
+            boolean uniform = !(totalWeight > 0.0)
+                || Double.isInfinite(totalWeight);
+            if (uniform)
+            {
+                Arrays.fill(weights, 0, size, 1.0);
+                totalWeight = size;
+            }
+            double mean[] = new double[3];
+            Arrays.fill(colorSums, 0.0);
+            for (int k = 0; k < size; k++)
+            {
+                int i = indices[start + k];
+                double w = weights[k];
+                for (int j = 0; j < 3; j++)
+                {
+                    mean[j] += w * positions.get(i * 3 + j);
+                    colorSums[j] += w * colors.get(i * 3 + j);
+                }
+                for (int j = 0; j < shSize; j++)
+                {
+                    colorSums[3 + j] += w * sh.get(i * shSize + j);
+                }
+            }
+            for (int j = 0; j < 3; j++)
+            {
+                mean[j] /= totalWeight;
+            }
+
+            // Compute the covariance, as the weighted sum of the covariances
+            // of the Gaussians and the spread of their means
+            for (int r = 0; r < 3; r++)
+            {
+                Arrays.fill(covariance[r], 0.0);
+            }
+            for (int k = 0; k < size; k++)
+            {
+                int i = indices[start + k];
+                addCovariance(i, mean, weights[k]);
+            }
+            for (int r = 0; r < 3; r++)
+            {
+                for (int s = 0; s < 3; s++)
+                {
+                    covariance[r][s] /= totalWeight;
+                }
+            }
+
+            // Compute the scales and rotation from the covariance
+            double variances[] = computeEigen(covariance, eigenvectors);
+            if (GaussianCloudTransforms.determinant(eigenvectors) < 0.0)
+            {
+                for (int r = 0; r < 3; r++)
+                {
+                    eigenvectors[r][2] = -eigenvectors[r][2];
+                }
+            }
+            float q[] = GaussianCloudTransforms.toQuaternion(eigenvectors);
+            double s[] = new double[3];
+            for (int j = 0; j < 3; j++)
+            {
+                s[j] = Math.sqrt(Math.max(variances[j], MIN_VARIANCE));
+            }
+
+            // Compute the opacity that preserves the total weight, but is
+            // not larger than the opacity of all Gaussians stacked on top
+            // of each other
+            double stackedAlpha = 1.0 - transparency;
+            double alpha = stackedAlpha;
+            if (!uniform)
+            {
+                double area = s[0] * s[1] + s[1] * s[2] + s[2] * s[0];
+                alpha = Math.min(alpha, totalWeight / area);
+            }
+            alpha = Math.max(MIN_ALPHA, Math.min(MAX_ALPHA, alpha));
+
+            FloatBuffer resultPositions = result.getPositions();
+            FloatBuffer resultScales = result.getScales();
+            FloatBuffer resultRotations = result.getRotations();
+            FloatBuffer resultColors = result.getColors();
+            FloatBuffer resultSh = result.getSh();
+            for (int j = 0; j < 3; j++)
+            {
+                resultPositions.put(c * 3 + j, (float) mean[j]);
+                resultScales.put(c * 3 + j, (float) Math.log(s[j]));
+                resultColors.put(c * 3 + j,
+                    (float) (colorSums[j] / totalWeight));
+            }
+            for (int j = 0; j < 4; j++)
+            {
+                resultRotations.put(c * 4 + j, q[j]);
+            }
+            result.getAlphas().put(c,
+                (float) Math.log(alpha / (1.0 - alpha)));
+            for (int j = 0; j < shSize; j++)
+            {
+                resultSh.put(c * shSize + j,
+                    (float) (colorSums[3 + j] / totalWeight));
+            }
+        }
+
+        /**
+         * Add the covariance of the specified Gaussian, plus the outer
+         * product of the difference between its position and the given
+         * mean, multiplied with the given weight, to the covariance
+         *
+         * @param i The index of the Gaussian
+         * @param mean The mean
+         * @param w The weight
+         */
+        private void addCovariance(int i, double mean[], double w)
+        {
+            double x = rotations.get(i * 4 + 0);
+            double y = rotations.get(i * 4 + 1);
+            double z = rotations.get(i * 4 + 2);
+            double qw = rotations.get(i * 4 + 3);
+            double length = Math.sqrt(x * x + y * y + z * z + qw * qw);
+            if (length > 0.0)
+            {
+                x /= length;
+                y /= length;
+                z /= length;
+                qw /= length;
+            }
+            else
+            {
+                qw = 1.0;
+            }
+            double m[][] =
+            {
+                { 1 - 2 * (y * y + z * z), 2 * (x * y - z * qw),
+                    2 * (x * z + y * qw) },
+                { 2 * (x * y + z * qw), 1 - 2 * (x * x + z * z),
+                    2 * (y * z - x * qw) },
+                { 2 * (x * z - y * qw), 2 * (y * z + x * qw),
+                    1 - 2 * (x * x + y * y) } };
+            double v[] = new double[3];
+            double d[] = new double[3];
+            for (int j = 0; j < 3; j++)
+            {
+                double s = Math.exp(scales.get(i * 3 + j));
+                v[j] = s * s;
+                d[j] = positions.get(i * 3 + j) - mean[j];
+            }
+            for (int r = 0; r < 3; r++)
+            {
+                for (int s = r; s < 3; s++)
+                {
+                    double sigma = m[r][0] * m[s][0] * v[0]
+                        + m[r][1] * m[s][1] * v[1] + m[r][2] * m[s][2] * v[2];
+                    double value = w * (sigma + d[r] * d[s]);
+                    covariance[r][s] += value;
+                    if (r != s)
+                    {
+                        covariance[s][r] += value;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Copy the specified point of the input to the specified point of
+         * the result
+         *
+         * @param i The index in the input
+         * @param c The index in the result
+         */
+        private void copy(int i, int c)
+        {
+            FloatBuffer resultPositions = result.getPositions();
+            FloatBuffer resultScales = result.getScales();
+            FloatBuffer resultRotations = result.getRotations();
+            FloatBuffer resultColors = result.getColors();
+            FloatBuffer resultSh = result.getSh();
+            for (int j = 0; j < 3; j++)
+            {
+                resultPositions.put(c * 3 + j, positions.get(i * 3 + j));
+                resultScales.put(c * 3 + j, scales.get(i * 3 + j));
+                resultColors.put(c * 3 + j, colors.get(i * 3 + j));
+            }
+            for (int j = 0; j < 4; j++)
+            {
+                resultRotations.put(c * 4 + j, rotations.get(i * 4 + j));
+            }
+            result.getAlphas().put(c, alphas.get(i));
+            for (int j = 0; j < shSize; j++)
+            {
+                resultSh.put(c * shSize + j, sh.get(i * shSize + j));
+            }
+        }
+    }
+
+    /**
+     * Compute the eigenvalues and eigenvectors of the given symmetric 3x3
+     * matrix, using the cyclic Jacobi eigenvalue algorithm.
+     *
+     * The given matrix will be modified. The given eigenvector matrix will
+     * receive the eigenvectors as its columns.
+     *
+     * @param a The matrix, as rows
+     * @param v The matrix that will receive the eigenvectors
+     * @return The eigenvalues
+     */
+    static double[] computeEigen(double a[][], double v[][])
+    {
+        for (int r = 0; r < 3; r++)
+        {
+            Arrays.fill(v[r], 0.0);
+            v[r][r] = 1.0;
+        }
+        for (int sweep = 0; sweep < MAX_JACOBI_SWEEPS; sweep++)
+        {
+            double off = a[0][1] * a[0][1] + a[0][2] * a[0][2]
+                + a[1][2] * a[1][2];
+            double diagonal = a[0][0] * a[0][0] + a[1][1] * a[1][1]
+                + a[2][2] * a[2][2];
+            if (off <= 1e-30 * diagonal || off == 0.0)
+            {
+                break;
+            }
+            for (int p = 0; p < 2; p++)
+            {
+                for (int q = p + 1; q < 3; q++)
+                {
+                    rotate(a, v, p, q);
+                }
+            }
+        }
+        return new double[]
+        { a[0][0], a[1][1], a[2][2] };
+    }
+
+    /**
+     * Apply a single Jacobi rotation to the given matrix, eliminating the
+     * element at (p,q), and accumulate the rotation in the given eigenvector
+     * matrix
+     *
+     * @param a The matrix, as rows
+     * @param v The eigenvector matrix
+     * @param p The row
+     * @param q The column
+     */
+    private static void rotate(double a[][], double v[][], int p, int q)
+    {
+        double apq = a[p][q];
+        if (apq == 0.0)
+        {
+            return;
+        }
+        double theta = (a[q][q] - a[p][p]) / (2.0 * apq);
+        double t = Math.signum(theta) / (Math.abs(theta)
+            + Math.sqrt(theta * theta + 1.0));
+        if (theta == 0.0)
+        {
+            t = 1.0;
+        }
+        double c = 1.0 / Math.sqrt(t * t + 1.0);
+        double s = t * c;
+        for (int k = 0; k < 3; k++)
+        {
+            double akp = a[k][p];
+            double akq = a[k][q];
+            a[k][p] = c * akp - s * akq;
+            a[k][q] = s * akp + c * akq;
+        }
+        for (int k = 0; k < 3; k++)
+        {
+            double apk = a[p][k];
+            double aqk = a[q][k];
+            a[p][k] = c * apk - s * aqk;
+            a[q][k] = s * apk + c * aqk;
+        }
+        for (int k = 0; k < 3; k++)
+        {
+            double vkp = v[k][p];
+            double vkq = v[k][q];
+            v[k][p] = c * vkp - s * vkq;
+            v[k][q] = s * vkp + c * vkq;
+        }
+    }
+
+    /**
+     * Returns the logistic sigmoid of the given value
+     *
+     * @param x The value
+     * @return The result
+     */
+    private static double sigmoid(double x)
+    {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private GaussianCloudLods()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
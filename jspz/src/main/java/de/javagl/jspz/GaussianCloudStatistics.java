@@ -0,0 +1,581 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Statistics about the data of a {@link GaussianCloud}.
+ *
+ * Instances of this class can be computed with
+ * {@link GaussianClouds#statistics(GaussianCloud)}, or collected while
+ * reading SPZ data, by enabling
+ * {@link SpzReaderOptions#setCollectingCloudStatistics(boolean)}.
+ *
+ * The minimum, maximum and mean values are given per component of each
+ * attribute, where the attributes are identified by their
+ * {@link SpzSection}. The values are the ones that are stored in the
+ * {@link GaussianCloud}, meaning that the scales are logarithmic, and the
+ * alphas are given before the sigmoid function is applied. For a cloud
+ * without points, the minimum values are positive infinity, the maximum
+ * values are negative infinity, and the mean values are 0.0.
+ */
+public final class GaussianCloudStatistics
+{
+    /**
+     * The number of bins of the histograms
+     */
+    public static final int NUM_HISTOGRAM_BINS = 64;
+
+    /**
+     * The minimum (logarithmic) scale that is covered by the scale histogram.
+     * This is the minimum scale that can be represented in SPZ.
+     */
+    public static final float SCALE_HISTOGRAM_MIN = -10.0f;
+
+    /**
+     * The maximum (logarithmic) scale that is covered by the scale histogram.
+     * This is the maximum scale that can be represented in SPZ.
+     */
+    public static final float SCALE_HISTOGRAM_MAX = 6.0f;
+
+    /**
+     * The number of points
+     */
+    private int numPoints;
+
+    /**
+     * The spherical harmonics degree
+     */
+    private final int shDegree;
+
+    /**
+     * The minimum value of each component, per section
+     */
+    private final float min[][];
+
+    /**
+     * The maximum value of each component, per section
+     */
+    private final float max[][];
+
+    /**
+     * The sum of the values of each component, per section
+     */
+    private final double sum[][];
+
+    /**
+     * The bounds of the extents of the splats
+     */
+    private final float extentBounds[];
+
+    /**
+     * The alpha histogram
+     */
+    private final int alphaHistogram[];
+
+    /**
+     * The scale histogram
+     */
+    private final int scaleHistogram[];
+
+    /**
+     * The sum of the spherical harmonics energy, per band
+     */
+    private final double shEnergySum[];
+
+    /**
+     * The maximum spherical harmonics energy, per band
+     */
+    private final float shEnergyMax[];
+
+    /**
+     * Creates a new, empty instance
+     *
+     * @param shDegree The spherical harmonics degree
+     */
+    GaussianCloudStatistics(int shDegree)
+    {
+        this.shDegree = shDegree;
+        int numSections = SpzSection.values().length;
+        this.min = new float[numSections][];
+        this.max = new float[numSections][];
+        this.sum = new double[numSections][];
+        for (SpzSection section : SpzSection.values())
+        {
+            int n = numComponents(section, shDegree);
+            int i = section.ordinal();
+            min[i] = new float[n];
+            max[i] = new float[n];
+            sum[i] = new double[n];
+            Arrays.fill(min[i], Float.POSITIVE_INFINITY);
+            Arrays.fill(max[i], Float.NEGATIVE_INFINITY);
+        }
+        this.extentBounds = new float[6];
+        Arrays.fill(extentBounds, 0, 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(extentBounds, 3, 6, Float.NEGATIVE_INFINITY);
+        this.alphaHistogram = new int[NUM_HISTOGRAM_BINS];
+        this.scaleHistogram = new int[NUM_HISTOGRAM_BINS];
+        this.shEnergySum = new double[shDegree];
+        this.shEnergyMax = new float[shDegree];
+    }
+
+    /**
+     * Returns the number of components that the given section has for each
+     * point
+     *
+     * @param section The {@link SpzSection}
+     * @param shDegree The spherical harmonics degree
+     * @return The number of components
+     */
+    private static int numComponents(SpzSection section, int shDegree)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                return 3;
+            case ALPHAS:
+                return 1;
+            case COLORS:
+                return 3;
+            case SCALES:
+                return 3;
+            case ROTATIONS:
+                return 4;
+            case SH:
+                return SpzUtils.dimensionsForDegree(shDegree) * 3;
+            default:
+                break;
+        }
+        throw new IllegalStateException("Invalid section: " + section);
+    }
+
+    /**
+     * Add the data of the given section for the specified points of the
+     * given {@link GaussianCloud} to these statistics.
+     *
+     * The {@link SpzSection#ROTATIONS} must be added after the
+     * {@link SpzSection#POSITIONS} and {@link SpzSection#SCALES} of the
+     * points have been stored in the cloud, because they are used for
+     * computing the extents of the splats. The number of points is
+     * increased when the {@link SpzSection#POSITIONS} are added.
+     *
+     * @param section The {@link SpzSection}
+     * @param g The {@link GaussianCloud}
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    void add(SpzSection section, GaussianCloud g, int start, int end)
+    {
+        int s = section.ordinal();
+        FloatBuffer data = buffer(section, g);
+        int n = min[s].length;
+        for (int i = start; i < end; i++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                float v = data.get(i * n + c);
+                min[s][c] = Math.min(min[s][c], v);
+                max[s][c] = Math.max(max[s][c], v);
+                sum[s][c] += v;
+            }
+        }
+        switch (section)
+        {
+            case POSITIONS:
+                numPoints += end - start;
+                break;
+            case ALPHAS:
+                addAlphaHistogram(data, start, end);
+                break;
+            case SCALES:
+                addScaleHistogram(data, start, end);
+                break;
+            case ROTATIONS:
+                addExtents(g, start, end);
+                break;
+            case SH:
+                addShEnergy(data, start, end);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the buffer of the given {@link GaussianCloud} that contains
+     * the data of the given section
+     *
+     * @param section The {@link SpzSection}
+     * @param g The {@link GaussianCloud}
+     * @return The buffer
+     */
+    private static FloatBuffer buffer(SpzSection section, GaussianCloud g)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                return g.getPositions();
+            case ALPHAS:
+                return g.getAlphas();
+            case COLORS:
+                return g.getColors();
+            case SCALES:
+                return g.getScales();
+            case ROTATIONS:
+                return g.getRotations();
+            case SH:
+                return g.getSh();
+            default:
+                break;
+        }
+        throw new IllegalStateException("Invalid section: " + section);
+    }
+
+    /**
+     * Add the given alphas to the alpha histogram
+     *
+     * @param alphas The alphas
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private void addAlphaHistogram(FloatBuffer alphas, int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            float opacity = SpzUtils.sigmoid(alphas.get(i));
+            alphaHistogram[bin(opacity, 0.0f, 1.0f)]++;
+        }
+    }
+
+    /**
+     * Add the given scales to the scale histogram
+     *
+     * @param scales The scales
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private void addScaleHistogram(FloatBuffer scales, int start, int end)
+    {
+        for (int i = start * 3; i < end * 3; i++)
+        {
+            float scale = scales.get(i);
+            scaleHistogram[bin(scale, SCALE_HISTOGRAM_MIN,
+                SCALE_HISTOGRAM_MAX)]++;
+        }
+    }
+
+    /**
+     * Returns the histogram bin for the given value, clamped to the valid
+     * range of bins
+     *
+     * @param value The value
+     * @param rangeMin The minimum of the histogram range
+     * @param rangeMax The maximum of the histogram range
+     * @return The bin
+     */
+    private static int bin(float value, float rangeMin, float rangeMax)
+    {
+        float relative = (value - rangeMin) / (rangeMax - rangeMin);
+        int bin = (int) (relative * NUM_HISTOGRAM_BINS);
+        return Math.max(0, Math.min(NUM_HISTOGRAM_BINS - 1, bin));
+    }
+
+    /**
+     * Add the extents of the specified splats to the extent bounds
+     *
+     * @param g The {@link GaussianCloud}
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private void addExtents(GaussianCloud g, int start, int end)
+    {
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        float extent[] = new float[6];
+        for (int i = start; i < end; i++)
+        {
+            SplatExtents.compute(positions, scales, rotations, i, extent, 0);
+            for (int j = 0; j < 3; j++)
+            {
+                extentBounds[j] = Math.min(extentBounds[j], extent[j]);
+                extentBounds[j + 3] =
+                    Math.max(extentBounds[j + 3], extent[j + 3]);
+            }
+        }
+    }
+
+    /**
+     * Add the energy of the given spherical harmonics to the energy
+     * statistics of each band
+     *
+     * @param sh The spherical harmonics
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private void addShEnergy(FloatBuffer sh, int start, int end)
+    {
+        int shSize = SpzUtils.dimensionsForDegree(shDegree) * 3;
+        for (int i = start; i < end; i++)
+        {
+            for (int b = 0; b < shDegree; b++)
+            {
+                int band = b + 1;
+                int first = band * band - 1;
+                int last = (band + 1) * (band + 1) - 1;
+                float energy = 0.0f;
+                for (int c = first * 3; c < last * 3; c++)
+                {
+                    float v = sh.get(i * shSize + c);
+                    energy += v * v;
+                }
+                shEnergySum[b] += energy;
+                shEnergyMax[b] = Math.max(shEnergyMax[b], energy);
+            }
+        }
+    }
+
+    /**
+     * Add the given statistics to these statistics
+     *
+     * @param other The other statistics
+     */
+    void add(GaussianCloudStatistics other)
+    {
+        numPoints += other.numPoints;
+        for (int s = 0; s < min.length; s++)
+        {
+            for (int c = 0; c < min[s].length; c++)
+            {
+                min[s][c] = Math.min(min[s][c], other.min[s][c]);
+                max[s][c] = Math.max(max[s][c], other.max[s][c]);
+                sum[s][c] += other.sum[s][c];
+            }
+        }
+        for (int j = 0; j < 3; j++)
+        {
+            extentBounds[j] = Math.min(extentBounds[j], other.extentBounds[j]);
+            extentBounds[j + 3] =
+                Math.max(extentBounds[j + 3], other.extentBounds[j + 3]);
+        }
+        for (int b = 0; b < NUM_HISTOGRAM_BINS; b++)
+        {
+            alphaHistogram[b] += other.alphaHistogram[b];
+            scaleHistogram[b] += other.scaleHistogram[b];
+        }
+        for (int b = 0; b < shDegree; b++)
+        {
+            shEnergySum[b] += other.shEnergySum[b];
+            shEnergyMax[b] = Math.max(shEnergyMax[b], other.shEnergyMax[b]);
+        }
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+
+    /**
+     * Returns the spherical harmonics degree
+     *
+     * @return The degree
+     */
+    public int getShDegree()
+    {
+        return shDegree;
+    }
+
+    /**
+     * Returns the axis-aligned bounding box of the positions
+     *
+     * @return The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    public float[] getBounds()
+    {
+        int s = SpzSection.POSITIONS.ordinal();
+        float result[] = new float[6];
+        System.arraycopy(min[s], 0, result, 0, 3);
+        System.arraycopy(max[s], 0, result, 3, 3);
+        return result;
+    }
+
+    /**
+     * Returns the axis-aligned bounding box of the extents of the splats.
+     *
+     * The extent of each splat is the axis-aligned bounding box of its
+     * ellipsoid at three standard deviations, computed from its scales and
+     * rotation.
+     *
+     * @return The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    public float[] getExtentBounds()
+    {
+        return extentBounds.clone();
+    }
+
+    /**
+     * Returns the minimum value of each component of the given attribute
+     *
+     * @param section The {@link SpzSection} that identifies the attribute
+     * @return The minimum values
+     */
+    public float[] getMin(SpzSection section)
+    {
+        return min[section.ordinal()].clone();
+    }
+
+    /**
+     * Returns the maximum value of each component of the given attribute
+     *
+     * @param section The {@link SpzSection} that identifies the attribute
+     * @return The maximum values
+     */
+    public float[] getMax(SpzSection section)
+    {
+        return max[section.ordinal()].clone();
+    }
+
+    /**
+     * Returns the mean value of each component of the given attribute
+     *
+     * @param section The {@link SpzSection} that identifies the attribute
+     * @return The mean values
+     */
+    public float[] getMean(SpzSection section)
+    {
+        double s[] = sum[section.ordinal()];
+        float result[] = new float[s.length];
+        if (numPoints > 0)
+        {
+            for (int c = 0; c < s.length; c++)
+            {
+                result[c] = (float) (s[c] / numPoints);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the histogram of the opacities, which are the alpha values
+     * after the sigmoid function was applied.
+     *
+     * The histogram has {@link #NUM_HISTOGRAM_BINS} bins that cover the
+     * range [0,1].
+     *
+     * @return The histogram
+     */
+    public int[] getAlphaHistogram()
+    {
+        return alphaHistogram.clone();
+    }
+
+    /**
+     * Returns the histogram of the (logarithmic) scales, containing all
+     * three components of the scale of each point.
+     *
+     * The histogram has {@link #NUM_HISTOGRAM_BINS} bins that cover the
+     * range [{@link #SCALE_HISTOGRAM_MIN}, {@link #SCALE_HISTOGRAM_MAX}].
+     * Values outside of this range are counted in the first or last bin.
+     *
+     * @return The histogram
+     */
+    public int[] getScaleHistogram()
+    {
+        return scaleHistogram.clone();
+    }
+
+    /**
+     * Returns the mean energy of the spherical harmonics coefficients of the
+     * given band.
+     *
+     * The energy of a band of one point is the sum of the squares of its
+     * coefficients, for all color channels.
+     *
+     * @param band The band, in [1, {@link #getShDegree()}]
+     * @return The mean energy
+     * @throws IllegalArgumentException If the band is not valid
+     */
+    public float getMeanShEnergy(int band)
+    {
+        validateBand(band);
+        if (numPoints == 0)
+        {
+            return 0.0f;
+        }
+        return (float) (shEnergySum[band - 1] / numPoints);
+    }
+
+    /**
+     * Returns the maximum energy of the spherical harmonics coefficients of
+     * the given band.
+     *
+     * The energy of a band of one point is the sum of the squares of its
+     * coefficients, for all color channels.
+     *
+     * @param band The band, in [1, {@link #getShDegree()}]
+     * @return The maximum energy
+     * @throws IllegalArgumentException If the band is not valid
+     */
+    public float getMaxShEnergy(int band)
+    {
+        validateBand(band);
+        return shEnergyMax[band - 1];
+    }
+
+    /**
+     * Validate the given spherical harmonics band
+     *
+     * @param band The band
+     * @throws IllegalArgumentException If the band is not in
+     *         [1, {@link #getShDegree()}]
+     */
+    private void validateBand(int band)
+    {
+        if (band < 1 || band > shDegree)
+        {
+            throw new IllegalArgumentException(
+                "The band must be in [1," + shDegree + "], but is " + band);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("GaussianCloudStatistics[numPoints=").append(numPoints);
+        sb.append(", shDegree=").append(shDegree);
+        sb.append(", bounds=").append(Arrays.toString(getBounds()));
+        sb.append(", extentBounds=").append(Arrays.toString(extentBounds));
+        for (SpzSection section : SpzSection.values())
+        {
+            if (section == SpzSection.POSITIONS || section == SpzSection.SH)
+            {
+                continue;
+            }
+            sb.append(", ").append(section);
+            sb.append("=[min=").append(Arrays.toString(getMin(section)));
+            sb.append(", max=").append(Arrays.toString(getMax(section)));
+            sb.append(", mean=").append(Arrays.toString(getMean(section)));
+            sb.append("]");
+        }
+        for (int band = 1; band <= shDegree; band++)
+        {
+            sb.append(String.format(Locale.ENGLISH,
+                ", shBand%d=[meanEnergy=%f, maxEnergy=%f]", band,
+                getMeanShEnergy(band), getMaxShEnergy(band)));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
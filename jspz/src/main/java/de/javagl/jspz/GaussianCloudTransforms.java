@@ -0,0 +1,553 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Methods for applying similarity transforms to {@link GaussianCloud}
+ * objects.
+ *
+ * The transform of the spherical harmonics is computed per band. The
+ * rotation matrix for each band is computed once for each transform, by
+ * evaluating the basis functions at a fixed set of directions, and solving
+ * the resulting least squares problem. Since each band is closed under
+ * rotation, this yields the exact (Wigner-D) rotation matrix, up to
+ * rounding errors, in the basis that is used for the coefficients.
+ */
+class GaussianCloudTransforms
+{
+    /**
+     * The relative tolerance for the check whether a matrix describes a
+     * similarity transform
+     */
+    private static final double SIMILARITY_EPSILON = 1e-4;
+
+    /**
+     * The number of sample directions for computing the spherical harmonics
+     * rotation matrices
+     */
+    private static final int NUM_SAMPLE_DIRECTIONS = 32;
+
+    /**
+     * The constant for the basis functions of band 1
+     */
+    private static final double C1 = 0.4886025119029199;
+
+    /**
+     * The constants for the basis functions of band 2
+     */
+    private static final double C2[] =
+    { 1.0925484305920792, -1.0925484305920792, 0.31539156525252005,
+        -1.0925484305920792, 0.5462742152960396 };
+
+    /**
+     * The constants for the basis functions of band 3
+     */
+    private static final double C3[] =
+    { -0.5900435899266435, 2.890611442640554, -0.4570457994644658,
+        0.3731763325901154, -0.4570457994644658, 1.445305721320277,
+        -0.5900435899266435 };
+
+    /**
+     * Transform the given {@link GaussianCloud} with the given matrix, in
+     * place.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param matrix The matrix, as 16 elements in column-major order
+     * @throws IllegalArgumentException If the matrix does not have 16
+     *         elements, or does not describe a similarity transform
+     */
+    static void transform(GaussianCloud g, float matrix[])
+    {
+        if (matrix.length != 16)
+        {
+            throw new IllegalArgumentException(
+                "Expected a matrix with 16 elements, but it has "
+                    + matrix.length);
+        }
+        double a[][] = new double[3][3];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                a[r][c] = matrix[c * 4 + r];
+            }
+        }
+        double scale = validateSimilarity(matrix, a);
+
+        // The orthogonal part of the matrix, which may be a reflection
+        double m[][] = new double[3][3];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                m[r][c] = a[r][c] / scale;
+            }
+        }
+
+        // The rotation for the quaternions. A reflection does not affect
+        // the covariance of the Gaussians, except for a rotation by -M
+        double rotation[][] = new double[3][3];
+        double sign = determinant(m) < 0 ? -1.0 : 1.0;
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                rotation[r][c] = sign * m[r][c];
+            }
+        }
+        float q[] = toQuaternion(rotation);
+
+        float fa[] = new float[9];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                fa[r * 3 + c] = (float) a[r][c];
+            }
+        }
+        float t[] =
+        { matrix[12], matrix[13], matrix[14] };
+        float logScale = (float) Math.log(scale);
+
+        int shDegree = g.getShDegree();
+        float shRotations[][] = new float[shDegree + 1][];
+        for (int band = 1; band <= shDegree; band++)
+        {
+            shRotations[band] = computeShRotation(m, band);
+        }
+
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        FloatBuffer sh = g.getSh();
+        int shDim = SpzUtils.dimensionsForDegree(shDegree);
+        Parallel.forEachChunk(g.getNumPoints(), (chunkIndex, start, end) ->
+        {
+            transformPositions(positions, fa, t, start, end);
+            transformScales(scales, logScale, start, end);
+            transformRotations(rotations, q, start, end);
+            transformShs(sh, shDim, shRotations, start, end);
+        });
+    }
+
+    /**
+     * Make sure that the given matrix describes a similarity transform, and
+     * return its uniform scaling factor.
+     *
+     * @param matrix The matrix, in column-major order
+     * @param a The upper left 3x3 part of the matrix, as rows
+     * @return The scaling factor
+     * @throws IllegalArgumentException If the matrix does not describe a
+     *         similarity transform
+     */
+    private static double validateSimilarity(float matrix[], double a[][])
+    {
+        for (int i = 0; i < 16; i++)
+        {
+            if (!Float.isFinite(matrix[i]))
+            {
+                throw new IllegalArgumentException(
+                    "The matrix contains a non-finite value: " + matrix[i]);
+            }
+        }
+        if (matrix[3] != 0.0f || matrix[7] != 0.0f || matrix[11] != 0.0f
+            || matrix[15] != 1.0f)
+        {
+            throw new IllegalArgumentException(
+                "The matrix is not affine, the last row must be (0,0,0,1)");
+        }
+        // For a similarity transform, A^T * A = s^2 * I
+        double gram[][] = new double[3][3];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                double sum = 0.0;
+                for (int k = 0; k < 3; k++)
+                {
+                    sum += a[k][r] * a[k][c];
+                }
+                gram[r][c] = sum;
+            }
+        }
+        double scaleSquared = (gram[0][0] + gram[1][1] + gram[2][2]) / 3.0;
+        if (!(scaleSquared > 0.0))
+        {
+            throw new IllegalArgumentException("The matrix is singular");
+        }
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                double expected = r == c ? scaleSquared : 0.0;
+                double error = Math.abs(gram[r][c] - expected);
+                if (error > SIMILARITY_EPSILON * scaleSquared)
+                {
+                    throw new IllegalArgumentException(
+                        "The matrix does not describe a similarity "
+                            + "transform (rotation, uniform scaling and "
+                            + "translation)");
+                }
+            }
+        }
+        return Math.sqrt(scaleSquared);
+    }
+
+    /**
+     * Transform the positions in the given range
+     *
+     * @param positions The positions
+     * @param a The upper left 3x3 part of the matrix, in row-major order
+     * @param t The translation
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void transformPositions(FloatBuffer positions, float a[],
+        float t[], int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            float x = positions.get(i * 3 + 0);
+            float y = positions.get(i * 3 + 1);
+            float z = positions.get(i * 3 + 2);
+            float tx = a[0] * x + a[1] * y + a[2] * z + t[0];
+            float ty = a[3] * x + a[4] * y + a[5] * z + t[1];
+            float tz = a[6] * x + a[7] * y + a[8] * z + t[2];
+            positions.put(i * 3 + 0, tx);
+            positions.put(i * 3 + 1, ty);
+            positions.put(i * 3 + 2, tz);
+        }
+    }
+
+    /**
+     * Transform the (logarithmic) scales in the given range
+     *
+     * @param scales The scales
+     * @param logScale The logarithm of the scaling factor
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void transformScales(FloatBuffer scales, float logScale,
+        int start, int end)
+    {
+        for (int i = start * 3; i < end * 3; i++)
+        {
+            scales.put(i, scales.get(i) + logScale);
+        }
+    }
+
+    /**
+     * Transform the rotations in the given range, by multiplying the given
+     * quaternion from the left
+     *
+     * @param rotations The rotations
+     * @param q The quaternion, as (x, y, z, w)
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void transformRotations(FloatBuffer rotations, float q[],
+        int start, int end)
+    {
+        float x1 = q[0];
+        float y1 = q[1];
+        float z1 = q[2];
+        float w1 = q[3];
+        for (int i = start; i < end; i++)
+        {
+            float x2 = rotations.get(i * 4 + 0);
+            float y2 = rotations.get(i * 4 + 1);
+            float z2 = rotations.get(i * 4 + 2);
+            float w2 = rotations.get(i * 4 + 3);
+            float x = w1 * x2 + x1 * w2 + y1 * z2 - z1 * y2;
+            float y = w1 * y2 - x1 * z2 + y1 * w2 + z1 * x2;
+            float z = w1 * z2 + x1 * y2 - y1 * x2 + z1 * w2;
+            float w = w1 * w2 - x1 * x2 - y1 * y2 - z1 * z2;
+            rotations.put(i * 4 + 0, x);
+            rotations.put(i * 4 + 1, y);
+            rotations.put(i * 4 + 2, z);
+            rotations.put(i * 4 + 3, w);
+        }
+    }
+
+    /**
+     * Transform the spherical harmonics in the given range
+     *
+     * @param sh The spherical harmonics
+     * @param shDim The number of coefficients per point
+     * @param shRotations The rotation matrices for each band, in row-major
+     *        order, where the matrix for band 0 is <code>null</code>
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void transformShs(FloatBuffer sh, int shDim,
+        float shRotations[][], int start, int end)
+    {
+        float input[] = new float[7];
+        for (int i = start; i < end; i++)
+        {
+            for (int band = 1; band < shRotations.length; band++)
+            {
+                float d[] = shRotations[band];
+                int n = 2 * band + 1;
+                int offset = band * band - 1;
+                for (int c = 0; c < 3; c++)
+                {
+                    for (int k = 0; k < n; k++)
+                    {
+                        input[k] = sh.get((i * shDim + offset + k) * 3 + c);
+                    }
+                    for (int r = 0; r < n; r++)
+                    {
+                        float sum = 0.0f;
+                        for (int k = 0; k < n; k++)
+                        {
+                            sum += d[r * n + k] * input[k];
+                        }
+                        sh.put((i * shDim + offset + r) * 3 + c, sum);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the matrix that transforms the spherical harmonics coefficients
+     * of the given band for the given orthogonal matrix.
+     *
+     * The resulting matrix D is chosen so that for the coefficients c of a
+     * function f, the coefficients D*c describe the function g with
+     * g(d) = f(M^T * d).
+     *
+     * @param m The orthogonal matrix, as rows
+     * @param band The band, in [1,3]
+     * @return The matrix, in row-major order
+     */
+    private static float[] computeShRotation(double m[][], int band)
+    {
+        int n = 2 * band + 1;
+        int offset = band * band - 1;
+        int numSamples = NUM_SAMPLE_DIRECTIONS;
+
+        // Evaluate the basis functions at the sample directions d (matrix Y)
+        // and at the transformed sample directions M^T * d (matrix Z)
+        double y[][] = new double[numSamples][n];
+        double z[][] = new double[numSamples][n];
+        double basis[] = new double[15];
+        double goldenAngle = Math.PI * (3.0 - Math.sqrt(5.0));
+        for (int s = 0; s < numSamples; s++)
+        {
+            double dz = 1.0 - (2.0 * s + 1.0) / numSamples;
+            double radius = Math.sqrt(1.0 - dz * dz);
+            double dx = Math.cos(goldenAngle * s) * radius;
+            double dy = Math.sin(goldenAngle * s) * radius;
+
+            evaluateBasis(dx, dy, dz, basis);
+            System.arraycopy(basis, offset, y[s], 0, n);
+
+            double tx = m[0][0] * dx + m[1][0] * dy + m[2][0] * dz;
+            double ty = m[0][1] * dx + m[1][1] * dy + m[2][1] * dz;
+            double tz = m[0][2] * dx + m[1][2] * dy + m[2][2] * dz;
+            evaluateBasis(tx, ty, tz, basis);
+            System.arraycopy(basis, offset, z[s], 0, n);
+        }
+
+        // Solve the normal equations (Y^T * Y) * D = Y^T * Z
+        double lhs[][] = new double[n][n];
+        double rhs[][] = new double[n][n];
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                double sumY = 0.0;
+                double sumZ = 0.0;
+                for (int s = 0; s < numSamples; s++)
+                {
+                    sumY += y[s][r] * y[s][c];
+                    sumZ += y[s][r] * z[s][c];
+                }
+                lhs[r][c] = sumY;
+                rhs[r][c] = sumZ;
+            }
+        }
+        solve(lhs, rhs);
+
+        float result[] = new float[n * n];
+        for (int r = 0; r < n; r++)
+        {
+            for (int c = 0; c < n; c++)
+            {
+                result[r * n + c] = (float) rhs[r][c];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the spherical harmonics basis functions of the bands 1 to 3
+     * for the given direction, in the order in which the coefficients are
+     * stored.
+     *
+     * @param x The x-component of the direction
+     * @param y The y-component of the direction
+     * @param z The z-component of the direction
+     * @param result The array that stores the 15 results
+     */
+    private static void evaluateBasis(double x, double y, double z,
+        double result[])
+    {
+        double xx = x * x;
+        double yy = y * y;
+        double zz = z * z;
+
+        result[0] = -C1 * y;
+        result[1] = C1 * z;
+        result[2] = -C1 * x;
+
+        result[3] = C2[0] * x * y;
+        result[4] = C2[1] * y * z;
+        result[5] = C2[2] * (2.0 * zz - xx - yy);
+        result[6] = C2[3] * x * z;
+        result[7] = C2[4] * (xx - yy);
+
+        result[8] = C3[0] * y * (3.0 * xx - yy);
+        result[9] = C3[1] * x * y * z;
+        result[10] = C3[2] * y * (4.0 * zz - xx - yy);
+        result[11] = C3[3] * z * (2.0 * zz - 3.0 * xx - 3.0 * yy);
+        result[12] = C3[4] * x * (4.0 * zz - xx - yy);
+        result[13] = C3[5] * z * (xx - yy);
+        result[14] = C3[6] * x * (xx - 3.0 * yy);
+    }
+
+    /**
+     * Solve the linear system A * X = B with Gaussian elimination and partial
+     * pivoting. The given arrays will be modified, and B will contain the
+     * solution X afterwards.
+     *
+     * @param a The (square) matrix A, as rows
+     * @param b The matrix B, as rows
+     */
+    private static void solve(double a[][], double b[][])
+    {
+        int n = a.length;
+        for (int col = 0; col < n; col++)
+        {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++)
+            {
+                if (Math.abs(a[r][col]) > Math.abs(a[pivot][col]))
+                {
+                    pivot = r;
+                }
+            }
+            double tmpA[] = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmpA;
+            double tmpB[] = b[col];
+            b[col] = b[pivot];
+            b[pivot] = tmpB;
+
+            for (int r = col + 1; r < n; r++)
+            {
+                double factor = a[r][col] / a[col][col];
+                for (int c = col; c < n; c++)
+                {
+                    a[r][c] -= factor * a[col][c];
+                }
+                for (int c = 0; c < b[r].length; c++)
+                {
+                    b[r][c] -= factor * b[col][c];
+                }
+            }
+        }
+        for (int r = n - 1; r >= 0; r--)
+        {
+            for (int c = 0; c < b[r].length; c++)
+            {
+                double sum = b[r][c];
+                for (int k = r + 1; k < n; k++)
+                {
+                    sum -= a[r][k] * b[k][c];
+                }
+                b[r][c] = sum / a[r][r];
+            }
+        }
+    }
+
+    /**
+     * Compute the determinant of the given 3x3 matrix
+     *
+     * @param m The matrix, as rows
+     * @return The determinant
+     */
+    static double determinant(double m[][])
+    {
+        return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+            - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+            + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+    }
+
+    /**
+     * Convert the given rotation matrix into a unit quaternion
+     *
+     * @param r The rotation matrix, as rows
+     * @return The quaternion, as (x, y, z, w)
+     */
+    static float[] toQuaternion(double r[][])
+    {
+        double x;
+        double y;
+        double z;
+        double w;
+        double trace = r[0][0] + r[1][1] + r[2][2];
+        if (trace > 0.0)
+        {
+            double s = 0.5 / Math.sqrt(trace + 1.0);
+            w = 0.25 / s;
+            x = (r[2][1] - r[1][2]) * s;
+            y = (r[0][2] - r[2][0]) * s;
+            z = (r[1][0] - r[0][1]) * s;
+        }
+        else if (r[0][0] > r[1][1] && r[0][0] > r[2][2])
+        {
+            double s = 2.0 * Math.sqrt(1.0 + r[0][0] - r[1][1] - r[2][2]);
+            w = (r[2][1] - r[1][2]) / s;
+            x = 0.25 * s;
+            y = (r[0][1] + r[1][0]) / s;
+            z = (r[0][2] + r[2][0]) / s;
+        }
+        else if (r[1][1] > r[2][2])
+        {
+            double s = 2.0 * Math.sqrt(1.0 + r[1][1] - r[0][0] - r[2][2]);
+            w = (r[0][2] - r[2][0]) / s;
+            x = (r[0][1] + r[1][0]) / s;
+            y = 0.25 * s;
+            z = (r[1][2] + r[2][1]) / s;
+        }
+        else
+        {
+            double s = 2.0 * Math.sqrt(1.0 + r[2][2] - r[0][0] - r[1][1]);
+            w = (r[1][0] - r[0][1]) / s;
+            x = (r[0][2] + r[2][0]) / s;
+            y = (r[1][2] + r[2][1]) / s;
+            z = 0.25 * s;
+        }
+        double length = Math.sqrt(x * x + y * y + z * z + w * w);
+        return new float[]
+        { (float) (x / length), (float) (y / length), (float) (z / length),
+            (float) (w / length) };
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private GaussianCloudTransforms()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
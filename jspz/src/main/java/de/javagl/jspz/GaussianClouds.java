@@ -5,6 +5,9 @@
  */
 package de.javagl.jspz;
 
+import java.nio.FloatBuffer;
+import java.util.List;
+
 /**
  * Methods for {@link GaussianCloud} objects.
  */
@@ -24,6 +27,206 @@ public class GaussianClouds
         return new DefaultGaussianCloud(numPoints, shDegree, antialiased);
     }
 
+    /**
+     * Creates a new synthetic {@link GaussianCloud} with the given number of
+     * points and spherical harmonics degree, filled with random data.
+     *
+     * The data is intended for benchmarks and compression experiments. The
+     * splats are clustered on surfaces, the scales are log-normal, most splats
+     * are nearly opaque, and the energy of the spherical harmonics decreases
+     * with each band. The buffers are filled in parallel, but the result only
+     * depends on the given seed.
+     *
+     * @param numPoints The number of points
+     * @param shDegree The spherical harmonics degree, in [0,3]
+     * @param seed The random seed
+     * @return The {@link GaussianCloud}
+     * @throws IllegalArgumentException If the number of points is negative,
+     *         or the degree is not in [0,3]
+     */
+    public static GaussianCloud createSynthetic(int numPoints, int shDegree,
+        long seed)
+    {
+        return SyntheticGaussianClouds.create(numPoints, shDegree, seed);
+    }
+
+    /**
+     * Transform the given {@link GaussianCloud} with the given matrix, in
+     * place.
+     *
+     * The matrix must describe a similarity transform, consisting of a
+     * rotation (or reflection), a uniform scaling, and a translation. The
+     * positions are transformed with the matrix, the rotations are
+     * combined with the rotation of the matrix, the scales are multiplied
+     * with the scaling factor, and the spherical harmonics are rotated
+     * accordingly. The points are processed in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param matrix The matrix, as 16 elements in column-major order
+     * @throws IllegalArgumentException If the matrix does not have 16
+     *         elements, or does not describe a similarity transform
+     */
+    public static void transform(GaussianCloud g, float matrix[])
+    {
+        GaussianCloudTransforms.transform(g, matrix);
+    }
+
+    /**
+     * Compute the {@link GaussianCloudStatistics} for the given
+     * {@link GaussianCloud}.
+     *
+     * The statistics are computed in a single pass over the data, where
+     * chunks of points are processed in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The {@link GaussianCloudStatistics}
+     */
+    public static GaussianCloudStatistics statistics(GaussianCloud g)
+    {
+        int shDegree = g.getShDegree();
+        int n = g.getNumPoints();
+        int numChunks = Parallel.numChunks(n, Parallel.DEFAULT_CHUNK_SIZE);
+        GaussianCloudStatistics chunkStatistics[] =
+            new GaussianCloudStatistics[numChunks];
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            GaussianCloudStatistics statistics =
+                new GaussianCloudStatistics(shDegree);
+            for (SpzSection section : SpzSection.values())
+            {
+                statistics.add(section, g, start, end);
+            }
+            chunkStatistics[chunkIndex] = statistics;
+        });
+        GaussianCloudStatistics result = new GaussianCloudStatistics(shDegree);
+        for (GaussianCloudStatistics statistics : chunkStatistics)
+        {
+            result.add(statistics);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new {@link GaussianCloud} that contains the points of the
+     * given {@link GaussianCloud} that have the given indices, in the order
+     * of the indices. The points are copied in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param indices The indices of the points
+     * @return The new {@link GaussianCloud}
+     * @throws IndexOutOfBoundsException If any index is negative or not
+     *         smaller than the number of points of the given cloud
+     */
+    public static GaussianCloud subset(GaussianCloud g, int indices[])
+    {
+        int shDim = SpzUtils.dimensionsForDegree(g.getShDegree());
+        int shSize = shDim * 3;
+        DefaultGaussianCloud s = new DefaultGaussianCloud(indices.length,
+            g.getShDegree(), g.isAntialiased());
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer sh = g.getSh();
+        FloatBuffer subsetPositions = s.getPositions();
+        FloatBuffer subsetScales = s.getScales();
+        FloatBuffer subsetRotations = s.getRotations();
+        FloatBuffer subsetAlphas = s.getAlphas();
+        FloatBuffer subsetColors = s.getColors();
+        FloatBuffer subsetSh = s.getSh();
+        Parallel.forEachChunk(indices.length, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                int index = indices[i];
+                copy(positions, index * 3, subsetPositions, i * 3, 3);
+                copy(scales, index * 3, subsetScales, i * 3, 3);
+                copy(rotations, index * 4, subsetRotations, i * 4, 4);
+                copy(alphas, index, subsetAlphas, i, 1);
+                copy(colors, index * 3, subsetColors, i * 3, 3);
+                copy(sh, index * shSize, subsetSh, i * shSize, shSize);
+            }
+        });
+        return s;
+    }
+
+    /**
+     * Creates a new {@link GaussianCloud} that contains the points of all
+     * given {@link GaussianCloud} objects, one after another.
+     *
+     * The resulting cloud is antialiased if the first given cloud is
+     * antialiased.
+     *
+     * @param gs The {@link GaussianCloud} objects
+     * @return The new {@link GaussianCloud}
+     * @throws IllegalArgumentException If the given list is empty, the clouds
+     *         have different spherical harmonics degrees, or the total number
+     *         of points is too large
+     */
+    public static GaussianCloud concatenate(List<? extends GaussianCloud> gs)
+    {
+        if (gs.isEmpty())
+        {
+            throw new IllegalArgumentException("No clouds have been given");
+        }
+        GaussianCloud first = gs.get(0);
+        long numPoints = 0;
+        for (GaussianCloud g : gs)
+        {
+            if (g.getShDegree() != first.getShDegree())
+            {
+                throw new IllegalArgumentException(
+                    "Cannot concatenate clouds with spherical harmonics "
+                        + "degrees " + first.getShDegree() + " and "
+                        + g.getShDegree());
+            }
+            numPoints += g.getNumPoints();
+        }
+        if (numPoints > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("The total number of points is "
+                + numPoints + ", which is too large");
+        }
+        DefaultGaussianCloud c = new DefaultGaussianCloud((int) numPoints,
+            first.getShDegree(), first.isAntialiased());
+        FloatBuffer positions = c.getPositions();
+        FloatBuffer scales = c.getScales();
+        FloatBuffer rotations = c.getRotations();
+        FloatBuffer alphas = c.getAlphas();
+        FloatBuffer colors = c.getColors();
+        FloatBuffer sh = c.getSh();
+        for (GaussianCloud g : gs)
+        {
+            positions.put(g.getPositions());
+            scales.put(g.getScales());
+            rotations.put(g.getRotations());
+            alphas.put(g.getAlphas());
+            colors.put(g.getColors());
+            sh.put(g.getSh());
+        }
+        return c;
+    }
+
+    /**
+     * Copy the specified number of elements from the source buffer to the
+     * target buffer, using absolute indices
+     *
+     * @param source The source buffer
+     * @param sourceIndex The index in the source buffer
+     * @param target The target buffer
+     * @param targetIndex The index in the target buffer
+     * @param count The number of elements
+     */
+    private static void copy(FloatBuffer source, int sourceIndex,
+        FloatBuffer target, int targetIndex, int count)
+    {
+        for (int j = 0; j < count; j++)
+        {
+            target.put(targetIndex + j, source.get(sourceIndex + j));
+        }
+    }
+
     /**
      * Private constructor to prevent instantiation
      */
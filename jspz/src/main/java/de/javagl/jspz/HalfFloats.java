@@ -0,0 +1,191 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Methods for converting between <code>float</code> values and IEEE 754
+ * half-precision (16 bit) floating point values, which are stored as
+ * <code>short</code> values.
+ */
+class HalfFloats
+{
+    /**
+     * The <code>float</code> values for all possible half values, used for
+     * the widening conversion
+     */
+    private static final float FLOATS[] = createFloats();
+
+    /**
+     * Create the table of <code>float</code> values for all half values
+     *
+     * @return The table
+     */
+    private static float[] createFloats()
+    {
+        float floats[] = new float[1 << 16];
+        for (int i = 0; i < floats.length; i++)
+        {
+            floats[i] = computeFloat(i);
+        }
+        return floats;
+    }
+
+    /**
+     * Convert the given half value into a <code>float</code> value
+     *
+     * @param bits The bits of the half value, in the lower 16 bits
+     * @return The <code>float</code> value
+     */
+    private static float computeFloat(int bits)
+    {
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1F;
+        int mantissa = bits & 0x3FF;
+        if (exponent == 0x1F)
+        {
+            // Infinity or NaN
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        if (exponent == 0)
+        {
+            // Zero or subnormal
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        return Float.intBitsToFloat(
+            sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Convert the given half value into a <code>float</code> value
+     *
+     * @param half The half value
+     * @return The <code>float</code> value
+     */
+    static float toFloat(short half)
+    {
+        return FLOATS[half & 0xFFFF];
+    }
+
+    /**
+     * Convert the given <code>float</code> value into a half value, rounding
+     * to the nearest representable value (with ties to even). Values that
+     * are too large will become infinity.
+     *
+     * @param value The <code>float</code> value
+     * @return The half value
+     */
+    static short toHalf(float value)
+    {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int magnitude = bits & 0x7FFFFFFF;
+        if (magnitude >= 0x7F800000)
+        {
+            // Infinity or NaN, keeping NaN as a (quiet) NaN
+            if (magnitude > 0x7F800000)
+            {
+                return (short) (sign | 0x7E00 | ((magnitude >>> 13) & 0x3FF));
+            }
+            return (short) (sign | 0x7C00);
+        }
+        if (magnitude >= 0x477FF000)
+        {
+            // At least 65520, which rounds to infinity
+            return (short) (sign | 0x7C00);
+        }
+        if (magnitude >= 0x38800000)
+        {
+            // Normal half value. Re-bias the exponent and round the mantissa
+            int rounded = magnitude + 0xFFF + ((magnitude >>> 13) & 1);
+            return (short) (sign | ((rounded - 0x38000000) >>> 13));
+        }
+        if (magnitude <= 0x33000000)
+        {
+            // At most 2^-25, which rounds to zero
+            return (short) sign;
+        }
+        // Subnormal half value
+        int exponent = magnitude >>> 23;
+        int mantissa = (magnitude & 0x7FFFFF) | 0x800000;
+        int shift = 126 - exponent;
+        int result = mantissa >>> shift;
+        int remainder = mantissa & ((1 << shift) - 1);
+        int halfway = 1 << (shift - 1);
+        if (remainder > halfway || (remainder == halfway && (result & 1) != 0))
+        {
+            result++;
+        }
+        return (short) (sign | result);
+    }
+
+    /**
+     * Convert the elements of the given source buffer in the given range
+     * into half values, and store them in the target buffer
+     *
+     * @param source The source buffer
+     * @param target The target buffer
+     * @param start The index of the first element, inclusive
+     * @param end The index of the last element, exclusive
+     */
+    static void toHalfs(FloatBuffer source, ShortBuffer target, int start,
+        int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            target.put(i, toHalf(source.get(i)));
+        }
+    }
+
+    /**
+     * Convert the specified elements of the given source buffer into half
+     * values, and store them in the specified elements of the target buffer
+     *
+     * @param source The source buffer
+     * @param sourceOffset The index of the first source element
+     * @param target The target buffer
+     * @param targetOffset The index of the first target element
+     * @param n The number of elements
+     */
+    static void toHalfs(FloatBuffer source, int sourceOffset,
+        ShortBuffer target, int targetOffset, int n)
+    {
+        for (int i = 0; i < n; i++)
+        {
+            target.put(targetOffset + i, toHalf(source.get(sourceOffset + i)));
+        }
+    }
+
+    /**
+     * Convert the elements of the given source buffer in the given range
+     * into <code>float</code> values, and store them in the target buffer
+     *
+     * @param source The source buffer
+     * @param target The target buffer
+     * @param start The index of the first element, inclusive
+     * @param end The index of the last element, exclusive
+     */
+    static void toFloats(ShortBuffer source, FloatBuffer target, int start,
+        int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            target.put(i, FLOATS[source.get(i) & 0xFFFF]);
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private HalfFloats()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * An interface describing a Gaussian (splat) cloud that stores all properties
+ * except for the positions as IEEE 754 half-precision (16 bit) floating point
+ * values.
+ *
+ * The layout and the meaning of the elements is the same as for a
+ * {@link GaussianCloud}. The elements of the buffers that contain half
+ * precision values can be converted into <code>float</code> values with
+ * {@link HalfGaussianClouds#toFloat(short)}.
+ *
+ * The methods in this interface that return buffers can be assumed to return
+ * <i>slices</i> of the buffers that are stored internally. This means that
+ * modifications to properties like the position or limit of the returned
+ * buffers will not affect this instance. But modifications of the contents of
+ * these buffers will affect this instance.
+ */
+public interface HalfGaussianCloud
+{
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    int getNumPoints();
+
+    /**
+     * Returns the spherical harmonics degree
+     *
+     * @return The degree
+     */
+    int getShDegree();
+
+    /**
+     * Returns whether this cloud was created with antialiasing
+     *
+     * @return The flag
+     */
+    boolean isAntialiased();
+
+    /**
+     * Returns the positions, as full precision values.
+     *
+     * @return The positions
+     */
+    FloatBuffer getPositions();
+
+    /**
+     * Returns the scales, as half precision values.
+     *
+     * @return The scales
+     */
+    ShortBuffer getScales();
+
+    /**
+     * Returns the rotations, as half precision values.
+     *
+     * @return The rotations
+     */
+    ShortBuffer getRotations();
+
+    /**
+     * Returns the alphas, as half precision values.
+     *
+     * @return The alphas
+     */
+    ShortBuffer getAlphas();
+
+    /**
+     * Returns the colors, as half precision values.
+     *
+     * @return The colors
+     */
+    ShortBuffer getColors();
+
+    /**
+     * Returns the spherical harmonics, as half precision values.
+     *
+     * @return The spherical harmonics.
+     */
+    ShortBuffer getSh();
+}
@@ -0,0 +1,230 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Methods for {@link HalfGaussianCloud} objects.
+ *
+ * Since the data of SPZ files is quantized with at most 12 bits for the
+ * scales, rotations, colors and spherical harmonics, storing these values
+ * with half precision does not cause a visible loss of precision, but
+ * reduces the memory that is required for the cloud.
+ */
+public class HalfGaussianClouds
+{
+    /**
+     * Creates a new {@link HalfGaussianCloud} instance with the given number
+     * of points and spherical harmonics degree.
+     *
+     * @param numPoints The number of points
+     * @param shDegree The spherical harmonics degree
+     * @return The {@link HalfGaussianCloud}
+     */
+    public static HalfGaussianCloud create(int numPoints, int shDegree)
+    {
+        boolean antialiased = false;
+        return new DefaultHalfGaussianCloud(numPoints, shDegree, antialiased);
+    }
+
+    /**
+     * Read a {@link HalfGaussianCloud} from the given SPZ input stream.
+     *
+     * The data is converted into half precision while it is read, without
+     * creating a full precision {@link GaussianCloud}.
+     *
+     * @param spzInputStream The input stream
+     * @return The {@link HalfGaussianCloud}
+     * @throws IOException If an IO error occurs
+     */
+    public static HalfGaussianCloud read(InputStream spzInputStream)
+        throws IOException
+    {
+        return read(spzInputStream, new SpzReaderOptions());
+    }
+
+    /**
+     * Read a {@link HalfGaussianCloud} from the given SPZ input stream,
+     * using the given options.
+     *
+     * The data is converted into half precision while it is read, without
+     * creating a full precision {@link GaussianCloud}. The read listener and
+     * the collection of cloud statistics of the given options are not used.
+     *
+     * @param spzInputStream The input stream
+     * @param options The {@link SpzReaderOptions}
+     * @return The {@link HalfGaussianCloud}
+     * @throws IOException If an IO error occurs
+     */
+    public static HalfGaussianCloud read(InputStream spzInputStream,
+        SpzReaderOptions options) throws IOException
+    {
+        HalfSpzReader halfSpzReader = new HalfSpzReader(options);
+        return halfSpzReader.read(spzInputStream);
+    }
+
+    /**
+     * Creates a new {@link HalfGaussianCloud} that contains the data from the
+     * given {@link GaussianCloud}, converted to half precision. The points
+     * are converted in parallel.
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The {@link HalfGaussianCloud}
+     */
+    public static HalfGaussianCloud fromGaussianCloud(GaussianCloud g)
+    {
+        int shDim = SpzUtils.dimensionsForDegree(g.getShDegree());
+        DefaultHalfGaussianCloud h = new DefaultHalfGaussianCloud(
+            g.getNumPoints(), g.getShDegree(), g.isAntialiased());
+        FloatBuffer positions = h.getPositions();
+        positions.put(g.getPositions());
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer sh = g.getSh();
+        ShortBuffer halfScales = h.getScales();
+        ShortBuffer halfRotations = h.getRotations();
+        ShortBuffer halfAlphas = h.getAlphas();
+        ShortBuffer halfColors = h.getColors();
+        ShortBuffer halfSh = h.getSh();
+        Parallel.forEachChunk(g.getNumPoints(), (chunkIndex, start, end) ->
+        {
+            HalfFloats.toHalfs(scales, halfScales, start * 3, end * 3);
+            HalfFloats.toHalfs(rotations, halfRotations, start * 4, end * 4);
+            HalfFloats.toHalfs(alphas, halfAlphas, start, end);
+            HalfFloats.toHalfs(colors, halfColors, start * 3, end * 3);
+            HalfFloats.toHalfs(sh, halfSh, start * shDim * 3,
+                end * shDim * 3);
+        });
+        return h;
+    }
+
+    /**
+     * Creates a new {@link GaussianCloud} that contains the data from the
+     * given {@link HalfGaussianCloud}, converted to full precision. The
+     * points are converted in parallel.
+     *
+     * @param h The {@link HalfGaussianCloud}
+     * @return The {@link GaussianCloud}
+     */
+    public static GaussianCloud toGaussianCloud(HalfGaussianCloud h)
+    {
+        int shDim = SpzUtils.dimensionsForDegree(h.getShDegree());
+        DefaultGaussianCloud g = new DefaultGaussianCloud(h.getNumPoints(),
+            h.getShDegree(), h.isAntialiased());
+        FloatBuffer positions = g.getPositions();
+        positions.put(h.getPositions());
+        ShortBuffer halfScales = h.getScales();
+        ShortBuffer halfRotations = h.getRotations();
+        ShortBuffer halfAlphas = h.getAlphas();
+        ShortBuffer halfColors = h.getColors();
+        ShortBuffer halfSh = h.getSh();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer sh = g.getSh();
+        Parallel.forEachChunk(h.getNumPoints(), (chunkIndex, start, end) ->
+        {
+            HalfFloats.toFloats(halfScales, scales, start * 3, end * 3);
+            HalfFloats.toFloats(halfRotations, rotations, start * 4, end * 4);
+            HalfFloats.toFloats(halfAlphas, alphas, start, end);
+            HalfFloats.toFloats(halfColors, colors, start * 3, end * 3);
+            HalfFloats.toFloats(halfSh, sh, start * shDim * 3,
+                end * shDim * 3);
+        });
+        return g;
+    }
+
+    /**
+     * Convert the given half precision value into a <code>float</code> value
+     *
+     * @param half The half precision value
+     * @return The <code>float</code> value
+     */
+    public static float toFloat(short half)
+    {
+        return HalfFloats.toFloat(half);
+    }
+
+    /**
+     * Convert the given <code>float</code> value into a half precision value,
+     * rounding to the nearest representable value. Values that are too large
+     * to be represented will become infinity.
+     *
+     * @param value The <code>float</code> value
+     * @return The half precision value
+     */
+    public static short toHalf(float value)
+    {
+        return HalfFloats.toHalf(value);
+    }
+
+    /**
+     * Convert the given number of half precision values from the given
+     * source buffer into <code>float</code> values, and write them into the
+     * given target buffer.
+     *
+     * The values are read starting at the position of the source buffer,
+     * and written starting at the position of the target buffer. The
+     * positions of the buffers are not modified.
+     *
+     * @param source The source buffer
+     * @param target The target buffer
+     * @param count The number of values
+     * @throws IndexOutOfBoundsException If either buffer has less than the
+     *         given number of remaining elements
+     */
+    public static void toFloats(ShortBuffer source, FloatBuffer target,
+        int count)
+    {
+        if (source.remaining() < count || target.remaining() < count)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cannot convert " + count + " values from a buffer with "
+                    + source.remaining() + " remaining elements into a "
+                    + "buffer with " + target.remaining()
+                    + " remaining elements");
+        }
+        ShortBuffer s = source.slice();
+        FloatBuffer t = target.slice();
+        HalfFloats.toFloats(s, t, 0, count);
+    }
+
+    /**
+     * Creates a new direct byte buffer with native byte order that contains
+     * the remaining elements of the given buffer of half precision values.
+     *
+     * This is intended for passing the data to a graphics API, for example,
+     * as a vertex attribute with a 16 bit floating point type.
+     *
+     * @param halfs The half precision values
+     * @return The byte buffer
+     */
+    public static ByteBuffer createDirectBuffer(ShortBuffer halfs)
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(
+            halfs.remaining() * Short.BYTES).order(ByteOrder.nativeOrder());
+        buffer.asShortBuffer().put(halfs.slice());
+        return buffer;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private HalfGaussianClouds()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.FloatBuffer;
+
+/**
+ * Internal class for reading SPZ data directly into a
+ * {@link HalfGaussianCloud}.
+ *
+ * The data of each section is read and dequantized in chunks of points,
+ * and each chunk is converted into half precision immediately. So in
+ * addition to the {@link HalfGaussianCloud}, only the memory for a single
+ * chunk is required.
+ */
+class HalfSpzReader
+{
+    /**
+     * The number of points that are read and converted in one chunk
+     */
+    private static final int POINTS_PER_CHUNK = 1 << 16;
+
+    /**
+     * The {@link SpzReaderOptions}
+     */
+    private final SpzReaderOptions options;
+
+    /**
+     * Creates a new instance
+     *
+     * @param options The {@link SpzReaderOptions}
+     */
+    HalfSpzReader(SpzReaderOptions options)
+    {
+        this.options = new SpzReaderOptions(options);
+    }
+
+    /**
+     * Read a {@link HalfGaussianCloud} from the given SPZ input stream
+     *
+     * @param spzInputStream The input stream
+     * @return The {@link HalfGaussianCloud}
+     * @throws IOException If an IO error occurs
+     */
+    HalfGaussianCloud read(InputStream spzInputStream) throws IOException
+    {
+        SpzGZIPInputStream gzipInputStream =
+            new SpzGZIPInputStream(spzInputStream);
+        try
+        {
+            return read(gzipInputStream);
+        }
+        catch (InterruptedIOException e)
+        {
+            gzipInputStream.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the {@link HalfGaussianCloud} from the given stream
+     *
+     * @param gzipInputStream The stream
+     * @return The {@link HalfGaussianCloud}
+     * @throws IOException If an IO error occurs
+     * @throws InterruptedIOException If the operation was cancelled
+     */
+    private HalfGaussianCloud read(SpzGZIPInputStream gzipInputStream)
+        throws IOException
+    {
+        DataInputStream dataInput = new DataInputStream(gzipInputStream);
+
+        byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
+        dataInput.readFully(headerBytes);
+        SpzHeader header = SpzHeader.fromBytes(headerBytes);
+
+        SpzProgress progress = new SpzProgress(options.getProgressListener(),
+            options.getCancellation(), "Reading SPZ data was cancelled",
+            header);
+        progress.checkCancelled();
+
+        int numPoints = header.numPoints;
+        int shDegree = Math.min(header.shDegree, options.getMaxShDegree());
+        boolean antialiased = header.isAntialiased();
+        DefaultHalfGaussianCloud h =
+            new DefaultHalfGaussianCloud(numPoints, shDegree, antialiased);
+        CoordinateSystems.CoordinateConverter converter =
+            CoordinateSystems.coordinateConverter(
+                options.getSourceCoordinateSystem(),
+                options.getTargetCoordinateSystem());
+
+        // The data of each chunk is dequantized into a cloud that can
+        // store the data of one chunk, and then converted into halfs
+        int chunkPoints = Math.min(numPoints, POINTS_PER_CHUNK);
+        SpzHeader chunkHeader = new SpzHeader(header.version, chunkPoints,
+            header.shDegree, header.fractionalBits, header.flags);
+        DefaultGaussianCloud chunk =
+            new DefaultGaussianCloud(chunkPoints, shDegree, antialiased);
+        int maxBytesPerPoint = 0;
+        for (SpzSection section : SpzSection.values())
+        {
+            maxBytesPerPoint = Math.max(maxBytesPerPoint,
+                section.bytesPerPoint(header.version, header.shDegree));
+        }
+        byte raw[] = new byte[chunkPoints * maxBytesPerPoint];
+
+        for (SpzSection section : SpzSection.values())
+        {
+            int bytesPerPoint =
+                section.bytesPerPoint(header.version, header.shDegree);
+            long sectionBytes = (long) numPoints * bytesPerPoint;
+            for (int start = 0; start < numPoints; start += chunkPoints)
+            {
+                int count = Math.min(chunkPoints, numPoints - start);
+                dataInput.readFully(raw, 0, count * bytesPerPoint);
+                DefaultSpzReader.convert(section, chunkHeader, raw, chunk,
+                    converter, 0, count);
+                store(section, chunk, h, start, count);
+                progress.update(section, sectionBytes,
+                    (double) (start + count) / numPoints);
+            }
+            progress.completed(sectionBytes);
+        }
+        return h;
+    }
+
+    /**
+     * Store the data of the given section of the given chunk in the given
+     * {@link HalfGaussianCloud}
+     *
+     * @param section The {@link SpzSection}
+     * @param chunk The chunk
+     * @param h The {@link HalfGaussianCloud}
+     * @param start The index of the first point of the chunk in the
+     *        {@link HalfGaussianCloud}
+     * @param count The number of points in the chunk
+     */
+    private static void store(SpzSection section, GaussianCloud chunk,
+        HalfGaussianCloud h, int start, int count)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+            {
+                FloatBuffer positions = chunk.getPositions();
+                positions.limit(count * 3);
+                FloatBuffer target = h.getPositions();
+                target.position(start * 3);
+                target.put(positions);
+                break;
+            }
+            case ALPHAS:
+                HalfFloats.toHalfs(chunk.getAlphas(), 0, h.getAlphas(),
+                    start, count);
+                break;
+            case COLORS:
+                HalfFloats.toHalfs(chunk.getColors(), 0, h.getColors(),
+                    start * 3, count * 3);
+                break;
+            case SCALES:
+                HalfFloats.toHalfs(chunk.getScales(), 0, h.getScales(),
+                    start * 3, count * 3);
+                break;
+            case ROTATIONS:
+                HalfFloats.toHalfs(chunk.getRotations(), 0,
+                    h.getRotations(), start * 4, count * 4);
+                break;
+            case SH:
+            {
+                int n = SpzUtils.dimensionsForDegree(h.getShDegree()) * 3;
+                HalfFloats.toHalfs(chunk.getSh(), 0, h.getSh(), start * n,
+                    count * n);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Invalid section: " + section);
+        }
+    }
+}
@@ -0,0 +1,933 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of a {@link SpatialIndex} that is a KD-tree.
+ *
+ * The tree is balanced, splitting each node at the median along the axis of
+ * its largest extent. The nodes are stored in depth-first order in flat
+ * arrays, so that the left child of a node directly follows the node. The
+ * positions (and extents) of the points are stored in the order of the
+ * leaves, so that each node covers a contiguous range of points.
+ */
+class KdTreeSpatialIndex implements SpatialIndex
+{
+    /**
+     * The maximum number of points in a leaf node
+     */
+    private static final int LEAF_SIZE = 16;
+
+    /**
+     * The minimum number of points in a node for which the children of the
+     * node are built in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    /**
+     * The maximum depth of the tree, which is used as the size of the stacks
+     * for the traversal
+     */
+    private static final int MAX_STACK_SIZE = 64;
+
+    /**
+     * The number of points
+     */
+    private final int numPoints;
+
+    /**
+     * Whether the extents of the splats are used
+     */
+    private final boolean usingExtents;
+
+    /**
+     * The index of the point in the cloud, for each point of the tree
+     */
+    private final int order[];
+
+    /**
+     * The positions of the points, in the order of the tree
+     */
+    private final float points[];
+
+    /**
+     * The extents of the points, in the order of the tree, as (minX, minY,
+     * minZ, maxX, maxY, maxZ) for each point. This is <code>null</code>
+     * when the extents are not used.
+     */
+    private final float extents[];
+
+    /**
+     * The index of the first point of each node, inclusive
+     */
+    private final int nodeStart[];
+
+    /**
+     * The index of the last point of each node, exclusive
+     */
+    private final int nodeEnd[];
+
+    /**
+     * The index of the right child of each node, or -1 for leaf nodes. The
+     * left child of an interior node is the node that directly follows it.
+     */
+    private final int nodeRight[];
+
+    /**
+     * The bounds of each node, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private final float nodeBounds[];
+
+    /**
+     * The number of nodes of subtrees with a certain number of points. This
+     * is only modified during construction.
+     */
+    private final Map<Integer, Integer> nodeCounts;
+
+    /**
+     * Creates a new instance
+     *
+     * @param g The {@link GaussianCloud}
+     * @param usingExtents Whether the extents of the splats should be used
+     * @throws IllegalArgumentException If the cloud contains too many points
+     *         for storing their positions (or extents) in an array
+     */
+    KdTreeSpatialIndex(GaussianCloud g, boolean usingExtents)
+    {
+        this.numPoints = g.getNumPoints();
+        this.usingExtents = usingExtents;
+        int n = numPoints;
+        int floatsPerPoint = usingExtents ? 6 : 3;
+        if ((long) n * floatsPerPoint > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("The cloud contains " + n
+                + " points, but the spatial index supports at most "
+                + Integer.MAX_VALUE / floatsPerPoint + " points");
+        }
+
+        float inputPoints[] = new float[n * 3];
+        g.getPositions().get(inputPoints, 0, n * 3);
+        float inputExtents[] = null;
+        if (usingExtents)
+        {
+            inputExtents = computeExtents(g);
+        }
+
+        this.nodeCounts = new HashMap<Integer, Integer>();
+        int numNodes = countNodes(n);
+        this.order = IntStream.range(0, n).toArray();
+        this.nodeStart = new int[numNodes];
+        this.nodeEnd = new int[numNodes];
+        this.nodeRight = new int[numNodes];
+        this.nodeBounds = new float[numNodes * 6];
+        if (n > 0)
+        {
+            build(0, 0, n, inputPoints, inputExtents);
+        }
+
+        // Store the positions and extents in the order of the tree
+        this.points = new float[n * 3];
+        this.extents = usingExtents ? new float[n * 6] : null;
+        float finalInputExtents[] = inputExtents;
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                int index = order[i];
+                System.arraycopy(inputPoints, index * 3, points, i * 3, 3);
+                if (finalInputExtents != null)
+                {
+                    System.arraycopy(finalInputExtents, index * 6, extents,
+                        i * 6, 6);
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute the extents of all splats of the given cloud
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The extents, as (minX, minY, minZ, maxX, maxY, maxZ) for each
+     *         splat
+     */
+    private static float[] computeExtents(GaussianCloud g)
+    {
+        int n = g.getNumPoints();
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        float result[] = new float[n * 6];
+        Parallel.forEachChunk(n, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                SplatExtents.compute(positions, scales, rotations, i, result,
+                    i * 6);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the number of nodes of a tree for the given number of points
+     *
+     * @param n The number of points
+     * @return The number of nodes
+     */
+    private int countNodes(int n)
+    {
+        if (n <= LEAF_SIZE)
+        {
+            return 1;
+        }
+        Integer cached = nodeCounts.get(n);
+        if (cached != null)
+        {
+            return cached;
+        }
+        int half = n / 2;
+        int count = 1 + countNodes(half) + countNodes(n - half);
+        nodeCounts.put(n, count);
+        return count;
+    }
+
+    /**
+     * Recursively build the specified node
+     *
+     * @param id The node index
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @param inputPoints The positions, in the original order
+     * @param inputExtents The optional extents, in the original order
+     */
+    private void build(int id, int start, int end, float inputPoints[],
+        float inputExtents[])
+    {
+        nodeStart[id] = start;
+        nodeEnd[id] = end;
+        int n = end - start;
+        if (n <= LEAF_SIZE)
+        {
+            nodeRight[id] = -1;
+            computeLeafBounds(id, start, end, inputPoints, inputExtents);
+            return;
+        }
+
+        // Compute the bounds of the positions to find the split axis
+        float min[] =
+        { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+            Float.POSITIVE_INFINITY };
+        float max[] =
+        { Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+            Float.NEGATIVE_INFINITY };
+        for (int i = start; i < end; i++)
+        {
+            int index = order[i];
+            for (int j = 0; j < 3; j++)
+            {
+                float v = inputPoints[index * 3 + j];
+                min[j] = Math.min(min[j], v);
+                max[j] = Math.max(max[j], v);
+            }
+        }
+        int axis = 0;
+        for (int j = 1; j < 3; j++)
+        {
+            if (max[j] - min[j] > max[axis] - min[axis])
+            {
+                axis = j;
+            }
+        }
+        int mid = start + n / 2;
+        select(order, start, end, mid, inputPoints, axis);
+
+        int leftId = id + 1;
+        int rightId = leftId + nodeCounts.getOrDefault(mid - start, 1);
+        nodeRight[id] = rightId;
+        if (n >= PARALLEL_THRESHOLD)
+        {
+            IntStream.range(0, 2).parallel().forEach(c ->
+            {
+                if (c == 0)
+                {
+                    build(leftId, start, mid, inputPoints, inputExtents);
+                }
+                else
+                {
+                    build(rightId, mid, end, inputPoints, inputExtents);
+                }
+            });
+        }
+        else
+        {
+            build(leftId, start, mid, inputPoints, inputExtents);
+            build(rightId, mid, end, inputPoints, inputExtents);
+        }
+        for (int j = 0; j < 3; j++)
+        {
+            int l = leftId * 6;
+            int r = rightId * 6;
+            nodeBounds[id * 6 + j] =
+                Math.min(nodeBounds[l + j], nodeBounds[r + j]);
+            nodeBounds[id * 6 + 3 + j] =
+                Math.max(nodeBounds[l + 3 + j], nodeBounds[r + 3 + j]);
+        }
+    }
+
+    /**
+     * Compute the bounds of the specified leaf node
+     *
+     * @param id The node index
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @param inputPoints The positions, in the original order
+     * @param inputExtents The optional extents, in the original order
+     */
+    private void computeLeafBounds(int id, int start, int end,
+        float inputPoints[], float inputExtents[])
+    {
+        int b = id * 6;
+        for (int j = 0; j < 3; j++)
+        {
+            nodeBounds[b + j] = Float.POSITIVE_INFINITY;
+            nodeBounds[b + 3 + j] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; i++)
+        {
+            int index = order[i];
+            for (int j = 0; j < 3; j++)
+            {
+                float lo;
+                float hi;
+                if (inputExtents != null)
+                {
+                    lo = inputExtents[index * 6 + j];
+                    hi = inputExtents[index * 6 + 3 + j];
+                }
+                else
+                {
+                    lo = inputPoints[index * 3 + j];
+                    hi = lo;
+                }
+                nodeBounds[b + j] = Math.min(nodeBounds[b + j], lo);
+                nodeBounds[b + 3 + j] = Math.max(nodeBounds[b + 3 + j], hi);
+            }
+        }
+    }
+
+    /**
+     * Reorder the given range of the given indices, so that the element at
+     * the given position is the one that would be there if the range was
+     * sorted by the coordinate of the given axis, all elements before it
+     * are not larger, and all elements after it are not smaller.
+     *
+     * @param indices The indices
+     * @param start The start of the range, inclusive
+     * @param end The end of the range, exclusive
+     * @param nth The position
+     * @param coordinates The coordinates, as (x, y, z) triples
+     * @param axis The axis
+     */
+    private static void select(int indices[], int start, int end, int nth,
+        float coordinates[], int axis)
+    {
+        int lo = start;
+        int hi = end - 1;
+        while (hi > lo)
+        {
+            int m = (lo + hi) >>> 1;
+            float a = coordinates[indices[lo] * 3 + axis];
+            float b = coordinates[indices[m] * 3 + axis];
+            float c = coordinates[indices[hi] * 3 + axis];
+            float pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = lo;
+            int j = hi;
+            while (i <= j)
+            {
+                while (coordinates[indices[i] * 3 + axis] < pivot)
+                {
+                    i++;
+                }
+                while (coordinates[indices[j] * 3 + axis] > pivot)
+                {
+                    j--;
+                }
+                if (i <= j)
+                {
+                    int t = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (nth <= j)
+            {
+                hi = j;
+            }
+            else if (nth >= i)
+            {
+                lo = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+
+    @Override
+    public boolean isUsingExtents()
+    {
+        return usingExtents;
+    }
+
+    @Override
+    public void queryBox(float min[], float max[], IntConsumer consumer)
+    {
+        if (numPoints == 0)
+        {
+            return;
+        }
+        int stack[] = new int[MAX_STACK_SIZE];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0)
+        {
+            int id = stack[--size];
+            int b = id * 6;
+            if (!intersects(nodeBounds, b, min, max))
+            {
+                continue;
+            }
+            if (contains(min, max, nodeBounds, b))
+            {
+                reportAll(id, consumer);
+            }
+            else if (nodeRight[id] == -1)
+            {
+                for (int i = nodeStart[id]; i < nodeEnd[id]; i++)
+                {
+                    boolean inside;
+                    if (usingExtents)
+                    {
+                        inside = intersects(extents, i * 6, min, max);
+                    }
+                    else
+                    {
+                        inside = containsPoint(min, max, points, i * 3);
+                    }
+                    if (inside)
+                    {
+                        consumer.accept(order[i]);
+                    }
+                }
+            }
+            else
+            {
+                stack[size++] = nodeRight[id];
+                stack[size++] = id + 1;
+            }
+        }
+    }
+
+    @Override
+    public void queryFrustum(float planes[], IntConsumer consumer)
+    {
+        if (planes.length % 4 != 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of plane elements must be divisible by 4, but is "
+                    + planes.length);
+        }
+        if (numPoints == 0)
+        {
+            return;
+        }
+        int stack[] = new int[MAX_STACK_SIZE];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0)
+        {
+            int id = stack[--size];
+            int classification = classifyBox(planes, nodeBounds, id * 6);
+            if (classification < 0)
+            {
+                continue;
+            }
+            if (classification > 0)
+            {
+                reportAll(id, consumer);
+            }
+            else if (nodeRight[id] == -1)
+            {
+                for (int i = nodeStart[id]; i < nodeEnd[id]; i++)
+                {
+                    boolean inside;
+                    if (usingExtents)
+                    {
+                        inside = classifyBox(planes, extents, i * 6) >= 0;
+                    }
+                    else
+                    {
+                        inside = containsPoint(planes, points, i * 3);
+                    }
+                    if (inside)
+                    {
+                        consumer.accept(order[i]);
+                    }
+                }
+            }
+            else
+            {
+                stack[size++] = nodeRight[id];
+                stack[size++] = id + 1;
+            }
+        }
+    }
+
+    @Override
+    public void queryRadius(float point[], float radius, IntConsumer consumer)
+    {
+        if (numPoints == 0)
+        {
+            return;
+        }
+        float r2 = radius * radius;
+        int stack[] = new int[MAX_STACK_SIZE];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0)
+        {
+            int id = stack[--size];
+            int b = id * 6;
+            if (minDistanceSquared(point, nodeBounds, b) > r2)
+            {
+                continue;
+            }
+            if (maxDistanceSquared(point, nodeBounds, b) <= r2)
+            {
+                reportAll(id, consumer);
+            }
+            else if (nodeRight[id] == -1)
+            {
+                for (int i = nodeStart[id]; i < nodeEnd[id]; i++)
+                {
+                    float d2;
+                    if (usingExtents)
+                    {
+                        d2 = minDistanceSquared(point, extents, i * 6);
+                    }
+                    else
+                    {
+                        d2 = distanceSquared(point, points, i * 3);
+                    }
+                    if (d2 <= r2)
+                    {
+                        consumer.accept(order[i]);
+                    }
+                }
+            }
+            else
+            {
+                stack[size++] = nodeRight[id];
+                stack[size++] = id + 1;
+            }
+        }
+    }
+
+    @Override
+    public int queryNearest(float point[], int k, int indices[])
+    {
+        if (k < 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of points may not be negative, but is " + k);
+        }
+        if (indices.length < k)
+        {
+            throw new IllegalArgumentException("The array has a length of "
+                + indices.length + ", but must have at least " + k);
+        }
+        int count = Math.min(k, numPoints);
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        // A max-heap of the nearest points that have been found so far
+        int heapIndices[] = new int[count];
+        float heapDistances[] = new float[count];
+        int heapSize = 0;
+
+        int stack[] = new int[MAX_STACK_SIZE];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0)
+        {
+            int id = stack[--size];
+            if (heapSize == count && minDistanceSquared(point, nodeBounds,
+                id * 6) >= heapDistances[0])
+            {
+                continue;
+            }
+            if (nodeRight[id] == -1)
+            {
+                for (int i = nodeStart[id]; i < nodeEnd[id]; i++)
+                {
+                    float d2 = distanceSquared(point, points, i * 3);
+                    if (heapSize < count)
+                    {
+                        heapIndices[heapSize] = i;
+                        heapDistances[heapSize] = d2;
+                        heapSize++;
+                        siftUp(heapIndices, heapDistances, heapSize - 1);
+                    }
+                    else if (d2 < heapDistances[0])
+                    {
+                        heapIndices[0] = i;
+                        heapDistances[0] = d2;
+                        siftDown(heapIndices, heapDistances, 0, heapSize);
+                    }
+                }
+            }
+            else
+            {
+                // Push the farther child first, so that the nearer one is
+                // visited first
+                int left = id + 1;
+                int right = nodeRight[id];
+                float dLeft = minDistanceSquared(point, nodeBounds, left * 6);
+                float dRight =
+                    minDistanceSquared(point, nodeBounds, right * 6);
+                if (dLeft <= dRight)
+                {
+                    stack[size++] = right;
+                    stack[size++] = left;
+                }
+                else
+                {
+                    stack[size++] = left;
+                    stack[size++] = right;
+                }
+            }
+        }
+
+        // Sort the heap in ascending order of the distances
+        for (int last = heapSize - 1; last > 0; last--)
+        {
+            swap(heapIndices, heapDistances, 0, last);
+            siftDown(heapIndices, heapDistances, 0, last);
+        }
+        for (int i = 0; i < count; i++)
+        {
+            indices[i] = order[heapIndices[i]];
+        }
+        return count;
+    }
+
+    /**
+     * Pass the indices of all points of the specified node to the given
+     * consumer
+     *
+     * @param id The node index
+     * @param consumer The consumer
+     */
+    private void reportAll(int id, IntConsumer consumer)
+    {
+        for (int i = nodeStart[id]; i < nodeEnd[id]; i++)
+        {
+            consumer.accept(order[i]);
+        }
+    }
+
+    /**
+     * Returns whether the specified box intersects the given box
+     *
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @param min The minimum of the other box
+     * @param max The maximum of the other box
+     * @return Whether the boxes intersect
+     */
+    private static boolean intersects(float boxes[], int b, float min[],
+        float max[])
+    {
+        for (int j = 0; j < 3; j++)
+        {
+            if (boxes[b + j] > max[j] || boxes[b + 3 + j] < min[j])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given box contains the specified box
+     *
+     * @param min The minimum of the box
+     * @param max The maximum of the box
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return Whether the box is contained
+     */
+    private static boolean contains(float min[], float max[], float boxes[],
+        int b)
+    {
+        for (int j = 0; j < 3; j++)
+        {
+            if (boxes[b + j] < min[j] || boxes[b + 3 + j] > max[j])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given box contains the specified point
+     *
+     * @param min The minimum of the box
+     * @param max The maximum of the box
+     * @param coordinates The coordinates of the points
+     * @param p The offset of the point in the coordinates
+     * @return Whether the point is contained
+     */
+    private static boolean containsPoint(float min[], float max[],
+        float coordinates[], int p)
+    {
+        for (int j = 0; j < 3; j++)
+        {
+            float v = coordinates[p + j];
+            if (v < min[j] || v > max[j])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the specified point is inside all of the given planes
+     *
+     * @param planes The planes
+     * @param coordinates The coordinates of the points
+     * @param p The offset of the point in the coordinates
+     * @return Whether the point is inside
+     */
+    private static boolean containsPoint(float planes[], float coordinates[],
+        int p)
+    {
+        float x = coordinates[p + 0];
+        float y = coordinates[p + 1];
+        float z = coordinates[p + 2];
+        for (int i = 0; i < planes.length; i += 4)
+        {
+            float d = planes[i] * x + planes[i + 1] * y + planes[i + 2] * z
+                + planes[i + 3];
+            if (d < 0.0f)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Classify the specified box against the given planes.
+     *
+     * @param planes The planes
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return -1 if the box is completely outside of one plane, 1 if the box
+     *         is completely inside all planes, and 0 otherwise
+     */
+    private static int classifyBox(float planes[], float boxes[], int b)
+    {
+        int result = 1;
+        for (int i = 0; i < planes.length; i += 4)
+        {
+            float maxDot = planes[i + 3];
+            float minDot = planes[i + 3];
+            for (int j = 0; j < 3; j++)
+            {
+                float n = planes[i + j];
+                float lo = n * boxes[b + j];
+                float hi = n * boxes[b + 3 + j];
+                maxDot += Math.max(lo, hi);
+                minDot += Math.min(lo, hi);
+            }
+            if (maxDot < 0.0f)
+            {
+                return -1;
+            }
+            if (minDot < 0.0f)
+            {
+                result = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the squared distance between the given point and the
+     * specified point
+     *
+     * @param point The point
+     * @param coordinates The coordinates of the points
+     * @param p The offset of the point in the coordinates
+     * @return The squared distance
+     */
+    private static float distanceSquared(float point[], float coordinates[],
+        int p)
+    {
+        float dx = coordinates[p + 0] - point[0];
+        float dy = coordinates[p + 1] - point[1];
+        float dz = coordinates[p + 2] - point[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Returns the squared distance between the given point and the nearest
+     * point of the specified box
+     *
+     * @param point The point
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return The squared distance
+     */
+    private static float minDistanceSquared(float point[], float boxes[],
+        int b)
+    {
+        float result = 0.0f;
+        for (int j = 0; j < 3; j++)
+        {
+            float v = point[j];
+            float d = 0.0f;
+            if (v < boxes[b + j])
+            {
+                d = boxes[b + j] - v;
+            }
+            else if (v > boxes[b + 3 + j])
+            {
+                d = v - boxes[b + 3 + j];
+            }
+            result += d * d;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the squared distance between the given point and the farthest
+     * point of the specified box
+     *
+     * @param point The point
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return The squared distance
+     */
+    private static float maxDistanceSquared(float point[], float boxes[],
+        int b)
+    {
+        float result = 0.0f;
+        for (int j = 0; j < 3; j++)
+        {
+            float v = point[j];
+            float d = Math.max(Math.abs(v - boxes[b + j]),
+                Math.abs(v - boxes[b + 3 + j]));
+            result += d * d;
+        }
+        return result;
+    }
+
+    /**
+     * Move the specified element of the max-heap up until the heap property
+     * is restored
+     *
+     * @param indices The indices of the heap
+     * @param distances The distances of the heap
+     * @param i The index of the element
+     */
+    private static void siftUp(int indices[], float distances[], int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) / 2;
+            if (distances[parent] >= distances[i])
+            {
+                return;
+            }
+            swap(indices, distances, parent, i);
+            i = parent;
+        }
+    }
+
+    /**
+     * Move the specified element of the max-heap down until the heap
+     * property is restored
+     *
+     * @param indices The indices of the heap
+     * @param distances The distances of the heap
+     * @param i The index of the element
+     * @param size The size of the heap
+     */
+    private static void siftDown(int indices[], float distances[], int i,
+        int size)
+    {
+        while (true)
+        {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && distances[left] > distances[largest])
+            {
+                largest = left;
+            }
+            if (right < size && distances[right] > distances[largest])
+            {
+                largest = right;
+            }
+            if (largest == i)
+            {
+                return;
+            }
+            swap(indices, distances, i, largest);
+            i = largest;
+        }
+    }
+
+    /**
+     * Swap the specified elements of the heap
+     *
+     * @param indices The indices of the heap
+     * @param distances The distances of the heap
+     * @param i The first index
+     * @param j The second index
+     */
+    private static void swap(int indices[], float distances[], int i, int j)
+    {
+        int ti = indices[i];
+        indices[i] = indices[j];
+        indices[j] = ti;
+        float td = distances[i];
+        distances[i] = distances[j];
+        distances[j] = td;
+    }
+}
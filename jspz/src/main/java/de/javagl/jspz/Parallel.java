@@ -0,0 +1,105 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.stream.IntStream;
+
+/**
+ * Utility methods for processing ranges of elements in parallel
+ */
+class Parallel
+{
+    /**
+     * The default number of elements that are processed in one chunk.
+     *
+     * The chunk size is fixed (and not derived from the number of available
+     * processors), so that operations that depend on the chunk boundaries
+     * (like seeded random number generation) are deterministic.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Interface for a task that processes a range of elements
+     */
+    interface RangeTask
+    {
+        /**
+         * Process the elements in the given range
+         *
+         * @param chunkIndex The index of the chunk
+         * @param start The start index, inclusive
+         * @param end The end index, exclusive
+         */
+        void run(int chunkIndex, int start, int end);
+    }
+
+    /**
+     * Process the given number of elements in chunks with the
+     * {@link #DEFAULT_CHUNK_SIZE}, in parallel.
+     *
+     * @param n The number of elements
+     * @param task The task
+     */
+    static void forEachChunk(int n, RangeTask task)
+    {
+        forEachChunk(n, DEFAULT_CHUNK_SIZE, task);
+    }
+
+    /**
+     * Process the given number of elements in chunks with the given size, in
+     * parallel.
+     *
+     * If there is only a single chunk, it will be processed in the calling
+     * thread.
+     *
+     * @param n The number of elements
+     * @param chunkSize The chunk size
+     * @param task The task
+     * @throws IllegalArgumentException If the chunk size is not positive
+     */
+    static void forEachChunk(int n, int chunkSize, RangeTask task)
+    {
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The chunk size must be positive, but is " + chunkSize);
+        }
+        int numChunks = numChunks(n, chunkSize);
+        if (numChunks == 1)
+        {
+            task.run(0, 0, n);
+            return;
+        }
+        IntStream.range(0, numChunks).parallel().forEach(c ->
+        {
+            int start = c * chunkSize;
+            int end = (int) Math.min(n, (long) start + chunkSize);
+            task.run(c, start, end);
+        });
+    }
+
+    /**
+     * Returns the number of chunks that are required for processing the given
+     * number of elements with the given chunk size
+     *
+     * @param n The number of elements
+     * @param chunkSize The chunk size
+     * @return The number of chunks
+     */
+    static int numChunks(int n, int chunkSize)
+    {
+        return (int) (((long) n + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Parallel()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,515 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class for reading a {@link GaussianCloud} from a binary PLY file, in the
+ * format that is written by the original 3D Gaussian Splatting
+ * implementation.
+ *
+ * The file must contain a <code>vertex</code> element as its first element,
+ * with the properties <code>x, y, z</code>, <code>f_dc_0..2</code>,
+ * <code>opacity</code>, <code>scale_0..2</code> and <code>rot_0..3</code>,
+ * and optional <code>f_rest_*</code> properties for the higher spherical
+ * harmonics coefficients. These properties must have the type
+ * <code>float</code> or <code>double</code>. Other properties (like the
+ * normals) are ignored.
+ *
+ * The body of the file is memory-mapped in chunks, and the chunks are
+ * converted into the buffers of the {@link GaussianCloud} in parallel.
+ * The values are not modified, except for reordering them: The rotations
+ * in the PLY are stored as (w, x, y, z), and the spherical harmonics
+ * coefficients are stored in channel-major order. The data is returned in
+ * the coordinate system of the PLY file, which is usually
+ * {@link CoordinateSystem#RDF}.
+ */
+public final class PlyReader
+{
+    /**
+     * The maximum length of the PLY header, in bytes
+     */
+    private static final int MAX_HEADER_LENGTH = 1 << 20;
+
+    /**
+     * The marker for the end of the header
+     */
+    private static final String END_HEADER = "end_header";
+
+    /**
+     * The number of points that are converted and stored in the target
+     * buffers in one block
+     */
+    private static final int POINTS_PER_BLOCK = 1 << 10;
+
+    /**
+     * A property of the vertex element of a PLY file
+     */
+    private static class PlyProperty
+    {
+        /**
+         * The size of the property, in bytes
+         */
+        final int size;
+
+        /**
+         * The offset of the property inside a vertex, in bytes
+         */
+        final int offset;
+
+        /**
+         * Whether the property has a floating point type
+         */
+        final boolean floatingPoint;
+
+        /**
+         * Creates a new instance
+         *
+         * @param type The type
+         * @param offset The offset
+         * @throws IOException If the type is not a valid scalar type
+         */
+        PlyProperty(String type, int offset) throws IOException
+        {
+            this.size = sizeOf(type);
+            this.offset = offset;
+            this.floatingPoint = type.startsWith("float")
+                || type.startsWith("double");
+        }
+    }
+
+    /**
+     * Creates a new instance
+     */
+    public PlyReader()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Read the {@link GaussianCloud} from the given PLY file
+     *
+     * @param plyFile The PLY file
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the file is not a
+     *         binary PLY file with the expected properties
+     */
+    public GaussianCloud read(Path plyFile) throws IOException
+    {
+        try (FileChannel channel =
+            FileChannel.open(plyFile, StandardOpenOption.READ))
+        {
+            return read(channel);
+        }
+    }
+
+    /**
+     * Read the {@link GaussianCloud} from the given channel
+     *
+     * @param channel The channel
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the file is not a
+     *         binary PLY file with the expected properties
+     */
+    private static GaussianCloud read(FileChannel channel) throws IOException
+    {
+        // Read the header
+        int headerCapacity = (int) Math.min(channel.size(), MAX_HEADER_LENGTH);
+        ByteBuffer headerBuffer = ByteBuffer.allocate(headerCapacity);
+        while (headerBuffer.hasRemaining())
+        {
+            if (channel.read(headerBuffer, headerBuffer.position()) < 0)
+            {
+                break;
+            }
+        }
+        String headerString = new String(headerBuffer.array(), 0,
+            headerBuffer.position(), StandardCharsets.US_ASCII);
+        int endHeader = findEndOfHeader(headerString);
+
+        // Parse the header
+        ByteOrder byteOrder = null;
+        long numVertices = -1;
+        int vertexSize = 0;
+        Map<String, PlyProperty> properties =
+            new LinkedHashMap<String, PlyProperty>();
+        boolean inVertexElement = false;
+        String lines[] = headerString.substring(0, endHeader).split("\r?\n");
+        if (lines.length == 0 || !lines[0].equals("ply"))
+        {
+            throw new IOException("The file is not a PLY file");
+        }
+        for (int i = 1; i < lines.length; i++)
+        {
+            String tokens[] = lines[i].trim().split("\\s+");
+            String keyword = tokens[0];
+            if (keyword.equals("format"))
+            {
+                byteOrder = parseFormat(tokens);
+            }
+            else if (keyword.equals("element"))
+            {
+                if (tokens.length != 3)
+                {
+                    throw new IOException("Invalid element: " + lines[i]);
+                }
+                if (numVertices == -1)
+                {
+                    if (!tokens[1].equals("vertex"))
+                    {
+                        throw new IOException("Expected the vertex element "
+                            + "as the first element, but found " + tokens[1]);
+                    }
+                    numVertices = parseCount(tokens[2]);
+                    inVertexElement = true;
+                }
+                else
+                {
+                    inVertexElement = false;
+                }
+            }
+            else if (keyword.equals("property") && inVertexElement)
+            {
+                if (tokens.length != 3)
+                {
+                    throw new IOException("Unsupported property: " + lines[i]);
+                }
+                PlyProperty property = new PlyProperty(tokens[1], vertexSize);
+                properties.put(tokens[2], property);
+                vertexSize += property.size;
+            }
+        }
+        if (byteOrder == null)
+        {
+            throw new IOException("The PLY header does not define a format");
+        }
+        if (numVertices == -1)
+        {
+            throw new IOException("The PLY does not contain vertices");
+        }
+        if (numVertices > Integer.MAX_VALUE)
+        {
+            throw new IOException(
+                "The PLY contains too many vertices: " + numVertices);
+        }
+        int numPoints = (int) numVertices;
+
+        // Collect the offsets of the required properties
+        int positionOffsets[] = offsets(properties, "x", "y", "z");
+        int colorOffsets[] = offsets(properties, "f_dc_0", "f_dc_1", "f_dc_2");
+        int alphaOffsets[] = offsets(properties, "opacity");
+        int scaleOffsets[] =
+            offsets(properties, "scale_0", "scale_1", "scale_2");
+        int rotationOffsets[] =
+            offsets(properties, "rot_1", "rot_2", "rot_3", "rot_0");
+
+        // Determine the spherical harmonics degree from the number of
+        // f_rest_* properties, and collect their offsets, reordered from
+        // the channel-major order of the PLY into the order of the cloud
+        int numRest = 0;
+        while (properties.containsKey("f_rest_" + numRest))
+        {
+            numRest++;
+        }
+        int shDegree = degreeForRestCount(numRest);
+        int shDim = SpzUtils.dimensionsForDegree(shDegree);
+        String restNames[] = new String[shDim * 3];
+        for (int k = 0; k < shDim; k++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                restNames[k * 3 + c] = "f_rest_" + (c * shDim + k);
+            }
+        }
+        int shOffsets[] = offsets(properties, restNames);
+
+        long bodyOffset = endHeader;
+        long bodyLength = (long) numPoints * vertexSize;
+        if (bodyOffset + bodyLength > channel.size())
+        {
+            throw new IOException("Expected " + bodyLength
+                + " bytes for the vertices, but only "
+                + (channel.size() - bodyOffset) + " bytes are available");
+        }
+
+        DefaultGaussianCloud g =
+            new DefaultGaussianCloud(numPoints, shDegree, false);
+        int rowSize = vertexSize;
+        ByteOrder order = byteOrder;
+        try
+        {
+            Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+            {
+                ByteBuffer body;
+                try
+                {
+                    body = channel.map(FileChannel.MapMode.READ_ONLY,
+                        bodyOffset + (long) start * rowSize,
+                        (long) (end - start) * rowSize);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                body.order(order);
+                convert(body, rowSize, start, end, positionOffsets,
+                    g.getPositions());
+                convert(body, rowSize, start, end, colorOffsets,
+                    g.getColors());
+                convert(body, rowSize, start, end, alphaOffsets,
+                    g.getAlphas());
+                convert(body, rowSize, start, end, scaleOffsets,
+                    g.getScales());
+                convert(body, rowSize, start, end, rotationOffsets,
+                    g.getRotations());
+                convert(body, rowSize, start, end, shOffsets, g.getSh());
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        return g;
+    }
+
+    /**
+     * Convert the values of the specified properties from the given body
+     * into the given target buffer
+     *
+     * @param body The body data for the points in the given range
+     * @param vertexSize The size of one vertex
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @param offsets The offsets of the properties. Offsets that are
+     *        negative indicate properties with the type <code>double</code>,
+     *        which are located at <code>-offset - 1</code>.
+     * @param target The target buffer
+     */
+    private static void convert(ByteBuffer body, int vertexSize, int start,
+        int end, int offsets[], FloatBuffer target)
+    {
+        int n = offsets.length;
+        float values[] = new float[POINTS_PER_BLOCK * n];
+        FloatBuffer t = target.duplicate();
+        t.position(start * n);
+        for (int blockStart = start; blockStart < end;
+            blockStart += POINTS_PER_BLOCK)
+        {
+            int blockEnd = Math.min(end, blockStart + POINTS_PER_BLOCK);
+            int index = 0;
+            for (int i = blockStart; i < blockEnd; i++)
+            {
+                int base = (i - start) * vertexSize;
+                for (int j = 0; j < n; j++)
+                {
+                    int offset = offsets[j];
+                    if (offset >= 0)
+                    {
+                        values[index++] = body.getFloat(base + offset);
+                    }
+                    else
+                    {
+                        double d = body.getDouble(base - offset - 1);
+                        values[index++] = (float) d;
+                    }
+                }
+            }
+            t.put(values, 0, index);
+        }
+    }
+
+    /**
+     * Returns the offsets of the given properties.
+     *
+     * The offsets of properties with the type <code>double</code> are
+     * encoded as <code>-offset - 1</code>.
+     *
+     * @param properties The properties
+     * @param names The names of the properties
+     * @return The offsets
+     * @throws IOException If a property is missing, or does not have a
+     *         floating point type
+     */
+    private static int[] offsets(Map<String, PlyProperty> properties,
+        String... names) throws IOException
+    {
+        int result[] = new int[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            PlyProperty property = properties.get(names[i]);
+            if (property == null)
+            {
+                throw new IOException(
+                    "The PLY does not contain the property " + names[i]);
+            }
+            if (!property.floatingPoint)
+            {
+                throw new IOException("Expected a floating point type for "
+                    + "the property " + names[i]);
+            }
+            if (property.size == 4)
+            {
+                result[i] = property.offset;
+            }
+            else
+            {
+                result[i] = -property.offset - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the first byte after the end of the header in
+     * the given string
+     *
+     * @param headerString The string
+     * @return The index
+     * @throws IOException If the string does not contain the end of the
+     *         header
+     */
+    private static int findEndOfHeader(String headerString) throws IOException
+    {
+        int index = 0;
+        while (true)
+        {
+            index = headerString.indexOf(END_HEADER, index);
+            if (index == -1)
+            {
+                throw new IOException("Could not find the end of the "
+                    + "PLY header in the first " + headerString.length()
+                    + " bytes");
+            }
+            int after = index + END_HEADER.length();
+            boolean lineStart = index == 0
+                || headerString.charAt(index - 1) == '\n';
+            if (lineStart && headerString.startsWith("\r\n", after))
+            {
+                return after + 2;
+            }
+            if (lineStart && headerString.startsWith("\n", after))
+            {
+                return after + 1;
+            }
+            index = after;
+        }
+    }
+
+    /**
+     * Parse the byte order from the given tokens of the format line
+     *
+     * @param tokens The tokens
+     * @return The byte order
+     * @throws IOException If the format is not a binary format
+     */
+    private static ByteOrder parseFormat(String tokens[]) throws IOException
+    {
+        String format = tokens.length > 1 ? tokens[1] : "";
+        if (format.equals("binary_little_endian"))
+        {
+            return ByteOrder.LITTLE_ENDIAN;
+        }
+        if (format.equals("binary_big_endian"))
+        {
+            return ByteOrder.BIG_ENDIAN;
+        }
+        throw new IOException("Only binary PLY files are supported, "
+            + "but found format " + format);
+    }
+
+    /**
+     * Parse the given element count
+     *
+     * @param s The string
+     * @return The count
+     * @throws IOException If the string is not a valid count
+     */
+    private static long parseCount(String s) throws IOException
+    {
+        try
+        {
+            long count = Long.parseLong(s);
+            if (count >= 0)
+            {
+                return count;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Handled below
+        }
+        throw new IOException("Invalid element count: " + s);
+    }
+
+    /**
+     * Returns the size of the given PLY property type, in bytes
+     *
+     * @param type The type
+     * @return The size
+     * @throws IOException If the type is not a valid scalar type
+     */
+    private static int sizeOf(String type) throws IOException
+    {
+        switch (type)
+        {
+            case "char":
+            case "uchar":
+            case "int8":
+            case "uint8":
+                return 1;
+            case "short":
+            case "ushort":
+            case "int16":
+            case "uint16":
+                return 2;
+            case "int":
+            case "uint":
+            case "int32":
+            case "uint32":
+            case "float":
+            case "float32":
+                return 4;
+            case "double":
+            case "float64":
+                return 8;
+            default:
+                break;
+        }
+        throw new IOException("Unsupported property type: " + type);
+    }
+
+    /**
+     * Returns the spherical harmonics degree for the given number of
+     * <code>f_rest_*</code> properties
+     *
+     * @param numRest The number of properties
+     * @return The degree
+     * @throws IOException If the number does not match a degree
+     */
+    private static int degreeForRestCount(int numRest) throws IOException
+    {
+        for (int d = 0; d <= 3; d++)
+        {
+            if (SpzUtils.dimensionsForDegree(d) * 3 == numRest)
+            {
+                return d;
+            }
+        }
+        throw new IOException("Found " + numRest + " f_rest_* properties, "
+            + "which does not match a spherical harmonics degree");
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class for writing a {@link GaussianCloud} as a binary little endian PLY
+ * file, in the format that is written by the original 3D Gaussian Splatting
+ * implementation.
+ *
+ * The vertices have the properties <code>x, y, z</code>,
+ * <code>nx, ny, nz</code> (which are always 0), <code>f_dc_0..2</code>,
+ * <code>f_rest_*</code>, <code>opacity</code>, <code>scale_0..2</code> and
+ * <code>rot_0..3</code>, all with the type <code>float</code>. This is the
+ * inverse of the {@link PlyReader}: The rotations are written as
+ * (w, x, y, z), and the spherical harmonics coefficients are written in
+ * channel-major order.
+ *
+ * The body of the file is memory-mapped in chunks, and the chunks are
+ * filled from the buffers of the {@link GaussianCloud} in parallel.
+ */
+public final class PlyWriter
+{
+    /**
+     * Creates a new instance
+     */
+    public PlyWriter()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Write the given {@link GaussianCloud} to the given PLY file. An
+     * existing file will be overwritten.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param plyFile The PLY file
+     * @throws IOException If an IO error occurs
+     */
+    public void write(GaussianCloud g, Path plyFile) throws IOException
+    {
+        int numPoints = g.getNumPoints();
+        int shDim = SpzUtils.dimensionsForDegree(g.getShDegree());
+        int numRest = shDim * 3;
+        int vertexSize = (3 + 3 + 3 + numRest + 1 + 3 + 4) * 4;
+        byte header[] = createHeader(numPoints, numRest);
+
+        try (FileChannel channel = FileChannel.open(plyFile,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            while (headerBuffer.hasRemaining())
+            {
+                channel.write(headerBuffer);
+            }
+            long bodyOffset = header.length;
+            try
+            {
+                Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+                {
+                    ByteBuffer body;
+                    try
+                    {
+                        body = channel.map(FileChannel.MapMode.READ_WRITE,
+                            bodyOffset + (long) start * vertexSize,
+                            (long) (end - start) * vertexSize);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                    body.order(ByteOrder.LITTLE_ENDIAN);
+                    encode(g, shDim, body, start, end);
+                });
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Encode the specified points of the given cloud into the given body
+     * buffer
+     *
+     * @param g The {@link GaussianCloud}
+     * @param shDim The number of spherical harmonics coefficients per point
+     * @param body The body data for the points in the given range
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void encode(GaussianCloud g, int shDim, ByteBuffer body,
+        int start, int end)
+    {
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer sh = g.getSh();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        for (int i = start; i < end; i++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                body.putFloat(positions.get(i * 3 + c));
+            }
+            for (int c = 0; c < 3; c++)
+            {
+                body.putFloat(0.0f);
+            }
+            for (int c = 0; c < 3; c++)
+            {
+                body.putFloat(colors.get(i * 3 + c));
+            }
+            int shBase = i * shDim * 3;
+            for (int c = 0; c < 3; c++)
+            {
+                for (int k = 0; k < shDim; k++)
+                {
+                    body.putFloat(sh.get(shBase + k * 3 + c));
+                }
+            }
+            body.putFloat(alphas.get(i));
+            for (int c = 0; c < 3; c++)
+            {
+                body.putFloat(scales.get(i * 3 + c));
+            }
+            body.putFloat(rotations.get(i * 4 + 3));
+            for (int c = 0; c < 3; c++)
+            {
+                body.putFloat(rotations.get(i * 4 + c));
+            }
+        }
+    }
+
+    /**
+     * Create the PLY header
+     *
+     * @param numPoints The number of points
+     * @param numRest The number of <code>f_rest_*</code> properties
+     * @return The header
+     */
+    private static byte[] createHeader(int numPoints, int numRest)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ply\n");
+        sb.append("format binary_little_endian 1.0\n");
+        sb.append("element vertex ").append(numPoints).append("\n");
+        appendProperties(sb, "x", "y", "z", "nx", "ny", "nz");
+        appendProperties(sb, "f_dc_0", "f_dc_1", "f_dc_2");
+        for (int i = 0; i < numRest; i++)
+        {
+            appendProperties(sb, "f_rest_" + i);
+        }
+        appendProperties(sb, "opacity");
+        appendProperties(sb, "scale_0", "scale_1", "scale_2");
+        appendProperties(sb, "rot_0", "rot_1", "rot_2", "rot_3");
+        sb.append("end_header\n");
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Append the declarations of float properties with the given names to
+     * the given string builder
+     *
+     * @param sb The string builder
+     * @param names The names
+     */
+    private static void appendProperties(StringBuilder sb, String... names)
+    {
+        for (String name : names)
+        {
+            sb.append("property float ").append(name).append("\n");
+        }
+    }
+}
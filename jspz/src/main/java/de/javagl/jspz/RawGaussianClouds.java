@@ -44,13 +44,18 @@ class RawGaussianClouds
      * @param rawPositions The input data
      * @param positions The data for the Gaussian cloud
      * @param fractionalBits The number of fractional bits
+     * @param flipP The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z coordinates
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
     static void convertPositions(byte rawPositions[], FloatBuffer positions,
-        int fractionalBits)
+        int fractionalBits, float flipP[], int start, int end)
     {
-        int numPoints = positions.capacity() / 3;
         float scale = 1.0f / (1 << fractionalBits);
-        for (int i = 0; i < numPoints * 3; i++)
+        float scales[] =
+        { scale * flipP[0], scale * flipP[1], scale * flipP[2] };
+        for (int i = start * 3; i < end * 3; i++)
         {
             int p0 = Byte.toUnsignedInt(rawPositions[i * 3 + 0]);
             int p1 = Byte.toUnsignedInt(rawPositions[i * 3 + 1]);
@@ -60,7 +65,7 @@ class RawGaussianClouds
             p |= p1 << 8;
             p |= p2 << 16;
             p |= ((p & 0x800000) != 0) ? 0xff000000 : 0;
-            positions.put(i, p * scale);
+            positions.put(i, p * scales[i % 3]);
         }
     }
 
@@ -70,11 +75,13 @@ class RawGaussianClouds
      * 
      * @param rawScales The raw data
      * @param scales The data for the Gaussian cloud
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertScales(byte[] rawScales, FloatBuffer scales)
+    static void convertScales(byte[] rawScales, FloatBuffer scales, int start,
+        int end)
     {
-        int numPoints = scales.capacity() / 3;
-        for (int i = 0; i < numPoints * 3; i++)
+        for (int i = start * 3; i < end * 3; i++)
         {
             int s = Byte.toUnsignedInt(rawScales[i]);
             scales.put(i, s / 16.0f - 10.0f);
@@ -88,28 +95,49 @@ class RawGaussianClouds
      * 
      * @param rawRotations The raw data
      * @param rotations The data for the Gaussian cloud
+     * @param flipQ The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z components of the quaternions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertRotationsV2(byte[] rawRotations, FloatBuffer rotations)
+    static void convertRotationsV2(byte[] rawRotations, FloatBuffer rotations,
+        float flipQ[], int start, int end)
     {
-        int numPoints = rotations.capacity() / 4;
-        float invRotation = 1.0f / 127.5f;
-        for (int i = 0; i < numPoints; i++)
+        float q[] = new float[4];
+        for (int i = start; i < end; i++)
         {
-            int r0 = Byte.toUnsignedInt(rawRotations[i * 3 + 0]);
-            int r1 = Byte.toUnsignedInt(rawRotations[i * 3 + 1]);
-            int r2 = Byte.toUnsignedInt(rawRotations[i * 3 + 2]);
-            float q0 = r0 * invRotation - 1.0f;
-            float q1 = r1 * invRotation - 1.0f;
-            float q2 = r2 * invRotation - 1.0f;
-            float sn = q0 * q0 + q1 * q1 + q2 * q2;
-            float q3 = (float) Math.sqrt(Math.max(0, 1.0f - sn));
-            rotations.put(i * 4 + 0, q0);
-            rotations.put(i * 4 + 1, q1);
-            rotations.put(i * 4 + 2, q2);
-            rotations.put(i * 4 + 3, q3);
+            decodeRotationV2(rawRotations, i * 3, q);
+            rotations.put(i * 4 + 0, q[0] * flipQ[0]);
+            rotations.put(i * 4 + 1, q[1] * flipQ[1]);
+            rotations.put(i * 4 + 2, q[2] * flipQ[2]);
+            rotations.put(i * 4 + 3, q[3]);
         }
     }
 
+    /**
+     * Decode a single rotation that is encoded according to SPZ version 2.
+     * 
+     * @param rawRotations The raw data
+     * @param offset The offset of the rotation in the raw data
+     * @param q The array that will store the quaternion, as (x, y, z, w)
+     */
+    static void decodeRotationV2(byte[] rawRotations, int offset, float q[])
+    {
+        float invRotation = 1.0f / 127.5f;
+        int r0 = Byte.toUnsignedInt(rawRotations[offset + 0]);
+        int r1 = Byte.toUnsignedInt(rawRotations[offset + 1]);
+        int r2 = Byte.toUnsignedInt(rawRotations[offset + 2]);
+        float q0 = r0 * invRotation - 1.0f;
+        float q1 = r1 * invRotation - 1.0f;
+        float q2 = r2 * invRotation - 1.0f;
+        float sn = q0 * q0 + q1 * q1 + q2 * q2;
+        float q3 = (float) Math.sqrt(Math.max(0, 1.0f - sn));
+        q[0] = q0;
+        q[1] = q1;
+        q[2] = q2;
+        q[3] = q3;
+    }
+
     /**
      * Convert the given raw data into the data that is stored in the actual
      * {@link GaussianCloud}, assuming that the input is encoded according to
@@ -117,41 +145,61 @@ class RawGaussianClouds
      * 
      * @param rawRotations The raw data
      * @param rotations The data for the Gaussian cloud
+     * @param flipQ The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z components of the quaternions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertRotationsV3(byte[] rawRotations, FloatBuffer rotations)
+    static void convertRotationsV3(byte[] rawRotations, FloatBuffer rotations,
+        float flipQ[], int start, int end)
     {
-        float oneOverSqrt2 = (float) (1.0 / Math.sqrt(2.0));
-        int numPoints = rotations.capacity() / 4;
-        for (int i = 0; i < numPoints; i++)
+        float q[] = new float[4];
+        for (int i = start; i < end; i++)
         {
-            int r0 = Byte.toUnsignedInt(rawRotations[i * 4 + 0]);
-            int r1 = Byte.toUnsignedInt(rawRotations[i * 4 + 1]);
-            int r2 = Byte.toUnsignedInt(rawRotations[i * 4 + 2]);
-            int r3 = Byte.toUnsignedInt(rawRotations[i * 4 + 3]);
+            decodeRotationV3(rawRotations, i * 4, q);
+            rotations.put(i * 4 + 0, q[0] * flipQ[0]);
+            rotations.put(i * 4 + 1, q[1] * flipQ[1]);
+            rotations.put(i * 4 + 2, q[2] * flipQ[2]);
+            rotations.put(i * 4 + 3, q[3]);
+        }
+    }
+
+    /**
+     * Decode a single rotation that is encoded according to SPZ version 3.
+     * 
+     * @param rawRotations The raw data
+     * @param offset The offset of the rotation in the raw data
+     * @param q The array that will store the quaternion, as (x, y, z, w)
+     */
+    static void decodeRotationV3(byte[] rawRotations, int offset, float q[])
+    {
+        float oneOverSqrt2 = (float) (1.0 / Math.sqrt(2.0));
+        int r0 = Byte.toUnsignedInt(rawRotations[offset + 0]);
+        int r1 = Byte.toUnsignedInt(rawRotations[offset + 1]);
+        int r2 = Byte.toUnsignedInt(rawRotations[offset + 2]);
+        int r3 = Byte.toUnsignedInt(rawRotations[offset + 3]);
 
-            int components = r0 + (r1 << 8) + (r2 << 16) + (r3 << 24);
-            int mask = (1 << 9) - 1;
-            int indexOfLargest = components >>> 30;
-            float sumSquares = 0;
-            for (int j = 3; j >= 0; --j)
+        int components = r0 + (r1 << 8) + (r2 << 16) + (r3 << 24);
+        int mask = (1 << 9) - 1;
+        int indexOfLargest = components >>> 30;
+        float sumSquares = 0;
+        for (int j = 3; j >= 0; --j)
+        {
+            if (j != indexOfLargest)
             {
-                if (j != indexOfLargest)
+                int magnitude = components & mask;
+                int signBit = (components >>> 9) & 0x1;
+                float r = oneOverSqrt2 * magnitude / mask;
+                if (signBit == 1)
                 {
-                    int magnitude = components & mask;
-                    int signBit = (components >>> 9) & 0x1;
-                    float r = oneOverSqrt2 * magnitude / mask;
-                    if (signBit == 1)
-                    {
-                        r = -r;
-                    }
-                    rotations.put(i * 4 + j, r);
-                    sumSquares += r * r;
-                    components = components >>> 10;
+                    r = -r;
                 }
+                q[j] = r;
+                sumSquares += r * r;
+                components = components >>> 10;
             }
-            float rLargest = (float) Math.sqrt(1.0f - sumSquares);
-            rotations.put(i * 4 + indexOfLargest, rLargest);
         }
+        q[indexOfLargest] = (float) Math.sqrt(1.0f - sumSquares);
     }
 
     /**
@@ -160,12 +208,14 @@ class RawGaussianClouds
      * 
      * @param rawAlphas The raw data
      * @param alphas The data for the Gaussian cloud
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertAlphas(byte[] rawAlphas, FloatBuffer alphas)
+    static void convertAlphas(byte[] rawAlphas, FloatBuffer alphas, int start,
+        int end)
     {
-        int numPoints = alphas.capacity();
         float invByte = 1.0f / 255.0f;
-        for (int i = 0; i < numPoints; i++)
+        for (int i = start; i < end; i++)
         {
             int a = Byte.toUnsignedInt(rawAlphas[i]);
             alphas.put(i, SpzUtils.invSigmoid(a * invByte));
@@ -178,13 +228,15 @@ class RawGaussianClouds
      * 
      * @param rawColors THe raw data
      * @param colors The data for the Gaussian cloud
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertColors(byte[] rawColors, FloatBuffer colors)
+    static void convertColors(byte[] rawColors, FloatBuffer colors, int start,
+        int end)
     {
-        int numPoints = colors.capacity() / 3;
         float invColorScale = 1.0f / 0.15f;
         float invByte = 1.0f / 255.0f;
-        for (int i = 0; i < numPoints * 3; i++)
+        for (int i = start * 3; i < end * 3; i++)
         {
             int c = Byte.toUnsignedInt(rawColors[i]);
             float cf = ((c * invByte) - 0.5f) * invColorScale;
@@ -196,17 +248,39 @@ class RawGaussianClouds
      * Convert the given raw data into the data that is stored in the actual
      * {@link GaussianCloud}
      * 
+     * If the degree of the Gaussian cloud is smaller than the degree of the
+     * raw data, then only the coefficients of the lower bands are converted.
+     * 
      * @param rawSh The raw data
      * @param sh The data for the Gaussian cloud
+     * @param rawShDegree The spherical harmonics degree of the raw data
+     * @param shDegree The spherical harmonics degree of the Gaussian cloud,
+     *        which may not be larger than the degree of the raw data
+     * @param flipSh The factors (1 or -1) for the coordinate system
+     *        conversion of the spherical harmonics coefficients
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertShs(byte[] rawSh, FloatBuffer sh)
+    static void convertShs(byte[] rawSh, FloatBuffer sh, int rawShDegree,
+        int shDegree, float flipSh[], int start, int end)
     {
+        int rawShDim = SpzUtils.dimensionsForDegree(rawShDegree);
+        int shDim = SpzUtils.dimensionsForDegree(shDegree);
         float invHalfByte = 1.0f / 128.0f;
-        for (int i = 0; i < rawSh.length; i++)
+        for (int i = start; i < end; i++)
         {
-            int sr = Byte.toUnsignedInt(rawSh[i]);
-            float sf = (sr - 128.0f) * invHalfByte;
-            sh.put(i, sf);
+            for (int j = 0; j < shDim; j++)
+            {
+                float factor = invHalfByte * flipSh[j];
+                int rawIndex = (i * rawShDim + j) * 3;
+                int index = (i * shDim + j) * 3;
+                for (int c = 0; c < 3; c++)
+                {
+                    int sr = Byte.toUnsignedInt(rawSh[rawIndex + c]);
+                    float sf = (sr - 128.0f) * factor;
+                    sh.put(index + c, sf);
+                }
+            }
         }
     }
 
@@ -217,15 +291,20 @@ class RawGaussianClouds
      * @param positions The data from the Gaussian cloud
      * @param rawPositions The raw data
      * @param fractionalBits The fractional bits
+     * @param flipP The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z coordinates
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
     static void convertPositions(FloatBuffer positions, byte[] rawPositions,
-        int fractionalBits)
+        int fractionalBits, float flipP[], int start, int end)
     {
-        int numPoints = positions.capacity() / 3;
         float scale = (1 << fractionalBits);
-        for (int i = 0; i < numPoints * 3; i++)
+        float scales[] =
+        { scale * flipP[0], scale * flipP[1], scale * flipP[2] };
+        for (int i = start * 3; i < end * 3; i++)
         {
-            int packed = Math.round(positions.get(i) * scale);
+            int packed = Math.round(positions.get(i) * scales[i % 3]);
             rawPositions[i * 3 + 0] = (byte) (packed & 0xFF);
             rawPositions[i * 3 + 1] = (byte) ((packed >> 8) & 0xFF);
             rawPositions[i * 3 + 2] = (byte) ((packed >> 16) & 0xFF);
@@ -238,11 +317,13 @@ class RawGaussianClouds
      * 
      * @param scales The data from the Gaussian cloud
      * @param rawScales The raw data
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertScales(FloatBuffer scales, byte[] rawScales)
+    static void convertScales(FloatBuffer scales, byte[] rawScales, int start,
+        int end)
     {
-        int numPoints = scales.capacity() / 3;
-        for (int i = 0; i < numPoints * 3; i++)
+        for (int i = start * 3; i < end * 3; i++)
         {
             byte s = SpzUtils.toByte((scales.get(i) + 10.0f) * 16.0f);
             rawScales[i] = s;
@@ -255,46 +336,67 @@ class RawGaussianClouds
      * 
      * @param rotations The data from the Gaussian cloud
      * @param rawRotations The raw data
+     * @param flipQ The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z components of the quaternions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertRotationsV2(FloatBuffer rotations, byte[] rawRotations)
+    static void convertRotationsV2(FloatBuffer rotations, byte[] rawRotations,
+        float flipQ[], int start, int end)
     {
-        int numPoints = rotations.capacity() / 4;
-        float quantization = 127.5f;
-        for (int i = 0; i < numPoints; i++)
+        float q[] = new float[4];
+        for (int i = start; i < end; i++)
         {
-            float x = rotations.get(i * 4 + 0);
-            float y = rotations.get(i * 4 + 1);
-            float z = rotations.get(i * 4 + 2);
-            float w = rotations.get(i * 4 + 3);
+            q[0] = rotations.get(i * 4 + 0) * flipQ[0];
+            q[1] = rotations.get(i * 4 + 1) * flipQ[1];
+            q[2] = rotations.get(i * 4 + 2) * flipQ[2];
+            q[3] = rotations.get(i * 4 + 3);
+            encodeRotationV2(q, rawRotations, i * 3);
+        }
+    }
 
-            // Normalize
-            float invLen =
-                1.0f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
-            x *= invLen;
-            y *= invLen;
-            z *= invLen;
+    /**
+     * Encode a single rotation according to SPZ version 2.
+     * 
+     * @param q The quaternion, as (x, y, z, w). This does not have to be
+     *        normalized.
+     * @param rawRotations The raw data
+     * @param offset The offset of the rotation in the raw data
+     */
+    static void encodeRotationV2(float q[], byte[] rawRotations, int offset)
+    {
+        float quantization = 127.5f;
+        float x = q[0];
+        float y = q[1];
+        float z = q[2];
+        float w = q[3];
 
-            // Quantize
-            if (w < 0)
-            {
-                x *= -quantization;
-                y *= -quantization;
-                z *= -quantization;
-            }
-            else
-            {
-                x *= quantization;
-                y *= quantization;
-                z *= quantization;
-            }
-            x += quantization;
-            y += quantization;
-            z += quantization;
+        // Normalize
+        float invLen = 1.0f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+        x *= invLen;
+        y *= invLen;
+        z *= invLen;
 
-            rawRotations[i * 3 + 0] = SpzUtils.toByte(x);
-            rawRotations[i * 3 + 1] = SpzUtils.toByte(y);
-            rawRotations[i * 3 + 2] = SpzUtils.toByte(z);
+        // Quantize
+        if (w < 0)
+        {
+            x *= -quantization;
+            y *= -quantization;
+            z *= -quantization;
+        }
+        else
+        {
+            x *= quantization;
+            y *= quantization;
+            z *= quantization;
         }
+        x += quantization;
+        y += quantization;
+        z += quantization;
+
+        rawRotations[offset + 0] = SpzUtils.toByte(x);
+        rawRotations[offset + 1] = SpzUtils.toByte(y);
+        rawRotations[offset + 2] = SpzUtils.toByte(z);
     }
 
     /**
@@ -303,53 +405,67 @@ class RawGaussianClouds
      * 
      * @param rotations The data from the Gaussian cloud
      * @param rawRotations The raw data
+     * @param flipQ The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z components of the quaternions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertRotationsV3(FloatBuffer rotations, byte[] rawRotations)
+    static void convertRotationsV3(FloatBuffer rotations, byte[] rawRotations,
+        float flipQ[], int start, int end)
     {
-        float oneOverSqrt2 = (float) (1.0 / Math.sqrt(2.0));
-        float mask = ((1 << 9) - 1);
-        int numPoints = rotations.capacity() / 4;
         float q[] = new float[4];
-        for (int i = 0; i < numPoints; i++)
+        for (int i = start; i < end; i++)
         {
-            float x = rotations.get(i * 4 + 0);
-            float y = rotations.get(i * 4 + 1);
-            float z = rotations.get(i * 4 + 2);
-            float w = rotations.get(i * 4 + 3);
+            q[0] = rotations.get(i * 4 + 0) * flipQ[0];
+            q[1] = rotations.get(i * 4 + 1) * flipQ[1];
+            q[2] = rotations.get(i * 4 + 2) * flipQ[2];
+            q[3] = rotations.get(i * 4 + 3);
+            encodeRotationV3(q, rawRotations, i * 4);
+        }
+    }
 
-            float invLen =
-                1.0f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
-            x *= invLen;
-            y *= invLen;
-            z *= invLen;
-            w *= invLen;
+    /**
+     * Encode a single rotation according to SPZ version 3.
+     * 
+     * @param q The quaternion, as (x, y, z, w). This does not have to be
+     *        normalized. The contents of this array will be modified.
+     * @param rawRotations The raw data
+     * @param offset The offset of the rotation in the raw data
+     */
+    static void encodeRotationV3(float q[], byte[] rawRotations, int offset)
+    {
+        float oneOverSqrt2 = (float) (1.0 / Math.sqrt(2.0));
+        float mask = ((1 << 9) - 1);
+        float x = q[0];
+        float y = q[1];
+        float z = q[2];
+        float w = q[3];
 
-            q[0] = x;
-            q[1] = y;
-            q[2] = z;
-            q[3] = w;
+        float invLen = 1.0f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+        q[0] = x * invLen;
+        q[1] = y * invLen;
+        q[2] = z * invLen;
+        q[3] = w * invLen;
 
-            int indexOfLargest = indexOfAbsMax(q);
-            int negate = q[indexOfLargest] < 0 ? 1 : 0;
+        int indexOfLargest = indexOfAbsMax(q);
+        int negate = q[indexOfLargest] < 0 ? 1 : 0;
 
-            int components = indexOfLargest;
-            for (int j = 0; j < 4; ++j)
+        int components = indexOfLargest;
+        for (int j = 0; j < 4; ++j)
+        {
+            if (j != indexOfLargest)
             {
-                if (j != indexOfLargest)
-                {
-                    int signBit = ((q[j] < 0) ? 1 : 0) ^ negate;
-                    float component = Math.abs(q[j]) / oneOverSqrt2;
-                    int magnitude = (int) (mask * component + 0.5f);
-                    components =
-                        (components << 10) | (signBit << 9) | magnitude;
-                }
+                int signBit = ((q[j] < 0) ? 1 : 0) ^ negate;
+                float component = Math.abs(q[j]) / oneOverSqrt2;
+                int magnitude = (int) (mask * component + 0.5f);
+                components = (components << 10) | (signBit << 9) | magnitude;
             }
-
-            rawRotations[i * 4 + 0] = (byte) ((components >> 0) & 0xFF);
-            rawRotations[i * 4 + 1] = (byte) ((components >> 8) & 0xFF);
-            rawRotations[i * 4 + 2] = (byte) ((components >> 16) & 0xFF);
-            rawRotations[i * 4 + 3] = (byte) ((components >> 24) & 0xFF);
         }
+
+        rawRotations[offset + 0] = (byte) ((components >> 0) & 0xFF);
+        rawRotations[offset + 1] = (byte) ((components >> 8) & 0xFF);
+        rawRotations[offset + 2] = (byte) ((components >> 16) & 0xFF);
+        rawRotations[offset + 3] = (byte) ((components >> 24) & 0xFF);
     }
 
     /**
@@ -380,11 +496,13 @@ class RawGaussianClouds
      * 
      * @param alphas The data from the Gaussian cloud
      * @param rawAlphas The raw data
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertAlphas(FloatBuffer alphas, byte[] rawAlphas)
+    static void convertAlphas(FloatBuffer alphas, byte[] rawAlphas, int start,
+        int end)
     {
-        int numPoints = alphas.capacity();
-        for (int i = 0; i < numPoints; i++)
+        for (int i = start; i < end; i++)
         {
             float a = alphas.get(i);
             rawAlphas[i] = SpzUtils.toByte(SpzUtils.sigmoid(a) * 255.0f);
@@ -397,12 +515,14 @@ class RawGaussianClouds
      * 
      * @param colors The data from the Gaussian cloud
      * @param rawColors The raw data
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertColors(FloatBuffer colors, byte[] rawColors)
+    static void convertColors(FloatBuffer colors, byte[] rawColors, int start,
+        int end)
     {
-        int numPoints = colors.capacity() / 3;
         float colorScale = 0.15f;
-        for (int i = 0; i < numPoints * 3; i++)
+        for (int i = start * 3; i < end * 3; i++)
         {
             float c = colors.get(i);
             rawColors[i] =
@@ -414,18 +534,28 @@ class RawGaussianClouds
      * Convert the given data from a {@link GaussianCloud} into the raw data
      * that is stored in the file.
      * 
+     * If the degree of the raw data is smaller than the degree of the
+     * Gaussian cloud, then only the coefficients of the lower bands are
+     * converted.
+     * 
      * @param sh The data from the Gaussian cloud
      * @param rawSh The raw data
-     * @param numPoints The number of points
-     * @param shDegree The spherical harmonics degree
+     * @param shDegree The spherical harmonics degree of the Gaussian cloud
+     * @param rawShDegree The spherical harmonics degree of the raw data,
+     *        which may not be larger than the degree of the Gaussian cloud
+     * @param flipSh The factors (1 or -1) for the coordinate system
+     *        conversion of the spherical harmonics coefficients
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
      */
-    static void convertShs(FloatBuffer sh, byte[] rawSh, int numPoints,
-        int shDegree)
+    static void convertShs(FloatBuffer sh, byte[] rawSh, int shDegree,
+        int rawShDegree, float flipSh[], int start, int end)
     {
         int shDim = SpzUtils.dimensionsForDegree(shDegree);
-        for (int i = 0; i < numPoints; i++)
+        int rawShDim = SpzUtils.dimensionsForDegree(rawShDegree);
+        for (int i = start; i < end; i++)
         {
-            for (int j = 0; j < shDim; j++)
+            for (int j = 0; j < rawShDim; j++)
             {
                 int bucketSize;
                 if (j < 3) // dimensionsForDegree(1) = 3
@@ -443,13 +573,14 @@ class RawGaussianClouds
                     bucketSize = 1 << (8 - quantizationBitsDegN);
                 }
                 int index = (i * shDim + j) * 3;
-                int i0 = index + 0;
-                int i1 = index + 1;
-                int i2 = index + 2;
+                int rawIndex = (i * rawShDim + j) * 3;
 
-                rawSh[i0] = SpzUtils.quantize(sh.get(i0), bucketSize);
-                rawSh[i1] = SpzUtils.quantize(sh.get(i1), bucketSize);
-                rawSh[i2] = SpzUtils.quantize(sh.get(i2), bucketSize);
+                float flip = flipSh[j];
+                for (int c = 0; c < 3; c++)
+                {
+                    float value = sh.get(index + c) * flip;
+                    rawSh[rawIndex + c] = SpzUtils.quantize(value, bucketSize);
+                }
             }
         }
     }
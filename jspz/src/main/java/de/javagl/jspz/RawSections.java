@@ -0,0 +1,477 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Methods for transferring the raw (quantized) data of SPZ sections from an
+ * input to an output with a possibly different {@link SpzHeader}, without
+ * creating a {@link GaussianCloud}.
+ *
+ * The data is processed in chunks of a fixed size. The data is only
+ * converted when the encoding of the section differs between the headers:
+ * The positions are requantized when the number of fractional bits differ,
+ * the rotations are converted when the versions differ, and the spherical
+ * harmonics are truncated or padded with zeros when the degrees differ.
+ * Additionally, a coordinate system conversion may be applied, which only
+ * changes the signs of the quantized values, and is therefore lossless.
+ * In all other cases, the data is copied without modification.
+ */
+class RawSections
+{
+    /**
+     * The number of bytes that are processed in one chunk
+     */
+    private static final int BYTES_PER_CHUNK = 1 << 20;
+
+    /**
+     * The number of points that are converted by one parallel task
+     */
+    private static final int POINTS_PER_TASK = 1 << 14;
+
+    /**
+     * The raw value that represents a spherical harmonics coefficient of 0.0
+     */
+    private static final byte SH_ZERO = (byte) 128;
+
+    /**
+     * The minimum value of a 24 bit signed integer
+     */
+    private static final int MIN_INT24 = -(1 << 23);
+
+    /**
+     * The maximum value of a 24 bit signed integer
+     */
+    private static final int MAX_INT24 = (1 << 23) - 1;
+
+    /**
+     * Read the data of the given section from the given input, and write it
+     * to the given output, converting it if necessary.
+     *
+     * @param section The {@link SpzSection}
+     * @param dataInput The input
+     * @param inputHeader The input {@link SpzHeader}
+     * @param dataOutput The output
+     * @param outputHeader The output {@link SpzHeader}
+     * @param c The {@link CoordinateSystems.CoordinateConverter}
+     * @throws IOException If an IO error occurs
+     */
+    static void transfer(SpzSection section, DataInputStream dataInput,
+        SpzHeader inputHeader, DataOutputStream dataOutput,
+        SpzHeader outputHeader, CoordinateSystems.CoordinateConverter c)
+        throws IOException
+    {
+        if (!requiresConversion(section, inputHeader, outputHeader, c))
+        {
+            copy(dataInput, dataOutput, section.byteLength(inputHeader));
+            return;
+        }
+        int numPoints = inputHeader.numPoints;
+        int inputBytesPerPoint =
+            section.bytesPerPoint(inputHeader.version, inputHeader.shDegree);
+        int outputBytesPerPoint = section.bytesPerPoint(outputHeader.version,
+            outputHeader.shDegree);
+        int pointsPerChunk = BYTES_PER_CHUNK
+            / Math.max(1, Math.max(inputBytesPerPoint, outputBytesPerPoint));
+        int chunkPoints = Math.min(pointsPerChunk, numPoints);
+        byte input[] = new byte[chunkPoints * inputBytesPerPoint];
+        byte output[] = new byte[chunkPoints * outputBytesPerPoint];
+        for (int start = 0; start < numPoints; start += pointsPerChunk)
+        {
+            int end = Math.min(numPoints, start + pointsPerChunk);
+            int n = end - start;
+            dataInput.readFully(input, 0, n * inputBytesPerPoint);
+            Parallel.forEachChunk(n, POINTS_PER_TASK,
+                (chunkIndex, s, e) -> convert(section, input, inputHeader,
+                    output, outputHeader, c, s, e));
+            dataOutput.write(output, 0, n * outputBytesPerPoint);
+        }
+    }
+
+    /**
+     * Convert the given range of points of the given section
+     *
+     * @param section The {@link SpzSection}
+     * @param input The input data
+     * @param inputHeader The input {@link SpzHeader}
+     * @param output The output data
+     * @param outputHeader The output {@link SpzHeader}
+     * @param c The {@link CoordinateSystems.CoordinateConverter}
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void convert(SpzSection section, byte input[],
+        SpzHeader inputHeader, byte output[], SpzHeader outputHeader,
+        CoordinateSystems.CoordinateConverter c, int start, int end)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                convertPositions(input, inputHeader.fractionalBits, output,
+                    outputHeader.fractionalBits, c.flipP, start, end);
+                break;
+            case ROTATIONS:
+                convertRotations(input, inputHeader.version, output,
+                    outputHeader.version, c.flipQ, start, end);
+                break;
+            case SH:
+                convertShs(input, inputHeader.shDegree, output,
+                    outputHeader.shDegree, c.flipSh, start, end);
+                break;
+            default:
+                throw new IllegalStateException("Invalid section: " + section);
+        }
+    }
+
+    /**
+     * Returns whether the data of the given section has to be converted for
+     * the given headers
+     *
+     * @param section The {@link SpzSection}
+     * @param inputHeader The input {@link SpzHeader}
+     * @param outputHeader The output {@link SpzHeader}
+     * @param c The {@link CoordinateSystems.CoordinateConverter}
+     * @return Whether the data has to be converted
+     */
+    private static boolean requiresConversion(SpzSection section,
+        SpzHeader inputHeader, SpzHeader outputHeader,
+        CoordinateSystems.CoordinateConverter c)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                return inputHeader.fractionalBits
+                    != outputHeader.fractionalBits
+                    || containsNegative(c.flipP, 3);
+            case ROTATIONS:
+                return inputHeader.version != outputHeader.version
+                    || containsNegative(c.flipQ, 3);
+            case SH:
+            {
+                int shDegree =
+                    Math.min(inputHeader.shDegree, outputHeader.shDegree);
+                int shDim = SpzUtils.dimensionsForDegree(shDegree);
+                return inputHeader.shDegree != outputHeader.shDegree
+                    || containsNegative(c.flipSh, shDim);
+            }
+            default:
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether any of the first n elements of the given array are
+     * negative
+     *
+     * @param flips The array
+     * @param n The number of elements to check
+     * @return Whether the array contains a negative element
+     */
+    private static boolean containsNegative(float flips[], int n)
+    {
+        for (int i = 0; i < n; i++)
+        {
+            if (flips[i] < 0.0f)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the given number of bytes from the given input to the given output
+     *
+     * @param dataInput The input
+     * @param dataOutput The output
+     * @param byteLength The number of bytes
+     * @throws IOException If an IO error occurs
+     */
+    private static void copy(DataInputStream dataInput,
+        DataOutputStream dataOutput, long byteLength) throws IOException
+    {
+        byte chunk[] = new byte[(int) Math.min(BYTES_PER_CHUNK, byteLength)];
+        long remaining = byteLength;
+        while (remaining > 0)
+        {
+            int length = (int) Math.min(chunk.length, remaining);
+            dataInput.readFully(chunk, 0, length);
+            dataOutput.write(chunk, 0, length);
+            remaining -= length;
+        }
+    }
+
+    /**
+     * Convert the given raw positions to a different number of fractional
+     * bits, and negate the coordinates for the coordinate system conversion.
+     * The results are rounded and clamped to the range of 24 bit signed
+     * integers.
+     *
+     * @param input The input data
+     * @param inputFractionalBits The fractional bits of the input
+     * @param output The output data
+     * @param outputFractionalBits The fractional bits of the output
+     * @param flipP The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z coordinates
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void convertPositions(byte input[],
+        int inputFractionalBits, byte output[], int outputFractionalBits,
+        float flipP[], int start, int end)
+    {
+        int shift = inputFractionalBits - outputFractionalBits;
+        for (int i = start * 3; i < end * 3; i++)
+        {
+            int p = readInt24(input, i * 3);
+            long result;
+            if (shift > 0)
+            {
+                // Round half up, as Math.round does for the float values
+                result = ((long) p + (1L << (shift - 1))) >> shift;
+            }
+            else
+            {
+                result = (long) p << -shift;
+            }
+            if (flipP[i % 3] < 0.0f)
+            {
+                result = -result;
+            }
+            int clamped = (int) Math.max(MIN_INT24,
+                Math.min(MAX_INT24, result));
+            writeInt24(output, i * 3, clamped);
+        }
+    }
+
+    /**
+     * Convert the given raw rotations into the encoding of a different
+     * version, and negate the x, y, and z components for the coordinate
+     * system conversion.
+     *
+     * @param input The input data
+     * @param inputVersion The version of the input
+     * @param output The output data
+     * @param outputVersion The version of the output
+     * @param flipQ The factors (1 or -1) for the coordinate system conversion
+     *        of the x, y, and z components of the quaternions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void convertRotations(byte input[], int inputVersion,
+        byte output[], int outputVersion, float flipQ[], int start, int end)
+    {
+        if (inputVersion == outputVersion)
+        {
+            if (inputVersion == 2)
+            {
+                flipRotationsV2(input, output, flipQ, start, end);
+            }
+            else
+            {
+                flipRotationsV3(input, output, flipQ, start, end);
+            }
+            return;
+        }
+        float q[] = new float[4];
+        for (int i = start; i < end; i++)
+        {
+            if (inputVersion == 2)
+            {
+                RawGaussianClouds.decodeRotationV2(input, i * 3, q);
+            }
+            else
+            {
+                RawGaussianClouds.decodeRotationV3(input, i * 4, q);
+            }
+            q[0] *= flipQ[0];
+            q[1] *= flipQ[1];
+            q[2] *= flipQ[2];
+            if (outputVersion == 2)
+            {
+                RawGaussianClouds.encodeRotationV2(q, output, i * 3);
+            }
+            else
+            {
+                RawGaussianClouds.encodeRotationV3(q, output, i * 4);
+            }
+        }
+    }
+
+    /**
+     * Negate the x, y, and z components of the given raw rotations that are
+     * encoded according to SPZ version 2.
+     *
+     * Each component is stored as a byte b, representing the value
+     * b / 127.5 - 1, so negating the value corresponds to using 255 - b.
+     *
+     * @param input The input data
+     * @param output The output data
+     * @param flipQ The factors (1 or -1) for the x, y, and z components
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void flipRotationsV2(byte input[], byte output[],
+        float flipQ[], int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            for (int k = 0; k < 3; k++)
+            {
+                int b = Byte.toUnsignedInt(input[i * 3 + k]);
+                if (flipQ[k] < 0.0f)
+                {
+                    b = 255 - b;
+                }
+                output[i * 3 + k] = (byte) b;
+            }
+        }
+    }
+
+    /**
+     * Negate the x, y, and z components of the given raw rotations that are
+     * encoded according to SPZ version 3.
+     *
+     * The encoding stores the three smallest components with a sign bit,
+     * relative to the largest component, which is assumed to be positive.
+     * Negating a stored component toggles its sign bit. Negating the largest
+     * component requires negating the whole quaternion, which toggles the
+     * sign bits of all stored components.
+     *
+     * @param input The input data
+     * @param output The output data
+     * @param flipQ The factors (1 or -1) for the x, y, and z components
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void flipRotationsV3(byte input[], byte output[],
+        float flipQ[], int start, int end)
+    {
+        boolean flips[] =
+        { flipQ[0] < 0.0f, flipQ[1] < 0.0f, flipQ[2] < 0.0f, false };
+        for (int i = start; i < end; i++)
+        {
+            int r0 = Byte.toUnsignedInt(input[i * 4 + 0]);
+            int r1 = Byte.toUnsignedInt(input[i * 4 + 1]);
+            int r2 = Byte.toUnsignedInt(input[i * 4 + 2]);
+            int r3 = Byte.toUnsignedInt(input[i * 4 + 3]);
+            int components = r0 | (r1 << 8) | (r2 << 16) | (r3 << 24);
+            int indexOfLargest = components >>> 30;
+            boolean flipLargest = flips[indexOfLargest];
+
+            // The stored components are ordered so that the last one
+            // (in the lowest bits) has the highest index
+            int bit = 9;
+            for (int j = 3; j >= 0; j--)
+            {
+                if (j != indexOfLargest)
+                {
+                    if (flips[j] != flipLargest)
+                    {
+                        components ^= (1 << bit);
+                    }
+                    bit += 10;
+                }
+            }
+            output[i * 4 + 0] = (byte) ((components >> 0) & 0xFF);
+            output[i * 4 + 1] = (byte) ((components >> 8) & 0xFF);
+            output[i * 4 + 2] = (byte) ((components >> 16) & 0xFF);
+            output[i * 4 + 3] = (byte) ((components >> 24) & 0xFF);
+        }
+    }
+
+    /**
+     * Convert the given raw spherical harmonics into a different degree,
+     * by omitting the coefficients of higher bands, or filling the
+     * coefficients of missing bands with zeros, and negate the coefficients
+     * for the coordinate system conversion.
+     *
+     * Each coefficient is stored as a byte b, representing the value
+     * (b - 128) / 128, so negating the value corresponds to using 256 - b,
+     * clamped to 255.
+     *
+     * @param input The input data
+     * @param inputShDegree The degree of the input
+     * @param output The output data
+     * @param outputShDegree The degree of the output
+     * @param flipSh The factors (1 or -1) for the coordinate system
+     *        conversion of the spherical harmonics coefficients
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     */
+    private static void convertShs(byte input[], int inputShDegree,
+        byte output[], int outputShDegree, float flipSh[], int start, int end)
+    {
+        int inputShDim = SpzUtils.dimensionsForDegree(inputShDegree);
+        int outputShDim = SpzUtils.dimensionsForDegree(outputShDegree);
+        int commonShDim = Math.min(inputShDim, outputShDim);
+        for (int i = start; i < end; i++)
+        {
+            int inputOffset = i * inputShDim * 3;
+            int outputOffset = i * outputShDim * 3;
+            for (int j = 0; j < commonShDim; j++)
+            {
+                boolean flip = flipSh[j] < 0.0f;
+                for (int c = 0; c < 3; c++)
+                {
+                    int k = j * 3 + c;
+                    int b = Byte.toUnsignedInt(input[inputOffset + k]);
+                    if (flip)
+                    {
+                        b = Math.min(255, 256 - b);
+                    }
+                    output[outputOffset + k] = (byte) b;
+                }
+            }
+            for (int k = commonShDim * 3; k < outputShDim * 3; k++)
+            {
+                output[outputOffset + k] = SH_ZERO;
+            }
+        }
+    }
+
+    /**
+     * Read a little-endian 24 bit signed integer from the given array
+     *
+     * @param data The array
+     * @param offset The offset
+     * @return The value
+     */
+    static int readInt24(byte data[], int offset)
+    {
+        int p0 = Byte.toUnsignedInt(data[offset + 0]);
+        int p1 = Byte.toUnsignedInt(data[offset + 1]);
+        int p2 = data[offset + 2];
+        return p0 | (p1 << 8) | (p2 << 16);
+    }
+
+    /**
+     * Write a little-endian 24 bit signed integer into the given array
+     *
+     * @param data The array
+     * @param offset The offset
+     * @param value The value
+     */
+    static void writeInt24(byte data[], int offset, int value)
+    {
+        data[offset + 0] = (byte) (value & 0xFF);
+        data[offset + 1] = (byte) ((value >> 8) & 0xFF);
+        data[offset + 2] = (byte) ((value >> 16) & 0xFF);
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private RawSections()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
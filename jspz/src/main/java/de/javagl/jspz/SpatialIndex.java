@@ -0,0 +1,98 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Interface for a spatial index over the points of a {@link GaussianCloud}.
+ *
+ * Instances can be created with the {@link SpatialIndexes} class. The
+ * queries report the indices of the points in the cloud. A spatial index
+ * contains a copy of the data that it was created from, so modifications
+ * of the cloud are not reflected in the index. Instances are immutable, and
+ * can be queried from multiple threads concurrently.
+ *
+ * When the index was created with the extents of the splats, then the box,
+ * frustum and radius queries report all points whose extent intersects the
+ * query region. Otherwise, they report all points whose position is
+ * contained in the query region.
+ */
+public interface SpatialIndex
+{
+    /**
+     * Returns the number of points in this index
+     *
+     * @return The number of points
+     */
+    int getNumPoints();
+
+    /**
+     * Returns whether this index takes the extents of the splats into
+     * account
+     *
+     * @return Whether the extents are used
+     */
+    boolean isUsingExtents();
+
+    /**
+     * Pass the indices of all points that are in the given axis-aligned box
+     * to the given consumer. The order of the indices is unspecified.
+     *
+     * @param min The minimum of the box, as (x, y, z)
+     * @param max The maximum of the box, as (x, y, z)
+     * @param consumer The consumer for the indices
+     */
+    void queryBox(float min[], float max[], IntConsumer consumer);
+
+    /**
+     * Pass the indices of all points that are in the given frustum to the
+     * given consumer. The order of the indices is unspecified.
+     *
+     * The frustum is given by planes with 4 elements (a, b, c, d) each,
+     * where a point (x, y, z) is inside the plane when
+     * <code>a * x + b * y + c * z + d &gt;= 0</code>. Usually, there will be
+     * 6 planes, but any number of planes may be given. When the extents of
+     * the splats are used, then the result is conservative, meaning that
+     * it may contain splats whose extent is close to, but not inside the
+     * frustum.
+     *
+     * @param planes The planes, as 4 elements for each plane
+     * @param consumer The consumer for the indices
+     * @throws IllegalArgumentException If the number of elements is not
+     *         divisible by 4
+     */
+    void queryFrustum(float planes[], IntConsumer consumer);
+
+    /**
+     * Pass the indices of all points that are within the given radius
+     * around the given point to the given consumer. The order of the
+     * indices is unspecified.
+     *
+     * @param point The point, as (x, y, z)
+     * @param radius The radius
+     * @param consumer The consumer for the indices
+     */
+    void queryRadius(float point[], float radius, IntConsumer consumer);
+
+    /**
+     * Compute the indices of the k points whose positions are nearest to
+     * the given point, and write them into the given array, sorted by their
+     * distance, in ascending order.
+     *
+     * This only takes the positions of the points into account, regardless
+     * of whether the index uses the extents of the splats.
+     *
+     * @param point The point, as (x, y, z)
+     * @param k The number of points
+     * @param indices The array that will receive the indices
+     * @return The number of indices that have been written, which is the
+     *         minimum of k and the number of points
+     * @throws IllegalArgumentException If k is negative, or the given array
+     *         has less than k elements
+     */
+    int queryNearest(float point[], int k, int indices[]);
+}
@@ -0,0 +1,57 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * Methods to create {@link SpatialIndex} instances
+ */
+public class SpatialIndexes
+{
+    /**
+     * Create a {@link SpatialIndex} for the positions of the given
+     * {@link GaussianCloud}.
+     *
+     * The index is a KD-tree that is built in parallel, and stored in flat
+     * arrays.
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The {@link SpatialIndex}
+     * @throws IllegalArgumentException If the cloud contains more than
+     *         <code>Integer.MAX_VALUE / 3</code> points
+     */
+    public static SpatialIndex create(GaussianCloud g)
+    {
+        return new KdTreeSpatialIndex(g, false);
+    }
+
+    /**
+     * Create a {@link SpatialIndex} for the extents of the splats of the
+     * given {@link GaussianCloud}.
+     *
+     * The extent of each splat is the axis-aligned bounding box of its
+     * ellipsoid at three standard deviations, computed from its scales and
+     * rotation. The index is a KD-tree that is built in parallel, and
+     * stored in flat arrays.
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The {@link SpatialIndex}
+     * @throws IllegalArgumentException If the cloud contains more than
+     *         <code>Integer.MAX_VALUE / 6</code> points
+     */
+    public static SpatialIndex createWithExtents(GaussianCloud g)
+    {
+        return new KdTreeSpatialIndex(g, true);
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SpatialIndexes()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
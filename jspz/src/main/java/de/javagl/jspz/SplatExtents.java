@@ -0,0 +1,96 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Methods for computing the extents of the splats of a Gaussian cloud
+ */
+class SplatExtents
+{
+    /**
+     * The number of standard deviations that is covered by an extent
+     */
+    static final float SIGMAS = 3.0f;
+
+    /**
+     * Compute the extent of the specified splat, and write it into the given
+     * array.
+     *
+     * The extent is the axis-aligned bounding box of the ellipsoid of the
+     * splat at {@link #SIGMAS} standard deviations, computed from its
+     * position, (logarithmic) scales, and rotation.
+     *
+     * @param positions The positions, as (x, y, z) triples
+     * @param scales The scales, as (x, y, z) triples
+     * @param rotations The rotations, as (x, y, z, w) quaternions
+     * @param i The index of the splat
+     * @param result The array that will receive the extent, as (minX, minY,
+     *        minZ, maxX, maxY, maxZ)
+     * @param offset The offset in the result array
+     */
+    static void compute(FloatBuffer positions, FloatBuffer scales,
+        FloatBuffer rotations, int i, float result[], int offset)
+    {
+        float x = rotations.get(i * 4 + 0);
+        float y = rotations.get(i * 4 + 1);
+        float z = rotations.get(i * 4 + 2);
+        float w = rotations.get(i * 4 + 3);
+        float length = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+        if (length > 0.0f)
+        {
+            x /= length;
+            y /= length;
+            z /= length;
+            w /= length;
+        }
+        else
+        {
+            w = 1.0f;
+        }
+        float s0 = (float) Math.exp(scales.get(i * 3 + 0));
+        float s1 = (float) Math.exp(scales.get(i * 3 + 1));
+        float s2 = (float) Math.exp(scales.get(i * 3 + 2));
+
+        // The half extent along each axis is the length of the respective
+        // row of the rotation matrix, multiplied with the scales
+        float r0a = (1 - 2 * (y * y + z * z)) * s0;
+        float r0b = 2 * (x * y - z * w) * s1;
+        float r0c = 2 * (x * z + y * w) * s2;
+        float r1a = 2 * (x * y + z * w) * s0;
+        float r1b = (1 - 2 * (x * x + z * z)) * s1;
+        float r1c = 2 * (y * z - x * w) * s2;
+        float r2a = 2 * (x * z - y * w) * s0;
+        float r2b = 2 * (y * z + x * w) * s1;
+        float r2c = (1 - 2 * (x * x + y * y)) * s2;
+        float e0 = SIGMAS
+            * (float) Math.sqrt(r0a * r0a + r0b * r0b + r0c * r0c);
+        float e1 = SIGMAS
+            * (float) Math.sqrt(r1a * r1a + r1b * r1b + r1c * r1c);
+        float e2 = SIGMAS
+            * (float) Math.sqrt(r2a * r2a + r2b * r2b + r2c * r2c);
+
+        float px = positions.get(i * 3 + 0);
+        float py = positions.get(i * 3 + 1);
+        float pz = positions.get(i * 3 + 2);
+        result[offset + 0] = px - e0;
+        result[offset + 1] = py - e1;
+        result[offset + 2] = pz - e2;
+        result[offset + 3] = px + e0;
+        result[offset + 4] = py + e1;
+        result[offset + 5] = pz + e2;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SplatExtents()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
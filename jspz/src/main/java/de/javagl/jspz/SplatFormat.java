@@ -0,0 +1,230 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Methods for converting {@link GaussianCloud} objects from and to the
+ * compact <code>.splat</code> format that is used by many web viewers.
+ *
+ * In this format, each point occupies 32 bytes:
+ * <ul>
+ *   <li>The position, as three little endian <code>float</code> values</li>
+ *   <li>The (linear) scale, as three little endian <code>float</code>
+ *   values</li>
+ *   <li>The color and opacity, as four unsigned bytes (RGBA)</li>
+ *   <li>The normalized rotation quaternion, as four unsigned bytes in
+ *   (w, x, y, z) order, each encoding a value <code>v</code> in [-1, 1] as
+ *   <code>v * 128 + 128</code></li>
+ * </ul>
+ * The format does not contain spherical harmonics coefficients. The colors
+ * are computed from the zeroth order spherical harmonics coefficients, and
+ * the opacity is computed from the alpha with the sigmoid function.
+ */
+public class SplatFormat
+{
+    /**
+     * The number of bytes for each point in the <code>.splat</code> format
+     */
+    public static final int BYTES_PER_POINT = 32;
+
+    /**
+     * The normalization factor of the zeroth order spherical harmonics
+     */
+    private static final float SH_C0 = 0.28209479177387814f;
+
+    /**
+     * Creates a new direct byte buffer with little endian byte order that
+     * can store the given number of points in the <code>.splat</code>
+     * format.
+     *
+     * @param numPoints The number of points
+     * @return The byte buffer
+     * @throws IllegalArgumentException If the number of points is negative,
+     *         or too large to be stored in a single buffer
+     */
+    public static ByteBuffer createDirectBuffer(int numPoints)
+    {
+        long size = (long) numPoints * BYTES_PER_POINT;
+        if (numPoints < 0 || size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create a buffer for " + numPoints + " points");
+        }
+        return ByteBuffer.allocateDirect((int) size)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates a new direct byte buffer that contains the data from the
+     * given {@link GaussianCloud} in the <code>.splat</code> format.
+     *
+     * @param g The {@link GaussianCloud}
+     * @return The byte buffer
+     * @throws IllegalArgumentException If the cloud is too large to be
+     *         stored in a single buffer
+     */
+    public static ByteBuffer toSplat(GaussianCloud g)
+    {
+        ByteBuffer buffer = createDirectBuffer(g.getNumPoints());
+        toSplat(g, buffer);
+        return buffer;
+    }
+
+    /**
+     * Write the data from the given {@link GaussianCloud} in the
+     * <code>.splat</code> format into the given buffer. The points are
+     * converted in parallel.
+     *
+     * The data is written starting at the position of the given buffer.
+     * The position of the buffer is not modified.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param target The target buffer
+     * @throws IllegalArgumentException If the target buffer has less than
+     *         <code>g.getNumPoints() * 32</code> remaining bytes
+     */
+    public static void toSplat(GaussianCloud g, ByteBuffer target)
+    {
+        int numPoints = g.getNumPoints();
+        long required = (long) numPoints * BYTES_PER_POINT;
+        if (target.remaining() < required)
+        {
+            throw new IllegalArgumentException("Expected at least " + required
+                + " remaining bytes, but found " + target.remaining());
+        }
+        ByteBuffer t = target.slice().order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer rotations = g.getRotations();
+        Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                int p = i * BYTES_PER_POINT;
+                for (int c = 0; c < 3; c++)
+                {
+                    t.putFloat(p + c * 4, positions.get(i * 3 + c));
+                    t.putFloat(p + 12 + c * 4,
+                        (float) Math.exp(scales.get(i * 3 + c)));
+                    float color = 0.5f + SH_C0 * colors.get(i * 3 + c);
+                    t.put(p + 24 + c, SpzUtils.toByte(color * 255.0f));
+                }
+                float alpha = SpzUtils.sigmoid(alphas.get(i));
+                t.put(p + 27, SpzUtils.toByte(alpha * 255.0f));
+
+                float x = rotations.get(i * 4 + 0);
+                float y = rotations.get(i * 4 + 1);
+                float z = rotations.get(i * 4 + 2);
+                float w = rotations.get(i * 4 + 3);
+                float length =
+                    (float) Math.sqrt(x * x + y * y + z * z + w * w);
+                if (length > 0.0f)
+                {
+                    float invLength = 1.0f / length;
+                    x *= invLength;
+                    y *= invLength;
+                    z *= invLength;
+                    w *= invLength;
+                }
+                else
+                {
+                    w = 1.0f;
+                }
+                t.put(p + 28, SpzUtils.toByte(w * 128 + 128));
+                t.put(p + 29, SpzUtils.toByte(x * 128 + 128));
+                t.put(p + 30, SpzUtils.toByte(y * 128 + 128));
+                t.put(p + 31, SpzUtils.toByte(z * 128 + 128));
+            }
+        });
+    }
+
+    /**
+     * Creates a new {@link GaussianCloud} from the remaining bytes of the
+     * given buffer, which contains data in the <code>.splat</code> format.
+     * The points are converted in parallel.
+     *
+     * The resulting cloud will have a spherical harmonics degree of 0. The
+     * position of the given buffer is not modified.
+     *
+     * @param splat The buffer
+     * @return The {@link GaussianCloud}
+     * @throws IllegalArgumentException If the number of remaining bytes of
+     *         the buffer is not a multiple of 32
+     */
+    public static GaussianCloud fromSplat(ByteBuffer splat)
+    {
+        if (splat.remaining() % BYTES_PER_POINT != 0)
+        {
+            throw new IllegalArgumentException(
+                "Expected a multiple of " + BYTES_PER_POINT
+                    + " bytes, but found " + splat.remaining());
+        }
+        int numPoints = splat.remaining() / BYTES_PER_POINT;
+        ByteBuffer s = splat.slice().order(ByteOrder.LITTLE_ENDIAN);
+        DefaultGaussianCloud g = new DefaultGaussianCloud(numPoints, 0, false);
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer rotations = g.getRotations();
+        Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+        {
+            for (int i = start; i < end; i++)
+            {
+                int p = i * BYTES_PER_POINT;
+                for (int c = 0; c < 3; c++)
+                {
+                    positions.put(i * 3 + c, s.getFloat(p + c * 4));
+                    float scale = s.getFloat(p + 12 + c * 4);
+                    scales.put(i * 3 + c, (float) Math.log(scale));
+                    float color = Byte.toUnsignedInt(s.get(p + 24 + c));
+                    colors.put(i * 3 + c, (color / 255.0f - 0.5f) / SH_C0);
+                }
+                float alpha = Byte.toUnsignedInt(s.get(p + 27)) / 255.0f;
+                alphas.put(i, SpzUtils.invSigmoid(alpha));
+
+                float w = (Byte.toUnsignedInt(s.get(p + 28)) - 128) / 128.0f;
+                float x = (Byte.toUnsignedInt(s.get(p + 29)) - 128) / 128.0f;
+                float y = (Byte.toUnsignedInt(s.get(p + 30)) - 128) / 128.0f;
+                float z = (Byte.toUnsignedInt(s.get(p + 31)) - 128) / 128.0f;
+                float length =
+                    (float) Math.sqrt(x * x + y * y + z * z + w * w);
+                if (length > 0.0f)
+                {
+                    float invLength = 1.0f / length;
+                    x *= invLength;
+                    y *= invLength;
+                    z *= invLength;
+                    w *= invLength;
+                }
+                else
+                {
+                    w = 1.0f;
+                }
+                rotations.put(i * 4 + 0, x);
+                rotations.put(i * 4 + 1, y);
+                rotations.put(i * 4 + 2, z);
+                rotations.put(i * 4 + 3, w);
+            }
+        });
+        return g;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SplatFormat()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * The result of scanning the positions of SPZ data with an
+ * {@link SpzBoundsScanner}.
+ *
+ * This contains the information from the header of the SPZ data, the
+ * bounding box of the positions, and an optional histogram that contains
+ * the number of points in each cell of a regular grid that covers the
+ * bounding box.
+ */
+public final class SpzBoundsScan
+{
+    /**
+     * The {@link SpzHeader}
+     */
+    private final SpzHeader header;
+
+    /**
+     * The bounding box
+     */
+    private final float bounds[];
+
+    /**
+     * The resolution of the histogram
+     */
+    private final int histogramResolution;
+
+    /**
+     * The histogram
+     */
+    private final int histogram[];
+
+    /**
+     * Creates a new instance
+     *
+     * @param header The {@link SpzHeader}
+     * @param bounds The bounding box
+     * @param histogramResolution The resolution of the histogram
+     * @param histogram The histogram
+     */
+    SpzBoundsScan(SpzHeader header, float bounds[], int histogramResolution,
+        int histogram[])
+    {
+        this.header = header;
+        this.bounds = bounds;
+        this.histogramResolution = histogramResolution;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Returns the SPZ version
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return header.version;
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    public int getNumPoints()
+    {
+        return header.numPoints;
+    }
+
+    /**
+     * Returns the spherical harmonics degree
+     *
+     * @return The degree
+     */
+    public int getShDegree()
+    {
+        return header.shDegree;
+    }
+
+    /**
+     * Returns whether the SPZ data is antialiased
+     *
+     * @return Whether the data is antialiased
+     */
+    public boolean isAntialiased()
+    {
+        return header.isAntialiased();
+    }
+
+    /**
+     * Returns the axis-aligned bounding box of the positions.
+     *
+     * When there are no points, then the minimum is positive infinity, and
+     * the maximum is negative infinity.
+     *
+     * @return The bounding box, as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    public float[] getBounds()
+    {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the resolution of the histogram, which is the number of cells
+     * of the grid along each axis. This is 0 if no histogram was computed.
+     *
+     * @return The resolution
+     */
+    public int getHistogramResolution()
+    {
+        return histogramResolution;
+    }
+
+    /**
+     * Returns the histogram.
+     *
+     * For a resolution <code>r</code>, the histogram contains
+     * <code>r * r * r</code> elements, with the number of points in the cell
+     * <code>(x, y, z)</code> being stored at index
+     * <code>x + y * r + z * r * r</code>. The cells evenly divide the
+     * bounding box. If no histogram was computed, then this is an empty
+     * array.
+     *
+     * @return The histogram
+     */
+    public int[] getHistogram()
+    {
+        return histogram.clone();
+    }
+}
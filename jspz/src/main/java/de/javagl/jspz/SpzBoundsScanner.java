@@ -0,0 +1,239 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A class for scanning the positions of SPZ data, without reading a
+ * {@link GaussianCloud}.
+ *
+ * The positions are the first section after the header. The scanner only
+ * inflates this section, and computes the bounding box of the positions
+ * directly from their fixed point representation. The remaining sections
+ * are not read. Optionally, a histogram of the positions can be computed,
+ * containing the number of points in each cell of a regular grid.
+ */
+public final class SpzBoundsScanner
+{
+    /**
+     * The maximum resolution of the histogram
+     */
+    private static final int MAX_HISTOGRAM_RESOLUTION = 256;
+
+    /**
+     * The number of points that are read in one chunk, when no histogram
+     * is computed
+     */
+    private static final int POINTS_PER_CHUNK = 1 << 16;
+
+    /**
+     * The resolution of the histogram
+     */
+    private int histogramResolution;
+
+    /**
+     * Creates a new instance.
+     *
+     * By default, no histogram will be computed.
+     */
+    public SpzBoundsScanner()
+    {
+        this.histogramResolution = 0;
+    }
+
+    /**
+     * Set the resolution of the histogram, which is the number of cells of
+     * the grid along each axis.
+     *
+     * When the resolution is 0, which is the default, then no histogram is
+     * computed, and the positions are processed in chunks of a fixed size.
+     * Otherwise, the raw positions section has to be kept in memory until
+     * the bounding box is known.
+     *
+     * @param histogramResolution The resolution, in [0,256]
+     * @throws IllegalArgumentException If the resolution is not in [0,256]
+     */
+    public void setHistogramResolution(int histogramResolution)
+    {
+        if (histogramResolution < 0
+            || histogramResolution > MAX_HISTOGRAM_RESOLUTION)
+        {
+            throw new IllegalArgumentException(
+                "The resolution must be in [0," + MAX_HISTOGRAM_RESOLUTION
+                    + "], but is " + histogramResolution);
+        }
+        this.histogramResolution = histogramResolution;
+    }
+
+    /**
+     * Returns the resolution of the histogram
+     *
+     * @return The resolution
+     */
+    public int getHistogramResolution()
+    {
+        return histogramResolution;
+    }
+
+    /**
+     * Scan the positions of the SPZ data from the given input stream.
+     *
+     * Only the header and the positions section will be read from the
+     * stream. The caller is responsible for closing the given stream.
+     *
+     * @param spzInputStream The input stream
+     * @return The {@link SpzBoundsScan}
+     * @throws IOException If an IO error occurs, or the input data is not
+     *         valid SPZ data
+     */
+    public SpzBoundsScan scan(InputStream spzInputStream) throws IOException
+    {
+        SpzGZIPInputStream gzipInputStream =
+            new SpzGZIPInputStream(spzInputStream);
+        try
+        {
+            DataInputStream dataInput = new DataInputStream(gzipInputStream);
+            byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
+            dataInput.readFully(headerBytes);
+            SpzHeader header = SpzHeader.fromBytes(headerBytes);
+            int numPoints = header.numPoints;
+            int bytesPerPoint =
+                SpzSection.POSITIONS.bytesPerPoint(header.version, 0);
+
+            // When a histogram is computed, then the whole section is
+            // read, and otherwise, only one chunk is kept in memory
+            byte raw[];
+            if (histogramResolution > 0)
+            {
+                raw = new byte[DefaultSpzReader.byteLength(
+                    SpzSection.POSITIONS, header)];
+            }
+            else
+            {
+                int chunkPoints = Math.min(numPoints, POINTS_PER_CHUNK);
+                raw = new byte[chunkPoints * bytesPerPoint];
+            }
+
+            int min[] =
+            { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE };
+            int max[] =
+            { Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+            for (int start = 0; start < numPoints; start += POINTS_PER_CHUNK)
+            {
+                int end = Math.min(numPoints, start + POINTS_PER_CHUNK);
+                int first = histogramResolution > 0 ? start : 0;
+                int count = end - start;
+                dataInput.readFully(raw, first * bytesPerPoint,
+                    count * bytesPerPoint);
+                updateBounds(raw, first, first + count, min, max);
+            }
+
+            int histogram[] = new int[0];
+            if (histogramResolution > 0)
+            {
+                histogram = computeHistogram(raw, numPoints, min, max,
+                    histogramResolution);
+            }
+
+            float scale = 1.0f / (1 << header.fractionalBits);
+            float bounds[] = new float[6];
+            for (int j = 0; j < 3; j++)
+            {
+                if (numPoints == 0)
+                {
+                    bounds[j] = Float.POSITIVE_INFINITY;
+                    bounds[j + 3] = Float.NEGATIVE_INFINITY;
+                }
+                else
+                {
+                    bounds[j] = min[j] * scale;
+                    bounds[j + 3] = max[j] * scale;
+                }
+            }
+            return new SpzBoundsScan(header, bounds, histogramResolution,
+                histogram);
+        }
+        finally
+        {
+            gzipInputStream.release();
+        }
+    }
+
+    /**
+     * Returns the specified coordinate from the given raw positions, as a
+     * sign-extended 24 bit fixed point value
+     *
+     * @param raw The raw positions
+     * @param i The index of the coordinate
+     * @return The value
+     */
+    private static int get(byte raw[], int i)
+    {
+        int p0 = Byte.toUnsignedInt(raw[i * 3 + 0]);
+        int p1 = Byte.toUnsignedInt(raw[i * 3 + 1]);
+        int p2 = raw[i * 3 + 2];
+        return p0 | (p1 << 8) | (p2 << 16);
+    }
+
+    /**
+     * Update the given bounds with the specified raw positions
+     *
+     * @param raw The raw positions
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @param min The minimum
+     * @param max The maximum
+     */
+    private static void updateBounds(byte raw[], int start, int end,
+        int min[], int max[])
+    {
+        for (int i = start; i < end; i++)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                int v = get(raw, i * 3 + j);
+                min[j] = Math.min(min[j], v);
+                max[j] = Math.max(max[j], v);
+            }
+        }
+    }
+
+    /**
+     * Compute the histogram for the given raw positions
+     *
+     * @param raw The raw positions
+     * @param numPoints The number of points
+     * @param min The minimum of the bounds
+     * @param max The maximum of the bounds
+     * @param resolution The resolution of the histogram
+     * @return The histogram
+     */
+    private static int[] computeHistogram(byte raw[], int numPoints,
+        int min[], int max[], int resolution)
+    {
+        int histogram[] = new int[resolution * resolution * resolution];
+        long sizes[] = new long[3];
+        for (int j = 0; j < 3; j++)
+        {
+            sizes[j] = (long) max[j] - min[j] + 1;
+        }
+        int cell[] = new int[3];
+        for (int i = 0; i < numPoints; i++)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                long relative = get(raw, i * 3 + j) - min[j];
+                cell[j] = (int) (relative * resolution / sizes[j]);
+            }
+            histogram[cell[0] + (cell[1] + cell[2] * resolution)
+                * resolution]++;
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * A token that allows cancelling an operation that reads or writes SPZ data.
+ *
+ * Instances of this class can be passed to {@link SpzReaderOptions} and
+ * {@link SpzWriterOptions}. The cancellation is checked between the chunks
+ * that are read, written, or converted. When the operation notices that it
+ * was cancelled, it releases its resources, and throws an
+ * <code>InterruptedIOException</code>.
+ *
+ * Once cancelled, a token remains cancelled. A new token has to be used for
+ * operations that should not be cancelled.
+ */
+public final class SpzCancellation
+{
+    /**
+     * Whether the operation was cancelled
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new instance
+     */
+    public SpzCancellation()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Cancel the operations that use this token
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether {@link #cancel()} was called
+     * 
+     * @return Whether the operations are cancelled
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+}
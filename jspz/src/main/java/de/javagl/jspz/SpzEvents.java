@@ -0,0 +1,85 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * Internal methods for emitting events about the phases of reading and
+ * writing SPZ data.
+ *
+ * This is the implementation for Java 8, where all methods are no-ops. The
+ * multi-release JAR contains a different implementation of this class for
+ * Java 11 and above, which emits JDK Flight Recorder events.
+ */
+class SpzEvents
+{
+    /**
+     * The type for the event that covers a complete read operation
+     */
+    static final int READ = 0;
+
+    /**
+     * The type for the event that covers inflating one section
+     */
+    static final int INFLATE = 1;
+
+    /**
+     * The type for the event that covers dequantizing one section
+     */
+    static final int DEQUANTIZE = 2;
+
+    /**
+     * The type for the event that covers a complete write operation
+     */
+    static final int WRITE = 3;
+
+    /**
+     * The type for the event that covers deflating one section
+     */
+    static final int DEFLATE = 4;
+
+    /**
+     * The type for the event that covers quantizing one section
+     */
+    static final int QUANTIZE = 5;
+
+    /**
+     * Begin an event of the given type.
+     *
+     * @param type The event type
+     * @return The event, or <code>null</code> if events of the given type are
+     *         not enabled
+     */
+    static Object begin(int type)
+    {
+        return null;
+    }
+
+    /**
+     * Commit the given event, which was obtained from {@link #begin(int)}.
+     * If the given event is <code>null</code>, nothing is done.
+     *
+     * @param event The event
+     * @param header The {@link SpzHeader}. May be <code>null</code>.
+     * @param section The {@link SpzSection}. May be <code>null</code> for
+     *        events that do not refer to a single section.
+     * @param compressedBytes The number of compressed bytes
+     * @param uncompressedBytes The number of uncompressed bytes
+     */
+    static void commit(Object event, SpzHeader header, SpzSection section,
+        long compressedBytes, long uncompressedBytes)
+    {
+        // No events in Java 8
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SpzEvents()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Internal extension of a GZIP input stream that offers access to the state
+ * of the inflater.
+ */
+class SpzGZIPInputStream extends GZIPInputStream
+{
+    /**
+     * The size of the input buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Creates a new instance
+     *
+     * @param in The input stream
+     * @throws IOException If the GZIP header cannot be read
+     */
+    SpzGZIPInputStream(InputStream in) throws IOException
+    {
+        super(in, BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the number of compressed bytes that have been consumed by the
+     * inflater of the current GZIP member.
+     *
+     * @return The number of bytes
+     */
+    long getCompressedBytesRead()
+    {
+        return inf.getBytesRead();
+    }
+
+    /**
+     * Release the resources of the inflater, without closing the underlying
+     * stream. This stream may no longer be used afterwards.
+     */
+    void release()
+    {
+        inf.end();
+    }
+}
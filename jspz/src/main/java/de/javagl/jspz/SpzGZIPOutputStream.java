@@ -0,0 +1,138 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Internal extension of a GZIP output stream that offers access to the state
+ * of the deflater.
+ */
+class SpzGZIPOutputStream extends GZIPOutputStream
+{
+    /**
+     * The size of the output buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The length of the header that is written by a GZIPOutputStream
+     */
+    static final int GZIP_HEADER_LENGTH = 10;
+
+    /**
+     * The length of the trailer that is written by a GZIPOutputStream
+     */
+    static final int GZIP_TRAILER_LENGTH = 8;
+
+    /**
+     * Creates a new instance
+     *
+     * @param out The output stream
+     * @throws IOException If the GZIP header cannot be written
+     */
+    SpzGZIPOutputStream(OutputStream out) throws IOException
+    {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param out The output stream
+     * @param compressionLevel The compression level, in [0,9], or
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IOException If the GZIP header cannot be written
+     */
+    SpzGZIPOutputStream(OutputStream out, int compressionLevel)
+        throws IOException
+    {
+        super(out, BUFFER_SIZE);
+        def.setLevel(compressionLevel);
+    }
+
+    /**
+     * Make sure that the given compression level is valid
+     *
+     * @param compressionLevel The compression level
+     * @throws IllegalArgumentException If the compression level is not in
+     *         [0,9] and not {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    static void validateCompressionLevel(int compressionLevel)
+    {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION
+            && (compressionLevel < 0 || compressionLevel > 9))
+        {
+            throw new IllegalArgumentException(
+                "The compression level must be in [0,9] or -1, but is "
+                    + compressionLevel);
+        }
+    }
+
+    /**
+     * Returns the number of compressed bytes that have been produced by the
+     * deflater.
+     *
+     * Note that the deflater may keep data internally, so this may not yet
+     * account for all data that has been written into this stream.
+     *
+     * @return The number of bytes
+     */
+    long getCompressedBytesWritten()
+    {
+        return def.getBytesWritten();
+    }
+
+    /**
+     * Returns the number of bytes of the gzip member that have been written
+     * so far, including the gzip header.
+     *
+     * This is the offset at which the next compressed data will be written,
+     * relative to the start of the member. After {@link #finish()} was
+     * called, this does not include the 8 bytes of the gzip trailer.
+     *
+     * @return The number of bytes
+     */
+    long getMemberBytesWritten()
+    {
+        return GZIP_HEADER_LENGTH + def.getBytesWritten();
+    }
+
+    /**
+     * Compress all data that has been written into this stream, and reset
+     * the state of the deflater, using {@link Deflater#FULL_FLUSH}.
+     *
+     * After this call, all data has been written to the underlying stream,
+     * and the compressed data that follows can be decompressed without the
+     * preceding data.
+     *
+     * @throws IOException If an IO error occurs
+     */
+    void fullFlush() throws IOException
+    {
+        while (true)
+        {
+            int length = def.deflate(buf, 0, buf.length, Deflater.FULL_FLUSH);
+            out.write(buf, 0, length);
+            if (length < buf.length)
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Release the resources of the deflater, without closing the underlying
+     * stream. This stream may no longer be used afterwards.
+     */
+    void release()
+    {
+        def.end();
+    }
+}
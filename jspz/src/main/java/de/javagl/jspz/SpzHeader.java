@@ -0,0 +1,138 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Parts of this class are taken from https://github.com/nianticlabs/spz,
+ * published under the MIT license. Original copyright statement:
+ *
+ * Copyright (c) 2024 Niantic Labs
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Internal representation of the SPZ header
+ */
+@SuppressWarnings("javadoc")
+class SpzHeader
+{
+    /**
+     * The length of the header, in bytes
+     */
+    static final int BYTE_LENGTH = 16;
+
+    /**
+     * The flag that indicates that the data was created with antialiasing
+     */
+    static final int FLAG_ANTIALIASED = 1;
+
+    final int version;
+    final int numPoints;
+    final int shDegree;
+    final int fractionalBits;
+    final int flags;
+
+    SpzHeader(int version, int numPoints, int shDegree, int fractionalBits,
+        int flags)
+    {
+        this.version = version;
+        this.numPoints = numPoints;
+        this.shDegree = shDegree;
+        this.fractionalBits = fractionalBits;
+        this.flags = flags;
+    }
+
+    /**
+     * Returns whether the antialiasing flag is set
+     *
+     * @return The flag
+     */
+    boolean isAntialiased()
+    {
+        return (flags & FLAG_ANTIALIASED) != 0;
+    }
+
+    /**
+     * Parse a header from the given bytes
+     *
+     * @param headerBytes The header bytes
+     * @return The {@link SpzHeader}
+     * @throws IOException If the header is not valid
+     */
+    static SpzHeader fromBytes(byte headerBytes[]) throws IOException
+    {
+        ByteBuffer headerBuffer = Buffers.wrap(headerBytes);
+        int magic = headerBuffer.getInt(0);
+        if (magic != SpzUtils.MAGIC)
+        {
+            throw new IOException(
+                "Expected magic to be " + Integer.toHexString(SpzUtils.MAGIC)
+                    + ", but it is " + Integer.toHexString(magic));
+        }
+        int version = headerBuffer.getInt(4);
+        if (version != 2 && version != 3)
+        {
+            throw new IOException(
+                "Expected version to be 2 or 3, but it is " + version);
+        }
+        int numPoints = headerBuffer.getInt(8);
+        if (numPoints < 0)
+        {
+            throw new IOException(
+                "Expected a non-negative number of points, but it is "
+                    + numPoints);
+        }
+        int shDegree = headerBuffer.get(12);
+        if (shDegree < 0 || shDegree > 3)
+        {
+            throw new IOException(
+                "Expected degree to be in [0,3], but it is " + shDegree);
+        }
+        int fractionalBits = headerBuffer.get(13);
+        int flags = Byte.toUnsignedInt(headerBuffer.get(14));
+        return new SpzHeader(version, numPoints, shDegree, fractionalBits,
+            flags);
+    }
+
+    /**
+     * Create a byte array containing this header
+     *
+     * @return The header bytes
+     */
+    byte[] toBytes()
+    {
+        byte headerBytes[] = new byte[BYTE_LENGTH];
+        ByteBuffer headerBuffer = Buffers.wrap(headerBytes);
+        headerBuffer.putInt(0, SpzUtils.MAGIC);
+        headerBuffer.putInt(4, version);
+        headerBuffer.putInt(8, numPoints);
+        headerBuffer.put(12, (byte) shDegree);
+        headerBuffer.put(13, (byte) fractionalBits);
+        headerBuffer.put(14, (byte) flags);
+        return headerBytes;
+    }
+}
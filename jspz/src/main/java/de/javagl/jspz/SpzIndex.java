@@ -0,0 +1,437 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * The index of the blocks of an indexed SPZ file.
+ *
+ * In an indexed SPZ file, the SPZ data is still a single gzip member, but
+ * the header and each block of a fixed number of points of each section
+ * are compressed independently: After each block, the deflater is flushed
+ * with {@link java.util.zip.Deflater#FULL_FLUSH}, so that each block starts
+ * at a byte boundary and does not refer to the data of previous blocks.
+ *
+ * The index is appended to the SPZ data as two additional gzip members
+ * that do not contain any data, so that readers that process concatenated
+ * members read the same data as readers that stop after the first member.
+ * The first one contains the index in its <code>FEXTRA</code> field, and
+ * the second one is a locator with a fixed size of
+ * {@link #LOCATOR_LENGTH} bytes, at the end of the file, which contains
+ * the offset of the first one.
+ *
+ * The blocks are stored in a fixed order: The first block contains the
+ * header. It is followed by the blocks of each section with a non-zero
+ * size, in the order of the {@link SpzSection} values, where each block
+ * contains the data of {@link #getBlockSize()} points (except for the last
+ * block of each section, which may contain fewer points).
+ */
+class SpzIndex
+{
+    /**
+     * The length of the locator at the end of an indexed SPZ file
+     */
+    static final int LOCATOR_LENGTH = 34;
+
+    /**
+     * The length of the fixed part of a gzip header
+     */
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    /**
+     * The gzip flag indicating that the FEXTRA field is present
+     */
+    private static final int FLAG_EXTRA = 4;
+
+    /**
+     * The subfield ID of the index
+     */
+    private static final short INDEX_ID = ('J' | ('I' << 8));
+
+    /**
+     * The subfield ID of the locator
+     */
+    private static final short LOCATOR_ID = ('J' | ('L' << 8));
+
+    /**
+     * The length of one entry of the index, in bytes
+     */
+    private static final int ENTRY_LENGTH = 16;
+
+    /**
+     * The maximum length of the data of a subfield of the FEXTRA field
+     */
+    private static final int MAX_SUBFIELD_LENGTH = 0xFFFF - 4;
+
+    /**
+     * The maximum number of blocks
+     */
+    static final int MAX_BLOCKS = (MAX_SUBFIELD_LENGTH - 8) / ENTRY_LENGTH;
+
+    /**
+     * The number of points in each block
+     */
+    private final int blockSize;
+
+    /**
+     * The offsets of the compressed blocks, relative to the start of the
+     * SPZ data
+     */
+    private final long offsets[];
+
+    /**
+     * The lengths of the compressed blocks
+     */
+    private final int lengths[];
+
+    /**
+     * The CRC32 checksums of the uncompressed blocks
+     */
+    private final int crcs[];
+
+    /**
+     * Creates a new instance
+     *
+     * @param blockSize The number of points in each block
+     * @param numBlocks The number of blocks
+     */
+    SpzIndex(int blockSize, int numBlocks)
+    {
+        this.blockSize = blockSize;
+        this.offsets = new long[numBlocks];
+        this.lengths = new int[numBlocks];
+        this.crcs = new int[numBlocks];
+    }
+
+    /**
+     * Returns the number of points in each block
+     *
+     * @return The block size
+     */
+    int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * Returns the number of blocks
+     *
+     * @return The number of blocks
+     */
+    int getNumBlocks()
+    {
+        return offsets.length;
+    }
+
+    /**
+     * Set the information about the specified block
+     *
+     * @param block The block index
+     * @param offset The offset of the compressed block
+     * @param length The length of the compressed block
+     * @param crc The CRC32 checksum of the uncompressed block
+     */
+    void setBlock(int block, long offset, int length, int crc)
+    {
+        offsets[block] = offset;
+        lengths[block] = length;
+        crcs[block] = crc;
+    }
+
+    /**
+     * Returns the offset of the specified compressed block, relative to the
+     * start of the SPZ data
+     *
+     * @param block The block index
+     * @return The offset
+     */
+    long getOffset(int block)
+    {
+        return offsets[block];
+    }
+
+    /**
+     * Returns the length of the specified compressed block
+     *
+     * @param block The block index
+     * @return The length
+     */
+    int getLength(int block)
+    {
+        return lengths[block];
+    }
+
+    /**
+     * Returns the CRC32 checksum of the specified uncompressed block
+     *
+     * @param block The block index
+     * @return The checksum
+     */
+    int getCrc(int block)
+    {
+        return crcs[block];
+    }
+
+    /**
+     * Returns the block size that is used for the given header and the
+     * requested block size. This is the smallest power-of-two multiple of
+     * the requested size for which the number of blocks does not exceed
+     * {@link #MAX_BLOCKS}.
+     *
+     * @param header The {@link SpzHeader}
+     * @param requestedBlockSize The requested block size
+     * @return The block size
+     */
+    static int computeBlockSize(SpzHeader header, int requestedBlockSize)
+    {
+        long blockSize = requestedBlockSize;
+        while (blockSize < header.numPoints
+            && computeNumBlocks(header, blockSize) > MAX_BLOCKS)
+        {
+            blockSize *= 2;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, blockSize);
+    }
+
+    /**
+     * Returns the number of blocks for the given header and block size,
+     * including the block for the header
+     *
+     * @param header The {@link SpzHeader}
+     * @param blockSize The block size
+     * @return The number of blocks
+     */
+    static long computeNumBlocks(SpzHeader header, long blockSize)
+    {
+        long numBlocks = 1;
+        long blocksPerSection = (header.numPoints + blockSize - 1) / blockSize;
+        for (SpzSection section : SpzSection.values())
+        {
+            if (section.bytesPerPoint(header.version, header.shDegree) > 0)
+            {
+                numBlocks += blocksPerSection;
+            }
+        }
+        return numBlocks;
+    }
+
+    /**
+     * Returns the index of the first block of the given section
+     *
+     * @param header The {@link SpzHeader}
+     * @param section The {@link SpzSection}
+     * @return The block index
+     */
+    int firstBlock(SpzHeader header, SpzSection section)
+    {
+        int block = 1;
+        int blocksPerSection =
+            (int) ((header.numPoints + (long) blockSize - 1) / blockSize);
+        for (SpzSection s : SpzSection.values())
+        {
+            if (s == section)
+            {
+                break;
+            }
+            if (s.bytesPerPoint(header.version, header.shDegree) > 0)
+            {
+                block += blocksPerSection;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Write this index to the given output stream, as the members that
+     * follow the SPZ data.
+     *
+     * @param outputStream The output stream
+     * @param offset The offset at which the index will be written,
+     *        relative to the start of the SPZ data
+     * @throws IOException If an IO error occurs
+     */
+    void write(OutputStream outputStream, long offset) throws IOException
+    {
+        ByteBuffer data = ByteBuffer.allocate(8 + offsets.length * ENTRY_LENGTH)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(blockSize);
+        data.putInt(offsets.length);
+        for (int i = 0; i < offsets.length; i++)
+        {
+            data.putLong(offsets[i]);
+            data.putInt(lengths[i]);
+            data.putInt(crcs[i]);
+        }
+        outputStream.write(createMember(INDEX_ID, data.array()));
+
+        ByteBuffer locator =
+            ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        locator.putLong(offset);
+        outputStream.write(createMember(LOCATOR_ID, locator.array()));
+    }
+
+    /**
+     * Create a gzip member that does not contain any data, and contains the
+     * given subfield in its FEXTRA field
+     *
+     * @param id The subfield ID
+     * @param subfield The subfield data
+     * @return The member
+     */
+    private static byte[] createMember(short id, byte subfield[])
+    {
+        ByteBuffer member = ByteBuffer
+            .allocate(GZIP_HEADER_LENGTH + 2 + 4 + subfield.length + 2 + 8)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        member.put((byte) 0x1F);
+        member.put((byte) 0x8B);
+        member.put((byte) 8);
+        member.put((byte) FLAG_EXTRA);
+        member.putInt(0);
+        member.put((byte) 0);
+        member.put((byte) 0xFF);
+        member.putShort((short) (4 + subfield.length));
+        member.putShort(id);
+        member.putShort((short) subfield.length);
+        member.put(subfield);
+
+        // An empty final deflate block, and the CRC32 and size of the
+        // empty data
+        member.put((byte) 0x03);
+        member.put((byte) 0x00);
+        member.putInt(0);
+        member.putInt(0);
+        return member.array();
+    }
+
+    /**
+     * Read the index from the given channel.
+     *
+     * If the data in the channel does not end with a locator, then
+     * <code>null</code> is returned.
+     *
+     * @param channel The channel
+     * @return The {@link SpzIndex}, or <code>null</code>
+     * @throws IOException If an IO error occurs, or the index is invalid
+     */
+    static SpzIndex read(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        if (size < LOCATOR_LENGTH)
+        {
+            return null;
+        }
+        long locatorOffset = size - LOCATOR_LENGTH;
+        ByteBuffer locatorMember = read(channel, locatorOffset, LOCATOR_LENGTH);
+        ByteBuffer locator = parseMember(locatorMember, LOCATOR_ID);
+        if (locator == null || locator.remaining() != 8)
+        {
+            return null;
+        }
+        long indexOffset = locator.getLong();
+        if (indexOffset < 0 || indexOffset >= locatorOffset)
+        {
+            throw new IOException("Invalid index offset: " + indexOffset);
+        }
+        long indexLength = locatorOffset - indexOffset;
+        if (indexLength > 0xFFFF + GZIP_HEADER_LENGTH + 12)
+        {
+            throw new IOException("Invalid index length: " + indexLength);
+        }
+        ByteBuffer indexMember =
+            read(channel, indexOffset, (int) indexLength);
+        ByteBuffer data = parseMember(indexMember, INDEX_ID);
+        if (data == null || data.remaining() < 8)
+        {
+            throw new IOException("Could not find the index at " + indexOffset);
+        }
+        int blockSize = data.getInt();
+        int numBlocks = data.getInt();
+        if (blockSize <= 0 || numBlocks <= 0
+            || data.remaining() != (long) numBlocks * ENTRY_LENGTH)
+        {
+            throw new IOException("Invalid index with block size " + blockSize
+                + " and " + numBlocks + " blocks");
+        }
+        SpzIndex index = new SpzIndex(blockSize, numBlocks);
+        for (int i = 0; i < numBlocks; i++)
+        {
+            long offset = data.getLong();
+            int length = data.getInt();
+            int crc = data.getInt();
+            if (offset < 0 || length < 0 || offset + length > indexOffset)
+            {
+                throw new IOException("Invalid block " + i + " with offset "
+                    + offset + " and length " + length);
+            }
+            index.setBlock(i, offset, length, crc);
+        }
+        return index;
+    }
+
+    /**
+     * Parse a member that was created with {@link #createMember}, and
+     * return the data of the subfield with the given ID
+     *
+     * @param member The member
+     * @param id The subfield ID
+     * @return The subfield data, or <code>null</code> if the given data
+     *         is not such a member
+     */
+    private static ByteBuffer parseMember(ByteBuffer member, short id)
+    {
+        if (member.remaining() < GZIP_HEADER_LENGTH + 2 + 4 + 2 + 8
+            || member.get(0) != (byte) 0x1F || member.get(1) != (byte) 0x8B
+            || member.get(2) != 8 || member.get(3) != FLAG_EXTRA)
+        {
+            return null;
+        }
+        int extraLength = Short.toUnsignedInt(member.getShort(10));
+        int subfieldLength = Short.toUnsignedInt(member.getShort(14));
+        if (member.getShort(12) != id || extraLength != 4 + subfieldLength
+            || member.remaining() != GZIP_HEADER_LENGTH + 2 + extraLength + 10)
+        {
+            return null;
+        }
+        ByteBuffer data = member.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(16);
+        data.limit(16 + subfieldLength);
+        return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Read the specified range of bytes from the given channel
+     *
+     * @param channel The channel
+     * @param offset The offset
+     * @param length The length
+     * @return The little endian buffer containing the bytes
+     * @throws IOException If an IO error occurs, or the channel does not
+     *         contain the specified range
+     */
+    static ByteBuffer read(FileChannel channel, long offset, int length)
+        throws IOException
+    {
+        ByteBuffer buffer =
+            ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining())
+        {
+            int n = channel.read(buffer, offset + buffer.position());
+            if (n < 0)
+            {
+                throw new IOException("Unexpected end of data at "
+                    + (offset + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A class for reading SPZ files that have been written with an index, as
+ * configured with {@link SpzWriterOptions#setIndexBlockSize(int)}.
+ *
+ * The index allows decompressing the blocks of the file in parallel, and
+ * reading only the blocks that contain a certain range of points, or only
+ * certain sections. When the file does not contain an index, then the
+ * whole file is read with a default {@link SpzReader}.
+ *
+ * For indexed files, only the coordinate conversion and the maximum
+ * spherical harmonics degree of the {@link SpzReaderOptions} are used.
+ *
+ * Instances of this class are not thread-safe.
+ */
+public final class SpzIndexedReader implements Closeable
+{
+    /**
+     * A block that has to be inflated for reading a range of points
+     */
+    private static class BlockTask
+    {
+        /**
+         * The index of the section in the list of sections that are read
+         */
+        final int sectionIndex;
+
+        /**
+         * The index of the block in the {@link SpzIndex}
+         */
+        final int block;
+
+        /**
+         * The index of the first point of the block
+         */
+        final int firstPoint;
+
+        /**
+         * Creates a new instance
+         *
+         * @param sectionIndex The section index
+         * @param block The block index
+         * @param firstPoint The first point
+         */
+        BlockTask(int sectionIndex, int block, int firstPoint)
+        {
+            this.sectionIndex = sectionIndex;
+            this.block = block;
+            this.firstPoint = firstPoint;
+        }
+    }
+
+    /**
+     * Open the given SPZ file
+     *
+     * @param spzFile The SPZ file
+     * @return The {@link SpzIndexedReader}
+     * @throws IOException If an IO error occurs, or the file is not a valid
+     *         SPZ file
+     */
+    public static SpzIndexedReader open(Path spzFile) throws IOException
+    {
+        return open(spzFile, new SpzReaderOptions());
+    }
+
+    /**
+     * Open the given SPZ file
+     *
+     * @param spzFile The SPZ file
+     * @param options The {@link SpzReaderOptions}
+     * @return The {@link SpzIndexedReader}
+     * @throws IOException If an IO error occurs, or the file is not a valid
+     *         SPZ file
+     */
+    public static SpzIndexedReader open(Path spzFile,
+        SpzReaderOptions options) throws IOException
+    {
+        FileChannel channel =
+            FileChannel.open(spzFile, StandardOpenOption.READ);
+        try
+        {
+            return new SpzIndexedReader(channel, options);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The channel for the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The {@link SpzReaderOptions}
+     */
+    private final SpzReaderOptions options;
+
+    /**
+     * The {@link SpzIndex}, or <code>null</code> if the file does not
+     * contain an index
+     */
+    private final SpzIndex index;
+
+    /**
+     * The {@link SpzHeader}
+     */
+    private final SpzHeader header;
+
+    /**
+     * Creates a new instance
+     *
+     * @param channel The channel
+     * @param options The {@link SpzReaderOptions}
+     * @throws IOException If an IO error occurs, or the file is not a valid
+     *         SPZ file
+     */
+    private SpzIndexedReader(FileChannel channel, SpzReaderOptions options)
+        throws IOException
+    {
+        this.channel = channel;
+        this.options = new SpzReaderOptions(options);
+        this.index = SpzIndex.read(channel);
+        if (index != null)
+        {
+            byte headerBytes[] = inflateBlock(0, SpzHeader.BYTE_LENGTH);
+            this.header = SpzHeader.fromBytes(headerBytes);
+            long expectedBlocks =
+                SpzIndex.computeNumBlocks(header, index.getBlockSize());
+            if (expectedBlocks != index.getNumBlocks())
+            {
+                throw new IOException("Expected " + expectedBlocks
+                    + " blocks in the index, but found "
+                    + index.getNumBlocks());
+            }
+        }
+        else
+        {
+            this.header = readHeader();
+        }
+    }
+
+    /**
+     * Read the header from the start of the file
+     *
+     * @return The {@link SpzHeader}
+     * @throws IOException If an IO error occurs
+     */
+    private SpzHeader readHeader() throws IOException
+    {
+        channel.position(0);
+        SpzGZIPInputStream gzipInputStream =
+            new SpzGZIPInputStream(Channels.newInputStream(channel));
+        try
+        {
+            byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
+            int offset = 0;
+            while (offset < headerBytes.length)
+            {
+                int n = gzipInputStream.read(headerBytes, offset,
+                    headerBytes.length - offset);
+                if (n < 0)
+                {
+                    throw new IOException("Unexpected end of the SPZ data");
+                }
+                offset += n;
+            }
+            return SpzHeader.fromBytes(headerBytes);
+        }
+        finally
+        {
+            gzipInputStream.release();
+        }
+    }
+
+    /**
+     * Returns whether the file contains an index
+     *
+     * @return Whether the file is indexed
+     */
+    public boolean isIndexed()
+    {
+        return index != null;
+    }
+
+    /**
+     * Returns the number of points in each block of the file, or 0 if
+     * the file does not contain an index
+     *
+     * @return The block size
+     */
+    public int getBlockSize()
+    {
+        if (index == null)
+        {
+            return 0;
+        }
+        return index.getBlockSize();
+    }
+
+    /**
+     * Returns the SPZ version
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return header.version;
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    public int getNumPoints()
+    {
+        return header.numPoints;
+    }
+
+    /**
+     * Returns the spherical harmonics degree that is stored in the file
+     *
+     * @return The degree
+     */
+    public int getShDegree()
+    {
+        return header.shDegree;
+    }
+
+    /**
+     * Read the whole {@link GaussianCloud}
+     *
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the data is not valid
+     */
+    public GaussianCloud read() throws IOException
+    {
+        return read(0, header.numPoints);
+    }
+
+    /**
+     * Read the specified range of points
+     *
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the data is not valid
+     * @throws IndexOutOfBoundsException If the range is not valid
+     */
+    public GaussianCloud read(int start, int end) throws IOException
+    {
+        return read(start, end, EnumSet.allOf(SpzSection.class));
+    }
+
+    /**
+     * Read the given sections of the specified range of points.
+     *
+     * The values of the sections that are not contained in the given set
+     * will be zero. When the file does not contain an index, then all
+     * sections are read.
+     *
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @param sections The sections that should be read
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the data is not valid
+     * @throws IndexOutOfBoundsException If the range is not valid
+     */
+    public GaussianCloud read(int start, int end, Set<SpzSection> sections)
+        throws IOException
+    {
+        if (start < 0 || end > header.numPoints || start > end)
+        {
+            throw new IndexOutOfBoundsException("Invalid range [" + start
+                + "," + end + ") for " + header.numPoints + " points");
+        }
+        if (index == null)
+        {
+            return readWithoutIndex(start, end);
+        }
+
+        // Inflate all required blocks of all sections in parallel
+        int count = end - start;
+        SpzHeader rangeHeader = new SpzHeader(header.version, count,
+            header.shDegree, header.fractionalBits, header.flags);
+        List<SpzSection> sectionList = new ArrayList<SpzSection>();
+        List<byte[]> raws = new ArrayList<byte[]>();
+        List<BlockTask> tasks = new ArrayList<BlockTask>();
+        int blockSize = index.getBlockSize();
+        for (SpzSection section : sections)
+        {
+            int bytesPerPoint =
+                section.bytesPerPoint(header.version, header.shDegree);
+            if (bytesPerPoint == 0 || count == 0)
+            {
+                continue;
+            }
+            sectionList.add(section);
+            raws.add(new byte[DefaultSpzReader.byteLength(section,
+                rangeHeader)]);
+            int firstBlock = index.firstBlock(header, section);
+            for (int b = start / blockSize; b <= (end - 1) / blockSize; b++)
+            {
+                tasks.add(new BlockTask(sectionList.size() - 1,
+                    firstBlock + b, b * blockSize));
+            }
+        }
+        try
+        {
+            Parallel.forEachChunk(tasks.size(), 1, (chunkIndex, s, e) ->
+            {
+                BlockTask task = tasks.get(chunkIndex);
+                SpzSection section = sectionList.get(task.sectionIndex);
+                byte raw[] = raws.get(task.sectionIndex);
+                int bytesPerPoint =
+                    section.bytesPerPoint(header.version, header.shDegree);
+                int blockStart = task.firstPoint;
+                int blockEnd = Math.min(header.numPoints,
+                    blockStart + blockSize);
+                byte data[];
+                try
+                {
+                    data = inflateBlock(task.block,
+                        (blockEnd - blockStart) * bytesPerPoint);
+                }
+                catch (IOException ex)
+                {
+                    throw new UncheckedIOException(ex);
+                }
+                int copyStart = Math.max(start, blockStart);
+                int copyEnd = Math.min(end, blockEnd);
+                System.arraycopy(data,
+                    (copyStart - blockStart) * bytesPerPoint, raw,
+                    (copyStart - start) * bytesPerPoint,
+                    (copyEnd - copyStart) * bytesPerPoint);
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        // Convert the raw data into the cloud
+        int shDegree = Math.min(header.shDegree, options.getMaxShDegree());
+        DefaultGaussianCloud g =
+            new DefaultGaussianCloud(count, shDegree, header.isAntialiased());
+        CoordinateSystems.CoordinateConverter converter =
+            CoordinateSystems.coordinateConverter(
+                options.getSourceCoordinateSystem(),
+                options.getTargetCoordinateSystem());
+        for (int i = 0; i < sectionList.size(); i++)
+        {
+            SpzSection section = sectionList.get(i);
+            byte raw[] = raws.get(i);
+            Parallel.forEachChunk(count, (chunkIndex, s, e) ->
+            {
+                DefaultSpzReader.convert(section, rangeHeader, raw, g,
+                    converter, s, e);
+            });
+        }
+        return g;
+    }
+
+    /**
+     * Read the specified range of points from a file that does not contain
+     * an index, by reading the whole file
+     *
+     * @param start The index of the first point, inclusive
+     * @param end The index of the last point, exclusive
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs, or the data is not valid
+     */
+    private GaussianCloud readWithoutIndex(int start, int end)
+        throws IOException
+    {
+        channel.position(0);
+        SpzReader spzReader = new DefaultSpzReader(options);
+        GaussianCloud g = spzReader.read(Channels.newInputStream(channel));
+        if (start == 0 && end == g.getNumPoints())
+        {
+            return g;
+        }
+        int indices[] = new int[end - start];
+        Arrays.setAll(indices, i -> start + i);
+        return GaussianClouds.subset(g, indices);
+    }
+
+    /**
+     * Read and inflate the specified block
+     *
+     * @param block The block index
+     * @param expectedLength The expected length of the uncompressed data
+     * @return The uncompressed data
+     * @throws IOException If an IO error occurs, or the block is not valid
+     */
+    private byte[] inflateBlock(int block, int expectedLength)
+        throws IOException
+    {
+        ByteBuffer compressed = SpzIndex.read(channel,
+            index.getOffset(block), index.getLength(block));
+        byte result[] = new byte[expectedLength];
+        Inflater inflater = new Inflater(true);
+        try
+        {
+            inflater.setInput(compressed.array());
+            int offset = 0;
+            while (offset < expectedLength)
+            {
+                int n = inflater.inflate(result, offset,
+                    expectedLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.finished()
+                    || inflater.needsDictionary()))
+                {
+                    throw new IOException("Expected " + expectedLength
+                        + " bytes in block " + block + ", but found "
+                        + offset);
+                }
+                offset += n;
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Invalid data in block " + block, e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(result);
+        if ((int) crc.getValue() != index.getCrc(block))
+        {
+            throw new IOException("Checksum mismatch in block " + block);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * A class for merging multiple SPZ inputs into a single SPZ output, without
+ * creating {@link GaussianCloud} objects.
+ *
+ * The merger operates on the raw (quantized) data of the sections, and
+ * writes the sections of all inputs one after another. The output uses the
+ * highest version, the highest spherical harmonics degree, and the lowest
+ * number of fractional bits of all inputs. The data of an input is only
+ * converted when its encoding differs from that of the output: The positions
+ * are requantized when the number of fractional bits differ, the rotations
+ * are converted when the versions differ, and the spherical harmonics are
+ * padded with zeros when the degrees differ.
+ *
+ * All inputs are opened at the same time, and their sections are processed
+ * in chunks of a fixed size, so the memory that is required does not depend
+ * on the size of the data.
+ */
+public final class SpzMerger
+{
+    /**
+     * The compression level
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Creates a new instance
+     */
+    public SpzMerger()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Set the compression level that is used for the GZIP compression.
+     *
+     * The compression level is a value between 0 (no compression) and 9
+     * (best compression), or -1 for the default compression level of the
+     * <code>java.util.zip.Deflater</code>, which is also the default value.
+     *
+     * @param compressionLevel The compression level
+     * @throws IllegalArgumentException If the compression level is not in
+     *         [0,9] and not -1
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        SpzGZIPOutputStream.validateCompressionLevel(compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the compression level that is used for the GZIP compression
+     *
+     * @return The compression level
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Read the SPZ data from the given input streams, and write the merged
+     * data into the given output stream.
+     *
+     * The caller is responsible for closing the given streams.
+     *
+     * @param spzInputStreams The input streams
+     * @param spzOutputStream The output stream
+     * @throws IOException If an IO error occurs, if any input is not valid
+     *         SPZ data, if the inputs have different antialiasing flags, or
+     *         if the total number of points is too large
+     * @throws IllegalArgumentException If the given list is empty
+     */
+    public void merge(List<? extends InputStream> spzInputStreams,
+        OutputStream spzOutputStream) throws IOException
+    {
+        if (spzInputStreams.isEmpty())
+        {
+            throw new IllegalArgumentException("No inputs have been given");
+        }
+        List<SpzGZIPInputStream> gzipInputStreams = new ArrayList<>();
+        SpzGZIPOutputStream gzipOutputStream = null;
+        try
+        {
+            List<DataInputStream> dataInputs = new ArrayList<>();
+            List<SpzHeader> inputHeaders = new ArrayList<>();
+            for (InputStream spzInputStream : spzInputStreams)
+            {
+                SpzGZIPInputStream gzipInputStream =
+                    new SpzGZIPInputStream(spzInputStream);
+                gzipInputStreams.add(gzipInputStream);
+                DataInputStream dataInput =
+                    new DataInputStream(gzipInputStream);
+                dataInputs.add(dataInput);
+                byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
+                dataInput.readFully(headerBytes);
+                inputHeaders.add(SpzHeader.fromBytes(headerBytes));
+            }
+            SpzHeader outputHeader = createOutputHeader(inputHeaders);
+            CoordinateSystems.CoordinateConverter converter =
+                CoordinateSystems.coordinateConverter(
+                    CoordinateSystem.UNSPECIFIED,
+                    CoordinateSystem.UNSPECIFIED);
+
+            gzipOutputStream =
+                new SpzGZIPOutputStream(spzOutputStream, compressionLevel);
+            DataOutputStream dataOutput =
+                new DataOutputStream(gzipOutputStream);
+            dataOutput.write(outputHeader.toBytes());
+
+            for (SpzSection section : SpzSection.values())
+            {
+                for (int i = 0; i < dataInputs.size(); i++)
+                {
+                    SpzHeader inputHeader = inputHeaders.get(i);
+                    SpzHeader sectionOutputHeader = new SpzHeader(
+                        outputHeader.version, inputHeader.numPoints,
+                        outputHeader.shDegree, outputHeader.fractionalBits,
+                        outputHeader.flags);
+                    RawSections.transfer(section, dataInputs.get(i),
+                        inputHeader, dataOutput, sectionOutputHeader,
+                        converter);
+                }
+            }
+            dataOutput.flush();
+            gzipOutputStream.finish();
+            gzipOutputStream.flush();
+        }
+        finally
+        {
+            for (SpzGZIPInputStream gzipInputStream : gzipInputStreams)
+            {
+                gzipInputStream.release();
+            }
+            if (gzipOutputStream != null)
+            {
+                gzipOutputStream.release();
+            }
+        }
+    }
+
+    /**
+     * Create the header for the merged output of inputs with the given
+     * headers
+     *
+     * @param inputHeaders The input headers
+     * @return The output header
+     * @throws IOException If the inputs have different antialiasing flags,
+     *         or if the total number of points is too large
+     */
+    private static SpzHeader createOutputHeader(List<SpzHeader> inputHeaders)
+        throws IOException
+    {
+        SpzHeader first = inputHeaders.get(0);
+        int version = first.version;
+        long numPoints = 0;
+        int shDegree = first.shDegree;
+        int fractionalBits = first.fractionalBits;
+        for (SpzHeader inputHeader : inputHeaders)
+        {
+            if (inputHeader.isAntialiased() != first.isAntialiased())
+            {
+                throw new IOException("Cannot merge inputs with different "
+                    + "antialiasing flags");
+            }
+            version = Math.max(version, inputHeader.version);
+            numPoints += inputHeader.numPoints;
+            shDegree = Math.max(shDegree, inputHeader.shDegree);
+            fractionalBits =
+                Math.min(fractionalBits, inputHeader.fractionalBits);
+        }
+        if (numPoints > Integer.MAX_VALUE)
+        {
+            throw new IOException("The total number of points is "
+                + numPoints + ", which is too large");
+        }
+        return new SpzHeader(version, (int) numPoints, shDegree,
+            fractionalBits, first.flags);
+    }
+}
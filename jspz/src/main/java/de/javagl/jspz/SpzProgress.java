@@ -0,0 +1,124 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Internal class for tracking the progress of reading or writing SPZ data,
+ * and for checking whether the operation was cancelled.
+ * 
+ * The progress of each section is weighted with the size of the section.
+ */
+class SpzProgress
+{
+    /**
+     * The {@link SpzProgressListener}. May be <code>null</code>.
+     */
+    private final SpzProgressListener progressListener;
+
+    /**
+     * The {@link SpzCancellation}. May be <code>null</code>.
+     */
+    private final SpzCancellation cancellation;
+
+    /**
+     * The message for the exception that is thrown when the operation was
+     * cancelled
+     */
+    private final String cancellationMessage;
+
+    /**
+     * The total number of bytes of all sections
+     */
+    private final long totalBytes;
+
+    /**
+     * The number of bytes of all completed sections
+     */
+    private long completedBytes;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param progressListener The {@link SpzProgressListener}. May be
+     *        <code>null</code>.
+     * @param cancellation The {@link SpzCancellation}. May be
+     *        <code>null</code>.
+     * @param cancellationMessage The message for the exception that is thrown
+     *        when the operation was cancelled
+     * @param header The {@link SpzHeader}
+     */
+    SpzProgress(SpzProgressListener progressListener,
+        SpzCancellation cancellation, String cancellationMessage,
+        SpzHeader header)
+    {
+        this.progressListener = progressListener;
+        this.cancellation = cancellation;
+        this.cancellationMessage = cancellationMessage;
+        long total = 0;
+        for (SpzSection section : SpzSection.values())
+        {
+            total += section.byteLength(header);
+        }
+        this.totalBytes = total;
+    }
+
+    /**
+     * Check whether the operation was cancelled
+     * 
+     * @throws InterruptedIOException If the operation was cancelled
+     */
+    void checkCancelled() throws InterruptedIOException
+    {
+        if (cancellation != null && cancellation.isCancelled())
+        {
+            throw new InterruptedIOException(cancellationMessage);
+        }
+    }
+
+    /**
+     * Report the progress for the given section, after checking whether the
+     * operation was cancelled
+     * 
+     * @param section The {@link SpzSection}
+     * @param sectionBytes The total number of bytes of the section
+     * @param sectionProgress The progress of the section, in [0,1]
+     * @throws InterruptedIOException If the operation was cancelled
+     */
+    void update(SpzSection section, long sectionBytes,
+        double sectionProgress) throws InterruptedIOException
+    {
+        checkCancelled();
+        if (progressListener != null)
+        {
+            double totalProgress = 1.0;
+            if (totalBytes > 0)
+            {
+                totalProgress =
+                    (completedBytes + sectionProgress * sectionBytes)
+                        / totalBytes;
+            }
+            progressListener.progressChanged(section, sectionProgress,
+                totalProgress);
+        }
+    }
+
+    /**
+     * Mark a section with the given size as completed. The completion itself
+     * is not reported to the listener, because the last call to
+     * {@link #update(SpzSection, long, double)} for the section already
+     * reported a progress of 1.0.
+     * 
+     * @param sectionBytes The total number of bytes of the section
+     * @throws InterruptedIOException If the operation was cancelled
+     */
+    void completed(long sectionBytes) throws InterruptedIOException
+    {
+        checkCancelled();
+        completedBytes += sectionBytes;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * Interface for classes that want to be informed about the progress of
+ * reading or writing SPZ data.
+ *
+ * Instances of this class can be passed to {@link SpzReaderOptions} and
+ * {@link SpzWriterOptions}. The listener will be called by the thread that
+ * is reading or writing the data.
+ */
+public interface SpzProgressListener
+{
+    /**
+     * Will be called when the progress of reading or writing changed
+     * 
+     * @param section The {@link SpzSection} that is currently processed
+     * @param sectionProgress The progress for the current section, in [0,1]
+     * @param totalProgress The total progress, in [0,1]
+     */
+    void progressChanged(SpzSection section, double sectionProgress,
+        double totalProgress);
+}
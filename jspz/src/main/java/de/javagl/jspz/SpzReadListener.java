@@ -0,0 +1,22 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * Interface for classes that want to be informed about the details of
+ * reading SPZ data.
+ *
+ * Instances of this class can be passed to {@link SpzReaderOptions}.
+ */
+public interface SpzReadListener
+{
+    /**
+     * Will be called when reading SPZ data was completed
+     * 
+     * @param statistics The {@link SpzStatistics}
+     */
+    void readCompleted(SpzStatistics statistics);
+}
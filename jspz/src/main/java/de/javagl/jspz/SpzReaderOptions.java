@@ -0,0 +1,246 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.Objects;
+
+/**
+ * Options for an {@link SpzReader}.
+ *
+ * Instances of this class can be passed to
+ * {@link SpzReaders#create(SpzReaderOptions)}. The reader will use a copy of
+ * the options, so later changes of the options will not affect the reader.
+ */
+public final class SpzReaderOptions
+{
+    /**
+     * The {@link SpzReadListener}
+     */
+    private SpzReadListener readListener;
+
+    /**
+     * The {@link SpzProgressListener}
+     */
+    private SpzProgressListener progressListener;
+
+    /**
+     * The {@link SpzCancellation}
+     */
+    private SpzCancellation cancellation;
+
+    /**
+     * The source {@link CoordinateSystem}
+     */
+    private CoordinateSystem sourceCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * The target {@link CoordinateSystem}
+     */
+    private CoordinateSystem targetCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * The maximum spherical harmonics degree
+     */
+    private int maxShDegree = 3;
+
+    /**
+     * Whether {@link GaussianCloudStatistics} should be collected
+     */
+    private boolean collectingCloudStatistics;
+
+    /**
+     * Creates new options with default values
+     */
+    public SpzReaderOptions()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Creates a copy of the given options
+     *
+     * @param other The other options
+     */
+    SpzReaderOptions(SpzReaderOptions other)
+    {
+        this.readListener = other.readListener;
+        this.progressListener = other.progressListener;
+        this.cancellation = other.cancellation;
+        this.sourceCoordinateSystem = other.sourceCoordinateSystem;
+        this.targetCoordinateSystem = other.targetCoordinateSystem;
+        this.maxShDegree = other.maxShDegree;
+        this.collectingCloudStatistics = other.collectingCloudStatistics;
+    }
+
+    /**
+     * Set the {@link SpzReadListener} that will be informed about the
+     * statistics of each read operation.
+     *
+     * @param readListener The listener. May be <code>null</code>.
+     */
+    public void setReadListener(SpzReadListener readListener)
+    {
+        this.readListener = readListener;
+    }
+
+    /**
+     * Returns the {@link SpzReadListener}
+     *
+     * @return The listener. May be <code>null</code>.
+     */
+    public SpzReadListener getReadListener()
+    {
+        return readListener;
+    }
+
+    /**
+     * Set the {@link SpzProgressListener} that will be informed about the
+     * progress of reading.
+     *
+     * @param progressListener The listener. May be <code>null</code>.
+     */
+    public void setProgressListener(SpzProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Returns the {@link SpzProgressListener}
+     *
+     * @return The listener. May be <code>null</code>.
+     */
+    public SpzProgressListener getProgressListener()
+    {
+        return progressListener;
+    }
+
+    /**
+     * Set the {@link SpzCancellation} that allows cancelling reading.
+     *
+     * @param cancellation The {@link SpzCancellation}. May be
+     *        <code>null</code>.
+     */
+    public void setCancellation(SpzCancellation cancellation)
+    {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Returns the {@link SpzCancellation}
+     *
+     * @return The {@link SpzCancellation}. May be <code>null</code>.
+     */
+    public SpzCancellation getCancellation()
+    {
+        return cancellation;
+    }
+
+    /**
+     * Set the coordinate systems for a conversion that is applied while
+     * the data is read.
+     *
+     * The source coordinate system is the one of the SPZ data, and the target
+     * coordinate system is the one of the resulting {@link GaussianCloud}.
+     * The conversion is applied while the data is dequantized, and yields the
+     * same result as calling
+     * {@link CoordinateSystems#convertCoordinates(GaussianCloud,
+     * CoordinateSystem, CoordinateSystem)} on the result. By default, both
+     * coordinate systems are {@link CoordinateSystem#UNSPECIFIED}, meaning
+     * that no conversion takes place.
+     *
+     * @param from The source {@link CoordinateSystem}
+     * @param to The target {@link CoordinateSystem}
+     * @throws NullPointerException If any argument is <code>null</code>
+     */
+    public void setCoordinateConversion(CoordinateSystem from,
+        CoordinateSystem to)
+    {
+        this.sourceCoordinateSystem = Objects.requireNonNull(from,
+            "The from coordinate system may not be null");
+        this.targetCoordinateSystem = Objects.requireNonNull(to,
+            "The to coordinate system may not be null");
+    }
+
+    /**
+     * Returns the source {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getSourceCoordinateSystem()
+    {
+        return sourceCoordinateSystem;
+    }
+
+    /**
+     * Returns the target {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getTargetCoordinateSystem()
+    {
+        return targetCoordinateSystem;
+    }
+
+    /**
+     * Set the maximum spherical harmonics degree of the {@link GaussianCloud}
+     * objects that are read.
+     *
+     * If the SPZ data has a higher degree, then only the coefficients of the
+     * lower bands will be read into the {@link GaussianCloud}. The default
+     * value is 3, meaning that all coefficients are read.
+     *
+     * @param maxShDegree The maximum degree, in [0,3]
+     * @throws IllegalArgumentException If the degree is not in [0,3]
+     */
+    public void setMaxShDegree(int maxShDegree)
+    {
+        if (maxShDegree < 0 || maxShDegree > 3)
+        {
+            throw new IllegalArgumentException(
+                "The degree must be in [0,3], but is " + maxShDegree);
+        }
+        this.maxShDegree = maxShDegree;
+    }
+
+    /**
+     * Returns the maximum spherical harmonics degree
+     *
+     * @return The maximum degree
+     */
+    public int getMaxShDegree()
+    {
+        return maxShDegree;
+    }
+
+    /**
+     * Set whether {@link GaussianCloudStatistics} should be collected while
+     * the data is read.
+     *
+     * The statistics are collected while each section is dequantized, and
+     * are passed to the {@link SpzReadListener}, as part of the
+     * {@link SpzStatistics#getCloudStatistics()}. The default value is
+     * <code>false</code>.
+     *
+     * @param collectingCloudStatistics Whether statistics are collected
+     */
+    public void setCollectingCloudStatistics(
+        boolean collectingCloudStatistics)
+    {
+        this.collectingCloudStatistics = collectingCloudStatistics;
+    }
+
+    /**
+     * Returns whether {@link GaussianCloudStatistics} are collected
+     *
+     * @return Whether statistics are collected
+     */
+    public boolean isCollectingCloudStatistics()
+    {
+        return collectingCloudStatistics;
+    }
+}
@@ -42,6 +42,18 @@ public class SpzReaders
         return new DefaultSpzReader();
     }
 
+    /**
+     * Create an {@link SpzReader} that can read SPZ data up to the latest
+     * supported version, using the given options.
+     * 
+     * @param options The {@link SpzReaderOptions}
+     * @return The {@link SpzReader}
+     */
+    public static SpzReader create(SpzReaderOptions options)
+    {
+        return new DefaultSpzReader(options);
+    }
+
     /**
      * Create a default {@link SpzReader} for SPZ version 2.
      * 
@@ -0,0 +1,85 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * The sections of the SPZ data, in the order in which they appear after the
+ * header.
+ */
+public enum SpzSection
+{
+    /**
+     * The positions, as 24 bit fixed point values
+     */
+    POSITIONS,
+
+    /**
+     * The alpha values
+     */
+    ALPHAS,
+
+    /**
+     * The colors
+     */
+    COLORS,
+
+    /**
+     * The scales
+     */
+    SCALES,
+
+    /**
+     * The rotations, with an encoding that depends on the version
+     */
+    ROTATIONS,
+
+    /**
+     * The spherical harmonics
+     */
+    SH;
+
+    /**
+     * Returns the number of bytes that one point occupies in this section
+     *
+     * @param version The SPZ version
+     * @param shDegree The spherical harmonics degree
+     * @return The number of bytes
+     */
+    int bytesPerPoint(int version, int shDegree)
+    {
+        switch (this)
+        {
+            case POSITIONS:
+                return 9;
+            case ALPHAS:
+                return 1;
+            case COLORS:
+                return 3;
+            case SCALES:
+                return 3;
+            case ROTATIONS:
+                return version == 2 ? 3 : 4;
+            case SH:
+                return SpzUtils.dimensionsForDegree(shDegree) * 3;
+            default:
+                break;
+        }
+        throw new IllegalStateException("Invalid section: " + this);
+    }
+
+    /**
+     * Returns the number of bytes that this section occupies for the given
+     * header.
+     *
+     * @param header The {@link SpzHeader}
+     * @return The number of bytes
+     */
+    long byteLength(SpzHeader header)
+    {
+        int bytesPerPoint = bytesPerPoint(header.version, header.shDegree);
+        return (long) header.numPoints * bytesPerPoint;
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+
+/**
+ * An experimental {@link SpzReader} that decompresses ordinary SPZ data
+ * (consisting of a single gzip member) in parallel, using speculative
+ * decompression.
+ *
+ * The compressed data is split into chunks at guessed offsets. For each
+ * chunk, the start of the first deflate block after the guessed offset is
+ * searched, and the chunks are decompressed in parallel, starting at these
+ * positions. Back-references into the data of the preceding chunk are
+ * recorded as markers, and replaced once the data of the preceding chunk
+ * is known. When a chunk is decoded past the start of the next chunk,
+ * then this start was not an actual block start, and the chunk is merged
+ * with the next one. The result is verified with the CRC32 and the size
+ * that are stored in the gzip trailer.
+ *
+ * Whenever the speculation fails, the data does not consist of enough
+ * chunks, or the result cannot be verified, the data is read with a
+ * default {@link SpzReader}. The decompression is implemented in Java,
+ * and is slower than the native decompression on a single core, so this
+ * is only beneficial when several cores are available.
+ *
+ * The whole compressed data is read into memory. When the speculative
+ * decompression succeeds, only the coordinate conversion and the maximum
+ * spherical harmonics degree of the {@link SpzReaderOptions} are used.
+ *
+ * Instances of this class are not thread-safe.
+ */
+public final class SpzSpeculativeReader implements SpzReader
+{
+    /**
+     * The default number of compressed bytes in one chunk
+     */
+    private static final int DEFAULT_CHUNK_LENGTH = 1 << 22;
+
+    /**
+     * The maximum length of the decompressed data
+     */
+    private static final int MAX_OUTPUT = Integer.MAX_VALUE - 8;
+
+    /**
+     * The length of the gzip trailer
+     */
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    /**
+     * The {@link SpzReaderOptions}
+     */
+    private final SpzReaderOptions options;
+
+    /**
+     * The number of compressed bytes in one chunk
+     */
+    private int chunkLength = DEFAULT_CHUNK_LENGTH;
+
+    /**
+     * Creates a new instance with default options
+     */
+    public SpzSpeculativeReader()
+    {
+        this(new SpzReaderOptions());
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param options The {@link SpzReaderOptions}
+     */
+    public SpzSpeculativeReader(SpzReaderOptions options)
+    {
+        this.options = new SpzReaderOptions(options);
+    }
+
+    /**
+     * Set the number of compressed bytes in one chunk. Data that does not
+     * consist of at least two chunks is read with a default
+     * {@link SpzReader}. The default value is 4 MB.
+     *
+     * @param chunkLength The chunk length
+     * @throws IllegalArgumentException If the given length is smaller than
+     *         the size of the deflate window (32 KB)
+     */
+    public void setChunkLength(int chunkLength)
+    {
+        if (chunkLength < DeflateDecoder.WINDOW_SIZE)
+        {
+            throw new IllegalArgumentException("The chunk length must be at "
+                + "least " + DeflateDecoder.WINDOW_SIZE + ", but is "
+                + chunkLength);
+        }
+        this.chunkLength = chunkLength;
+    }
+
+    /**
+     * Returns the number of compressed bytes in one chunk
+     *
+     * @return The chunk length
+     */
+    public int getChunkLength()
+    {
+        return chunkLength;
+    }
+
+    @Override
+    public GaussianCloud read(InputStream spzInputStream) throws IOException
+    {
+        byte data[] = readFully(spzInputStream);
+        byte uncompressed[] = inflate(data, chunkLength);
+        if (uncompressed != null)
+        {
+            GaussianCloud g = decode(uncompressed);
+            if (g != null)
+            {
+                return g;
+            }
+        }
+        SpzReader spzReader = new DefaultSpzReader(options);
+        return spzReader.read(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Create the {@link GaussianCloud} from the given uncompressed SPZ data
+     *
+     * @param uncompressed The uncompressed data
+     * @return The {@link GaussianCloud}, or <code>null</code> if the data
+     *         is shorter than indicated by its header
+     * @throws IOException If the data is not valid
+     */
+    private GaussianCloud decode(byte uncompressed[]) throws IOException
+    {
+        if (uncompressed.length < SpzHeader.BYTE_LENGTH)
+        {
+            return null;
+        }
+        SpzHeader header = SpzHeader.fromBytes(
+            Arrays.copyOf(uncompressed, SpzHeader.BYTE_LENGTH));
+        long required = SpzHeader.BYTE_LENGTH;
+        for (SpzSection section : SpzSection.values())
+        {
+            required += DefaultSpzReader.byteLength(section, header);
+        }
+        if (uncompressed.length < required)
+        {
+            return null;
+        }
+
+        int numPoints = header.numPoints;
+        int shDegree = Math.min(header.shDegree, options.getMaxShDegree());
+        DefaultGaussianCloud g = new DefaultGaussianCloud(numPoints,
+            shDegree, header.isAntialiased());
+        CoordinateSystems.CoordinateConverter converter =
+            CoordinateSystems.coordinateConverter(
+                options.getSourceCoordinateSystem(),
+                options.getTargetCoordinateSystem());
+        int offset = SpzHeader.BYTE_LENGTH;
+        for (SpzSection section : SpzSection.values())
+        {
+            int length = DefaultSpzReader.byteLength(section, header);
+            byte raw[] =
+                Arrays.copyOfRange(uncompressed, offset, offset + length);
+            offset += length;
+            Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+            {
+                DefaultSpzReader.convert(section, header, raw, g, converter,
+                    start, end);
+            });
+        }
+        return g;
+    }
+
+    /**
+     * Speculatively decompress the first gzip member of the given data in
+     * parallel.
+     *
+     * @param data The compressed data
+     * @param chunkLength The number of compressed bytes in one chunk
+     * @return The uncompressed data, or <code>null</code> if the data could
+     *         not be decompressed speculatively
+     */
+    static byte[] inflate(byte data[], int chunkLength)
+    {
+        int deflateStart = skipGzipHeader(data);
+        if (deflateStart < 0)
+        {
+            return null;
+        }
+        int end = data.length;
+        long compressedLength = end - GZIP_TRAILER_LENGTH - deflateStart;
+        int numGuesses = (int) (compressedLength / chunkLength);
+        if (numGuesses < 2)
+        {
+            return null;
+        }
+
+        // Find the block starts after the guessed offsets in parallel
+        long guesses[] = new long[numGuesses + 1];
+        for (int i = 0; i <= numGuesses; i++)
+        {
+            long offset = deflateStart + compressedLength * i / numGuesses;
+            guesses[i] = offset * 8;
+        }
+        long found[] = new long[numGuesses];
+        found[0] = guesses[0];
+        Parallel.forEachChunk(numGuesses - 1, 1, (chunkIndex, s, e) ->
+        {
+            int i = chunkIndex + 1;
+            found[i] = DeflateDecoder.findBlockStart(data, end, guesses[i],
+                guesses[i + 1], MAX_OUTPUT);
+        });
+        long starts[] = Arrays.stream(found).filter(s -> s >= 0).toArray();
+        return inflate(data, starts);
+    }
+
+    /**
+     * Speculatively decompress the first gzip member of the given data in
+     * parallel, starting at the given block starts.
+     *
+     * The first block start must be the start of the deflate data. Each
+     * chunk is decoded until it reaches the start of a following chunk, or
+     * the end of the final block. When a chunk is decoded past the start of
+     * the next chunk, then this start was not an actual block start. The
+     * chunk is then merged with the next one, by decoding it further, and
+     * the data of the next chunk is discarded.
+     *
+     * @param data The compressed data
+     * @param starts The bit positions of the block starts
+     * @return The uncompressed data, or <code>null</code> if the data could
+     *         not be decompressed speculatively
+     */
+    static byte[] inflate(byte data[], long starts[])
+    {
+        int end = data.length;
+        int numChunks = starts.length;
+        if (numChunks < 2)
+        {
+            return null;
+        }
+
+        // Decode the chunks in parallel, each one up to the start of a
+        // following one, or to the end of the final block. The index of
+        // the chunk that follows each chunk is stored in successors, and
+        // is numChunks if the chunk ended with the final block, or -1
+        // if the chunk could not be decoded.
+        char outputs[][] = new char[numChunks][];
+        int lengths[] = new int[numChunks];
+        long ends[] = new long[numChunks];
+        int successors[] = new int[numChunks];
+        AtomicBoolean failed = new AtomicBoolean();
+        Parallel.forEachChunk(numChunks, 1, (chunkIndex, s, e) ->
+        {
+            DeflateDecoder decoder =
+                new DeflateDecoder(data, end, MAX_OUTPUT);
+            int successor = -1;
+            try
+            {
+                decoder.setPosition(starts[chunkIndex]);
+                int next = chunkIndex + 1;
+                while (!failed.get())
+                {
+                    boolean finalBlock = decoder.decodeBlock(chunkIndex > 0);
+                    if (finalBlock)
+                    {
+                        successor = numChunks;
+                        break;
+                    }
+                    long position = decoder.getPosition();
+                    while (next < numChunks && starts[next] < position)
+                    {
+                        next++;
+                    }
+                    if (next < numChunks && starts[next] == position)
+                    {
+                        successor = next;
+                        break;
+                    }
+                }
+            }
+            catch (DataFormatException ex)
+            {
+                // The chunk does not start at an actual block start
+                // (unless it is the first one)
+                if (chunkIndex == 0)
+                {
+                    failed.set(true);
+                }
+            }
+            outputs[chunkIndex] = decoder.getOutput();
+            lengths[chunkIndex] = decoder.getOutputLength();
+            ends[chunkIndex] = decoder.getPosition();
+            successors[chunkIndex] = successor;
+        });
+        if (failed.get())
+        {
+            return null;
+        }
+
+        // Collect the chunks that are part of the actual data, starting
+        // with the first one, and following the successors
+        int chain[] = new int[numChunks];
+        int chainLength = 0;
+        int current = 0;
+        while (current < numChunks)
+        {
+            if (successors[current] < 0)
+            {
+                return null;
+            }
+            chain[chainLength++] = current;
+            current = successors[current];
+        }
+        long totalLength = 0;
+        for (int i = 0; i < chainLength; i++)
+        {
+            totalLength += lengths[chain[i]];
+        }
+        int lastChunk = chain[chainLength - 1];
+        int trailer = (int) ((ends[lastChunk] + 7) / 8);
+        if (totalLength > MAX_OUTPUT
+            || trailer + GZIP_TRAILER_LENGTH > data.length)
+        {
+            return null;
+        }
+
+        // Compute the window for each chunk, which are the last bytes
+        // of the data that precedes the chunk
+        byte windows[][] = new byte[chainLength][];
+        windows[0] = new byte[DeflateDecoder.WINDOW_SIZE];
+        for (int i = 0; i < chainLength - 1; i++)
+        {
+            int c = chain[i];
+            byte window[] = windows[i];
+            byte next[] = new byte[DeflateDecoder.WINDOW_SIZE];
+            int n = Math.min(lengths[c], DeflateDecoder.WINDOW_SIZE);
+            System.arraycopy(window, n, next, 0, next.length - n);
+            DeflateDecoder.resolve(outputs[c], lengths[c] - n, lengths[c],
+                window, next, next.length - n);
+            windows[i + 1] = next;
+        }
+
+        // Replace the markers in all chunks in parallel
+        byte result[] = new byte[(int) totalLength];
+        int offsets[] = new int[chainLength];
+        for (int i = 1; i < chainLength; i++)
+        {
+            offsets[i] = offsets[i - 1] + lengths[chain[i - 1]];
+        }
+        Parallel.forEachChunk(chainLength, 1, (chainIndex, s, e) ->
+        {
+            int c = chain[chainIndex];
+            DeflateDecoder.resolve(outputs[c], 0, lengths[c],
+                windows[chainIndex], result, offsets[chainIndex]);
+            outputs[c] = null;
+        });
+
+        // Verify the result with the trailer
+        CRC32 crc = new CRC32();
+        crc.update(result, 0, result.length);
+        long expectedCrc = readUnsignedInt(data, trailer);
+        long expectedSize = readUnsignedInt(data, trailer + 4);
+        if (crc.getValue() != expectedCrc
+            || (result.length & 0xFFFFFFFFL) != expectedSize)
+        {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset of the deflate data in the given gzip data
+     *
+     * @param data The gzip data
+     * @return The offset, or -1 if the data does not start with a valid
+     *         gzip header
+     */
+    private static int skipGzipHeader(byte data[])
+    {
+        if (data.length < 10 || (data[0] & 0xFF) != 0x1F
+            || (data[1] & 0xFF) != 0x8B || data[2] != 8)
+        {
+            return -1;
+        }
+        int flags = data[3] & 0xFF;
+        long offset = 10;
+        if ((flags & 4) != 0)
+        {
+            if (offset + 2 > data.length)
+            {
+                return -1;
+            }
+            int extraLength = (data[(int) offset] & 0xFF)
+                | ((data[(int) offset + 1] & 0xFF) << 8);
+            offset += 2 + extraLength;
+        }
+        for (int flag : new int[] { 8, 16 })
+        {
+            if ((flags & flag) != 0)
+            {
+                while (offset < data.length && data[(int) offset] != 0)
+                {
+                    offset++;
+                }
+                offset++;
+            }
+        }
+        if ((flags & 2) != 0)
+        {
+            offset += 2;
+        }
+        if (offset > data.length)
+        {
+            return -1;
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Read an unsigned little endian 32 bit value from the given data
+     *
+     * @param data The data
+     * @param offset The offset
+     * @return The value
+     */
+    private static long readUnsignedInt(byte data[], int offset)
+    {
+        return (data[offset] & 0xFFL) | ((data[offset + 1] & 0xFFL) << 8)
+            | ((data[offset + 2] & 0xFFL) << 16)
+            | ((data[offset + 3] & 0xFFL) << 24);
+    }
+
+    /**
+     * Read all bytes from the given input stream
+     *
+     * @param inputStream The input stream
+     * @return The bytes
+     * @throws IOException If an IO error occurs, or the data is too large
+     *         to be stored in an array
+     */
+    private static byte[] readFully(InputStream inputStream)
+        throws IOException
+    {
+        byte data[] = new byte[1 << 16];
+        int length = 0;
+        while (true)
+        {
+            if (length == data.length)
+            {
+                if (length == MAX_OUTPUT)
+                {
+                    throw new IOException("The SPZ data is too large");
+                }
+                long newLength = Math.min(MAX_OUTPUT, (long) length * 2);
+                data = Arrays.copyOf(data, (int) newLength);
+            }
+            int n = inputStream.read(data, length, data.length - length);
+            if (n < 0)
+            {
+                break;
+            }
+            length += n;
+        }
+        return Arrays.copyOf(data, length);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.Locale;
+
+/**
+ * Statistics about a single read- or write operation of SPZ data.
+ *
+ * For read operations, the "codec" time is the time that was spent for
+ * reading and inflating the data, and the "conversion" time is the time that
+ * was spent for converting the quantized data into the {@link GaussianCloud}.
+ * For write operations, the "codec" time is the time that was spent for
+ * deflating and writing the data, and the "conversion" time is the time that
+ * was spent for quantizing the data from the {@link GaussianCloud}.
+ *
+ * The number of compressed bytes for a section is the number of bytes that
+ * the inflater consumed, or the deflater produced, while processing the
+ * section. Since the deflater may keep data internally, this is only an
+ * approximation for write operations.
+ */
+public final class SpzStatistics
+{
+    /**
+     * The SPZ version
+     */
+    private final int version;
+
+    /**
+     * The number of points
+     */
+    private final int numPoints;
+
+    /**
+     * The spherical harmonics degree
+     */
+    private final int shDegree;
+
+    /**
+     * The number of compressed bytes, per section
+     */
+    private final long compressedBytes[];
+
+    /**
+     * The number of uncompressed bytes, per section
+     */
+    private final long uncompressedBytes[];
+
+    /**
+     * The time for compression or decompression, per section
+     */
+    private final long codecNanos[];
+
+    /**
+     * The time for quantization or dequantization, per section
+     */
+    private final long conversionNanos[];
+
+    /**
+     * The number of bytes that have been allocated
+     */
+    private long allocatedBytes;
+
+    /**
+     * The total duration of the operation
+     */
+    private long totalNanos;
+
+    /**
+     * The optional {@link GaussianCloudStatistics}
+     */
+    private GaussianCloudStatistics cloudStatistics;
+
+    /**
+     * Creates a new instance
+     *
+     * @param header The {@link SpzHeader}
+     */
+    SpzStatistics(SpzHeader header)
+    {
+        this.version = header.version;
+        this.numPoints = header.numPoints;
+        this.shDegree = header.shDegree;
+        int n = SpzSection.values().length;
+        this.compressedBytes = new long[n];
+        this.uncompressedBytes = new long[n];
+        this.codecNanos = new long[n];
+        this.conversionNanos = new long[n];
+    }
+
+    /**
+     * Add the given values for the given section
+     *
+     * @param section The {@link SpzSection}
+     * @param compressed The compressed bytes
+     * @param uncompressed The uncompressed bytes
+     * @param codec The time for compression or decompression
+     * @param conversion The time for quantization or dequantization
+     */
+    void add(SpzSection section, long compressed, long uncompressed,
+        long codec, long conversion)
+    {
+        int i = section.ordinal();
+        compressedBytes[i] += compressed;
+        uncompressedBytes[i] += uncompressed;
+        codecNanos[i] += codec;
+        conversionNanos[i] += conversion;
+    }
+
+    /**
+     * Add the given number of allocated bytes
+     *
+     * @param bytes The number of bytes
+     */
+    void addAllocatedBytes(long bytes)
+    {
+        allocatedBytes += bytes;
+    }
+
+    /**
+     * Set the total duration of the operation
+     *
+     * @param nanos The duration
+     */
+    void setTotalNanos(long nanos)
+    {
+        totalNanos = nanos;
+    }
+
+    /**
+     * Set the {@link GaussianCloudStatistics}
+     *
+     * @param cloudStatistics The {@link GaussianCloudStatistics}
+     */
+    void setCloudStatistics(GaussianCloudStatistics cloudStatistics)
+    {
+        this.cloudStatistics = cloudStatistics;
+    }
+
+    /**
+     * Returns the SPZ version
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return The number of points
+     */
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+
+    /**
+     * Returns the spherical harmonics degree of the SPZ data
+     *
+     * @return The degree
+     */
+    public int getShDegree()
+    {
+        return shDegree;
+    }
+
+    /**
+     * Returns the number of compressed bytes for the given section
+     *
+     * @param section The {@link SpzSection}
+     * @return The number of bytes
+     */
+    public long getCompressedBytes(SpzSection section)
+    {
+        return compressedBytes[section.ordinal()];
+    }
+
+    /**
+     * Returns the number of uncompressed bytes for the given section
+     *
+     * @param section The {@link SpzSection}
+     * @return The number of bytes
+     */
+    public long getUncompressedBytes(SpzSection section)
+    {
+        return uncompressedBytes[section.ordinal()];
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that was spent for inflating or
+     * deflating the given section
+     *
+     * @param section The {@link SpzSection}
+     * @return The time
+     */
+    public long getCodecNanos(SpzSection section)
+    {
+        return codecNanos[section.ordinal()];
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that was spent for dequantizing or
+     * quantizing the given section
+     *
+     * @param section The {@link SpzSection}
+     * @return The time
+     */
+    public long getConversionNanos(SpzSection section)
+    {
+        return conversionNanos[section.ordinal()];
+    }
+
+    /**
+     * Returns the total number of compressed bytes of all sections
+     *
+     * @return The number of bytes
+     */
+    public long getTotalCompressedBytes()
+    {
+        return sum(compressedBytes);
+    }
+
+    /**
+     * Returns the total number of uncompressed bytes of all sections,
+     * excluding the header
+     *
+     * @return The number of bytes
+     */
+    public long getTotalUncompressedBytes()
+    {
+        return sum(uncompressedBytes);
+    }
+
+    /**
+     * Returns the number of bytes that have been allocated for the buffers
+     * that have been used in the operation, including the buffers of a
+     * {@link GaussianCloud} that was read.
+     *
+     * @return The number of bytes
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, of the operation
+     *
+     * @return The time
+     */
+    public long getTotalNanos()
+    {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the {@link GaussianCloudStatistics} for the
+     * {@link GaussianCloud} that was read.
+     *
+     * These are only available for read operations when
+     * {@link SpzReaderOptions#setCollectingCloudStatistics(boolean)} was
+     * enabled.
+     *
+     * @return The {@link GaussianCloudStatistics}. May be <code>null</code>.
+     */
+    public GaussianCloudStatistics getCloudStatistics()
+    {
+        return cloudStatistics;
+    }
+
+    /**
+     * Returns the sum of the given values
+     *
+     * @param values The values
+     * @return The sum
+     */
+    private static long sum(long values[])
+    {
+        long sum = 0;
+        for (long v : values)
+        {
+            sum += v;
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SpzStatistics[version=").append(version);
+        sb.append(", numPoints=").append(numPoints);
+        sb.append(", shDegree=").append(shDegree);
+        sb.append(", allocatedBytes=").append(allocatedBytes);
+        sb.append(String.format(Locale.ENGLISH, ", totalMs=%.3f",
+            totalNanos * 1e-6));
+        for (SpzSection section : SpzSection.values())
+        {
+            int i = section.ordinal();
+            sb.append(String.format(Locale.ENGLISH,
+                ", %s=[compressed=%d, uncompressed=%d, "
+                    + "codecMs=%.3f, conversionMs=%.3f]",
+                section, compressedBytes[i], uncompressedBytes[i],
+                codecNanos[i] * 1e-6, conversionNanos[i] * 1e-6));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * A class for transcoding SPZ data between different versions, compression
+ * levels, or flags, without creating a {@link GaussianCloud}.
+ *
+ * The transcoder operates on the raw (quantized) data of the sections. The
+ * data of all sections except for the rotations is copied without any
+ * modification, so that no quantization error is introduced. Only the
+ * rotations are converted, if the versions use different encodings for
+ * the rotations. A coordinate system conversion is applied directly to
+ * the quantized values. When the version is not changed, and no coordinate
+ * system conversion is applied, then transcoding only consists of inflating
+ * and deflating the data, for example, to compress the data with a
+ * different compression level.
+ *
+ * The data is processed in chunks of a fixed size, so the memory that is
+ * required does not depend on the size of the data.
+ */
+public final class SpzTranscoder
+{
+    /**
+     * The version of the output data
+     */
+    private int version;
+
+    /**
+     * The compression level
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * The antialiasing flag for the output, or <code>null</code> if the
+     * flag of the input should be kept
+     */
+    private Boolean antialiased;
+
+    /**
+     * The source {@link CoordinateSystem}
+     */
+    private CoordinateSystem sourceCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * The target {@link CoordinateSystem}
+     */
+    private CoordinateSystem targetCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * Creates a new instance.
+     *
+     * By default, the latest supported SPZ version will be written.
+     */
+    public SpzTranscoder()
+    {
+        this.version = 3;
+    }
+
+    /**
+     * Set the SPZ version that should be written.
+     *
+     * @param version The version
+     * @throws IllegalArgumentException If the version is not 2 or 3
+     */
+    public void setVersion(int version)
+    {
+        if (version != 2 && version != 3)
+        {
+            throw new IllegalArgumentException(
+                "The version must be 2 or 3, but is " + version);
+        }
+        this.version = version;
+    }
+
+    /**
+     * Returns the SPZ version that will be written
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Set the compression level that is used for the GZIP compression.
+     *
+     * The compression level is a value between 0 (no compression) and 9
+     * (best compression), or -1 for the default compression level of the
+     * <code>java.util.zip.Deflater</code>, which is also the default value.
+     *
+     * @param compressionLevel The compression level
+     * @throws IllegalArgumentException If the compression level is not in
+     *         [0,9] and not -1
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        SpzGZIPOutputStream.validateCompressionLevel(compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the compression level that is used for the GZIP compression
+     *
+     * @return The compression level
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Set the antialiasing flag that should be written into the header of
+     * the output.
+     *
+     * If this is <code>null</code>, which is the default, then the flag of
+     * the input will be kept.
+     *
+     * @param antialiased The flag. May be <code>null</code>.
+     */
+    public void setAntialiased(Boolean antialiased)
+    {
+        this.antialiased = antialiased;
+    }
+
+    /**
+     * Returns the antialiasing flag that will be written into the header of
+     * the output, or <code>null</code> if the flag of the input will be kept.
+     *
+     * @return The flag. May be <code>null</code>.
+     */
+    public Boolean getAntialiased()
+    {
+        return antialiased;
+    }
+
+    /**
+     * Set the coordinate systems for a conversion that is applied to the
+     * data.
+     *
+     * The conversion only changes the signs of the quantized values, and is
+     * therefore lossless (except for the spherical harmonics coefficients
+     * with the smallest representable value, which are clamped to the
+     * largest representable value). By default, both coordinate systems are
+     * {@link CoordinateSystem#UNSPECIFIED}, meaning that no conversion takes
+     * place.
+     *
+     * @param from The source {@link CoordinateSystem}
+     * @param to The target {@link CoordinateSystem}
+     * @throws NullPointerException If any argument is <code>null</code>
+     */
+    public void setCoordinateConversion(CoordinateSystem from,
+        CoordinateSystem to)
+    {
+        this.sourceCoordinateSystem = Objects.requireNonNull(from,
+            "The from coordinate system may not be null");
+        this.targetCoordinateSystem = Objects.requireNonNull(to,
+            "The to coordinate system may not be null");
+    }
+
+    /**
+     * Returns the source {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getSourceCoordinateSystem()
+    {
+        return sourceCoordinateSystem;
+    }
+
+    /**
+     * Returns the target {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getTargetCoordinateSystem()
+    {
+        return targetCoordinateSystem;
+    }
+
+    /**
+     * Read the SPZ data from the given input stream, and write the transcoded
+     * data into the given output stream.
+     *
+     * The caller is responsible for closing the given streams.
+     *
+     * @param spzInputStream The input stream
+     * @param spzOutputStream The output stream
+     * @throws IOException If an IO error occurs, or the input data is not
+     *         valid SPZ data
+     */
+    public void transcode(InputStream spzInputStream,
+        OutputStream spzOutputStream) throws IOException
+    {
+        SpzGZIPInputStream gzipInputStream =
+            new SpzGZIPInputStream(spzInputStream);
+        SpzGZIPOutputStream gzipOutputStream = null;
+        try
+        {
+            DataInputStream dataInput = new DataInputStream(gzipInputStream);
+            byte headerBytes[] = new byte[SpzHeader.BYTE_LENGTH];
+            dataInput.readFully(headerBytes);
+            SpzHeader inputHeader = SpzHeader.fromBytes(headerBytes);
+            int flags = inputHeader.flags;
+            if (antialiased != null)
+            {
+                if (antialiased)
+                {
+                    flags |= SpzHeader.FLAG_ANTIALIASED;
+                }
+                else
+                {
+                    flags &= ~SpzHeader.FLAG_ANTIALIASED;
+                }
+            }
+            SpzHeader outputHeader = new SpzHeader(version,
+                inputHeader.numPoints, inputHeader.shDegree,
+                inputHeader.fractionalBits, flags);
+
+            CoordinateSystems.CoordinateConverter converter =
+                CoordinateSystems.coordinateConverter(sourceCoordinateSystem,
+                    targetCoordinateSystem);
+
+            gzipOutputStream =
+                new SpzGZIPOutputStream(spzOutputStream, compressionLevel);
+            DataOutputStream dataOutput =
+                new DataOutputStream(gzipOutputStream);
+            dataOutput.write(outputHeader.toBytes());
+
+            for (SpzSection section : SpzSection.values())
+            {
+                RawSections.transfer(section, dataInput, inputHeader,
+                    dataOutput, outputHeader, converter);
+            }
+            dataOutput.flush();
+            gzipOutputStream.finish();
+            gzipOutputStream.flush();
+        }
+        finally
+        {
+            gzipInputStream.release();
+            if (gzipOutputStream != null)
+            {
+                gzipOutputStream.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+/**
+ * Interface for classes that want to be informed about the details of
+ * writing SPZ data.
+ *
+ * Instances of this class can be passed to {@link SpzWriterOptions}.
+ */
+public interface SpzWriteListener
+{
+    /**
+     * Will be called when writing SPZ data was completed
+     * 
+     * @param statistics The {@link SpzStatistics}
+     */
+    void writeCompleted(SpzStatistics statistics);
+}
@@ -0,0 +1,327 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * Options for an {@link SpzWriter}.
+ *
+ * Instances of this class can be passed to
+ * {@link SpzWriters#create(SpzWriterOptions)}. The writer will use a copy of
+ * the options, so later changes of the options will not affect the writer.
+ */
+public final class SpzWriterOptions
+{
+    /**
+     * The SPZ version
+     */
+    private int version;
+
+    /**
+     * The compression level
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * The {@link SpzWriteListener}
+     */
+    private SpzWriteListener writeListener;
+
+    /**
+     * The {@link SpzProgressListener}
+     */
+    private SpzProgressListener progressListener;
+
+    /**
+     * The {@link SpzCancellation}
+     */
+    private SpzCancellation cancellation;
+
+    /**
+     * The source {@link CoordinateSystem}
+     */
+    private CoordinateSystem sourceCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * The target {@link CoordinateSystem}
+     */
+    private CoordinateSystem targetCoordinateSystem =
+        CoordinateSystem.UNSPECIFIED;
+
+    /**
+     * The maximum spherical harmonics degree
+     */
+    private int maxShDegree = 3;
+
+    /**
+     * The number of points in each block of an indexed SPZ file, or 0 if
+     * no index should be written
+     */
+    private int indexBlockSize;
+
+    /**
+     * Creates new options with default values.
+     *
+     * By default, the latest supported SPZ version will be written.
+     */
+    public SpzWriterOptions()
+    {
+        this.version = 3;
+    }
+
+    /**
+     * Creates a copy of the given options
+     *
+     * @param other The other options
+     */
+    SpzWriterOptions(SpzWriterOptions other)
+    {
+        this.version = other.version;
+        this.compressionLevel = other.compressionLevel;
+        this.writeListener = other.writeListener;
+        this.progressListener = other.progressListener;
+        this.cancellation = other.cancellation;
+        this.sourceCoordinateSystem = other.sourceCoordinateSystem;
+        this.targetCoordinateSystem = other.targetCoordinateSystem;
+        this.maxShDegree = other.maxShDegree;
+        this.indexBlockSize = other.indexBlockSize;
+    }
+
+    /**
+     * Set the SPZ version that should be written
+     *
+     * @param version The version
+     * @throws IllegalArgumentException If the version is not 2 or 3
+     */
+    public void setVersion(int version)
+    {
+        if (version != 2 && version != 3)
+        {
+            throw new IllegalArgumentException(
+                "The version must be 2 or 3, but is " + version);
+        }
+        this.version = version;
+    }
+
+    /**
+     * Returns the SPZ version that should be written
+     *
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Set the compression level that is used for the GZIP compression.
+     *
+     * The compression level is a value between 0 (no compression) and 9
+     * (best compression), or -1 for the default compression level of the
+     * <code>java.util.zip.Deflater</code>, which is also the default value.
+     *
+     * @param compressionLevel The compression level
+     * @throws IllegalArgumentException If the compression level is not in
+     *         [0,9] and not -1
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        SpzGZIPOutputStream.validateCompressionLevel(compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the compression level that is used for the GZIP compression
+     *
+     * @return The compression level
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Set the {@link SpzWriteListener} that will be informed about the
+     * statistics of each write operation.
+     *
+     * @param writeListener The listener. May be <code>null</code>.
+     */
+    public void setWriteListener(SpzWriteListener writeListener)
+    {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Returns the {@link SpzWriteListener}
+     *
+     * @return The listener. May be <code>null</code>.
+     */
+    public SpzWriteListener getWriteListener()
+    {
+        return writeListener;
+    }
+
+    /**
+     * Set the {@link SpzProgressListener} that will be informed about the
+     * progress of writing.
+     *
+     * @param progressListener The listener. May be <code>null</code>.
+     */
+    public void setProgressListener(SpzProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Returns the {@link SpzProgressListener}
+     *
+     * @return The listener. May be <code>null</code>.
+     */
+    public SpzProgressListener getProgressListener()
+    {
+        return progressListener;
+    }
+
+    /**
+     * Set the {@link SpzCancellation} that allows cancelling writing.
+     *
+     * @param cancellation The {@link SpzCancellation}. May be
+     *        <code>null</code>.
+     */
+    public void setCancellation(SpzCancellation cancellation)
+    {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Returns the {@link SpzCancellation}
+     *
+     * @return The {@link SpzCancellation}. May be <code>null</code>.
+     */
+    public SpzCancellation getCancellation()
+    {
+        return cancellation;
+    }
+
+    /**
+     * Set the coordinate systems for a conversion that is applied while
+     * the data is written.
+     *
+     * The source coordinate system is the one of the {@link GaussianCloud},
+     * and the target coordinate system is the one of the SPZ data. The
+     * conversion is applied while the data is quantized, so that the given
+     * {@link GaussianCloud} is not modified. By default, both coordinate
+     * systems are {@link CoordinateSystem#UNSPECIFIED}, meaning that no
+     * conversion takes place.
+     *
+     * @param from The source {@link CoordinateSystem}
+     * @param to The target {@link CoordinateSystem}
+     * @throws NullPointerException If any argument is <code>null</code>
+     */
+    public void setCoordinateConversion(CoordinateSystem from,
+        CoordinateSystem to)
+    {
+        this.sourceCoordinateSystem = Objects.requireNonNull(from,
+            "The from coordinate system may not be null");
+        this.targetCoordinateSystem = Objects.requireNonNull(to,
+            "The to coordinate system may not be null");
+    }
+
+    /**
+     * Returns the source {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getSourceCoordinateSystem()
+    {
+        return sourceCoordinateSystem;
+    }
+
+    /**
+     * Returns the target {@link CoordinateSystem} of the coordinate conversion
+     *
+     * @return The {@link CoordinateSystem}
+     */
+    public CoordinateSystem getTargetCoordinateSystem()
+    {
+        return targetCoordinateSystem;
+    }
+
+    /**
+     * Set the maximum spherical harmonics degree of the SPZ data that is
+     * written.
+     *
+     * If the {@link GaussianCloud} has a higher degree, then only the
+     * coefficients of the lower bands will be written. The default value
+     * is 3, meaning that all coefficients are written.
+     *
+     * @param maxShDegree The maximum degree, in [0,3]
+     * @throws IllegalArgumentException If the degree is not in [0,3]
+     */
+    public void setMaxShDegree(int maxShDegree)
+    {
+        if (maxShDegree < 0 || maxShDegree > 3)
+        {
+            throw new IllegalArgumentException(
+                "The degree must be in [0,3], but is " + maxShDegree);
+        }
+        this.maxShDegree = maxShDegree;
+    }
+
+    /**
+     * Returns the maximum spherical harmonics degree
+     *
+     * @return The maximum degree
+     */
+    public int getMaxShDegree()
+    {
+        return maxShDegree;
+    }
+
+    /**
+     * Set the number of points in each block of an indexed SPZ file.
+     *
+     * When this is 0, which is the default, then the data is written as a
+     * single compressed stream. Otherwise, the header and each block of
+     * the given number of points of each section are compressed
+     * independently, and an index of the blocks is appended to the data.
+     * The result is still a valid SPZ file that can be read by any reader,
+     * but an {@link SpzIndexedReader} can use the index for decompressing
+     * the blocks in parallel, or for decompressing only the blocks that
+     * contain a certain range of points.
+     *
+     * The index can store a limited number of blocks. If the given block
+     * size would cause more blocks to be written, then it is doubled until
+     * the number of blocks fits into the index.
+     *
+     * @param indexBlockSize The number of points in each block
+     * @throws IllegalArgumentException If the given size is negative
+     */
+    public void setIndexBlockSize(int indexBlockSize)
+    {
+        if (indexBlockSize < 0)
+        {
+            throw new IllegalArgumentException(
+                "The block size may not be negative, but is "
+                    + indexBlockSize);
+        }
+        this.indexBlockSize = indexBlockSize;
+    }
+
+    /**
+     * Returns the number of points in each block of an indexed SPZ file,
+     * or 0 if no index is written
+     *
+     * @return The block size
+     */
+    public int getIndexBlockSize()
+    {
+        return indexBlockSize;
+    }
+}
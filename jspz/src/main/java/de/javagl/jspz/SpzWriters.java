@@ -39,7 +39,19 @@ public class SpzWriters
      */
     public static SpzWriter createDefault()
     {
-        return DefaultSpzWriter::writeV3;
+        return create(new SpzWriterOptions());
+    }
+
+    /**
+     * Create an {@link SpzWriter} that writes SPZ data using the given
+     * options.
+     * 
+     * @param options The {@link SpzWriterOptions}
+     * @return The {@link SpzWriter}
+     */
+    public static SpzWriter create(SpzWriterOptions options)
+    {
+        return new DefaultSpzWriter(options);
     }
 
     /**
@@ -52,7 +64,9 @@ public class SpzWriters
      */
     public static SpzWriter createDefaultV2()
     {
-        return DefaultSpzWriter::writeV2;
+        SpzWriterOptions options = new SpzWriterOptions();
+        options.setVersion(2);
+        return create(options);
     }
 
     /**
@@ -65,7 +79,9 @@ public class SpzWriters
      */
     public static SpzWriter createDefaultV3()
     {
-        return DefaultSpzWriter::writeV3;
+        SpzWriterOptions options = new SpzWriterOptions();
+        options.setVersion(3);
+        return create(options);
     }
 
     /**
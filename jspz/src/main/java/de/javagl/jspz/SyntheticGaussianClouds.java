@@ -0,0 +1,474 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import java.nio.FloatBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * Methods for creating synthetic {@link GaussianCloud} instances with
+ * distributions that roughly resemble those of real captures.
+ *
+ * The splats are placed on a set of surfaces (spheres and planar patches) of
+ * different sizes. The (logarithmic) scales are normally distributed, meaning
+ * that the actual scales are log-normal. Most splats are nearly opaque, and
+ * the energy of the spherical harmonics decreases with each band.
+ *
+ * The result only depends on the seed, and not on the number of threads that
+ * are used for filling the buffers.
+ */
+class SyntheticGaussianClouds
+{
+    /**
+     * The extent of the scene, in each direction
+     */
+    private static final float SCENE_EXTENT = 50.0f;
+
+    /**
+     * The mean of the logarithmic scales
+     */
+    private static final float LOG_SCALE_MEAN = -4.0f;
+
+    /**
+     * The standard deviation of the logarithmic scales
+     */
+    private static final float LOG_SCALE_DEVIATION = 0.7f;
+
+    /**
+     * The fraction of splats that are nearly opaque
+     */
+    private static final float OPAQUE_FRACTION = 0.75f;
+
+    /**
+     * The standard deviation of the first spherical harmonics band. The
+     * deviation is halved for each higher band.
+     */
+    private static final float SH_DEVIATION = 0.25f;
+
+    /**
+     * The description of a surface that splats are placed on
+     */
+    private static class Surface
+    {
+        /**
+         * Whether this is a sphere (or a planar patch otherwise)
+         */
+        boolean sphere;
+
+        /**
+         * The center
+         */
+        final float center[] = new float[3];
+
+        /**
+         * For planar patches: The normal. For spheres: Unused.
+         */
+        final float normal[] = new float[3];
+
+        /**
+         * For planar patches: The first tangent. For spheres: Unused.
+         */
+        final float tangent0[] = new float[3];
+
+        /**
+         * For planar patches: The second tangent. For spheres: Unused.
+         */
+        final float tangent1[] = new float[3];
+
+        /**
+         * The radius of the sphere, or the half size of the patch
+         */
+        float size;
+
+        /**
+         * The base color, in the color space of the {@link GaussianCloud}
+         */
+        final float color[] = new float[3];
+    }
+
+    /**
+     * Creates a new synthetic {@link GaussianCloud}.
+     *
+     * @param numPoints The number of points
+     * @param shDegree The spherical harmonics degree
+     * @param seed The random seed
+     * @return The {@link GaussianCloud}
+     * @throws IllegalArgumentException If the number of points is negative,
+     *         or the degree is not in [0,3]
+     */
+    static GaussianCloud create(int numPoints, int shDegree, long seed)
+    {
+        if (numPoints < 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of points may not be negative, but is "
+                    + numPoints);
+        }
+        if (shDegree < 0 || shDegree > 3)
+        {
+            throw new IllegalArgumentException(
+                "The degree must be in [0,3], but is " + shDegree);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int numSurfaces = Math.max(4, Math.min(256, numPoints / 50000));
+        Surface surfaces[] = new Surface[numSurfaces];
+        float cumulativeWeights[] = new float[numSurfaces];
+        float totalWeight = 0.0f;
+        for (int s = 0; s < numSurfaces; s++)
+        {
+            surfaces[s] = createSurface(random);
+
+            // Sizes of clusters follow a rough power law
+            float weight = (float) Math.pow(random.nextDouble(), 3.0) + 0.01f;
+            totalWeight += weight;
+            cumulativeWeights[s] = totalWeight;
+        }
+        for (int s = 0; s < numSurfaces; s++)
+        {
+            cumulativeWeights[s] /= totalWeight;
+        }
+
+        GaussianCloud g =
+            new DefaultGaussianCloud(numPoints, shDegree, false);
+        FloatBuffer positions = g.getPositions();
+        FloatBuffer scales = g.getScales();
+        FloatBuffer rotations = g.getRotations();
+        FloatBuffer alphas = g.getAlphas();
+        FloatBuffer colors = g.getColors();
+        FloatBuffer sh = g.getSh();
+        int shDim = SpzUtils.dimensionsForDegree(shDegree);
+
+        Parallel.forEachChunk(numPoints, (chunkIndex, start, end) ->
+        {
+            SplittableRandom r =
+                new SplittableRandom(mix(seed, chunkIndex));
+            Gaussian gaussian = new Gaussian(r);
+            float p[] = new float[3];
+            float q[] = new float[4];
+            for (int i = start; i < end; i++)
+            {
+                Surface surface =
+                    surfaces[select(cumulativeWeights, r.nextDouble())];
+
+                samplePosition(surface, r, gaussian, p);
+                positions.put(i * 3 + 0, p[0]);
+                positions.put(i * 3 + 1, p[1]);
+                positions.put(i * 3 + 2, p[2]);
+
+                for (int c = 0; c < 3; c++)
+                {
+                    float s = LOG_SCALE_MEAN
+                        + LOG_SCALE_DEVIATION * gaussian.next();
+                    scales.put(i * 3 + c, clamp(s, -10.0f, 5.9f));
+                }
+
+                sampleRotation(r, q);
+                rotations.put(i * 4 + 0, q[0]);
+                rotations.put(i * 4 + 1, q[1]);
+                rotations.put(i * 4 + 2, q[2]);
+                rotations.put(i * 4 + 3, q[3]);
+
+                float opacity;
+                if (r.nextDouble() < OPAQUE_FRACTION)
+                {
+                    opacity = 0.9f + 0.099f * (float) r.nextDouble();
+                }
+                else
+                {
+                    float u = (float) r.nextDouble();
+                    opacity = u * u;
+                }
+                alphas.put(i, SpzUtils.invSigmoid(opacity));
+
+                for (int c = 0; c < 3; c++)
+                {
+                    float v = surface.color[c] + 0.3f * gaussian.next();
+                    colors.put(i * 3 + c, clamp(v, -3.3f, 3.3f));
+                }
+
+                for (int j = 0; j < shDim; j++)
+                {
+                    float deviation = SH_DEVIATION;
+                    if (j >= 3)
+                    {
+                        deviation *= 0.5f;
+                    }
+                    if (j >= 8)
+                    {
+                        deviation *= 0.5f;
+                    }
+                    int index = (i * shDim + j) * 3;
+                    for (int c = 0; c < 3; c++)
+                    {
+                        float v = deviation * gaussian.next();
+                        sh.put(index + c, clamp(v, -1.0f, 1.0f));
+                    }
+                }
+            }
+        });
+        return g;
+    }
+
+    /**
+     * Create a random {@link Surface}
+     *
+     * @param random The random number generator
+     * @return The {@link Surface}
+     */
+    private static Surface createSurface(SplittableRandom random)
+    {
+        Surface surface = new Surface();
+        surface.sphere = random.nextBoolean();
+        for (int c = 0; c < 3; c++)
+        {
+            surface.center[c] =
+                (float) (random.nextDouble() * 2.0 - 1.0) * SCENE_EXTENT;
+            surface.color[c] = (float) (random.nextDouble() * 4.0 - 2.0);
+        }
+        if (surface.sphere)
+        {
+            surface.size = 1.0f + (float) random.nextDouble() * 9.0f;
+        }
+        else
+        {
+            surface.size = 5.0f + (float) random.nextDouble() * 25.0f;
+        }
+        float n[] = surface.normal;
+        sampleDirection(random, n);
+
+        // Compute two tangents that are orthogonal to the normal
+        float a[] = Math.abs(n[0]) < 0.9f ? new float[]
+        { 1.0f, 0.0f, 0.0f } : new float[]
+        { 0.0f, 1.0f, 0.0f };
+        float t0[] = surface.tangent0;
+        cross(n, a, t0);
+        normalize(t0);
+        cross(n, t0, surface.tangent1);
+        return surface;
+    }
+
+    /**
+     * Sample a position on the given {@link Surface}, including some noise
+     * along the surface normal
+     *
+     * @param surface The {@link Surface}
+     * @param r The random number generator
+     * @param gaussian The source for normally distributed values
+     * @param p The position
+     */
+    private static void samplePosition(Surface surface, SplittableRandom r,
+        Gaussian gaussian, float p[])
+    {
+        float noise = 0.01f * surface.size * gaussian.next();
+        if (surface.sphere)
+        {
+            sampleDirection(r, p);
+            float radius = surface.size + noise;
+            for (int c = 0; c < 3; c++)
+            {
+                p[c] = surface.center[c] + p[c] * radius;
+            }
+        }
+        else
+        {
+            float u = (float) (r.nextDouble() * 2.0 - 1.0) * surface.size;
+            float v = (float) (r.nextDouble() * 2.0 - 1.0) * surface.size;
+            for (int c = 0; c < 3; c++)
+            {
+                p[c] = surface.center[c] + u * surface.tangent0[c]
+                    + v * surface.tangent1[c] + noise * surface.normal[c];
+            }
+        }
+    }
+
+    /**
+     * Sample a uniformly distributed unit quaternion
+     *
+     * @param r The random number generator
+     * @param q The quaternion, as (x,y,z,w)
+     */
+    private static void sampleRotation(SplittableRandom r, float q[])
+    {
+        // Shoemake, "Uniform random rotations"
+        double u0 = r.nextDouble();
+        double u1 = r.nextDouble() * 2.0 * Math.PI;
+        double u2 = r.nextDouble() * 2.0 * Math.PI;
+        double a = Math.sqrt(1.0 - u0);
+        double b = Math.sqrt(u0);
+        q[0] = (float) (a * Math.sin(u1));
+        q[1] = (float) (a * Math.cos(u1));
+        q[2] = (float) (b * Math.sin(u2));
+        q[3] = (float) (b * Math.cos(u2));
+    }
+
+    /**
+     * Sample a uniformly distributed unit vector
+     *
+     * @param r The random number generator
+     * @param d The direction
+     */
+    private static void sampleDirection(SplittableRandom r, float d[])
+    {
+        double z = r.nextDouble() * 2.0 - 1.0;
+        double phi = r.nextDouble() * 2.0 * Math.PI;
+        double s = Math.sqrt(1.0 - z * z);
+        d[0] = (float) (s * Math.cos(phi));
+        d[1] = (float) (s * Math.sin(phi));
+        d[2] = (float) z;
+    }
+
+    /**
+     * A source of standard normally distributed values
+     */
+    private static class Gaussian
+    {
+        /**
+         * The random number generator
+         */
+        private final SplittableRandom r;
+
+        /**
+         * Whether the {@link #spare} value is valid
+         */
+        private boolean hasSpare;
+
+        /**
+         * The second value that was computed in the last call
+         */
+        private double spare;
+
+        /**
+         * Creates a new instance
+         *
+         * @param r The random number generator
+         */
+        Gaussian(SplittableRandom r)
+        {
+            this.r = r;
+        }
+
+        /**
+         * Returns the next standard normally distributed value
+         *
+         * @return The value
+         */
+        float next()
+        {
+            if (hasSpare)
+            {
+                hasSpare = false;
+                return (float) spare;
+            }
+            // Marsaglia polar method
+            double u;
+            double v;
+            double s;
+            do
+            {
+                u = r.nextDouble() * 2.0 - 1.0;
+                v = r.nextDouble() * 2.0 - 1.0;
+                s = u * u + v * v;
+            }
+            while (s >= 1.0 || s == 0.0);
+            double f = Math.sqrt(-2.0 * Math.log(s) / s);
+            spare = v * f;
+            hasSpare = true;
+            return (float) (u * f);
+        }
+    }
+
+    /**
+     * Returns the index of the first element in the given (sorted) array that
+     * is not smaller than the given value
+     *
+     * @param cumulativeWeights The cumulative weights
+     * @param value The value
+     * @return The index
+     */
+    private static int select(float cumulativeWeights[], double value)
+    {
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] < value)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compute a seed for the specified chunk, based on the given seed
+     *
+     * @param seed The seed
+     * @param chunkIndex The chunk index
+     * @return The seed for the chunk
+     */
+    private static long mix(long seed, int chunkIndex)
+    {
+        // The finalizer of MurmurHash3
+        long z = seed + (chunkIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Clamp the given value to the given range
+     *
+     * @param v The value
+     * @param min The minimum
+     * @param max The maximum
+     * @return The result
+     */
+    private static float clamp(float v, float min, float max)
+    {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /**
+     * Compute the cross product of the given vectors
+     *
+     * @param a The first vector
+     * @param b The second vector
+     * @param r The result
+     */
+    private static void cross(float a[], float b[], float r[])
+    {
+        r[0] = a[1] * b[2] - a[2] * b[1];
+        r[1] = a[2] * b[0] - a[0] * b[2];
+        r[2] = a[0] * b[1] - a[1] * b[0];
+    }
+
+    /**
+     * Normalize the given vector, in place
+     *
+     * @param v The vector
+     */
+    private static void normalize(float v[])
+    {
+        float len = (float) Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+        v[0] /= len;
+        v[1] /= len;
+        v[2] /= len;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SyntheticGaussianClouds()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
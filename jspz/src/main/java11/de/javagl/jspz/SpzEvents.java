@@ -0,0 +1,261 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Internal methods for emitting events about the phases of reading and
+ * writing SPZ data.
+ *
+ * This is the implementation for Java 11 and above, which emits JDK Flight
+ * Recorder events. The events are only created when they are enabled in the
+ * current recording.
+ */
+class SpzEvents
+{
+    /**
+     * The type for the event that covers a complete read operation
+     */
+    static final int READ = 0;
+
+    /**
+     * The type for the event that covers inflating one section
+     */
+    static final int INFLATE = 1;
+
+    /**
+     * The type for the event that covers dequantizing one section
+     */
+    static final int DEQUANTIZE = 2;
+
+    /**
+     * The type for the event that covers a complete write operation
+     */
+    static final int WRITE = 3;
+
+    /**
+     * The type for the event that covers deflating one section
+     */
+    static final int DEFLATE = 4;
+
+    /**
+     * The type for the event that covers quantizing one section
+     */
+    static final int QUANTIZE = 5;
+
+    /**
+     * Base class for all SPZ events
+     */
+    @Category("JSpz")
+    @SuppressWarnings("javadoc")
+    abstract static class SpzEvent extends Event
+    {
+        @Label("Version")
+        int version;
+
+        @Label("Point Count")
+        int numPoints;
+
+        @Label("SH Degree")
+        int shDegree;
+
+        @Label("Section")
+        @Description("The SPZ section, if the event refers to one section")
+        String section;
+
+        @Label("Compressed Bytes")
+        @DataAmount
+        long compressedBytes;
+
+        @Label("Uncompressed Bytes")
+        @DataAmount
+        long uncompressedBytes;
+    }
+
+    @Name("de.javagl.jspz.Read")
+    @Label("SPZ Read")
+    @Description("Reading a Gaussian cloud from SPZ data")
+    @SuppressWarnings("javadoc")
+    static class ReadEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    @Name("de.javagl.jspz.Inflate")
+    @Label("SPZ Inflate")
+    @Description("Reading and inflating one section of SPZ data")
+    @SuppressWarnings("javadoc")
+    static class InflateEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    @Name("de.javagl.jspz.Dequantize")
+    @Label("SPZ Dequantize")
+    @Description("Converting one section of SPZ data into floats")
+    @SuppressWarnings("javadoc")
+    static class DequantizeEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    @Name("de.javagl.jspz.Write")
+    @Label("SPZ Write")
+    @Description("Writing a Gaussian cloud as SPZ data")
+    @SuppressWarnings("javadoc")
+    static class WriteEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    @Name("de.javagl.jspz.Deflate")
+    @Label("SPZ Deflate")
+    @Description("Deflating and writing one section of SPZ data")
+    @SuppressWarnings("javadoc")
+    static class DeflateEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    @Name("de.javagl.jspz.Quantize")
+    @Label("SPZ Quantize")
+    @Description("Converting floats into one section of SPZ data")
+    @SuppressWarnings("javadoc")
+    static class QuantizeEvent extends SpzEvent
+    {
+        // No additional fields
+    }
+
+    /**
+     * The event types, indexed by the types of the events
+     */
+    private static final EventType EVENT_TYPES[] =
+    {
+        EventType.getEventType(ReadEvent.class),
+        EventType.getEventType(InflateEvent.class),
+        EventType.getEventType(DequantizeEvent.class),
+        EventType.getEventType(WriteEvent.class),
+        EventType.getEventType(DeflateEvent.class),
+        EventType.getEventType(QuantizeEvent.class)
+    };
+
+    /**
+     * Begin an event of the given type.
+     *
+     * @param type The event type
+     * @return The event, or <code>null</code> if events of the given type are
+     *         not enabled
+     */
+    static Object begin(int type)
+    {
+        if (!eventType(type).isEnabled())
+        {
+            return null;
+        }
+        SpzEvent event = create(type);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Returns the event type for the given type
+     *
+     * @param type The type
+     * @return The event type
+     * @throws IllegalArgumentException If the type is not valid
+     */
+    private static EventType eventType(int type)
+    {
+        if (type < 0 || type >= EVENT_TYPES.length)
+        {
+            throw new IllegalArgumentException("Invalid event type: " + type);
+        }
+        return EVENT_TYPES[type];
+    }
+
+    /**
+     * Create the event for the given type
+     *
+     * @param type The type
+     * @return The event
+     */
+    private static SpzEvent create(int type)
+    {
+        switch (type)
+        {
+            case READ:
+                return new ReadEvent();
+            case INFLATE:
+                return new InflateEvent();
+            case DEQUANTIZE:
+                return new DequantizeEvent();
+            case WRITE:
+                return new WriteEvent();
+            case DEFLATE:
+                return new DeflateEvent();
+            case QUANTIZE:
+                return new QuantizeEvent();
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Invalid event type: " + type);
+    }
+
+    /**
+     * Commit the given event, which was obtained from {@link #begin(int)}.
+     * If the given event is <code>null</code>, nothing is done.
+     *
+     * @param event The event
+     * @param header The {@link SpzHeader}. May be <code>null</code>.
+     * @param section The {@link SpzSection}. May be <code>null</code> for
+     *        events that do not refer to a single section.
+     * @param compressedBytes The number of compressed bytes
+     * @param uncompressedBytes The number of uncompressed bytes
+     */
+    static void commit(Object event, SpzHeader header, SpzSection section,
+        long compressedBytes, long uncompressedBytes)
+    {
+        if (event == null)
+        {
+            return;
+        }
+        SpzEvent spzEvent = (SpzEvent) event;
+        spzEvent.end();
+        if (!spzEvent.shouldCommit())
+        {
+            return;
+        }
+        if (header != null)
+        {
+            spzEvent.version = header.version;
+            spzEvent.numPoints = header.numPoints;
+            spzEvent.shDegree = header.shDegree;
+        }
+        if (section != null)
+        {
+            spzEvent.section = section.name();
+        }
+        spzEvent.compressedBytes = compressedBytes;
+        spzEvent.uncompressedBytes = uncompressedBytes;
+        spzEvent.commit();
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SpzEvents()
+    {
+        // Private constructor to prevent instantiation
+    }
+
+}
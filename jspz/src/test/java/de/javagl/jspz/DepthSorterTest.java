@@ -0,0 +1,298 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link DepthSorter}, comparing the resulting orders to the
+ * depths that are sorted with <code>Arrays.sort</code>
+ */
+@SuppressWarnings("javadoc")
+public class DepthSorterTest
+{
+    /**
+     * The number of points of the test cloud. This is large enough for
+     * multiple chunks in the parallel radix sort.
+     */
+    private static final int NUM_POINTS = 200000;
+
+    @Test
+    public void testSort()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 0);
+        DepthSorter sorter = new DepthSorter(g);
+        assertEquals(NUM_POINTS, sorter.getNumPoints());
+        Random random = new Random(0);
+        for (int t = 0; t < 10; t++)
+        {
+            float viewMatrix[] = createViewMatrix(randomRotation(random),
+                random);
+            sorter.sort(viewMatrix);
+            assertBackToFront(g, viewMatrix, sorter);
+        }
+    }
+
+    @Test
+    public void testUpdateWithSlightlyChangedView()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 1);
+        DepthSorter sorter = new DepthSorter(g);
+        Random random = new Random(0);
+        double rotation[][] = randomRotation(random);
+        float viewMatrix[] = createViewMatrix(rotation, random);
+        assertFalse(sorter.update(viewMatrix));
+        assertBackToFront(g, viewMatrix, sorter);
+        int previous[] = new int[NUM_POINTS];
+        int current[] = new int[NUM_POINTS];
+        for (int t = 0; t < 10; t++)
+        {
+            sorter.getIndices(previous);
+            rotation = multiply(rotation, rotation(random, 1e-5));
+            viewMatrix = createViewMatrix(rotation, random);
+            assertTrue(sorter.update(viewMatrix));
+            assertBackToFront(g, viewMatrix, sorter);
+
+            // The insertion sort must have changed the order
+            sorter.getIndices(current);
+            assertFalse(Arrays.equals(previous, current));
+        }
+    }
+
+    @Test
+    public void testUpdateWithChangedView()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 2);
+        DepthSorter sorter = new DepthSorter(g);
+        Random random = new Random(0);
+        double rotation[][] = randomRotation(random);
+        float viewMatrix[] = createViewMatrix(rotation, random);
+        sorter.sort(viewMatrix);
+
+        // Looking from the opposite direction reverses the order, so that
+        // the previous order cannot be reused
+        double flip[][] =
+        {
+            { 1.0, 0.0, 0.0 },
+            { 0.0, -1.0, 0.0 },
+            { 0.0, 0.0, -1.0 } };
+        viewMatrix = createViewMatrix(multiply(flip, rotation), random);
+        assertFalse(sorter.update(viewMatrix));
+        assertBackToFront(g, viewMatrix, sorter);
+    }
+
+    @Test
+    public void testGetIndices()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(1000, 0, 0);
+        DepthSorter sorter = new DepthSorter(g);
+        int indices[] = new int[1000];
+        sorter.getIndices(indices);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, indices[i]);
+        }
+
+        sorter.sort(createViewMatrix(randomRotation(new Random(0)),
+            new Random(0)));
+        sorter.getIndices(indices);
+        IntBuffer buffer = IntBuffer.allocate(1001);
+        buffer.put(-1);
+        sorter.getIndices(buffer);
+        int bufferIndices[] = Arrays.copyOfRange(buffer.array(), 1, 1001);
+        assertArrayEquals(indices, bufferIndices);
+    }
+
+    @Test
+    public void testSortWithEqualDepths()
+    {
+        GaussianCloud g = GaussianClouds.create(100, 0);
+        DepthSorter sorter = new DepthSorter(g);
+        float viewMatrix[] = createViewMatrix(randomRotation(new Random(0)),
+            new Random(0));
+        sorter.sort(viewMatrix);
+        assertBackToFront(g, viewMatrix, sorter);
+        assertTrue(sorter.update(viewMatrix));
+        assertBackToFront(g, viewMatrix, sorter);
+    }
+
+    @Test
+    public void testSortEmptyCloud()
+    {
+        GaussianCloud g = GaussianClouds.create(0, 0);
+        DepthSorter sorter = new DepthSorter(g);
+        float viewMatrix[] = createViewMatrix(randomRotation(new Random(0)),
+            new Random(0));
+        sorter.sort(viewMatrix);
+        sorter.update(viewMatrix);
+        sorter.getIndices(new int[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortWithInvalidViewMatrix()
+    {
+        GaussianCloud g = GaussianClouds.create(10, 0);
+        new DepthSorter(g).sort(new float[12]);
+    }
+
+    /**
+     * Assert that the current order of the given sorter is a permutation of
+     * the points, and sorts the points back to front for the given view
+     * matrix.
+     *
+     * The depths of the points in the order of the sorter are compared to
+     * the depths that are sorted with <code>Arrays.sort</code>. Points whose
+     * depths are so close that they receive the same quantized key may be
+     * in any order, so the depths are compared with a tolerance that is
+     * derived from the depth range.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param viewMatrix The view matrix
+     * @param sorter The {@link DepthSorter}
+     */
+    private static void assertBackToFront(GaussianCloud g,
+        float viewMatrix[], DepthSorter sorter)
+    {
+        int n = g.getNumPoints();
+        float depths[] = computeDepths(g, viewMatrix);
+        float expected[] = depths.clone();
+        Arrays.sort(expected);
+
+        int indices[] = new int[n];
+        sorter.getIndices(indices);
+        boolean visited[] = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            assertFalse(visited[indices[i]]);
+            visited[indices[i]] = true;
+        }
+
+        double range = n == 0 ? 0.0 : (double) expected[n - 1] - expected[0];
+        double epsilon = range * 1e-9;
+        for (int i = 0; i < n; i++)
+        {
+            assertEquals(expected[n - 1 - i], depths[indices[i]], epsilon);
+        }
+    }
+
+    /**
+     * Compute the depths of the points of the given {@link GaussianCloud},
+     * as the distances along the viewing direction, which is the negative
+     * z-axis in view space
+     *
+     * @param g The {@link GaussianCloud}
+     * @param viewMatrix The view matrix
+     * @return The depths
+     */
+    private static float[] computeDepths(GaussianCloud g, float viewMatrix[])
+    {
+        int n = g.getNumPoints();
+        float result[] = new float[n];
+        for (int i = 0; i < n; i++)
+        {
+            float x = g.getPositions().get(i * 3 + 0);
+            float y = g.getPositions().get(i * 3 + 1);
+            float z = g.getPositions().get(i * 3 + 2);
+            result[i] = -viewMatrix[2] * x - viewMatrix[6] * y
+                - viewMatrix[10] * z;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a view matrix in column-major order, with the given rotation
+     * and a random translation
+     *
+     * @param rotation The rotation matrix, as rows
+     * @param random The random number generator
+     * @return The view matrix
+     */
+    private static float[] createViewMatrix(double rotation[][],
+        Random random)
+    {
+        float result[] = new float[16];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                result[c * 4 + r] = (float) rotation[r][c];
+            }
+            result[12 + r] = (float) (random.nextGaussian() * 10.0);
+        }
+        result[15] = 1.0f;
+        return result;
+    }
+
+    /**
+     * Creates a random rotation matrix
+     *
+     * @param random The random number generator
+     * @return The rotation matrix, as rows
+     */
+    private static double[][] randomRotation(Random random)
+    {
+        return rotation(random, random.nextDouble() * 2.0 * Math.PI);
+    }
+
+    /**
+     * Creates a matrix for a rotation about a random axis, with the given
+     * angle
+     *
+     * @param random The random number generator
+     * @param angle The angle, in radians
+     * @return The rotation matrix, as rows
+     */
+    private static double[][] rotation(Random random, double angle)
+    {
+        double x = random.nextGaussian();
+        double y = random.nextGaussian();
+        double z = random.nextGaussian();
+        double length = Math.sqrt(x * x + y * y + z * z);
+        x /= length;
+        y /= length;
+        z /= length;
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+        double t = 1.0 - c;
+        return new double[][]
+        {
+            { t * x * x + c, t * x * y - s * z, t * x * z + s * y },
+            { t * x * y + s * z, t * y * y + c, t * y * z - s * x },
+            { t * x * z - s * y, t * y * z + s * x, t * z * z + c } };
+    }
+
+    /**
+     * Multiply the given 3x3 matrices
+     *
+     * @param a The first matrix
+     * @param b The second matrix
+     * @return The product
+     */
+    private static double[][] multiply(double a[][], double b[][])
+    {
+        double result[][] = new double[3][3];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                for (int k = 0; k < 3; k++)
+                {
+                    result[r][c] += a[r][k] * b[k][c];
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link GaussianCloudLods}, comparing the merged Gaussians
+ * to the weighted moments that are computed directly from the input
+ */
+@SuppressWarnings("javadoc")
+public class GaussianCloudLodsTest
+{
+    /**
+     * The spherical harmonics degree of the test clouds
+     */
+    private static final int SH_DEGREE = 1;
+
+    @Test
+    public void testComputeEigen()
+    {
+        Random random = new Random(0);
+        for (int t = 0; t < 1000; t++)
+        {
+            double a[][] = createSymmetricMatrix(random);
+            if (t == 0)
+            {
+                // A matrix with a repeated eigenvalue
+                a = new double[][]
+                {
+                    { 2.0, 1.0, 0.0 },
+                    { 1.0, 2.0, 0.0 },
+                    { 0.0, 0.0, 3.0 } };
+            }
+            double copy[][] = copy(a);
+            double v[][] = new double[3][3];
+            double lambda[] = GaussianCloudLods.computeEigen(copy, v);
+
+            double epsilon = 1e-10 * (1.0 + norm(a));
+            for (int k = 0; k < 3; k++)
+            {
+                for (int r = 0; r < 3; r++)
+                {
+                    double av = 0.0;
+                    for (int s = 0; s < 3; s++)
+                    {
+                        av += a[r][s] * v[s][k];
+                    }
+                    assertEquals(lambda[k] * v[r][k], av, epsilon);
+                }
+            }
+            for (int k = 0; k < 3; k++)
+            {
+                for (int l = 0; l < 3; l++)
+                {
+                    double dot = 0.0;
+                    for (int r = 0; r < 3; r++)
+                    {
+                        dot += v[r][k] * v[r][l];
+                    }
+                    assertEquals(k == l ? 1.0 : 0.0, dot, 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSimplifyMatchesMoments()
+    {
+        GaussianCloud g = createCloud(50, new Random(0));
+        int n = g.getNumPoints();
+        GaussianCloud s = GaussianCloudLods.simplify(g, 10.0f);
+        assertEquals(1, s.getNumPoints());
+
+        double weights[] = new double[n];
+        double totalWeight = 0.0;
+        double transparency = 1.0;
+        for (int i = 0; i < n; i++)
+        {
+            double alpha = sigmoid(g.getAlphas().get(i));
+            double sx = Math.exp(g.getScales().get(i * 3 + 0));
+            double sy = Math.exp(g.getScales().get(i * 3 + 1));
+            double sz = Math.exp(g.getScales().get(i * 3 + 2));
+            weights[i] = alpha * (sx * sy + sy * sz + sz * sx);
+            totalWeight += weights[i];
+            transparency *= (1.0 - alpha);
+        }
+
+        // The position and the colors are the weighted averages
+        double mean[] = weightedAverage(g.getPositions(), 3, weights);
+        double colors[] = weightedAverage(g.getColors(), 3, weights);
+        int shSize = g.getSh().capacity() / n;
+        double sh[] = weightedAverage(g.getSh(), shSize, weights);
+        for (int j = 0; j < 3; j++)
+        {
+            assertEquals(mean[j], s.getPositions().get(j), 1e-6);
+            assertEquals(colors[j], s.getColors().get(j), 1e-6);
+        }
+        for (int j = 0; j < shSize; j++)
+        {
+            assertEquals(sh[j], s.getSh().get(j), 1e-6);
+        }
+
+        // The covariance is the weighted sum of the covariances and the
+        // spread of the means
+        double expected[][] = new double[3][3];
+        for (int i = 0; i < n; i++)
+        {
+            double c[][] = computeCovariance(g, i);
+            for (int r = 0; r < 3; r++)
+            {
+                for (int t = 0; t < 3; t++)
+                {
+                    double dr = g.getPositions().get(i * 3 + r) - mean[r];
+                    double dt = g.getPositions().get(i * 3 + t) - mean[t];
+                    expected[r][t] +=
+                        weights[i] * (c[r][t] + dr * dt) / totalWeight;
+                }
+            }
+        }
+        double actual[][] = computeCovariance(s, 0);
+        double epsilon = 1e-5 * norm(expected);
+        for (int r = 0; r < 3; r++)
+        {
+            for (int t = 0; t < 3; t++)
+            {
+                assertEquals(expected[r][t], actual[r][t], epsilon);
+            }
+        }
+
+        // The opacity preserves the total weight, but is not larger than
+        // the opacity of all Gaussians stacked on top of each other
+        double sx = Math.exp(s.getScales().get(0));
+        double sy = Math.exp(s.getScales().get(1));
+        double sz = Math.exp(s.getScales().get(2));
+        double area = sx * sy + sy * sz + sz * sx;
+        double expectedAlpha =
+            Math.min(1.0 - transparency, totalWeight / area);
+        assertEquals(expectedAlpha, sigmoid(s.getAlphas().get(0)), 1e-5);
+    }
+
+    @Test
+    public void testSimplifyCopiesSingleGaussians()
+    {
+        Random random = new Random(0);
+        GaussianCloud g = createCloud(64, random);
+        for (int i = 0; i < 64; i++)
+        {
+            g.getPositions().put(i * 3 + 0, i % 4);
+            g.getPositions().put(i * 3 + 1, (i / 4) % 4);
+            g.getPositions().put(i * 3 + 2, i / 16);
+        }
+        GaussianCloud s = GaussianCloudLods.simplify(g, 0.5f);
+        assertEquals(64, s.getNumPoints());
+
+        Set<String> expected = new HashSet<String>();
+        Set<String> actual = new HashSet<String>();
+        for (int i = 0; i < 64; i++)
+        {
+            expected.add(describe(g, i));
+            actual.add(describe(s, i));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSimplifyCreatesOneGaussianPerVoxel()
+    {
+        Random random = new Random(0);
+        GaussianCloud g = createCloud(2000, random);
+        for (float voxelSize : new float[] { 0.05f, 0.1f, 0.3f, 1.0f })
+        {
+            GaussianCloud s = GaussianCloudLods.simplify(g, voxelSize);
+            assertEquals(countVoxels(g, voxelSize), s.getNumPoints());
+        }
+    }
+
+    @Test
+    public void testCreateLevels()
+    {
+        GaussianCloud g = createCloud(2000, new Random(0));
+        List<GaussianCloud> levels =
+            GaussianCloudLods.createLevels(g, 0.05f, 4);
+        assertEquals(4, levels.size());
+        GaussianCloud previous = g;
+        float voxelSize = 0.05f;
+        for (GaussianCloud level : levels)
+        {
+            assertEquals(countVoxels(previous, voxelSize),
+                level.getNumPoints());
+            assertTrue(level.getNumPoints() <= previous.getNumPoints());
+            previous = level;
+            voxelSize *= 2.0f;
+        }
+    }
+
+    /**
+     * Creates a {@link GaussianCloud} with random data, with positions in
+     * the unit cube
+     *
+     * @param n The number of points
+     * @param random The random number generator
+     * @return The {@link GaussianCloud}
+     */
+    private static GaussianCloud createCloud(int n, Random random)
+    {
+        GaussianCloud g = GaussianClouds.create(n, SH_DEGREE);
+        fill(g.getPositions(), random, 0.0f, 1.0f);
+        fill(g.getScales(), random, -5.0f, -2.0f);
+        fill(g.getRotations(), random, -1.0f, 1.0f);
+        fill(g.getAlphas(), random, -3.0f, 3.0f);
+        fill(g.getColors(), random, -1.0f, 1.0f);
+        fill(g.getSh(), random, -0.5f, 0.5f);
+        return g;
+    }
+
+    /**
+     * Fill the given buffer with random values in the given range
+     *
+     * @param buffer The buffer
+     * @param random The random number generator
+     * @param min The minimum value
+     * @param max The maximum value
+     */
+    private static void fill(FloatBuffer buffer, Random random, float min,
+        float max)
+    {
+        for (int i = 0; i < buffer.capacity(); i++)
+        {
+            buffer.put(i, min + random.nextFloat() * (max - min));
+        }
+    }
+
+    /**
+     * Compute the weighted average of the tuples in the given buffer
+     *
+     * @param buffer The buffer
+     * @param size The size of each tuple
+     * @param weights The weights
+     * @return The weighted average
+     */
+    private static double[] weightedAverage(FloatBuffer buffer, int size,
+        double weights[])
+    {
+        double result[] = new double[size];
+        double totalWeight = 0.0;
+        for (int i = 0; i < weights.length; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                result[j] += weights[i] * buffer.get(i * size + j);
+            }
+            totalWeight += weights[i];
+        }
+        for (int j = 0; j < size; j++)
+        {
+            result[j] /= totalWeight;
+        }
+        return result;
+    }
+
+    /**
+     * Compute the covariance matrix of the specified Gaussian, as
+     * <code>R * S * S * R^T</code>, from its rotation R and scales S
+     *
+     * @param g The {@link GaussianCloud}
+     * @param i The index of the Gaussian
+     * @return The covariance matrix
+     */
+    private static double[][] computeCovariance(GaussianCloud g, int i)
+    {
+        FloatBuffer rotations = g.getRotations();
+        double x = rotations.get(i * 4 + 0);
+        double y = rotations.get(i * 4 + 1);
+        double z = rotations.get(i * 4 + 2);
+        double w = rotations.get(i * 4 + 3);
+        double length = Math.sqrt(x * x + y * y + z * z + w * w);
+        x /= length;
+        y /= length;
+        z /= length;
+        w /= length;
+        double m[][] =
+        {
+            { 1 - 2 * (y * y + z * z), 2 * (x * y - z * w),
+                2 * (x * z + y * w) },
+            { 2 * (x * y + z * w), 1 - 2 * (x * x + z * z),
+                2 * (y * z - x * w) },
+            { 2 * (x * z - y * w), 2 * (y * z + x * w),
+                1 - 2 * (x * x + y * y) } };
+        double result[][] = new double[3][3];
+        for (int r = 0; r < 3; r++)
+        {
+            for (int t = 0; t < 3; t++)
+            {
+                for (int k = 0; k < 3; k++)
+                {
+                    double s = Math.exp(g.getScales().get(i * 3 + k));
+                    result[r][t] += m[r][k] * m[t][k] * s * s;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the number of distinct voxels that contain positions of the
+     * given {@link GaussianCloud}, for a grid that starts at the minimum of
+     * the positions
+     *
+     * @param g The {@link GaussianCloud}
+     * @param voxelSize The voxel size
+     * @return The number of voxels
+     */
+    private static int countVoxels(GaussianCloud g, float voxelSize)
+    {
+        int n = g.getNumPoints();
+        FloatBuffer positions = g.getPositions();
+        double min[] =
+        {
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY };
+        for (int i = 0; i < n * 3; i++)
+        {
+            min[i % 3] = Math.min(min[i % 3], positions.get(i));
+        }
+        Set<String> voxels = new HashSet<String>();
+        for (int i = 0; i < n; i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 3; j++)
+            {
+                double v = positions.get(i * 3 + j);
+                sb.append((long) ((v - min[j]) / voxelSize)).append(",");
+            }
+            voxels.add(sb.toString());
+        }
+        return voxels.size();
+    }
+
+    /**
+     * Returns a string containing all attributes of the specified point
+     *
+     * @param g The {@link GaussianCloud}
+     * @param i The index of the point
+     * @return The string
+     */
+    private static String describe(GaussianCloud g, int i)
+    {
+        int shSize = g.getSh().capacity() / g.getNumPoints();
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < 3; j++)
+        {
+            sb.append(g.getPositions().get(i * 3 + j)).append(",");
+            sb.append(g.getScales().get(i * 3 + j)).append(",");
+            sb.append(g.getColors().get(i * 3 + j)).append(",");
+        }
+        for (int j = 0; j < 4; j++)
+        {
+            sb.append(g.getRotations().get(i * 4 + j)).append(",");
+        }
+        sb.append(g.getAlphas().get(i)).append(",");
+        for (int j = 0; j < shSize; j++)
+        {
+            sb.append(g.getSh().get(i * shSize + j)).append(",");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a random symmetric 3x3 matrix
+     *
+     * @param random The random number generator
+     * @return The matrix
+     */
+    private static double[][] createSymmetricMatrix(Random random)
+    {
+        double a[][] = new double[3][3];
+        double scale = Math.pow(10.0, random.nextInt(9) - 6);
+        for (int r = 0; r < 3; r++)
+        {
+            for (int t = r; t < 3; t++)
+            {
+                a[r][t] = (random.nextDouble() * 2.0 - 1.0) * scale;
+                a[t][r] = a[r][t];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Creates a copy of the given matrix
+     *
+     * @param a The matrix
+     * @return The copy
+     */
+    private static double[][] copy(double a[][])
+    {
+        double result[][] = new double[a.length][];
+        for (int r = 0; r < a.length; r++)
+        {
+            result[r] = a[r].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum absolute value of the elements of the given matrix
+     *
+     * @param a The matrix
+     * @return The norm
+     */
+    private static double norm(double a[][])
+    {
+        double result = 0.0;
+        for (double row[] : a)
+        {
+            for (double value : row)
+            {
+                result = Math.max(result, Math.abs(value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the logistic sigmoid of the given value
+     *
+     * @param x The value
+     * @return The sigmoid
+     */
+    private static double sigmoid(double x)
+    {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link SpatialIndex} implementation, comparing the query
+ * results to the results of a brute-force search over all points
+ */
+@SuppressWarnings("javadoc")
+public class SpatialIndexTest
+{
+    /**
+     * The number of points of the test cloud
+     */
+    private static final int NUM_POINTS = 20000;
+
+    /**
+     * The number of queries for each test
+     */
+    private static final int NUM_QUERIES = 50;
+
+    @Test
+    public void testQueryBox()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 0);
+        float bounds[] = GaussianClouds.statistics(g).getBounds();
+        Random random = new Random(0);
+        for (boolean usingExtents : new boolean[] { false, true })
+        {
+            SpatialIndex index = createIndex(g, usingExtents);
+            float extents[] = computeExtents(g, usingExtents);
+            for (int q = 0; q < NUM_QUERIES; q++)
+            {
+                float center[] = randomPoint(g, bounds, random);
+                float min[] = new float[3];
+                float max[] = new float[3];
+                for (int j = 0; j < 3; j++)
+                {
+                    float size = bounds[3 + j] - bounds[j];
+                    min[j] = center[j] - random.nextFloat() * size * 0.2f;
+                    max[j] = center[j] + random.nextFloat() * size * 0.2f;
+                }
+                Set<Integer> expected = new TreeSet<Integer>();
+                for (int i = 0; i < g.getNumPoints(); i++)
+                {
+                    if (intersects(extents, i * 6, min, max))
+                    {
+                        expected.add(i);
+                    }
+                }
+                Set<Integer> actual = new TreeSet<Integer>();
+                index.queryBox(min, max, i -> assertTrue(actual.add(i)));
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryFrustum()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 1);
+        float bounds[] = GaussianClouds.statistics(g).getBounds();
+        Random random = new Random(0);
+        for (boolean usingExtents : new boolean[] { false, true })
+        {
+            SpatialIndex index = createIndex(g, usingExtents);
+            float extents[] = computeExtents(g, usingExtents);
+            for (int q = 0; q < NUM_QUERIES; q++)
+            {
+                float planes[] = randomPlanes(g, bounds, random);
+                Set<Integer> expected = new TreeSet<Integer>();
+                for (int i = 0; i < g.getNumPoints(); i++)
+                {
+                    if (!isOutside(planes, extents, i * 6))
+                    {
+                        expected.add(i);
+                    }
+                }
+                Set<Integer> actual = new TreeSet<Integer>();
+                index.queryFrustum(planes, i -> assertTrue(actual.add(i)));
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryRadius()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 2);
+        float bounds[] = GaussianClouds.statistics(g).getBounds();
+        float size = bounds[3] - bounds[0];
+        Random random = new Random(0);
+        for (boolean usingExtents : new boolean[] { false, true })
+        {
+            SpatialIndex index = createIndex(g, usingExtents);
+            float extents[] = computeExtents(g, usingExtents);
+            for (int q = 0; q < NUM_QUERIES; q++)
+            {
+                float point[] = randomPoint(g, bounds, random);
+                float radius = random.nextFloat() * size * 0.25f;
+                Set<Integer> expected = new TreeSet<Integer>();
+                for (int i = 0; i < g.getNumPoints(); i++)
+                {
+                    if (minDistanceSquared(point, extents, i * 6)
+                        <= radius * radius)
+                    {
+                        expected.add(i);
+                    }
+                }
+                Set<Integer> actual = new TreeSet<Integer>();
+                index.queryRadius(point, radius,
+                    i -> assertTrue(actual.add(i)));
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryNearest()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 0, 3);
+        float bounds[] = GaussianClouds.statistics(g).getBounds();
+        float positions[] = computeExtents(g, false);
+        Random random = new Random(0);
+        for (boolean usingExtents : new boolean[] { false, true })
+        {
+            SpatialIndex index = createIndex(g, usingExtents);
+            for (int q = 0; q < NUM_QUERIES; q++)
+            {
+                float point[] = randomPoint(g, bounds, random);
+                int k = 1 + random.nextInt(100);
+
+                // Sort the distances and indices of all points, and take
+                // the first k of them
+                long keys[] = new long[g.getNumPoints()];
+                for (int i = 0; i < g.getNumPoints(); i++)
+                {
+                    float d2 = minDistanceSquared(point, positions, i * 6);
+                    keys[i] = ((long) Float.floatToIntBits(d2) << 32) | i;
+                }
+                Arrays.sort(keys);
+                int expected[] = new int[k];
+                for (int i = 0; i < k; i++)
+                {
+                    expected[i] = (int) keys[i];
+                }
+
+                int actual[] = new int[k];
+                assertEquals(k, index.queryNearest(point, k, actual));
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryNearestWithMorePointsThanAvailable()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(10, 0, 0);
+        SpatialIndex index = SpatialIndexes.create(g);
+        int actual[] = new int[20];
+        Arrays.fill(actual, -1);
+        assertEquals(10, index.queryNearest(new float[3], 20, actual));
+        Set<Integer> indices = new TreeSet<Integer>();
+        for (int i = 0; i < 10; i++)
+        {
+            indices.add(actual[i]);
+        }
+        assertEquals(10, indices.size());
+        assertEquals(-1, actual[10]);
+    }
+
+    @Test
+    public void testEmptyCloud()
+    {
+        GaussianCloud g = GaussianClouds.create(0, 0);
+        for (boolean usingExtents : new boolean[] { false, true })
+        {
+            SpatialIndex index = createIndex(g, usingExtents);
+            assertEquals(0, index.getNumPoints());
+            float min[] = { -1.0f, -1.0f, -1.0f };
+            float max[] = { 1.0f, 1.0f, 1.0f };
+            index.queryBox(min, max, i -> fail());
+            index.queryFrustum(new float[4], i -> fail());
+            index.queryRadius(min, 10.0f, i -> fail());
+            assertEquals(0, index.queryNearest(min, 5, new int[5]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryFrustumWithInvalidPlanes()
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(10, 0, 0);
+        SpatialIndexes.create(g).queryFrustum(new float[5], i -> fail());
+    }
+
+    /**
+     * Creates a {@link SpatialIndex} for the given {@link GaussianCloud}
+     *
+     * @param g The {@link GaussianCloud}
+     * @param usingExtents Whether the index should use the extents
+     * @return The {@link SpatialIndex}
+     */
+    private static SpatialIndex createIndex(GaussianCloud g,
+        boolean usingExtents)
+    {
+        SpatialIndex index;
+        if (usingExtents)
+        {
+            index = SpatialIndexes.createWithExtents(g);
+        }
+        else
+        {
+            index = SpatialIndexes.create(g);
+        }
+        assertEquals(g.getNumPoints(), index.getNumPoints());
+        assertEquals(usingExtents, index.isUsingExtents());
+        return index;
+    }
+
+    /**
+     * Compute the boxes that are tested in the brute-force search. When the
+     * extents are used, then these are the extents of the splats. Otherwise,
+     * these are empty boxes at the positions of the points.
+     *
+     * @param g The {@link GaussianCloud}
+     * @param usingExtents Whether the extents are used
+     * @return The boxes, as 6 elements (min, max) for each point
+     */
+    private static float[] computeExtents(GaussianCloud g,
+        boolean usingExtents)
+    {
+        int n = g.getNumPoints();
+        FloatBuffer positions = g.getPositions();
+        float result[] = new float[n * 6];
+        for (int i = 0; i < n; i++)
+        {
+            if (usingExtents)
+            {
+                SplatExtents.compute(positions, g.getScales(),
+                    g.getRotations(), i, result, i * 6);
+            }
+            else
+            {
+                for (int j = 0; j < 3; j++)
+                {
+                    result[i * 6 + j] = positions.get(i * 3 + j);
+                    result[i * 6 + 3 + j] = positions.get(i * 3 + j);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a random point near a random point of the given
+     * {@link GaussianCloud}
+     *
+     * @param g The {@link GaussianCloud}
+     * @param bounds The bounds of the positions, as (minX, minY, minZ, maxX,
+     *        maxY, maxZ)
+     * @param random The random number generator
+     * @return The point
+     */
+    private static float[] randomPoint(GaussianCloud g, float bounds[],
+        Random random)
+    {
+        int i = random.nextInt(g.getNumPoints());
+        float result[] = new float[3];
+        for (int j = 0; j < 3; j++)
+        {
+            float size = bounds[3 + j] - bounds[j];
+            float offset = (random.nextFloat() * 2.0f - 1.0f) * size * 0.05f;
+            result[j] = g.getPositions().get(i * 3 + j) + offset;
+        }
+        return result;
+    }
+
+    /**
+     * Creates 6 planes with random orientations, that contain a random
+     * point near a random point of the given {@link GaussianCloud}
+     *
+     * @param g The {@link GaussianCloud}
+     * @param bounds The bounds of the positions, as (minX, minY, minZ, maxX,
+     *        maxY, maxZ)
+     * @param random The random number generator
+     * @return The planes, as 4 elements (a, b, c, d) for each plane
+     */
+    private static float[] randomPlanes(GaussianCloud g, float bounds[],
+        Random random)
+    {
+        float center[] = randomPoint(g, bounds, random);
+        float size = bounds[3] - bounds[0];
+        float planes[] = new float[24];
+        for (int p = 0; p < 6; p++)
+        {
+            float n[] = new float[3];
+            float length = 0.0f;
+            for (int j = 0; j < 3; j++)
+            {
+                n[j] = random.nextFloat() * 2.0f - 1.0f;
+                length += n[j] * n[j];
+            }
+            length = (float) Math.sqrt(length);
+
+            // The plane points towards the center, and has a random
+            // distance to it
+            float distance = random.nextFloat() * size * 0.5f;
+            float dot = 0.0f;
+            for (int j = 0; j < 3; j++)
+            {
+                n[j] /= length;
+                dot += n[j] * center[j];
+                planes[p * 4 + j] = n[j];
+            }
+            planes[p * 4 + 3] = distance - dot;
+        }
+        return planes;
+    }
+
+    /**
+     * Returns whether the specified box intersects the given box
+     *
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @param min The minimum of the other box
+     * @param max The maximum of the other box
+     * @return Whether the boxes intersect
+     */
+    private static boolean intersects(float boxes[], int b, float min[],
+        float max[])
+    {
+        for (int j = 0; j < 3; j++)
+        {
+            if (boxes[b + j] > max[j] || boxes[b + 3 + j] < min[j])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the specified box is completely outside of one of the
+     * given planes, by checking all corners of the box
+     *
+     * @param planes The planes
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return Whether the box is outside
+     */
+    private static boolean isOutside(float planes[], float boxes[], int b)
+    {
+        for (int i = 0; i < planes.length; i += 4)
+        {
+            boolean outside = true;
+            for (int c = 0; c < 8; c++)
+            {
+                float x = boxes[b + ((c & 1) == 0 ? 0 : 3)];
+                float y = boxes[b + ((c & 2) == 0 ? 1 : 4)];
+                float z = boxes[b + ((c & 4) == 0 ? 2 : 5)];
+                float d = planes[i] * x + planes[i + 1] * y
+                    + planes[i + 2] * z + planes[i + 3];
+                if (d >= 0.0f)
+                {
+                    outside = false;
+                }
+            }
+            if (outside)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the squared distance between the given point and the nearest
+     * point of the specified box
+     *
+     * @param point The point
+     * @param boxes The boxes
+     * @param b The offset of the box in the boxes
+     * @return The squared distance
+     */
+    private static float minDistanceSquared(float point[], float boxes[],
+        int b)
+    {
+        float result = 0.0f;
+        for (int j = 0; j < 3; j++)
+        {
+            float below = boxes[b + j] - point[j];
+            float above = point[j] - boxes[b + 3 + j];
+            float d = Math.max(0.0f, Math.max(below, above));
+            result += d * d;
+        }
+        return result;
+    }
+}
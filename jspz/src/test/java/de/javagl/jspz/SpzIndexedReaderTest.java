@@ -0,0 +1,322 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link SpzIndexedReader}, comparing the results of reading
+ * ranges of points to the results of the {@link DefaultSpzReader}
+ */
+@SuppressWarnings("javadoc")
+public class SpzIndexedReaderTest
+{
+    /**
+     * The number of points of the test cloud
+     */
+    private static final int NUM_POINTS = 10000;
+
+    /**
+     * The block size for the indexed files. This is chosen so that the last
+     * block is only partially filled.
+     */
+    private static final int BLOCK_SIZE = 777;
+
+    /**
+     * The folder for the SPZ files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRead() throws IOException
+    {
+        for (int version : new int[] { 2, 3 })
+        {
+            Path file = write(version, BLOCK_SIZE);
+            GaussianCloud expected = readDefault(file, new SpzReaderOptions());
+            try (SpzIndexedReader reader = SpzIndexedReader.open(file))
+            {
+                assertTrue(reader.isIndexed());
+                assertEquals(BLOCK_SIZE, reader.getBlockSize());
+                assertEquals(version, reader.getVersion());
+                assertEquals(NUM_POINTS, reader.getNumPoints());
+                assertEquals(3, reader.getShDegree());
+                GaussianCloud actual = reader.read();
+                assertRange(expected, 0, actual, allSections());
+            }
+        }
+    }
+
+    @Test
+    public void testReadRanges() throws IOException
+    {
+        Path file = write(3, BLOCK_SIZE);
+        GaussianCloud expected = readDefault(file, new SpzReaderOptions());
+        Random random = new Random(0);
+        try (SpzIndexedReader reader = SpzIndexedReader.open(file))
+        {
+            // Empty ranges, single points, and ranges at the block
+            // boundaries, followed by random ranges
+            int ranges[][] =
+            {
+                { 0, 0 },
+                { NUM_POINTS, NUM_POINTS },
+                { 0, 1 },
+                { NUM_POINTS - 1, NUM_POINTS },
+                { BLOCK_SIZE - 1, BLOCK_SIZE + 1 },
+                { BLOCK_SIZE, 2 * BLOCK_SIZE },
+                { 0, BLOCK_SIZE },
+                { NUM_POINTS - NUM_POINTS % BLOCK_SIZE, NUM_POINTS } };
+            for (int range[] : ranges)
+            {
+                GaussianCloud actual = reader.read(range[0], range[1]);
+                assertEquals(range[1] - range[0], actual.getNumPoints());
+                assertRange(expected, range[0], actual, allSections());
+            }
+            for (int t = 0; t < 50; t++)
+            {
+                int a = random.nextInt(NUM_POINTS + 1);
+                int b = random.nextInt(NUM_POINTS + 1);
+                int start = Math.min(a, b);
+                int end = Math.max(a, b);
+                GaussianCloud actual = reader.read(start, end);
+                assertEquals(end - start, actual.getNumPoints());
+                assertRange(expected, start, actual, allSections());
+            }
+        }
+    }
+
+    @Test
+    public void testReadSections() throws IOException
+    {
+        Path file = write(3, BLOCK_SIZE);
+        GaussianCloud expected = readDefault(file, new SpzReaderOptions());
+        try (SpzIndexedReader reader = SpzIndexedReader.open(file))
+        {
+            for (SpzSection section : SpzSection.values())
+            {
+                Set<SpzSection> sections = EnumSet.of(section);
+                GaussianCloud actual = reader.read(1000, 5000, sections);
+                assertRange(expected, 1000, actual, sections);
+                for (SpzSection other : EnumSet.complementOf(
+                    EnumSet.of(section)))
+                {
+                    FloatBuffer buffer = getBuffer(actual, other);
+                    for (int i = 0; i < buffer.capacity(); i++)
+                    {
+                        assertEquals(0.0f, buffer.get(i), 0.0f);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadWithOptions() throws IOException
+    {
+        Path file = write(3, BLOCK_SIZE);
+        SpzReaderOptions options = new SpzReaderOptions();
+        options.setMaxShDegree(1);
+        options.setCoordinateConversion(CoordinateSystem.RDF,
+            CoordinateSystem.RUB);
+        GaussianCloud expected = readDefault(file, options);
+        try (SpzIndexedReader reader = SpzIndexedReader.open(file, options))
+        {
+            GaussianCloud actual = reader.read(123, 4567);
+            assertEquals(1, actual.getShDegree());
+            assertRange(expected, 123, actual, allSections());
+        }
+    }
+
+    @Test
+    public void testReadWithoutIndex() throws IOException
+    {
+        Path file = write(3, 0);
+        GaussianCloud expected = readDefault(file, new SpzReaderOptions());
+        try (SpzIndexedReader reader = SpzIndexedReader.open(file))
+        {
+            assertFalse(reader.isIndexed());
+            assertEquals(0, reader.getBlockSize());
+            assertRange(expected, 0, reader.read(), allSections());
+            GaussianCloud actual = reader.read(2000, 3000);
+            assertRange(expected, 2000, actual, allSections());
+        }
+    }
+
+    @Test
+    public void testIndexedFileCanBeReadByDefaultReader() throws IOException
+    {
+        Path indexed = write(3, BLOCK_SIZE);
+        Path plain = write(3, 0);
+        GaussianCloud expected = readDefault(plain, new SpzReaderOptions());
+        GaussianCloud actual = readDefault(indexed, new SpzReaderOptions());
+        assertRange(expected, 0, actual, allSections());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadInvalidRange() throws IOException
+    {
+        Path file = write(3, BLOCK_SIZE);
+        try (SpzIndexedReader reader = SpzIndexedReader.open(file))
+        {
+            reader.read(10, NUM_POINTS + 1);
+        }
+    }
+
+    /**
+     * Write a synthetic {@link GaussianCloud} into a new SPZ file
+     *
+     * @param version The SPZ version
+     * @param blockSize The index block size, or 0 for a file without index
+     * @return The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    private Path write(int version, int blockSize) throws IOException
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(NUM_POINTS, 3, 0);
+        SpzWriterOptions options = new SpzWriterOptions();
+        options.setVersion(version);
+        options.setIndexBlockSize(blockSize);
+        Path file = folder.newFile().toPath();
+        try (OutputStream outputStream = Files.newOutputStream(file))
+        {
+            SpzWriters.create(options).write(g, outputStream);
+        }
+        return file;
+    }
+
+    /**
+     * Read the given SPZ file with a {@link DefaultSpzReader}
+     *
+     * @param file The file
+     * @param options The {@link SpzReaderOptions}
+     * @return The {@link GaussianCloud}
+     * @throws IOException If an IO error occurs
+     */
+    private static GaussianCloud readDefault(Path file,
+        SpzReaderOptions options) throws IOException
+    {
+        try (InputStream inputStream = Files.newInputStream(file))
+        {
+            return new DefaultSpzReader(options).read(inputStream);
+        }
+    }
+
+    /**
+     * Assert that the given sections of the given actual cloud are equal to
+     * the corresponding range of points of the given expected cloud
+     *
+     * @param expected The expected {@link GaussianCloud}
+     * @param start The index of the first point in the expected cloud
+     * @param actual The actual {@link GaussianCloud}
+     * @param sections The sections to compare
+     */
+    private static void assertRange(GaussianCloud expected, int start,
+        GaussianCloud actual, Set<SpzSection> sections)
+    {
+        assertEquals(expected.getShDegree(), actual.getShDegree());
+        assertEquals(expected.isAntialiased(), actual.isAntialiased());
+        int n = actual.getNumPoints();
+        assertTrue(start + n <= expected.getNumPoints());
+        for (SpzSection section : sections)
+        {
+            FloatBuffer e = getBuffer(expected, section);
+            FloatBuffer a = getBuffer(actual, section);
+            int size = getSize(expected, section);
+            assertEquals(n * size, a.capacity());
+            for (int i = 0; i < n * size; i++)
+            {
+                assertEquals(e.get(start * size + i), a.get(i), 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer of the given {@link GaussianCloud} that contains
+     * the data of the given section
+     *
+     * @param g The {@link GaussianCloud}
+     * @param section The {@link SpzSection}
+     * @return The buffer
+     */
+    private static FloatBuffer getBuffer(GaussianCloud g, SpzSection section)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                return g.getPositions();
+            case ALPHAS:
+                return g.getAlphas();
+            case COLORS:
+                return g.getColors();
+            case SCALES:
+                return g.getScales();
+            case ROTATIONS:
+                return g.getRotations();
+            case SH:
+                return g.getSh();
+            default:
+                break;
+        }
+        throw new IllegalStateException("Invalid section: " + section);
+    }
+
+    /**
+     * Returns the number of elements of the given section for each point
+     *
+     * @param g The {@link GaussianCloud}
+     * @param section The {@link SpzSection}
+     * @return The number of elements
+     */
+    private static int getSize(GaussianCloud g, SpzSection section)
+    {
+        switch (section)
+        {
+            case POSITIONS:
+                return 3;
+            case ALPHAS:
+                return 1;
+            case COLORS:
+                return 3;
+            case SCALES:
+                return 3;
+            case ROTATIONS:
+                return 4;
+            case SH:
+                return SpzUtils.dimensionsForDegree(g.getShDegree()) * 3;
+            default:
+                break;
+        }
+        throw new IllegalStateException("Invalid section: " + section);
+    }
+
+    /**
+     * Returns a set containing all sections
+     *
+     * @return The sections
+     */
+    private static Set<SpzSection> allSections()
+    {
+        return EnumSet.allOf(SpzSection.class);
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * www.javagl.de - JSpz
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.jspz;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link SpzSpeculativeReader} and the {@link DeflateDecoder},
+ * comparing their results to the results of <code>java.util.zip</code>
+ */
+@SuppressWarnings("javadoc")
+public class SpzSpeculativeReaderTest
+{
+    /**
+     * The chunk length that is used for the speculative decompression
+     */
+    private static final int CHUNK_LENGTH = DeflateDecoder.WINDOW_SIZE;
+
+    /**
+     * The length of the gzip header that is written by {@link #gzip}
+     */
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    @Test
+    public void testDecodeStoredBlocks() throws DataFormatException
+    {
+        byte input[] = createRandomData(100000, new Random(0));
+        byte deflated[] = deflate(input, Deflater.NO_COMPRESSION);
+
+        Set<Integer> types = new TreeSet<Integer>();
+        assertArrayEquals(input, decode(deflated, types));
+        assertTrue(types.contains(0));
+    }
+
+    @Test
+    public void testDecodeFixedBlocks() throws DataFormatException
+    {
+        byte input[] = "Fixed Huffman codes, fixed Huffman codes"
+            .getBytes(StandardCharsets.US_ASCII);
+        byte deflated[] = deflate(input, Deflater.DEFAULT_COMPRESSION);
+
+        Set<Integer> types = new TreeSet<Integer>();
+        assertArrayEquals(input, decode(deflated, types));
+        assertTrue(types.contains(1));
+    }
+
+    @Test
+    public void testDecodeDynamicBlocks() throws DataFormatException
+    {
+        byte input[] = createTextData(1 << 20, new Random(0));
+        for (int level : new int[] { 1, 6, 9 })
+        {
+            byte deflated[] = deflate(input, level);
+
+            Set<Integer> types = new TreeSet<Integer>();
+            assertArrayEquals(input, decode(deflated, types));
+            assertTrue(types.contains(2));
+        }
+    }
+
+    @Test
+    public void testDecodeMixedBlocks() throws DataFormatException
+    {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        byte deflated[] = deflateMixed(input, 20, new Random(0));
+
+        Set<Integer> types = new TreeSet<Integer>();
+        assertArrayEquals(input.toByteArray(), decode(deflated, types));
+        assertTrue(types.contains(0));
+        assertTrue(types.contains(1));
+        assertTrue(types.contains(2));
+    }
+
+    @Test
+    public void testInflateDynamicBlocks() throws IOException
+    {
+        byte input[] = createTextData(1 << 22, new Random(0));
+        for (int level : new int[] { 1, 6, 9 })
+        {
+            byte data[] = gzip(input, deflate(input, level));
+
+            byte result[] = SpzSpeculativeReader.inflate(data, CHUNK_LENGTH);
+            assertNotNull(result);
+            assertArrayEquals(gunzip(data), result);
+        }
+    }
+
+    @Test
+    public void testInflateMixedBlocks() throws IOException
+    {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        byte deflated[] = deflateMixed(input, 200, new Random(0));
+        byte data[] = gzip(input.toByteArray(), deflated);
+
+        byte result[] = SpzSpeculativeReader.inflate(data, CHUNK_LENGTH);
+        assertNotNull(result);
+        assertArrayEquals(gunzip(data), result);
+    }
+
+    @Test
+    public void testInflateMergesChunksAtFalseBlockStarts() throws IOException
+    {
+        byte input[] = createTextData(1 << 22, new Random(0));
+        byte data[] = gzip(input, deflate(input, 6));
+        int end = data.length;
+        long first = GZIP_HEADER_LENGTH * 8L;
+        long quarter = (long) end * 8 / 4;
+        long real = DeflateDecoder.findBlockStart(data, end, quarter * 2,
+            quarter * 3, Integer.MAX_VALUE - 8);
+        assertTrue(real > 0);
+
+        // Positions that are not actual block starts are skipped by the
+        // chunk that precedes them
+        long starts[] = { first, quarter + 3, real, real + 1000 };
+        byte result[] = SpzSpeculativeReader.inflate(data, starts);
+        assertNotNull(result);
+        assertArrayEquals(gunzip(data), result);
+    }
+
+    @Test
+    public void testReadSpz() throws IOException
+    {
+        GaussianCloud g = GaussianClouds.createSynthetic(100000, 3, 0);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SpzWriters.createDefault().write(g, baos);
+        byte data[] = baos.toByteArray();
+
+        byte result[] = SpzSpeculativeReader.inflate(data, CHUNK_LENGTH);
+        assertNotNull(result);
+        assertArrayEquals(gunzip(data), result);
+
+        SpzSpeculativeReader reader = new SpzSpeculativeReader();
+        reader.setChunkLength(CHUNK_LENGTH);
+        GaussianCloud actual = reader.read(new ByteArrayInputStream(data));
+        GaussianCloud expected = SpzReaders.createDefault()
+            .read(new ByteArrayInputStream(data));
+        assertEquals(expected.getNumPoints(), actual.getNumPoints());
+        assertEquals(expected.getPositions(), actual.getPositions());
+        assertEquals(expected.getScales(), actual.getScales());
+        assertEquals(expected.getRotations(), actual.getRotations());
+        assertEquals(expected.getAlphas(), actual.getAlphas());
+        assertEquals(expected.getColors(), actual.getColors());
+        assertEquals(expected.getSh(), actual.getSh());
+    }
+
+    /**
+     * Decode the given raw deflate data with a {@link DeflateDecoder},
+     * starting at the first block
+     *
+     * @param deflated The deflate data
+     * @param types Will receive the types of all blocks
+     * @return The decoded data
+     * @throws DataFormatException If the data is not valid
+     */
+    private static byte[] decode(byte deflated[], Set<Integer> types)
+        throws DataFormatException
+    {
+        DeflateDecoder decoder = new DeflateDecoder(deflated,
+            deflated.length, Integer.MAX_VALUE - 8);
+        decoder.setPosition(0);
+        boolean finalBlock = false;
+        while (!finalBlock)
+        {
+            types.add(blockType(deflated, decoder.getPosition()));
+            finalBlock = decoder.decodeBlock(false);
+        }
+        byte result[] = new byte[decoder.getOutputLength()];
+        DeflateDecoder.resolve(decoder.getOutput(), 0, result.length,
+            new byte[DeflateDecoder.WINDOW_SIZE], result, 0);
+        return result;
+    }
+
+    /**
+     * Returns the type of the deflate block that starts at the given bit
+     * position: 0 for stored blocks, 1 for fixed Huffman codes, and 2 for
+     * dynamic Huffman codes.
+     *
+     * @param data The data
+     * @param bitPosition The bit position
+     * @return The block type
+     */
+    private static int blockType(byte data[], long bitPosition)
+    {
+        int index = (int) (bitPosition >>> 3);
+        int bits = data[index] & 0xFF;
+        if (index + 1 < data.length)
+        {
+            bits |= (data[index + 1] & 0xFF) << 8;
+        }
+        return (bits >>> ((bitPosition & 7) + 1)) & 3;
+    }
+
+    /**
+     * Create raw deflate data with the given level
+     *
+     * @param input The input
+     * @param level The compression level
+     * @return The deflate data
+     */
+    private static byte[] deflate(byte input[], int level)
+    {
+        Deflater deflater = new Deflater(level, true);
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte buffer[] = new byte[1 << 16];
+        while (!deflater.finished())
+        {
+            int n = deflater.deflate(buffer);
+            output.write(buffer, 0, n);
+        }
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    /**
+     * Create raw deflate data that contains stored blocks, blocks with
+     * fixed Huffman codes and blocks with dynamic Huffman codes.
+     *
+     * The data consists of the given number of segments, each consisting of
+     * compressible text, followed by a short text that is compressed with
+     * fixed Huffman codes, and for every fifth segment, followed by random
+     * data that is stored without compression.
+     *
+     * @param input Will receive the uncompressed data
+     * @param numSegments The number of segments
+     * @param random The random number generator
+     * @return The deflate data
+     */
+    private static byte[] deflateMixed(ByteArrayOutputStream input,
+        int numSegments, Random random)
+    {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < numSegments; i++)
+        {
+            deflater.setLevel(Deflater.DEFAULT_COMPRESSION);
+            flush(deflater, createTextData(30000, random), input, output);
+            flush(deflater, createTextData(40, random), input, output);
+            if (i % 5 == 0)
+            {
+                deflater.setLevel(Deflater.NO_COMPRESSION);
+                flush(deflater, createRandomData(20000, random), input,
+                    output);
+            }
+        }
+        deflater.finish();
+        byte buffer[] = new byte[1 << 16];
+        while (!deflater.finished())
+        {
+            int n = deflater.deflate(buffer);
+            output.write(buffer, 0, n);
+        }
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    /**
+     * Pass the given data to the given deflater, and write all resulting
+     * data to the given output, using a sync flush
+     *
+     * @param deflater The deflater
+     * @param data The data
+     * @param input Will receive the uncompressed data
+     * @param output Will receive the compressed data
+     */
+    private static void flush(Deflater deflater, byte data[],
+        ByteArrayOutputStream input, ByteArrayOutputStream output)
+    {
+        input.write(data, 0, data.length);
+        deflater.setInput(data);
+        byte buffer[] = new byte[1 << 16];
+        while (true)
+        {
+            int n = deflater.deflate(buffer, 0, buffer.length,
+                Deflater.SYNC_FLUSH);
+            output.write(buffer, 0, n);
+            if (n < buffer.length)
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Wrap the given deflate data into a gzip member
+     *
+     * @param input The uncompressed data
+     * @param deflated The deflate data
+     * @return The gzip data
+     */
+    private static byte[] gzip(byte input[], byte deflated[])
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(new byte[] { 0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, 0 },
+            0, GZIP_HEADER_LENGTH);
+        output.write(deflated, 0, deflated.length);
+        CRC32 crc = new CRC32();
+        crc.update(input, 0, input.length);
+        writeInt(output, (int) crc.getValue());
+        writeInt(output, input.length);
+        return output.toByteArray();
+    }
+
+    /**
+     * Write the given value as a little endian 32 bit value
+     *
+     * @param output The output
+     * @param value The value
+     */
+    private static void writeInt(ByteArrayOutputStream output, int value)
+    {
+        output.write(value & 0xFF);
+        output.write((value >>> 8) & 0xFF);
+        output.write((value >>> 16) & 0xFF);
+        output.write((value >>> 24) & 0xFF);
+    }
+
+    /**
+     * Decompress the given gzip data with a <code>GZIPInputStream</code>
+     *
+     * @param data The gzip data
+     * @return The uncompressed data
+     * @throws IOException If an IO error occurs
+     */
+    private static byte[] gunzip(byte data[]) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream inputStream =
+            new GZIPInputStream(new ByteArrayInputStream(data)))
+        {
+            byte buffer[] = new byte[1 << 16];
+            while (true)
+            {
+                int n = inputStream.read(buffer);
+                if (n < 0)
+                {
+                    break;
+                }
+                output.write(buffer, 0, n);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Create compressible data that consists of random words
+     *
+     * @param length The length of the data
+     * @param random The random number generator
+     * @return The data
+     */
+    private static byte[] createTextData(int length, Random random)
+    {
+        String words[] = { "gaussian ", "splat ", "position ", "scale ",
+            "rotation ", "alpha ", "color ", "harmonics ", "\n" };
+        byte data[] = new byte[length];
+        int offset = 0;
+        while (offset < length)
+        {
+            byte word[] = words[random.nextInt(words.length)]
+                .getBytes(StandardCharsets.US_ASCII);
+            int n = Math.min(word.length, length - offset);
+            System.arraycopy(word, 0, data, offset, n);
+            offset += n;
+        }
+        return data;
+    }
+
+    /**
+     * Create random data that can not be compressed
+     *
+     * @param length The length of the data
+     * @param random The random number generator
+     * @return The data
+     */
+    private static byte[] createRandomData(int length, Random random)
+    {
+        byte data[] = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+}